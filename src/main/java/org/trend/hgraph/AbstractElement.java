@@ -19,7 +19,6 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.apache.hadoop.hbase.client.Result;
-import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,7 +33,7 @@ public abstract class AbstractElement implements Element {
   private final Graph graph;
 
   private String id;
-  private Properties properties = new Properties();
+  private Properties properties;
 
   private static Logger LOG = LoggerFactory.getLogger(AbstractElement.class);
 
@@ -48,15 +47,22 @@ public abstract class AbstractElement implements Element {
     this.extractValues(result);
   }
 
+  /**
+   * @param id the id to use instead of the rowkey of given <code>Result</code>
+   * @param result
+   * @param graph
+   */
+  protected AbstractElement(String id, Result result, Graph graph) {
+    this(result, graph);
+    this.id = id;
+  }
+
   private void extractValues(Result r) {
-    this.id = Bytes.toString(r.getRow());
-    if (r.isEmpty()) return;
-    try {
-      this.properties.addProperty(r);
-    } catch (UnsupportedDataTypeException e) {
-      LOG.error("proerties.addProperty failed", e);
-      throw new RuntimeException(e);
-    }
+    // no row for the projected reads matching no cells, the id is set by the caller
+    byte[] row = r.getRow();
+    this.id = null == row ? null : this.graph.toId(row);
+    // properties are decoded on demand
+    this.properties = new Properties(r);
   }
 
   /**
@@ -102,38 +108,32 @@ public abstract class AbstractElement implements Element {
     return this.properties.getCount();
   }
 
-  /*
-   * (non-Javadoc)
-   * @see com.tinkerpop.blueprints.Element#remove()
-   */
-  @Override
-  public void remove() {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
-  }
-
-  /*
-   * (non-Javadoc)
+  /**
+   * Remove the property and buffer the delete of its cell, see {@link Graph#getWriteBuffer()}.
    * @see com.tinkerpop.blueprints.Element#removeProperty(java.lang.String)
    */
   @SuppressWarnings("unchecked")
   @Override
   public <T> T removeProperty(String key) {
-    return (T) this.properties.removeProperty(key);
+    Object oldValue = this.properties.removeProperty(key);
+    if (null != oldValue) this.graph.writeProperty(this, key, null, oldValue);
+    return (T) oldValue;
   }
 
-  /*
-   * (non-Javadoc)
+  /**
+   * Set the property and buffer the write of its cell, see {@link Graph#getWriteBuffer()}.
    * @see com.tinkerpop.blueprints.Element#setProperty(java.lang.String, java.lang.Object)
    */
   @Override
   public void setProperty(String key, Object value) {
+    Object oldValue = null;
     try {
-      this.properties.setProperty(key, value);
+      oldValue = this.properties.setProperty(key, value);
     } catch (UnsupportedDataTypeException e) {
       LOG.error("properties.setProperty failed", e);
       throw new RuntimeException(e);
     }
+    this.graph.writeProperty(this, key, value, oldValue);
   }
 
   /*
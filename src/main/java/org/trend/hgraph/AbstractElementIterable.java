@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Base class for the element iterables backed by a <code>ResultScanner</code>, the elements are
+ * usually the <code>Vertex</code>s or <code>Edge</code>s built from the rows.
+ * <p>
+ * The scanner and its table are released once the iterator is exhausted, callers stop iterating
+ * early shall call {@link #close()}, e.g. in a <code>finally</code> block. The open scanners are
+ * counted by {@link Graph#getOpenScannerCount()} for detecting the leaks.
+ * <p>
+ * The partial <code>Result</code>s of one row, returned when {@link ScanProfile#setBatch(int)} is
+ * set, are merged back into one element.
+ * @author scott_miao
+ */
+public abstract class AbstractElementIterable<T> implements Iterable<T>, Closeable {
+
+  private final Graph graph;
+  private final HTableInterface table;
+  private final ResultScanner rs;
+  private boolean closed = false;
+
+  /**
+   * @param table
+   * @param rs
+   * @param graph
+   */
+  protected AbstractElementIterable(HTableInterface table, ResultScanner rs, Graph graph) {
+    super();
+    Validate.notNull(table, "table shall always not be null");
+    Validate.notNull(rs, "rs shall always not be null");
+    Validate.notNull(graph, "graph shall always not be null");
+    this.table = table;
+    this.rs = rs;
+    this.graph = graph;
+    this.graph.scannerOpened();
+  }
+
+  /**
+   * Create the element for given <code>Result</code>.
+   * @param r
+   * @return
+   */
+  protected abstract T newElement(Result r);
+
+  protected Graph getGraph() {
+    return graph;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    final Iterator<Result> r = this.rs.iterator();
+    return new Iterator<T>() {
+      private Result pending = null;
+
+      @Override
+      public boolean hasNext() {
+        if (closed) return false;
+        if (null != this.pending || r.hasNext()) return true;
+        close();
+        return false;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Result first = null != this.pending ? this.pending : r.next();
+        this.pending = null;
+        List<KeyValue> kvs = null;
+        Result next = null;
+        while (r.hasNext()) {
+          next = r.next();
+          if (!Bytes.equals(first.getRow(), next.getRow())) {
+            this.pending = next;
+            break;
+          }
+          if (null == kvs) kvs = new ArrayList<KeyValue>(Arrays.asList(first.raw()));
+          kvs.addAll(Arrays.asList(next.raw()));
+        }
+        return newElement(null == kvs ? first : new Result(kvs));
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  /**
+   * Close the underlying scanner and return the table, it is safe to call it more than once.
+   */
+  @Override
+  public synchronized void close() {
+    if (this.closed) return;
+    this.closed = true;
+    try {
+      this.rs.close();
+    } finally {
+      this.graph.returnTable(this.table);
+      this.graph.scannerClosed();
+    }
+  }
+
+  /**
+   * @return whether the underlying scanner is closed
+   */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+}
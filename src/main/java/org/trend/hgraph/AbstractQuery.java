@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.activation.UnsupportedDataTypeException;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FilterList.Operator;
+import org.apache.hadoop.hbase.filter.PageFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Query.Compare;
+
+/**
+ * Base class for the queries, holds the property predicates and the limit.
+ * <p>
+ * The predicates are compiled into a <code>FilterList</code> evaluated by the region servers, and
+ * re-checked on the client by {@link #isLegal(Element)}. A predicate not fully expressible as a
+ * filter, e.g. a range on a number possibly written in its string form by <code>ImportTsv</code>,
+ * is pushed down as a looser filter or not at all. The limit is pushed down as a
+ * <code>PageFilter</code> only if all predicates are exact, otherwise the client-side re-check
+ * might drop the rows counted by it.
+ * @author scott_miao
+ */
+public abstract class AbstractQuery {
+
+  private static final byte[] PROPERTY_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  private final List<HasContainer> hasContainers = new ArrayList<HasContainer>();
+  private long limit = Long.MAX_VALUE;
+
+  protected void addHas(String key, Compare compare, Object value) {
+    Validate.notEmpty(key, "key shall always not be null or empty");
+    Validate.notNull(compare, "compare shall always not be null");
+    this.hasContainers.add(new HasContainer(key, compare, value));
+  }
+
+  protected void addInterval(String key, Object startValue, Object endValue) {
+    this.addHas(key, Compare.GREATER_THAN_EQUAL, startValue);
+    this.addHas(key, Compare.LESS_THAN, endValue);
+  }
+
+  protected void setLimit(long limit) {
+    Validate.isTrue(limit >= 0, "limit shall always not be negative");
+    this.limit = limit;
+  }
+
+  /**
+   * @return max number of elements to return, <code>Long.MAX_VALUE</code> if not limited
+   */
+  public long getLimit() {
+    return this.limit;
+  }
+
+  /**
+   * Build the filter to run on the region servers.
+   * @return <code>null</code> if nothing to push down
+   */
+  protected Filter buildFilter() {
+    FilterList filters = new FilterList(Operator.MUST_PASS_ALL);
+    boolean exact = true;
+    Filter filter = null;
+    int count = 0;
+    for (HasContainer has : this.hasContainers) {
+      filter = has.toFilter();
+      if (null != filter) {
+        filters.addFilter(filter);
+        count++;
+      }
+      exact = exact && has.isExact();
+    }
+    // PageFilter counts per region, the client still cuts off at the limit
+    if (exact && this.limit != Long.MAX_VALUE) {
+      filters.addFilter(new PageFilter(this.limit));
+      count++;
+    }
+    return count == 0 ? null : filters;
+  }
+
+  /**
+   * Check given element against all predicates.
+   * @param element
+   * @return
+   */
+  protected boolean isLegal(Element element) {
+    for (HasContainer has : this.hasContainers) {
+      if (!has.isLegal(element)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Filter given elements by {@link #isLegal(Element)} and cut them off at the limit.
+   * @param elements
+   * @return
+   */
+  protected <T extends Element> Iterable<T> filter(Iterable<T> elements) {
+    return new FilteredIterable<T>(elements, this);
+  }
+
+  /**
+   * Cut given elements off at the limit, for the ones already filtered.
+   * @param elements
+   * @return
+   */
+  protected <T> Iterable<T> cutOff(Iterable<T> elements) {
+    return new FilteredIterable<T>(elements, this);
+  }
+
+  /**
+   * @return whether any predicate is added
+   */
+  protected boolean hasPredicates() {
+    return !this.hasContainers.isEmpty();
+  }
+
+  static class HasContainer {
+    private final String key;
+    private final Compare compare;
+    private final Object value;
+
+    HasContainer(String key, Compare compare, Object value) {
+      super();
+      this.key = key;
+      this.compare = compare;
+      this.value = value;
+    }
+
+    /**
+     * The <code>String</code>s are compared in their UTF-8 bytes on the region servers, which
+     * matches the client-side order for the characters in the BMP.
+     * @return whether {@link #toFilter()} keeps exactly the legal rows
+     */
+    boolean isExact() {
+      return this.value instanceof String;
+    }
+
+    /**
+     * @return a filter keeping all legal rows, <code>null</code> if not able to push down
+     */
+    Filter toFilter() {
+      if (null == this.value) return null;
+      Properties.Pair<byte[], byte[]> pair = null;
+      try {
+        pair = Properties.keyValueToBytes(this.key, this.value);
+      } catch (UnsupportedDataTypeException e) {
+        return null;
+      }
+      if (this.value instanceof String) {
+        return newFilter(pair.key, toCompareOp(this.compare), pair.value,
+          Compare.NOT_EQUAL != this.compare);
+      }
+
+      switch (this.compare) {
+      case EQUAL:
+        // in binary form, or in string form written by ImportTsv
+        FilterList filters = new FilterList(Operator.MUST_PASS_ONE);
+        filters.addFilter(newFilter(pair.key, CompareOp.EQUAL, pair.value, true));
+        filters.addFilter(newFilter(pair.key, CompareOp.EQUAL,
+          Bytes.toBytes(this.value.toString()), true));
+        return filters;
+      case NOT_EQUAL:
+        return null;
+      default:
+        // the column shall exist, any value is greater than or equal to an empty one
+        return newFilter(pair.key, CompareOp.GREATER_OR_EQUAL, new byte[0], true);
+      }
+    }
+
+    private static Filter newFilter(byte[] qualifier, CompareOp op, byte[] value,
+        boolean filterIfMissing) {
+      SingleColumnValueFilter filter =
+          new SingleColumnValueFilter(PROPERTY_FAMILY, qualifier, op, value);
+      filter.setFilterIfMissing(filterIfMissing);
+      filter.setLatestVersionOnly(true);
+      return filter;
+    }
+
+    private static CompareOp toCompareOp(Compare compare) {
+      switch (compare) {
+      case EQUAL:
+        return CompareOp.EQUAL;
+      case NOT_EQUAL:
+        return CompareOp.NOT_EQUAL;
+      case GREATER_THAN:
+        return CompareOp.GREATER;
+      case GREATER_THAN_EQUAL:
+        return CompareOp.GREATER_OR_EQUAL;
+      case LESS_THAN:
+        return CompareOp.LESS;
+      case LESS_THAN_EQUAL:
+        return CompareOp.LESS_OR_EQUAL;
+      default:
+        throw new IllegalArgumentException("compare:" + compare + " is not supported");
+      }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    boolean isLegal(Element element) {
+      Object first = element.getProperty(this.key);
+      Object second = this.value;
+      switch (this.compare) {
+      case EQUAL:
+        return null == first ? null == second : first.equals(second);
+      case NOT_EQUAL:
+        return null == first ? null != second : !first.equals(second);
+      default:
+        if (null == first || null == second) return false;
+        if (first.getClass() != second.getClass() || !(first instanceof Comparable)) return false;
+        int result = ((Comparable) first).compareTo(second);
+        switch (this.compare) {
+        case GREATER_THAN:
+          return result > 0;
+        case GREATER_THAN_EQUAL:
+          return result >= 0;
+        case LESS_THAN:
+          return result < 0;
+        case LESS_THAN_EQUAL:
+          return result <= 0;
+        default:
+          throw new IllegalArgumentException("compare:" + this.compare + " is not supported");
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Column layout of the optional adjacency column family on the vertex rows.
+ * <p>
+ * Each outgoing edge of a vertex is one column <code>&lt;label&gt;--&gt;&lt;dst&gt;</code> of the
+ * family, so the edge id is the vertex id followed by <code>--&gt;</code> and the qualifier, and
+ * the outgoing edges of a vertex, with their properties, are read by one <code>Get</code>. The
+ * value packs the property cells of the edge row, each one as a 2 bytes qualifier length, the
+ * qualifier, a 4 bytes value length and the value.
+ * @author scott_miao
+ * @see HBaseGraphConstants#HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY
+ */
+public class Adjacency {
+
+  public static final byte[] FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME);
+
+  private static final byte[] PROPERTY_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  private Adjacency() {
+    super();
+  }
+
+  /**
+   * @param label
+   * @param dst target vertex id
+   * @return the qualifier of the edge
+   */
+  public static byte[] toQualifier(String label, String dst) {
+    Validate.notEmpty(label, "label shall always not be null or empty");
+    Validate.notEmpty(dst, "dst shall always not be null or empty");
+    return Bytes.toBytes(label + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2 + dst);
+  }
+
+  /**
+   * @param label
+   * @return the qualifier prefix of the edges of given label
+   */
+  public static byte[] getLabelPrefix(String label) {
+    Validate.notEmpty(label, "label shall always not be null or empty");
+    return Bytes.toBytes(label + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2);
+  }
+
+  /**
+   * @param src source vertex id
+   * @param qualifier
+   * @return the edge id of given qualifier
+   */
+  public static String toEdgeId(String src, byte[] qualifier) {
+    return src + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1 + Bytes.toString(qualifier);
+  }
+
+  /**
+   * Get the adjacency column of given edge row, on the row of its source vertex.
+   * @param vertexRow rowkey of the source vertex
+   * @param edgeId
+   * @param edgeRow
+   * @return <code>null</code> if <code>edgeId</code> is not a valid edge id
+   */
+  public static Put toPut(byte[] vertexRow, String edgeId, Result edgeRow) {
+    Validate.notNull(vertexRow, "vertexRow shall always not be null");
+    Validate.notNull(edgeRow, "edgeRow shall always not be null");
+    String[] parts = Edge.split(edgeId);
+    if (null == parts) return null;
+    Put put = new Put(vertexRow);
+    put.add(FAMILY, toQualifier(parts[1], parts[2]), pack(edgeRow));
+    return put;
+  }
+
+  /**
+   * Pack the property cells of given edge row.
+   * @param r
+   * @return
+   */
+  public static byte[] pack(Result r) {
+    Validate.notNull(r, "r shall always not be null");
+    List<KeyValue> kvs = new ArrayList<KeyValue>();
+    int size = 0;
+    if (!r.isEmpty()) {
+      for (KeyValue kv : r.raw()) {
+        if (!Bytes.equals(PROPERTY_FAMILY, kv.getFamily())) continue;
+        kvs.add(kv);
+        size += Bytes.SIZEOF_SHORT + kv.getQualifierLength() + Bytes.SIZEOF_INT
+            + kv.getValueLength();
+      }
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (KeyValue kv : kvs) {
+      buffer.putShort((short) kv.getQualifierLength());
+      buffer.put(kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength());
+      buffer.putInt(kv.getValueLength());
+      buffer.put(kv.getBuffer(), kv.getValueOffset(), kv.getValueLength());
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Unpack given value back to the property cells of an edge row.
+   * @param edgeRow rowkey of the edge
+   * @param value packed by {@link #pack(Result)}
+   * @return
+   */
+  public static Result unpack(byte[] edgeRow, byte[] value) {
+    Validate.notNull(edgeRow, "edgeRow shall always not be null");
+    Validate.notNull(value, "value shall always not be null");
+    List<KeyValue> kvs = new ArrayList<KeyValue>();
+    ByteBuffer buffer = ByteBuffer.wrap(value);
+    byte[] qualifier = null;
+    byte[] v = null;
+    while (buffer.hasRemaining()) {
+      qualifier = new byte[buffer.getShort() & 0xFFFF];
+      buffer.get(qualifier);
+      v = new byte[buffer.getInt()];
+      buffer.get(v);
+      kvs.add(new KeyValue(edgeRow, PROPERTY_FAMILY, qualifier, v));
+    }
+    return new Result(kvs);
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Resolve the <code>Edge</code>s of an edge id stream lazily, each batch with one multi-get.
+ * @author scott_miao
+ * @see BatchVertexIterable
+ */
+class BatchEdgeIterable implements Iterable<com.tinkerpop.blueprints.Edge>, Closeable {
+
+  private Iterable<String> ids;
+  private int batchSize;
+  private Graph graph;
+
+  BatchEdgeIterable(Iterable<String> ids, int batchSize, Graph graph) {
+    super();
+    Validate.notNull(ids, "ids shall always not be null");
+    Validate.isTrue(batchSize > 0, "batchSize shall be greater than 0");
+    Validate.notNull(graph, "graph shall always not be null");
+    this.ids = ids;
+    this.batchSize = batchSize;
+    this.graph = graph;
+  }
+
+  @Override
+  public Iterator<com.tinkerpop.blueprints.Edge> iterator() {
+    final Iterator<String> e = this.ids.iterator();
+    return new Iterator<com.tinkerpop.blueprints.Edge>() {
+
+      private Iterator<Edge> batch = null;
+      private Edge next = null;
+
+      @Override
+      public boolean hasNext() {
+        while (null == this.next) {
+          if (null == this.batch || !this.batch.hasNext()) {
+            if (!e.hasNext()) return false;
+            this.batch = nextBatch(e).iterator();
+          }
+          // skip the edges not found
+          while (null == this.next && this.batch.hasNext()) {
+            this.next = this.batch.next();
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public com.tinkerpop.blueprints.Edge next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Edge edge = this.next;
+        this.next = null;
+        return edge;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  private List<Edge> nextBatch(Iterator<String> e) {
+    List<String> ids = new ArrayList<String>(this.batchSize);
+    while (ids.size() < this.batchSize && e.hasNext()) {
+      ids.add(e.next());
+    }
+    return this.graph.getEdges(ids);
+  }
+
+  @Override
+  public void close() {
+    if (this.ids instanceof Closeable) {
+      try {
+        ((Closeable) this.ids).close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+}
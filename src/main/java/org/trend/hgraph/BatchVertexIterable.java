@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang.Validate;
+
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * Resolve the <code>Vertex</code>s on one side of an <code>Edge</code> stream, or of a vertex id
+ * stream, lazily.
+ * <p>
+ * Edges or ids are pulled from the underlying iterable in fixed-size batches, and each batch is resolved
+ * with one multi-get, so only one batch of vertices is held in memory at a time. Closing it
+ * closes the underlying edges if they are <code>Closeable</code>.
+ * @author scott_miao
+ */
+public class BatchVertexIterable implements Iterable<com.tinkerpop.blueprints.Vertex>, Closeable {
+
+  private Iterable<com.tinkerpop.blueprints.Edge> edges;
+  private Iterable<String> ids;
+  private Direction direction;
+  private int batchSize;
+  private Graph graph;
+
+  /**
+   * @param edges
+   * @param direction which side of the edges to get, see {@link Edge#getVertex(Direction)}
+   * @param batchSize
+   * @param graph
+   */
+  protected BatchVertexIterable(Iterable<com.tinkerpop.blueprints.Edge> edges,
+      Direction direction, int batchSize, Graph graph) {
+    super();
+    Validate.notNull(edges, "edges shall always not be null");
+    Validate.notNull(direction, "direction shall always not be null");
+    Validate.isTrue(batchSize > 0, "batchSize shall be greater than 0");
+    Validate.notNull(graph, "graph shall always not be null");
+    this.edges = edges;
+    this.direction = direction;
+    this.batchSize = batchSize;
+    this.graph = graph;
+  }
+
+  /**
+   * @param ids
+   * @param batchSize
+   * @param graph
+   */
+  protected BatchVertexIterable(Iterable<String> ids, int batchSize, Graph graph) {
+    super();
+    Validate.notNull(ids, "ids shall always not be null");
+    Validate.isTrue(batchSize > 0, "batchSize shall be greater than 0");
+    Validate.notNull(graph, "graph shall always not be null");
+    this.ids = ids;
+    this.batchSize = batchSize;
+    this.graph = graph;
+  }
+
+  @Override
+  public Iterator<com.tinkerpop.blueprints.Vertex> iterator() {
+    final Iterator<?> e = null != this.edges ? this.edges.iterator() : this.ids.iterator();
+    return new Iterator<com.tinkerpop.blueprints.Vertex>() {
+
+      private Iterator<Vertex> batch = null;
+      private Vertex next = null;
+
+      @Override
+      public boolean hasNext() {
+        while (null == this.next) {
+          if (null == this.batch || !this.batch.hasNext()) {
+            if (!e.hasNext()) return false;
+            this.batch = nextBatch(e).iterator();
+          }
+          // skip the vertices not found
+          while (null == this.next && this.batch.hasNext()) {
+            this.next = this.batch.next();
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public com.tinkerpop.blueprints.Vertex next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Vertex v = this.next;
+        this.next = null;
+        return v;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Vertex> nextBatch(Iterator<?> e) {
+    if (null == this.edges) {
+      List<String> ids = new ArrayList<String>(this.batchSize);
+      while (ids.size() < this.batchSize && e.hasNext()) {
+        ids.add((String) e.next());
+      }
+      return this.graph.getVertices(ids);
+    }
+    Iterator<com.tinkerpop.blueprints.Edge> it = (Iterator<com.tinkerpop.blueprints.Edge>) e;
+    List<com.tinkerpop.blueprints.Edge> edges =
+        new ArrayList<com.tinkerpop.blueprints.Edge>(this.batchSize);
+    while (edges.size() < this.batchSize && it.hasNext()) {
+      edges.add(it.next());
+    }
+    return this.graph.getVertices(edges, this.direction);
+  }
+
+  @Override
+  public void close() {
+    Iterable<?> source = null != this.edges ? this.edges : this.ids;
+    if (source instanceof Closeable) {
+      try {
+        ((Closeable) source).close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+}
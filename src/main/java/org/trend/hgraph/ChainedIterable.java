@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Iterate two <code>Iterable</code>s one after another. Closing it closes the ones which are
+ * <code>Closeable</code>.
+ * @author scott_miao
+ */
+class ChainedIterable<T> implements Iterable<T>, Closeable {
+
+  private final List<Iterable<T>> iterables;
+
+  /**
+   * @param first
+   * @param second
+   */
+  ChainedIterable(Iterable<T> first, Iterable<T> second) {
+    super();
+    Validate.notNull(first, "first shall always not be null");
+    Validate.notNull(second, "second shall always not be null");
+    this.iterables = new ArrayList<Iterable<T>>(2);
+    this.iterables.add(first);
+    this.iterables.add(second);
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    final Iterator<Iterable<T>> its = this.iterables.iterator();
+    return new Iterator<T>() {
+
+      private Iterator<T> current = null;
+
+      @Override
+      public boolean hasNext() {
+        while (null == this.current || !this.current.hasNext()) {
+          if (!its.hasNext()) return false;
+          this.current = its.next().iterator();
+        }
+        return true;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return this.current.next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  @Override
+  public void close() {
+    for (Iterable<T> iterable : this.iterables) {
+      if (iterable instanceof Closeable) {
+        try {
+          ((Closeable) iterable).close();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+  }
+
+}
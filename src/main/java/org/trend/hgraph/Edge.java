@@ -17,6 +17,7 @@
  */
 package org.trend.hgraph;
 
+import org.apache.commons.lang.Validate;
 import org.apache.hadoop.hbase.client.Result;
 
 import com.tinkerpop.blueprints.Direction;
@@ -29,6 +30,9 @@ import com.tinkerpop.blueprints.Vertex;
  */
 public class Edge extends AbstractElement implements com.tinkerpop.blueprints.Edge {
   
+  /** <code>{src, label, dst}</code> of the id, parsed on demand */
+  private volatile String[] parts;
+
   /**
    * @param result
    * @param graph
@@ -37,18 +41,94 @@ public class Edge extends AbstractElement implements com.tinkerpop.blueprints.Ed
     super(result, graph);
   }
 
+  /**
+   * @param id the edge id, for the <code>Result</code>s read from the reverse edge table
+   * @param result
+   * @param graph
+   */
+  protected Edge(String id, Result result, Graph graph) {
+    super(id, result, graph);
+  }
+
+  /**
+   * Transfer an edge id <code>&lt;src&gt;--&gt;&lt;label&gt;--&gt;&lt;dst&gt;</code> into its
+   * rowkey in the reverse edge table <code>&lt;dst&gt;&lt;--&lt;label&gt;&lt;--&lt;src&gt;</code>.
+   * @param id
+   * @return the reversed id, <code>null</code> if given id is not a valid edge id
+   */
+  public static String toReversedId(String id) {
+    return swap(id, HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2);
+  }
+
+  /**
+   * Transfer a rowkey of the reverse edge table back to its edge id.
+   * @param reversedId
+   * @return the edge id, <code>null</code> if given id is not a valid reversed id
+   * @see #toReversedId(String)
+   */
+  public static String fromReversedId(String reversedId) {
+    return swap(reversedId, HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2);
+  }
+
+  private static String swap(String id, String d1, String d2, String nd1, String nd2) {
+    String[] parts = split(id, d1, d2);
+    if (null == parts) return null;
+    return parts[2] + nd1 + parts[1] + nd2 + parts[0];
+  }
+
+  /**
+   * Split an edge id <code>&lt;src&gt;--&gt;&lt;label&gt;--&gt;&lt;dst&gt;</code> into its parts.
+   * @param id
+   * @return <code>{src, label, dst}</code>, <code>null</code> if given id is not a valid edge id
+   */
+  public static String[] split(String id) {
+    return split(id, HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2);
+  }
+
+  private static String[] split(String id, String d1, String d2) {
+    Validate.notEmpty(id, "id shall always not be null or empty");
+    int idx1 = id.indexOf(d1);
+    if (idx1 < 0) return null;
+    int idx2 = id.indexOf(d2, idx1 + d1.length());
+    if (idx2 < 0) return null;
+    return new String[] { id.substring(0, idx1), id.substring(idx1 + d1.length(), idx2),
+        id.substring(idx2 + d2.length()) };
+  }
+
+  /**
+   * @return the parts of the id, parsed once on demand
+   */
+  private String[] getParts() {
+    String[] parts = this.parts;
+    if (null == parts) {
+      parts = split((String) this.getId());
+      Validate.notNull(parts, "id:" + this.getId() + " is not a valid edge id");
+      this.parts = parts;
+    }
+    return parts;
+  }
+
+  /* (non-Javadoc)
+   * @see com.tinkerpop.blueprints.Element#remove()
+   */
+  @Override
+  public void remove() {
+    this.getGraph().removeEdge(this);
+  }
 
   /* (non-Javadoc)
    * @see com.tinkerpop.blueprints.Edge#getLabel()
    */
   @Override
   public String getLabel() {
-    String label = null;
-    String id = (String)this.getId();
-    int idx1 = id.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1);
-    int idx2 = id.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2, idx1 + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1.length());
-    label = id.substring(idx1 + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1.length(), idx2);
-    return label;
+    return getParts()[1];
   }
 
   /* (non-Javadoc)
@@ -57,25 +137,32 @@ public class Edge extends AbstractElement implements com.tinkerpop.blueprints.Ed
   @Override
   public Vertex getVertex(Direction direction) throws IllegalArgumentException {
     if(null == direction) return null;
-    int idx = 0;
-    String id = (String)this.getId();
+    return this.getGraph().getVertex(this.getVertexId(direction));
+  }
+
+  /**
+   * Get the id of the <code>Vertex</code> on given side, parsed from the rowkey without any
+   * remote access.
+   * @param direction <code>IN</code> for the source vertex, <code>OUT</code> for the target one
+   * @return the vertex id
+   * @throws IllegalArgumentException
+   */
+  protected String getVertexId(Direction direction) throws IllegalArgumentException {
+    Validate.notNull(direction, "direction shall always not be null");
     String vertexId = null;
     switch(direction) {
     
     case IN:
-      idx = id.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1);
-      vertexId = id.substring(0, idx);
+      vertexId = getParts()[0];
       break;
     case OUT:
-      idx = id.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1);
-      idx = id.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2, idx + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1.length());
-      vertexId = id.substring(idx + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2.length(), id.length());
+      vertexId = getParts()[2];
       break;
      default:
        throw new IllegalArgumentException(
            "direction:" + direction + " is not supported");
     }
-    return this.getGraph().getVertex(vertexId);
+    return vertexId;
   }
 
 }
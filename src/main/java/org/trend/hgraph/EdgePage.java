@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * One page of the outgoing edges of a vertex, see {@link Vertex#getEdges(String[], int, String)}.
+ * @author scott_miao
+ */
+public class EdgePage {
+
+  private final List<Edge> edges;
+  private final String continuationToken;
+
+  /**
+   * @param edges
+   * @param continuationToken <code>null</code> for the last page
+   */
+  EdgePage(List<Edge> edges, String continuationToken) {
+    super();
+    Validate.notNull(edges, "edges shall always not be null");
+    this.edges = Collections.unmodifiableList(edges);
+    this.continuationToken = continuationToken;
+  }
+
+  /**
+   * @return the edges in rowkey order, at most the page size
+   */
+  public List<Edge> getEdges() {
+    return this.edges;
+  }
+
+  /**
+   * @return the opaque token for fetching the next page, <code>null</code> if no more edges
+   */
+  public String getContinuationToken() {
+    return this.continuationToken;
+  }
+
+  /**
+   * @return whether there might be more edges after this page
+   */
+  public boolean hasMore() {
+    return null != this.continuationToken;
+  }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang.Validate;
+
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Iterate the elements legal to an {@link AbstractQuery}, up to its limit. The underlying
+ * <code>Iterable</code> is closed once the limit is reached. The elements other than
+ * <code>Element</code>s, e.g. ids, are cut off at the limit only.
+ * @author scott_miao
+ */
+class FilteredIterable<T> implements Iterable<T>, Closeable {
+
+  private final Iterable<T> elements;
+  private final AbstractQuery query;
+
+  FilteredIterable(Iterable<T> elements, AbstractQuery query) {
+    super();
+    Validate.notNull(elements, "elements shall always not be null");
+    Validate.notNull(query, "query shall always not be null");
+    this.elements = elements;
+    this.query = query;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    final Iterator<T> it = this.elements.iterator();
+    final long limit = this.query.getLimit();
+    return new Iterator<T>() {
+
+      private T next = null;
+      private long count = 0L;
+
+      @Override
+      public boolean hasNext() {
+        if (null != this.next) return true;
+        if (this.count >= limit) {
+          close();
+          return false;
+        }
+        T element = null;
+        while (it.hasNext()) {
+          element = it.next();
+          if (!(element instanceof Element) || query.isLegal((Element) element)) {
+            this.next = element;
+            return true;
+          }
+        }
+        return false;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T element = this.next;
+        this.next = null;
+        this.count++;
+        return element;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  @Override
+  public void close() {
+    if (this.elements instanceof Closeable) {
+      try {
+        ((Closeable) this.elements).close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * Fetch the edge rowkeys of a whole frontier of vertices. The frontier is split into chunks, each
+ * chunk is fetched by one keys-only multi-range scan, and the chunks are scanned in parallel once
+ * there are more than one, at most <code>parallelism</code> chunks ahead of the {@link Handler}.
+ * <p>
+ * The threads are created on demand and stopped by {@link #close()}.
+ * @author scott_miao
+ */
+class FrontierScanner implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FrontierScanner.class);
+
+  private final Graph graph;
+  private final int parallelism;
+  private final int chunkSize;
+  private ExecutorService executor = null;
+
+  /**
+   * @param graph
+   * @param parallelism max threads scanning the chunks
+   * @param chunkSize max vertices of one chunk
+   */
+  FrontierScanner(Graph graph, int parallelism, int chunkSize) {
+    super();
+    Validate.notNull(graph, "graph shall always not be null");
+    Validate.isTrue(parallelism > 0, "parallelism shall be greater than 0");
+    Validate.isTrue(chunkSize > 0, "chunkSize shall be greater than 0");
+    this.graph = graph;
+    this.parallelism = parallelism;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Receives the edge rowkeys, always from the thread calling
+   * {@link FrontierScanner#scan(List, Direction, Handler, String...)}.
+   */
+  static interface Handler {
+
+    /**
+     * @param edgeId
+     * @return <code>false</code> to stop the scan
+     */
+    boolean handle(String edgeId);
+  }
+
+  /**
+   * @param vertices distinct vertex ids
+   * @param direction see {@link Graph#getEdgeIds(java.util.Collection, Direction, String...)}
+   * @param labels empty for all labels
+   * @return the edge rowkeys, in the order of the chunks
+   */
+  List<String> scan(List<String> vertices, Direction direction, String... labels) {
+    final List<String> edgeIds = new ArrayList<String>();
+    scan(vertices, direction, new Handler() {
+      @Override
+      public boolean handle(String edgeId) {
+        edgeIds.add(edgeId);
+        return true;
+      }
+    }, labels);
+    return edgeIds;
+  }
+
+  /**
+   * Stream the edge rowkeys to given handler, in the order of the chunks.
+   * @param vertices distinct vertex ids
+   * @param direction see {@link Graph#getEdgeIds(java.util.Collection, Direction, String...)}
+   * @param handler
+   * @param labels empty for all labels
+   * @return <code>false</code> if stopped by the handler
+   */
+  boolean scan(List<String> vertices, Direction direction, Handler handler, String... labels) {
+    List<List<String>> chunks = new ArrayList<List<String>>();
+    for (int a = 0; a < vertices.size(); a += this.chunkSize) {
+      chunks.add(vertices.subList(a, Math.min(a + this.chunkSize, vertices.size())));
+    }
+    if (this.parallelism == 1 || chunks.size() <= 1) {
+      for (List<String> chunk : chunks) {
+        if (!scanChunk(chunk, direction, handler, labels)) return false;
+      }
+      return true;
+    }
+
+    if (null == this.executor) this.executor = newExecutor();
+    LinkedList<Future<List<String>>> futures = new LinkedList<Future<List<String>>>();
+    int submitted = 0;
+    try {
+      while (submitted < chunks.size() && futures.size() < this.parallelism) {
+        futures.add(submit(chunks.get(submitted++), direction, labels));
+      }
+      while (!futures.isEmpty()) {
+        List<String> edgeIds = futures.removeFirst().get();
+        if (submitted < chunks.size()) {
+          futures.add(submit(chunks.get(submitted++), direction, labels));
+        }
+        for (String edgeId : edgeIds) {
+          if (!handler.handle(edgeId)) return false;
+        }
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("scan frontier interrupted", e);
+    } catch (ExecutionException e) {
+      LOG.error("scan frontier failed", e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      // the chunks not consumed yet
+      for (Future<List<String>> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private Future<List<String>> submit(final List<String> chunk, final Direction direction,
+      final String... labels) {
+    return this.executor.submit(new Callable<List<String>>() {
+      @Override
+      public List<String> call() {
+        final List<String> edgeIds = new ArrayList<String>();
+        scanChunk(chunk, direction, new Handler() {
+          @Override
+          public boolean handle(String edgeId) {
+            edgeIds.add(edgeId);
+            // cancelled
+            return !Thread.currentThread().isInterrupted();
+          }
+        }, labels);
+        return edgeIds;
+      }
+    });
+  }
+
+  private boolean scanChunk(List<String> vertices, Direction direction, Handler handler,
+      String... labels) {
+    if (vertices.isEmpty()) return true;
+    if (Direction.OUT == direction && this.graph.isAdjacencyEnabled()) {
+      for (String edgeId : this.graph.getAdjacentEdgeIds(vertices, labels)) {
+        if (!handler.handle(edgeId)) return false;
+      }
+      return true;
+    }
+    AbstractElementIterable<String> ids = this.graph.getEdgeIds(vertices, direction, labels);
+    try {
+      for (String id : ids) {
+        if (!handler.handle(id)) return false;
+      }
+    } finally {
+      ids.close();
+    }
+    return true;
+  }
+
+  private ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(this.parallelism, new ThreadFactory() {
+      private final AtomicInteger threadSeq = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "hgraph-frontier-" + this.threadSeq.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /**
+   * Stop the scanning threads, if any.
+   */
+  @Override
+  public void close() {
+    if (null != this.executor) {
+      this.executor.shutdownNow();
+      this.executor = null;
+    }
+  }
+
+}
@@ -18,42 +18,113 @@
 package org.trend.hgraph;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import javax.activation.UnsupportedDataTypeException;
 
 import org.apache.commons.lang.Validate;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.HTableInterface;
-import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.ColumnPrefixFilter;
 import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
+import org.apache.hadoop.hbase.filter.FamilyFilter;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FilterList.Operator;
 import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
-import org.apache.hadoop.hbase.filter.PrefixFilter;
+import org.apache.hadoop.hbase.filter.MultipleColumnPrefixFilter;
+import org.apache.hadoop.hbase.filter.RegexStringComparator;
+import org.apache.hadoop.hbase.filter.RowFilter;
 import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
+import org.apache.hadoop.hbase.util.Base64;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Parameter;
 
 /**
  * @author scott_miao
  *
  */
-public class Graph implements com.tinkerpop.blueprints.Graph {
+public class Graph implements com.tinkerpop.blueprints.Graph, KeyIndexableGraph {
   
-  private final HTablePool POOL;
+  private final TablePool POOL;
   private final Configuration CONF;
   
   private final String VERTEX_TABLE_NAME;
   private final String EDGE_TABLE_NAME;
+
+  private final String EDGE_REVERSE_TABLE_NAME;
+
+  /** <code>null</code> if not configured */
+  private final String VERTEX_INDEX_TABLE_NAME;
+  private final String EDGE_INDEX_TABLE_NAME;
+
+  /** indexed keys by index table name, loaded on demand */
+  private final ConcurrentMap<String, Set<String>> INDEXED_KEYS =
+      new ConcurrentHashMap<String, Set<String>>();
+
+  private static final int INDEX_BATCH_SIZE = 1000;
+
+  private final int VERTICES_BATCH_SIZE;
+
+  /** <code>null</code> if not enabled */
+  private final ResultCache VERTEX_CACHE;
+
+  private final AtomicInteger OPEN_SCANNER_COUNT = new AtomicInteger();
+
+  private final AtomicBoolean SHUTDOWN = new AtomicBoolean();
+
+  private final ScanProfile DEFAULT_SCAN_PROFILE;
+
+  private final RowKeySalt SALT;
+
+  private final boolean ADJACENCY_ENABLED;
+
+  /** <code>null</code> until detected, see {@link #isEdgeCountsEnabled()} */
+  private volatile Boolean EDGE_COUNTS_ENABLED;
+
+  /** created on the first write */
+  private volatile WriteBuffer WRITE_BUFFER;
+
+  private static final byte[] PROPERTY_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  private static final byte[] COUNT_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME);
   
   private static final Logger LOG = LoggerFactory.getLogger(Graph.class);
   
@@ -74,19 +145,19 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
     FEATURES.supportsStringProperty = true;
 
     FEATURES.supportsDuplicateEdges = false;
-    FEATURES.supportsSelfLoops = false;
+    FEATURES.supportsSelfLoops = true;
     FEATURES.isPersistent = true;
     FEATURES.isWrapper = false;
     FEATURES.supportsVertexIteration = true;
     FEATURES.supportsEdgeIteration = true;
     FEATURES.supportsVertexIndex = false;
     FEATURES.supportsEdgeIndex = false;
-    FEATURES.ignoresSuppliedIds = true;
+    FEATURES.ignoresSuppliedIds = false;
     FEATURES.supportsTransactions = false;
     FEATURES.supportsIndices = false;
-    FEATURES.supportsKeyIndices = false;
-    FEATURES.supportsVertexKeyIndex = false;
-    FEATURES.supportsEdgeKeyIndex = false;
+    FEATURES.supportsKeyIndices = true;
+    FEATURES.supportsVertexKeyIndex = true;
+    FEATURES.supportsEdgeKeyIndex = true;
     FEATURES.supportsEdgeRetrieval = true;
     FEATURES.supportsVertexProperties = true;
     FEATURES.supportsEdgeProperties = true;
@@ -97,8 +168,9 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
    * @param pool
    * @param conf
    */
-  protected Graph(HTablePool pool, Configuration conf) {
+  protected Graph(TablePool pool, Configuration conf) {
     super();
+    Validate.notNull(pool, "pool shall always not be null");
     this.POOL = pool;
     this.CONF = conf;
     
@@ -109,26 +181,308 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
     String edgeTableName = this.CONF.get(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY);
     Validate.notEmpty(edgeTableName, HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY + " shall not be null or empty");
     this.EDGE_TABLE_NAME = edgeTableName;
+
+    // optional, for incoming edges
+    this.EDGE_REVERSE_TABLE_NAME =
+        this.CONF.get(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY);
+
+    // optional, for the key indices
+    this.VERTEX_INDEX_TABLE_NAME =
+        this.CONF.get(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_INDEX_NAME_KEY);
+    this.EDGE_INDEX_TABLE_NAME =
+        this.CONF.get(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_INDEX_NAME_KEY);
+
+    int verticesBatchSize =
+        this.CONF.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_DEFAULT);
+    Validate.isTrue(verticesBatchSize > 0,
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY + " shall be greater than 0");
+    this.VERTICES_BATCH_SIZE = verticesBatchSize;
+
+    this.DEFAULT_SCAN_PROFILE = ScanProfile.create(this.CONF);
+    this.SALT = RowKeySalt.create(this.CONF);
+    this.ADJACENCY_ENABLED =
+        this.CONF.getBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, false);
+    String edgeCountsEnabled =
+        this.CONF.get(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_COUNTS_ENABLED_KEY);
+    this.EDGE_COUNTS_ENABLED =
+        null == edgeCountsEnabled ? null : Boolean.valueOf(edgeCountsEnabled.trim());
+
+    int cacheMaxEntries =
+        this.CONF.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_ENTRIES_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_ENTRIES_DEFAULT);
+    long cacheMaxBytes =
+        this.CONF.getLong(HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_BYTES_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_BYTES_DEFAULT);
+    long cacheTtl =
+        this.CONF.getLong(HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_TTL_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_TTL_DEFAULT);
+    if (cacheMaxEntries > 0 || cacheMaxBytes > 0) {
+      this.VERTEX_CACHE = new ResultCache(cacheMaxEntries, cacheMaxBytes, cacheTtl);
+      LOG.info("vertex cache enabled, maxEntries:" + cacheMaxEntries + ", maxBytes:"
+          + cacheMaxBytes + ", ttl:" + cacheTtl);
+    } else {
+      this.VERTEX_CACHE = null;
+    }
     
   }
 
-  /* (non-Javadoc)
-   * @see com.tinkerpop.blueprints.Graph#addEdge(java.lang.Object, com.tinkerpop.blueprints.Vertex, com.tinkerpop.blueprints.Vertex, java.lang.String)
+  /**
+   * Add an edge <code>&lt;out&gt;--&gt;&lt;label&gt;--&gt;&lt;in&gt;</code>. Its edge row is
+   * created at once by a <code>checkAndPut</code> of the marker cell, its reverse edge row,
+   * adjacency column and counters if enabled are buffered and readable after the next flush, see
+   * {@link #getWriteBuffer()}.
+   * <p>
+   * An existing edge is returned as is, its adjacency column and counters are not changed again.
+   * A self loop is one edge, both outgoing and incoming of its vertex.
+   * @param id ignored, the edge id is made of its vertices and label
+   * @param outVertex the source vertex
+   * @param inVertex the target vertex
+   * @param label
+   * @return the new edge without any properties, or the existing one
+   * @see com.tinkerpop.blueprints.Graph#addEdge(java.lang.Object, com.tinkerpop.blueprints.Vertex,
+   *      com.tinkerpop.blueprints.Vertex, java.lang.String)
    */
   @Override
-  public Edge addEdge(Object arg0, com.tinkerpop.blueprints.Vertex arg1, 
-      com.tinkerpop.blueprints.Vertex arg2, String arg3) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
+  public Edge addEdge(Object id, com.tinkerpop.blueprints.Vertex outVertex,
+      com.tinkerpop.blueprints.Vertex inVertex, String label) {
+    Validate.notNull(outVertex, "outVertex shall always not be null");
+    Validate.notNull(inVertex, "inVertex shall always not be null");
+    validateId(label);
+    String src = outVertex.getId().toString();
+    String dst = inVertex.getId().toString();
+    String edgeId = src + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1 + label
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2 + dst;
+
+    WriteBuffer buffer = getWriteBuffer();
+    byte[] row = this.SALT.toRow(edgeId);
+    // an edge written in this batch, e.g. removed, is seen by the check below
+    buffer.flush(this.EDGE_TABLE_NAME, row);
+    Result r = getResult(edgeId, this.EDGE_TABLE_NAME);
+    if (!r.isEmpty()) return new Edge(r, this);
+    HTableInterface table = this.POOL.getTable(this.EDGE_TABLE_NAME);
+    try {
+      // added by someone else in between
+      if (!table.checkAndPut(row, PROPERTY_FAMILY, HConstants.EMPTY_BYTE_ARRAY, null,
+        newMarkerPut(row))) {
+        return getEdge(edgeId);
+      }
+    } catch (IOException e) {
+      LOG.error("addEdge failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      this.returnTable(table);
+    }
+    if (null != this.EDGE_REVERSE_TABLE_NAME) {
+      buffer.add(this.EDGE_REVERSE_TABLE_NAME,
+        newMarkerPut(this.SALT.toRow(Edge.toReversedId(edgeId))));
+    }
+    if (this.ADJACENCY_ENABLED) {
+      Put put = new Put(this.SALT.toRow(src));
+      put.add(Adjacency.FAMILY, Adjacency.toQualifier(label, dst), HConstants.EMPTY_BYTE_ARRAY);
+      buffer.add(this.VERTEX_TABLE_NAME, put);
+    }
+    if (isEdgeCountsEnabled()) bufferEdgeCount(src, label, 1L);
+    return new Edge(edgeId, new Result(new KeyValue[0]), this);
   }
 
-  /* (non-Javadoc)
+  /**
+   * Buffer the row of a new vertex, readable after the next flush, see {@link #getWriteBuffer()}.
+   * The row holds an empty marker cell in the property family until its properties are set.
+   * @param id the vertex id, a random UUID if <code>null</code>
+   * @return the new vertex without any properties
    * @see com.tinkerpop.blueprints.Graph#addVertex(java.lang.Object)
    */
   @Override
-  public Vertex addVertex(Object arg0) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
+  public Vertex addVertex(Object id) {
+    String vertexId = null == id ? UUID.randomUUID().toString() : id.toString();
+    validateId(vertexId);
+    getWriteBuffer().add(this.VERTEX_TABLE_NAME, newMarkerPut(this.SALT.toRow(vertexId)));
+    return new Vertex(vertexId, new Result(new KeyValue[0]), this);
+  }
+
+  /**
+   * The vertex ids and labels are parts of the edge ids, they shall not contain the delimiters.
+   * @param id
+   */
+  private static void validateId(String id) {
+    Validate.notEmpty(id, "id shall always not be null or empty");
+    Validate.isTrue(!id.contains(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1)
+        && !id.contains(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2)
+        && !id.contains(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1)
+        && !id.contains(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2),
+      "id:" + id + " shall not contain the edge delimiters");
+  }
+
+  /**
+   * @param row
+   * @return a <code>Put</code> of the empty marker cell, the decoders skip it as a property
+   */
+  private static Put newMarkerPut(byte[] row) {
+    Put put = new Put(row);
+    put.add(PROPERTY_FAMILY, HConstants.EMPTY_BYTE_ARRAY, HConstants.EMPTY_BYTE_ARRAY);
+    return put;
+  }
+
+  /**
+   * Get the write buffer of this <code>Graph</code>, created on the first call. It is flushed by
+   * {@link #flush()} and {@link #shutdown()}, see {@link WriteBuffer} for the options. The cached
+   * vertices are invalidated once their rows are flushed.
+   * @return
+   */
+  public WriteBuffer getWriteBuffer() {
+    WriteBuffer buffer = this.WRITE_BUFFER;
+    if (null != buffer) return buffer;
+    synchronized (this) {
+      if (null == this.WRITE_BUFFER) {
+        if (this.SHUTDOWN.get()) throw new IllegalStateException("graph is shut down");
+        buffer = new WriteBuffer(this.POOL, this.CONF);
+        // the counters not backfilled are left for scanning, see Vertex#getEdgeCount()
+        buffer.setCounterGuard(this.VERTEX_TABLE_NAME, COUNT_FAMILY,
+          Vertex.getEdgeCountQualifier(null));
+        if (null != this.VERTEX_CACHE) {
+          buffer.setListener(new WriteBuffer.Listener() {
+            @Override
+            public void flushed(String tableName, Collection<byte[]> rows) {
+              if (!VERTEX_TABLE_NAME.equals(tableName)) return;
+              for (byte[] row : rows) {
+                VERTEX_CACHE.invalidate(toId(row));
+              }
+            }
+          });
+        }
+        this.WRITE_BUFFER = buffer;
+      }
+      return this.WRITE_BUFFER;
+    }
+  }
+
+  /**
+   * Send the buffered writes and wait for them, the reads see them afterwards.
+   */
+  public void flush() {
+    WriteBuffer buffer = this.WRITE_BUFFER;
+    if (null != buffer) buffer.flush();
+  }
+
+  private void bufferEdgeCount(String vertexId, String label, long amount) {
+    byte[] row = this.SALT.toRow(vertexId);
+    WriteBuffer buffer = getWriteBuffer();
+    buffer.increment(this.VERTEX_TABLE_NAME, row, COUNT_FAMILY,
+      Vertex.getEdgeCountQualifier(null), amount);
+    buffer.increment(this.VERTEX_TABLE_NAME, row, COUNT_FAMILY,
+      Vertex.getEdgeCountQualifier(label), amount);
+  }
+
+  /**
+   * Buffer the cells of a property set or removed on given element, called by
+   * {@link AbstractElement#setProperty(String, Object)} and
+   * {@link AbstractElement#removeProperty(String)}. The adjacency column of an edge is packed
+   * again from the properties of given element, an edge read with some properties only shall not
+   * be changed when the adjacency columns are enabled.
+   * @param element
+   * @param key
+   * @param value <code>null</code> for the property removed
+   * @param oldValue <code>null</code> if not set before
+   */
+  protected void writeProperty(AbstractElement element, String key, Object value,
+      Object oldValue) {
+    Validate.notNull(element, "element shall always not be null");
+    String id = (String) element.getId();
+    boolean vertex = element instanceof com.tinkerpop.blueprints.Vertex;
+    byte[] qualifier = null;
+    byte[] bytes = null;
+    byte[] oldQualifier = null;
+    try {
+      if (null != value) {
+        Properties.Pair<byte[], byte[]> pair = Properties.keyValueToBytes(key, value);
+        qualifier = pair.key;
+        bytes = pair.value;
+      }
+      if (null != oldValue) oldQualifier = Properties.keyValueToBytes(key, oldValue).key;
+    } catch (UnsupportedDataTypeException e) {
+      LOG.error("keyValueToBytes failed", e);
+      throw new RuntimeException(e);
+    }
+
+    WriteBuffer buffer = getWriteBuffer();
+    if (vertex) {
+      bufferCell(buffer, this.VERTEX_TABLE_NAME, this.SALT.toRow(id), qualifier, bytes,
+        oldQualifier);
+    } else {
+      bufferCell(buffer, this.EDGE_TABLE_NAME, this.SALT.toRow(id), qualifier, bytes,
+        oldQualifier);
+      if (null != this.EDGE_REVERSE_TABLE_NAME) {
+        bufferCell(buffer, this.EDGE_REVERSE_TABLE_NAME,
+          this.SALT.toRow(Edge.toReversedId(id)), qualifier, bytes, oldQualifier);
+      }
+      if (this.ADJACENCY_ENABLED) {
+        String[] parts = Edge.split(id);
+        Put put = new Put(this.SALT.toRow(parts[0]));
+        put.add(Adjacency.FAMILY, Adjacency.toQualifier(parts[1], parts[2]),
+          Adjacency.pack(toResult(id, element)));
+        buffer.add(this.VERTEX_TABLE_NAME, put);
+      }
+    }
+
+    String indexTableName = vertex ? this.VERTEX_INDEX_TABLE_NAME : this.EDGE_INDEX_TABLE_NAME;
+    if (!isKeyIndexed(indexTableName, key)) return;
+    // same index row, nothing to change
+    if (null != oldValue && oldValue.equals(value)) return;
+    try {
+      if (null != oldValue) {
+        buffer.add(indexTableName, new Delete(PropertyIndex.getRow(key, oldValue, id)));
+      }
+      if (null != value) {
+        Put put = new Put(PropertyIndex.getRow(key, value, id));
+        put.add(PropertyIndex.FAMILY, HConstants.EMPTY_BYTE_ARRAY, HConstants.EMPTY_BYTE_ARRAY);
+        buffer.add(indexTableName, put);
+      }
+    } catch (UnsupportedDataTypeException e) {
+      LOG.error("PropertyIndex.getRow failed", e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Buffer a property cell, and the delete of its old cell if the type is changed.
+   */
+  private static void bufferCell(WriteBuffer buffer, String tableName, byte[] row,
+      byte[] qualifier, byte[] value, byte[] oldQualifier) {
+    if (null != oldQualifier) {
+      Delete delete = new Delete(row);
+      if (null == qualifier || !Bytes.equals(qualifier, oldQualifier)) {
+        delete.deleteColumns(PROPERTY_FAMILY, oldQualifier);
+      }
+      // the old value might be imported in string form, which is decoded after the binary one
+      delete.deleteColumns(PROPERTY_FAMILY, Bytes.add(oldQualifier,
+        Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_STRING_FORM_SUFFIX)));
+      buffer.add(tableName, delete);
+    }
+    if (null != qualifier) {
+      Put put = new Put(row);
+      put.add(PROPERTY_FAMILY, qualifier, value);
+      buffer.add(tableName, put);
+    }
+  }
+
+  /**
+   * Encode the properties of given element back to its property cells.
+   */
+  private static Result toResult(String id, Element element) {
+    byte[] row = Bytes.toBytes(id);
+    List<KeyValue> kvs = new ArrayList<KeyValue>();
+    Properties.Pair<byte[], byte[]> pair = null;
+    for (String key : element.getPropertyKeys()) {
+      try {
+        pair = Properties.keyValueToBytes(key, element.getProperty(key));
+      } catch (UnsupportedDataTypeException e) {
+        // decoded values are always in the supported types
+        throw new IllegalStateException(e);
+      }
+      kvs.add(new KeyValue(row, PROPERTY_FAMILY, pair.key, pair.value));
+    }
+    return new Result(kvs);
   }
 
   /* (non-Javadoc)
@@ -145,9 +499,60 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
     return edge;
   }
 
+  /**
+   * Get <code>Edge</code> with the given properties loaded only, the other properties of the
+   * returned edge read as <code>null</code>.
+   * @param key
+   * @param propertyKeys the properties to load, all if empty
+   * @return the edge, <code>null</code> if not found
+   */
+  public Edge getEdge(Object key, String... propertyKeys) {
+    if (null == key) return null;
+    if (null == propertyKeys || propertyKeys.length == 0) return getEdge(key);
+
+    Result r = getResult(key, this.EDGE_TABLE_NAME, propertyKeys);
+    if (!r.isEmpty()) return new Edge(r, this);
+    // none of the properties set, tell it from a missing row
+    if (!exists(key, this.EDGE_TABLE_NAME)) return null;
+    return new Edge(key.toString(), r, this);
+  }
+
+  /**
+   * Check whether the <code>Edge</code> exists without reading its cells back.
+   * @param key
+   * @return
+   */
+  public boolean containsEdge(Object key) {
+    if (null == key) return false;
+    return exists(key, this.EDGE_TABLE_NAME);
+  }
+
+  private boolean exists(Object key, String tableName) {
+    HTableInterface table = this.POOL.getTable(tableName);
+    try {
+      return table.exists(new Get(this.SALT.toRow(key.toString())));
+    } catch (IOException e) {
+      LOG.error("exists failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      this.returnTable(table);
+    }
+  }
+
   private Result getResult(Object key, String tableName) {
+    return getResult(key, tableName, null);
+  }
+
+  private Result getResult(Object key, String tableName, String[] propertyKeys) {
     HTableInterface table = this.POOL.getTable(tableName);
-    Get get = new Get(Bytes.toBytes(key.toString()));
+    Get get = null;
+    if (null == propertyKeys || propertyKeys.length == 0) {
+      get = newGet(key, tableName);
+    } else {
+      get = new Get(this.SALT.toRow(key.toString()));
+      get.addFamily(Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME));
+      get.setFilter(new MultipleColumnPrefixFilter(getPropertyPrefixes(propertyKeys)));
+    }
     Result r;
     try {
       r = table.get(get);
@@ -155,7 +560,7 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
       LOG.error("getEdge failed", e);
       throw new RuntimeException(e);
     } finally {
-      // this.POOL.putTable(table);
+      this.returnTable(table);
     }
     return r;
   }
@@ -165,30 +570,184 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
    */
   @Override
   public Iterable<com.tinkerpop.blueprints.Edge> getEdges() {
+    return getEdges(this.DEFAULT_SCAN_PROFILE);
+  }
+
+  /**
+   * Get all <code>Edge</code>s with given <code>ScanProfile</code>.
+   * @param profile
+   * @return
+   */
+  public Iterable<com.tinkerpop.blueprints.Edge> getEdges(ScanProfile profile) {
+    Validate.notNull(profile, "profile shall always not be null");
     HTableInterface table = this.POOL.getTable(EDGE_TABLE_NAME);
-    Scan scan = new Scan();
+    Scan scan = profile.apply(new Scan());
     ResultScanner rs = null;
     
     try {
       rs = table.getScanner(scan);
     } catch (IOException e) {
       LOG.error("getEdges failed", e);
-      if(table != null)
-      // this.POOL.putTable(table);
+      this.returnTable(table);
       throw new RuntimeException(e);
     }
     return new EdgeIterable(table, rs, this);
   }
   
   protected Iterable<com.tinkerpop.blueprints.Edge> getEdges(final Vertex vertex) {
+    return getEdges(vertex, this.DEFAULT_SCAN_PROFILE);
+  }
+
+  /**
+   * Get all <code>Edge</code>s by scanning the regions of the edge table in parallel, with the
+   * default <code>ScanProfile</code>.
+   * @see #getEdgesParallel(ScanProfile, int)
+   */
+  public ParallelElementIterable<com.tinkerpop.blueprints.Edge> getEdgesParallel(
+      int parallelism) {
+    return getEdgesParallel(this.DEFAULT_SCAN_PROFILE, parallelism);
+  }
+
+  /**
+   * Get all <code>Vertex</code>s by scanning the regions of the vertex table in parallel, with
+   * the default <code>ScanProfile</code>.
+   * @see #getVerticesParallel(ScanProfile, int)
+   */
+  public ParallelElementIterable<com.tinkerpop.blueprints.Vertex> getVerticesParallel(
+      int parallelism) {
+    return getVerticesParallel(this.DEFAULT_SCAN_PROFILE, parallelism);
+  }
+
+  /**
+   * Get all <code>Edge</code>s by scanning the regions of the edge table in parallel.
+   * @param profile its batch is ignored
+   * @param parallelism max number of regions scanned at the same time
+   * @return the edges in no particular order
+   * @see ParallelElementIterable
+   */
+  public ParallelElementIterable<com.tinkerpop.blueprints.Edge> getEdgesParallel(
+      ScanProfile profile, int parallelism) {
+    final Graph graph = this;
+    return new ParallelElementIterable<com.tinkerpop.blueprints.Edge>(this, EDGE_TABLE_NAME,
+        getRegionScans(EDGE_TABLE_NAME, profile), parallelism, getParallelQueueSize()) {
+      @Override
+      protected com.tinkerpop.blueprints.Edge newElement(Result r) {
+        return new Edge(r, graph);
+      }
+    };
+  }
+
+  /**
+   * Get all <code>Vertex</code>s by scanning the regions of the vertex table in parallel.
+   * @param profile its batch is ignored
+   * @param parallelism max number of regions scanned at the same time
+   * @return the vertices in no particular order
+   * @see ParallelElementIterable
+   */
+  public ParallelElementIterable<com.tinkerpop.blueprints.Vertex> getVerticesParallel(
+      ScanProfile profile, int parallelism) {
+    final Graph graph = this;
+    return new ParallelElementIterable<com.tinkerpop.blueprints.Vertex>(this,
+        VERTEX_TABLE_NAME, getRegionScans(VERTEX_TABLE_NAME, profile), parallelism,
+        getParallelQueueSize()) {
+      @Override
+      protected com.tinkerpop.blueprints.Vertex newElement(Result r) {
+        return new Vertex(r, graph);
+      }
+    };
+  }
+
+  /**
+   * @return whether {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY} is
+   *         configured, for the incoming edges
+   */
+  protected boolean hasReverseEdgeTable() {
+    return null != this.EDGE_REVERSE_TABLE_NAME;
+  }
+
+  /**
+   * @return the configuration this graph is opened with
+   */
+  protected Configuration getConf() {
+    return this.CONF;
+  }
+
+  /**
+   * @return the salt of the vertex, edge and reverse edge rowkeys
+   */
+  public RowKeySalt getRowKeySalt() {
+    return this.SALT;
+  }
+
+  /**
+   * @param row a rowkey of the vertex, edge or reverse edge table
+   * @return the element id, or the reversed edge id, of given rowkey
+   */
+  String toId(byte[] row) {
+    return this.SALT.toKey(row);
+  }
+
+  private int getParallelQueueSize() {
+    return this.CONF.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_PARALLEL_QUEUE_SIZE_KEY,
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_PARALLEL_QUEUE_SIZE_DEFAULT);
+  }
+
+  /**
+   * Get one <code>Scan</code> per region of given table.
+   * @param tableName
+   * @param profile its batch is ignored, the rows are not merged back across the segments
+   * @return
+   */
+  private List<Scan> getRegionScans(String tableName, ScanProfile profile) {
+    Validate.notNull(profile, "profile shall always not be null");
+    ScanProfile segmentProfile = new ScanProfile(profile);
+    segmentProfile.setBatch(0);
+    Pair<byte[][], byte[][]> keys = null;
+    HTable table = null;
+    try {
+      table = new HTable(this.CONF, tableName);
+      keys = table.getStartEndKeys();
+    } catch (IOException e) {
+      LOG.error("getStartEndKeys for table:" + tableName + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      if (null != table) {
+        try {
+          table.close();
+        } catch (IOException e) {
+          LOG.warn("close table:" + tableName + " failed", e);
+        }
+      }
+    }
+    List<Scan> scans = new ArrayList<Scan>(keys.getFirst().length);
+    for (int a = 0; a < keys.getFirst().length; a++) {
+      scans.add(segmentProfile.apply(new Scan(keys.getFirst()[a], keys.getSecond()[a])));
+    }
+    return scans;
+  }
+
+  /**
+   * Get the outgoing <code>Edge</code>s of given <code>Vertex</code>.
+   * @param vertex
+   * @param profile
+   * @param labels empty for all outgoing edges
+   * @return
+   */
+  protected Iterable<com.tinkerpop.blueprints.Edge> getEdges(final Vertex vertex,
+      final ScanProfile profile, final String... labels) {
     Validate.notNull(vertex, "vertex shall always not be null");
+    Validate.notNull(profile, "profile shall always not be null");
+    if (this.ADJACENCY_ENABLED) return getAdjacentEdges((String) vertex.getId(), labels);
+    if (null != labels && labels.length > 0) {
+      return getEdgesByLabels(vertex, profile, labels);
+    }
     EdgeIterable edgeIt = getEdgeIterable(vertex, new GenScanStrategy() {
       @Override
       public Scan getScan() {
-        Scan scan = new Scan();
-        scan.setStartRow(Bytes.toBytes(vertex.getId() + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1));
-        scan.setStopRow(Bytes.toBytes(vertex.getId() + "~"));
-        return scan;
+        byte[] prefix =
+            SALT.toRow(vertex.getId() + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1);
+        Scan scan = new Scan(prefix, getStopRow(prefix));
+        return profile.apply(scan);
       }
     });
     
@@ -205,8 +764,7 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
       rs = table.getScanner(scan);
     } catch (IOException e) {
       LOG.error("getEdges with vertex:" + vertex + " failed", e);
-      if(null != table)
-      // this.POOL.putTable(table);
+      this.returnTable(table);
       throw new RuntimeException(e);
     }
     edgeIt = new EdgeIterable(table, rs, this);
@@ -220,111 +778,841 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
   protected Iterable<com.tinkerpop.blueprints.Edge> getEdges(final Vertex vertex, final String... labels) {
     Validate.notNull(vertex, "vertex shall always not be null");
     Validate.notEmpty(labels, "labels shall always not be null or empty");
-    EdgeIterable edgeIt = getEdgeIterable(vertex, new GenScanStrategy() {
-      @Override
-      public Scan getScan() {
-        String id = (String) vertex.getId();
-        Scan scan = new Scan();
-        Filter filter = null;
-        FilterList filters = new FilterList(FilterList.Operator.MUST_PASS_ONE);
-        for(String label : labels) {
-          filter = new PrefixFilter(Bytes.toBytes(id + 
-                  HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1 + label));
-          filters.addFilter(filter);
-        }
-        scan.setFilter(filters);
-        return scan;
-      }
-    });
-    return edgeIt;
-  }
-  
-  protected long getEdgeCount(final Vertex vertex) {
-    long count = 0;
-    Validate.notNull(vertex, "vertex shall always not be null");
-    EdgeIterable edgeIt = getEdgeIterable(vertex, new GenScanStrategy() {
-      @Override
-      public Scan getScan() {
-        Scan scan = new Scan();
-        scan.setStartRow(Bytes.toBytes(vertex.getId() + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1));
-        scan.setStopRow(Bytes.toBytes(vertex.getId() + "~"));
-        scan.setFilter(new KeyOnlyFilter());
-        return scan;
-      }
-    });
-    
-    Iterator<com.tinkerpop.blueprints.Edge> edgeIte = edgeIt.iterator();
-    while(edgeIte.hasNext()) {
-      edgeIte.next();
-      count++;
-    }
-    return count;
+    if (this.ADJACENCY_ENABLED) return getAdjacentEdges((String) vertex.getId(), labels);
+    return getEdgesByLabels(vertex, this.DEFAULT_SCAN_PROFILE, labels);
   }
 
-  /* (non-Javadoc)
-   * @see com.tinkerpop.blueprints.Graph#getEdges(java.lang.String, java.lang.Object)
+  /**
+   * @return whether the outgoing edges are read from the adjacency columns of the vertex rows
+   * @see Adjacency
    */
-  @Override
-  public Iterable<com.tinkerpop.blueprints.Edge> getEdges(String key, Object value) {
-    CollectElementStrategy<com.tinkerpop.blueprints.Edge> strategy =
-      new CollectElementStrategy<com.tinkerpop.blueprints.Edge>(this.EDGE_TABLE_NAME) {
-        @Override
-        void newIterable(HTableInterface table, ResultScanner rs, Graph graph) {
-          this.setIterable(new EdgeIterable(table, rs, graph));
-        }
-    };
-    collectElements(key, value, strategy);
-    return strategy.getIterable();
+  public boolean isAdjacencyEnabled() {
+    return this.ADJACENCY_ENABLED;
   }
 
-  /* (non-Javadoc)
-   * @see com.tinkerpop.blueprints.Graph#getFeatures()
+  /**
+   * The edge counters are read and kept current by the write path together, so they are never
+   * read while not maintained. Unless
+   * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_COUNTS_ENABLED_KEY} set, they are enabled if
+   * the vertex table has the family
+   * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME}.
+   * @return whether the edge counters are read and maintained
    */
-  @Override
-  public Features getFeatures() {
-    return FEATURES;
+  public boolean isEdgeCountsEnabled() {
+    Boolean enabled = this.EDGE_COUNTS_ENABLED;
+    if (null != enabled) return enabled;
+    HTableInterface table = this.POOL.getTable(this.VERTEX_TABLE_NAME);
+    try {
+      HTableDescriptor desc = table.getTableDescriptor();
+      enabled = null != desc && desc.hasFamily(COUNT_FAMILY);
+    } catch (IOException e) {
+      LOG.error("getTableDescriptor for table:" + this.VERTEX_TABLE_NAME + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      this.returnTable(table);
+    }
+    this.EDGE_COUNTS_ENABLED = enabled;
+    return enabled;
   }
 
-  /* (non-Javadoc)
-   * @see com.tinkerpop.blueprints.Graph#getVertex(java.lang.Object)
+  /**
+   * Get the outgoing <code>Edge</code>s of given vertex from its adjacency columns, by one
+   * <code>Get</code>. The edge properties are unpacked from the columns, the predicates of a
+   * query are re-checked on them client-side.
+   * @param vertexId
+   * @param labels empty for all labels
+   * @return the edges, in qualifier order
    */
-  @Override
-  public Vertex getVertex(Object id) {
-    if(null == id) return null;
-    
-    Result r = getResult(id, this.VERTEX_TABLE_NAME);
-    if(r.isEmpty()) return null;
-    
-    Vertex vertex = new Vertex(r, this);
-    return vertex;
+  private List<com.tinkerpop.blueprints.Edge> getAdjacentEdges(String vertexId,
+      String... labels) {
+    Result r = getAdjacency(Collections.singletonList(vertexId), false, labels)[0];
+    List<com.tinkerpop.blueprints.Edge> edges = new ArrayList<com.tinkerpop.blueprints.Edge>();
+    if (r.isEmpty()) return edges;
+    String edgeId = null;
+    for (KeyValue kv : r.raw()) {
+      edgeId = Adjacency.toEdgeId(vertexId, kv.getQualifier());
+      edges.add(new Edge(edgeId, Adjacency.unpack(this.SALT.toRow(edgeId), kv.getValue()), this));
+    }
+    return edges;
   }
-  
-  /* (non-Javadoc)
-   * @see com.tinkerpop.blueprints.Graph#getVertices()
+
+  /**
+   * Get the outgoing edge ids of given vertices from their adjacency columns, by one multi-get.
+   * @param vertexIds
+   * @param labels empty for all labels
+   * @return the edge ids, in the order of given vertices
    */
-  @Override
-  public Iterable<com.tinkerpop.blueprints.Vertex> getVertices() {
-    HTableInterface table = this.POOL.getTable(VERTEX_TABLE_NAME);
-    Scan scan = new Scan();
-    ResultScanner rs = null;
-    VertexIterable vertexIt = null;
-      try {
-        rs = table.getScanner(scan);
-      } catch (IOException e) {
-        LOG.error("getVertices failed", e);
-        if(null != table)
-      // this.POOL.putTable(table);
-        throw new RuntimeException(e);
+  protected List<String> getAdjacentEdgeIds(List<String> vertexIds, String... labels) {
+    Validate.notEmpty(vertexIds, "vertexIds shall always not be null or empty");
+    Result[] rs = getAdjacency(vertexIds, true, labels);
+    List<String> edgeIds = new ArrayList<String>();
+    for (int a = 0; a < rs.length; a++) {
+      if (null == rs[a] || rs[a].isEmpty()) continue;
+      for (KeyValue kv : rs[a].raw()) {
+        edgeIds.add(Adjacency.toEdgeId(vertexIds.get(a), kv.getQualifier()));
       }
-      vertexIt = new VertexIterable(table, rs, this);
-    return vertexIt;
+    }
+    return edgeIds;
   }
 
-  /* (non-Javadoc)
-   * @see com.tinkerpop.blueprints.Graph#getVertices(java.lang.String, java.lang.Object)
-   */
+  private Result[] getAdjacency(List<String> vertexIds, boolean keyOnly, String... labels) {
+    Filter filter = null;
+    if (null != labels && labels.length > 0) {
+      Set<byte[]> prefixes = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+      for (String label : labels) {
+        prefixes.add(Adjacency.getLabelPrefix(label));
+      }
+      filter = new MultipleColumnPrefixFilter(prefixes.toArray(new byte[prefixes.size()][]));
+    }
+    if (keyOnly) {
+      if (null == filter) {
+        filter = new KeyOnlyFilter();
+      } else {
+        filter = new FilterList(Operator.MUST_PASS_ALL,
+            Arrays.<Filter> asList(filter, new KeyOnlyFilter()));
+      }
+    }
+    List<Get> gets = new ArrayList<Get>(vertexIds.size());
+    Get get = null;
+    for (String vertexId : vertexIds) {
+      get = new Get(this.SALT.toRow(vertexId));
+      get.addFamily(Adjacency.FAMILY);
+      if (null != filter) get.setFilter(filter);
+      gets.add(get);
+    }
+    HTableInterface table = this.POOL.getTable(this.VERTEX_TABLE_NAME);
+    try {
+      return table.get(gets);
+    } catch (IOException e) {
+      LOG.error("getAdjacency with " + vertexIds.size() + " vertices, labels:"
+          + Arrays.toString(labels) + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      this.returnTable(table);
+    }
+  }
+
+  private Iterable<com.tinkerpop.blueprints.Edge> getEdgesByLabels(final Vertex vertex,
+      final ScanProfile profile, final String... labels) {
+    List<Scan> scans = new ArrayList<Scan>();
+    for (byte[] prefix : getLabelPrefixes((String) vertex.getId(),
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1,
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2, labels)) {
+      scans.add(profile.apply(new Scan(prefix, getStopRow(prefix))));
+    }
+
+    HTableInterface table = this.POOL.getTable(EDGE_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = new MultiRangeResultScanner(table, scans);
+    } catch (IOException e) {
+      LOG.error("getEdges with vertex:" + vertex + ", labels:" + Arrays.toString(labels)
+          + " failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    return new EdgeIterable(table, rs, this);
+  }
+
+  /**
+   * Get one page of the outgoing <code>Edge</code>s of given <code>Vertex</code> from the edge
+   * table. The continuation token is the Base64 of the last rowkey of the previous page, the next
+   * page starts right after it by the start row of the range scan, so a deep page costs the same
+   * as the first one.
+   * @param vertex
+   * @param pageSize max edges of the page
+   * @param token from {@link EdgePage#getContinuationToken()}, <code>null</code> for the first page
+   * @param labels empty for all labels, shall be the same for all pages
+   * @return the page
+   * @throws IllegalArgumentException if the token is not from the edges of given vertex and labels
+   */
+  protected EdgePage getEdgePage(final Vertex vertex, final int pageSize, final String token,
+      final String... labels) {
+    Validate.notNull(vertex, "vertex shall always not be null");
+    Validate.isTrue(pageSize > 0, "pageSize shall be greater than 0");
+    byte[] after = null;
+    if (null != token) {
+      after = Base64.decode(token, Base64.URL_SAFE);
+      Validate.notNull(after, "token:" + token + " is not valid");
+    }
+    ScanProfile profile = new ScanProfile(this.DEFAULT_SCAN_PROFILE);
+    // one more edge tells whether there is a next page
+    if (profile.getCaching() <= 0 || profile.getCaching() > pageSize + 1) {
+      profile.setCaching(pageSize + 1);
+    }
+    List<Scan> scans = new ArrayList<Scan>();
+    boolean found = false;
+    for (byte[] prefix : getEdgePrefixes((String) vertex.getId(), false, labels)) {
+      if (null == after || found) {
+        scans.add(profile.apply(new Scan(prefix, getStopRow(prefix))));
+      } else if (Bytes.startsWith(after, prefix)) {
+        // seek to the smallest rowkey after the last one
+        scans.add(profile.apply(new Scan(Bytes.add(after, new byte[] { 0 }),
+            getStopRow(prefix))));
+        found = true;
+      }
+    }
+    if (null != after && !found) {
+      throw new IllegalArgumentException("token:" + token + " is not from the edges of vertex:"
+          + vertex.getId() + ", labels:" + Arrays.toString(labels));
+    }
+
+    HTableInterface table = this.POOL.getTable(EDGE_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = new MultiRangeResultScanner(table, scans);
+    } catch (IOException e) {
+      LOG.error("getEdgePage with vertex:" + vertex + ", labels:" + Arrays.toString(labels)
+          + " failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    EdgeIterable it = new EdgeIterable(table, rs, this);
+    List<Edge> edges = new ArrayList<Edge>();
+    boolean more = false;
+    try {
+      for (com.tinkerpop.blueprints.Edge edge : it) {
+        if (edges.size() == pageSize) {
+          more = true;
+          break;
+        }
+        edges.add((Edge) edge);
+      }
+    } finally {
+      it.close();
+    }
+    String next = null;
+    if (more) {
+      byte[] last = this.SALT.toRow(edges.get(pageSize - 1).getId().toString());
+      next = Base64.encodeBytes(last, Base64.URL_SAFE | Base64.DONT_BREAK_LINES);
+    }
+    return new EdgePage(edges, next);
+  }
+
+  /**
+   * Get the incoming <code>Edge</code>s of given <code>Vertex</code> from the reverse edge table,
+   * each label is a bounded range scan.
+   * @param vertex
+   * @param labels empty for all incoming edges
+   * @return the edges, with their ids in the same form as the ones from the edge table
+   * @throws UnsupportedOperationException if
+   *           {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY} not configured
+   */
+  protected Iterable<com.tinkerpop.blueprints.Edge> getInEdges(final Vertex vertex,
+      final String... labels) {
+    return getInEdges(vertex, this.DEFAULT_SCAN_PROFILE, labels);
+  }
+
+  /**
+   * Get the incoming <code>Edge</code>s of given <code>Vertex</code> with given
+   * <code>ScanProfile</code>.
+   * @see #getInEdges(Vertex, String...)
+   */
+  protected Iterable<com.tinkerpop.blueprints.Edge> getInEdges(final Vertex vertex,
+      final ScanProfile profile, final String... labels) {
+    Validate.notNull(vertex, "vertex shall always not be null");
+    Validate.notNull(profile, "profile shall always not be null");
+    if (null == this.EDGE_REVERSE_TABLE_NAME) {
+      throw new UnsupportedOperationException("incoming edges are not supported without "
+          + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY + " configured");
+    }
+    List<Scan> scans = new ArrayList<Scan>();
+    for (byte[] prefix : getEdgePrefixes((String) vertex.getId(), true, labels)) {
+      scans.add(profile.apply(new Scan(prefix, getStopRow(prefix))));
+    }
+
+    HTableInterface table = this.POOL.getTable(EDGE_REVERSE_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = new MultiRangeResultScanner(table, scans);
+    } catch (IOException e) {
+      LOG.error("getInEdges with vertex:" + vertex + ", labels:" + Arrays.toString(labels)
+          + " failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    return new EdgeIterable(table, rs, this, true);
+  }
+
+  /**
+   * Get the ids of the vertices on the other side of the edges of given <code>Vertex</code>,
+   * parsed from the rowkeys of a keys-only scan without building the <code>Edge</code>s.
+   * @param vertex
+   * @param direction {@link Direction#OUT} for the destinations of outgoing edges,
+   *          {@link Direction#IN} for the sources of incoming edges
+   * @param profile its filter, if any, is kept in front of the keys-only one
+   * @param labels empty for all labels
+   * @return the vertex ids
+   * @throws UnsupportedOperationException for {@link Direction#IN} if
+   *           {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY} not configured
+   */
+  protected Iterable<String> getVertexIds(final Vertex vertex, final Direction direction,
+      final ScanProfile profile, final String... labels) {
+    Validate.notNull(vertex, "vertex shall always not be null");
+    Validate.notNull(profile, "profile shall always not be null");
+    boolean reversed = isReversed(direction);
+    if (!reversed && this.ADJACENCY_ENABLED) {
+      List<String> ids = new ArrayList<String>();
+      for (String edgeId : getAdjacentEdgeIds(
+        Collections.singletonList((String) vertex.getId()), labels)) {
+        ids.add(Edge.split(edgeId)[2]);
+      }
+      return ids;
+    }
+    ScanProfile keyOnly = getKeyOnlyProfile(profile);
+    List<Scan> scans = new ArrayList<Scan>();
+    for (byte[] prefix : getEdgePrefixes((String) vertex.getId(), reversed, labels)) {
+      scans.add(keyOnly.apply(new Scan(prefix, getStopRow(prefix))));
+    }
+
+    HTableInterface table =
+        this.POOL.getTable(reversed ? EDGE_REVERSE_TABLE_NAME : EDGE_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = new MultiRangeResultScanner(table, scans);
+    } catch (IOException e) {
+      LOG.error("getVertexIds with vertex:" + vertex + ", labels:" + Arrays.toString(labels)
+          + " failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    return new VertexIdIterable(table, rs, this, reversed);
+  }
+
+  /**
+   * Get the rowkeys of the edges of given vertices, with one keys-only scan over their ranges
+   * without building the <code>Edge</code>s. The vertex ids shall be distinct.
+   * @param vertexIds
+   * @param direction {@link Direction#OUT} for the outgoing edges, {@link Direction#IN} for the
+   *          incoming edges from the reverse edge table
+   * @param labels empty for all labels
+   * @return the edge rowkeys, in rowkey order
+   * @throws UnsupportedOperationException for {@link Direction#IN} if
+   *           {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY} not configured
+   */
+  protected AbstractElementIterable<String> getEdgeIds(Collection<String> vertexIds,
+      Direction direction, String... labels) {
+    Validate.notEmpty(vertexIds, "vertexIds shall always not be null or empty");
+    final boolean reversed = isReversed(direction);
+    Set<byte[]> prefixes = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+    for (String id : vertexIds) {
+      prefixes.addAll(getEdgePrefixes(id, reversed, labels));
+    }
+    ScanProfile keyOnly = getKeyOnlyProfile(this.DEFAULT_SCAN_PROFILE);
+    List<Scan> scans = new ArrayList<Scan>(prefixes.size());
+    for (byte[] prefix : prefixes) {
+      scans.add(keyOnly.apply(new Scan(prefix, getStopRow(prefix))));
+    }
+
+    HTableInterface table =
+        this.POOL.getTable(reversed ? EDGE_REVERSE_TABLE_NAME : EDGE_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = new MultiRangeResultScanner(table, scans);
+    } catch (IOException e) {
+      LOG.error("getEdgeIds with " + vertexIds.size() + " vertices, labels:"
+          + Arrays.toString(labels) + " failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    return new AbstractElementIterable<String>(table, rs, this) {
+      @Override
+      protected String newElement(Result r) {
+        return toId(r.getRow());
+      }
+    };
+  }
+
+  /**
+   * @param direction
+   * @return <code>true</code> if the edges of given direction are in the reverse edge table
+   */
+  private boolean isReversed(Direction direction) {
+    switch (direction) {
+    case OUT:
+      return false;
+    case IN:
+      if (null == this.EDGE_REVERSE_TABLE_NAME) {
+        throw new UnsupportedOperationException("incoming edges are not supported without "
+            + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY + " configured");
+      }
+      return true;
+    default:
+      throw new IllegalArgumentException("direction:" + direction + " is not supported");
+    }
+  }
+
+  /**
+   * Copy given profile with a <code>KeyOnlyFilter</code> appended to its filter, if any.
+   * @param profile
+   * @return
+   */
+  private static ScanProfile getKeyOnlyProfile(ScanProfile profile) {
+    ScanProfile keyOnly = new ScanProfile(profile);
+    if (null == profile.getFilter()) {
+      keyOnly.setFilter(new KeyOnlyFilter());
+    } else {
+      FilterList filters = new FilterList(Operator.MUST_PASS_ALL);
+      filters.addFilter(profile.getFilter());
+      filters.addFilter(new KeyOnlyFilter());
+      keyOnly.setFilter(filters);
+    }
+    return keyOnly;
+  }
+
+  /**
+   * Get the rowkey prefixes of the edges of given vertex.
+   * @param id vertex id
+   * @param reversed <code>true</code> for the rowkeys in the reverse edge table
+   * @param labels empty for one prefix covering all labels
+   * @return salted prefixes in rowkey order
+   */
+  private List<byte[]> getEdgePrefixes(String id, boolean reversed, String... labels) {
+    String d1 = reversed ? HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1
+        : HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1;
+    String d2 = reversed ? HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2
+        : HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2;
+    if (null == labels || labels.length == 0) {
+      List<byte[]> prefixes = new ArrayList<byte[]>();
+      prefixes.add(this.SALT.toRow(id + d1));
+      return prefixes;
+    }
+    return getLabelPrefixes(id, d1, d2, labels);
+  }
+
+  /**
+   * Get the edge rowkey prefixes <code>&lt;id&gt;&lt;d1&gt;&lt;label&gt;&lt;d2&gt;</code> for
+   * given labels, de-duplicated and sorted in rowkey order.
+   * @param id vertex id
+   * @param d1 first delimiter
+   * @param d2 second delimiter
+   * @param labels
+   * @return prefixes
+   */
+  private List<byte[]> getLabelPrefixes(String id, String d1, String d2,
+      String... labels) {
+    Set<byte[]> prefixes = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+    for (String label : labels) {
+      prefixes.add(this.SALT.toRow(id + d1 + label + d2));
+    }
+    return new ArrayList<byte[]>(prefixes);
+  }
+
+  /**
+   * Get the qualifier prefixes <code>&lt;key&gt;@</code> of given property keys, the type part of
+   * the qualifiers is not known before reading.
+   * @param propertyKeys
+   * @return
+   */
+  private static byte[][] getPropertyPrefixes(String... propertyKeys) {
+    byte[][] prefixes = new byte[propertyKeys.length][];
+    for (int a = 0; a < propertyKeys.length; a++) {
+      Validate.notEmpty(propertyKeys[a], "propertyKey shall always not be null or empty");
+      prefixes[a] = Bytes.toBytes(propertyKeys[a]
+          + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER);
+    }
+    return prefixes;
+  }
+
+  /**
+   * Get the smallest rowkey which is bigger than all rowkeys starting with given prefix.
+   * @param prefix
+   * @return stop row for a prefix scan
+   */
+  static byte[] getStopRow(byte[] prefix) {
+    for (int a = prefix.length - 1; a >= 0; a--) {
+      if (prefix[a] != (byte) 0xFF) {
+        byte[] stopRow = Arrays.copyOf(prefix, a + 1);
+        stopRow[a]++;
+        return stopRow;
+      }
+    }
+    // all bytes are 0xFF, scan to the end of table
+    return HConstants.EMPTY_END_ROW;
+  }
+  
+  protected long getEdgeCount(final Vertex vertex) {
+    long count = 0;
+    Validate.notNull(vertex, "vertex shall always not be null");
+    if (this.ADJACENCY_ENABLED) {
+      return getAdjacentEdgeIds(Collections.singletonList((String) vertex.getId())).size();
+    }
+    EdgeIterable edgeIt = getEdgeIterable(vertex, new GenScanStrategy() {
+      @Override
+      public Scan getScan() {
+        byte[] prefix =
+            SALT.toRow(vertex.getId() + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1);
+        Scan scan = new Scan(prefix, getStopRow(prefix));
+        scan.setFilter(new KeyOnlyFilter());
+        return DEFAULT_SCAN_PROFILE.applyCaching(scan);
+      }
+    });
+    
+    Iterator<com.tinkerpop.blueprints.Edge> edgeIte = edgeIt.iterator();
+    while(edgeIte.hasNext()) {
+      edgeIte.next();
+      count++;
+    }
+    return count;
+  }
+
+  protected long getEdgeCount(final Vertex vertex, final String label) {
+    long count = 0;
+    Validate.notNull(vertex, "vertex shall always not be null");
+    Validate.notEmpty(label, "label shall always not be null or empty");
+    if (this.ADJACENCY_ENABLED) {
+      return getAdjacentEdgeIds(Collections.singletonList((String) vertex.getId()), label).size();
+    }
+    EdgeIterable edgeIt = getEdgeIterable(vertex, new GenScanStrategy() {
+      @Override
+      public Scan getScan() {
+        byte[] prefix = SALT.toRow(vertex.getId()
+            + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1 + label
+            + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2);
+        Scan scan = new Scan(prefix, getStopRow(prefix));
+        scan.setFilter(new KeyOnlyFilter());
+        return DEFAULT_SCAN_PROFILE.applyCaching(scan);
+      }
+    });
+
+    Iterator<com.tinkerpop.blueprints.Edge> edgeIte = edgeIt.iterator();
+    while(edgeIte.hasNext()) {
+      edgeIte.next();
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Increment the edge counters of given vertex, for the code writing edges to keep the counters
+   * current. Nothing is changed if the counters of the vertex are not backfilled yet, see
+   * {@link org.trend.hgraph.mapreduce.count.CalculateEdgeCounts}.
+   * @param vertexId
+   * @param label label of the edges
+   * @param amount number of edges added, negative for the ones removed
+   * @see Vertex#getEdgeCount()
+   * @see Vertex#getEdgeCount(String)
+   */
+  public void incrementEdgeCount(String vertexId, String label, long amount) {
+    Validate.notEmpty(vertexId, "vertexId shall always not be null or empty");
+    Validate.notEmpty(label, "label shall always not be null or empty");
+    byte[] family = Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME);
+    Increment increment = new Increment(this.SALT.toRow(vertexId));
+    increment.addColumn(family, Vertex.getEdgeCountQualifier(null), amount);
+    increment.addColumn(family, Vertex.getEdgeCountQualifier(label), amount);
+    Get get = new Get(increment.getRow());
+    get.addColumn(family, Vertex.getEdgeCountQualifier(null));
+    HTableInterface table = this.POOL.getTable(this.VERTEX_TABLE_NAME);
+    try {
+      if (table.exists(get)) table.increment(increment);
+    } catch (IOException e) {
+      LOG.error("incrementEdgeCount for vertex:" + vertexId + ", label:" + label + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      this.returnTable(table);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see com.tinkerpop.blueprints.Graph#getEdges(java.lang.String, java.lang.Object)
+   */
+  @Override
+  public Iterable<com.tinkerpop.blueprints.Edge> getEdges(String key, Object value) {
+    if (isKeyIndexed(this.EDGE_INDEX_TABLE_NAME, key) && null != value) {
+      HBaseGraphQuery query = new HBaseGraphQuery(this);
+      query.has(key, value);
+      // re-check, the index might be stale
+      return query.filter(new BatchEdgeIterable(getIndexedIds(this.EDGE_INDEX_TABLE_NAME, key,
+        value), this.VERTICES_BATCH_SIZE, this));
+    }
+    CollectElementStrategy<com.tinkerpop.blueprints.Edge> strategy =
+      new CollectElementStrategy<com.tinkerpop.blueprints.Edge>(this.EDGE_TABLE_NAME) {
+        @Override
+        void newIterable(HTableInterface table, ResultScanner rs, Graph graph) {
+          this.setIterable(new EdgeIterable(table, rs, graph));
+        }
+    };
+    collectElements(key, value, strategy);
+    return strategy.getIterable();
+  }
+
+  /* (non-Javadoc)
+   * @see com.tinkerpop.blueprints.Graph#getFeatures()
+   */
+  @Override
+  public Features getFeatures() {
+    return FEATURES;
+  }
+
+  /* (non-Javadoc)
+   * @see com.tinkerpop.blueprints.Graph#getVertex(java.lang.Object)
+   */
+  @Override
+  public Vertex getVertex(Object id) {
+    if(null == id) return null;
+    
+    String key = id.toString();
+    Result r = null;
+    if (null != this.VERTEX_CACHE) r = this.VERTEX_CACHE.get(key);
+    if (null == r) {
+      r = getResult(id, this.VERTEX_TABLE_NAME);
+      if(r.isEmpty()) return null;
+      if (null != this.VERTEX_CACHE) this.VERTEX_CACHE.put(key, r);
+    }
+    
+    Vertex vertex = new Vertex(r, this);
+    return vertex;
+  }
+
+  /**
+   * Get <code>Vertex</code> with the given properties loaded only, the other properties of the
+   * returned vertex read as <code>null</code>. A full row found in the vertex cache is used as is,
+   * the projected rows are not put into the cache.
+   * @param id
+   * @param propertyKeys the properties to load, all if empty
+   * @return the vertex, <code>null</code> if not found
+   */
+  public Vertex getVertex(Object id, String... propertyKeys) {
+    if (null == id) return null;
+    if (null == propertyKeys || propertyKeys.length == 0) return getVertex(id);
+
+    String key = id.toString();
+    Result r = null;
+    if (null != this.VERTEX_CACHE) r = this.VERTEX_CACHE.get(key);
+    if (null != r) return new Vertex(r, this);
+
+    r = getResult(id, this.VERTEX_TABLE_NAME, propertyKeys);
+    if (!r.isEmpty()) return new Vertex(r, this);
+    // none of the properties set, tell it from a missing row
+    if (!exists(key, this.VERTEX_TABLE_NAME)) return null;
+    return new Vertex(key, r, this);
+  }
+
+  /**
+   * Check whether the <code>Vertex</code> exists without reading its cells back.
+   * @param id
+   * @return
+   */
+  public boolean containsVertex(Object id) {
+    if (null == id) return false;
+    if (null != this.VERTEX_CACHE && null != this.VERTEX_CACHE.get(id.toString())) return true;
+    return exists(id, this.VERTEX_TABLE_NAME);
+  }
+
+  /**
+   * Get a copy of the default <code>ScanProfile</code> set by the <code>Configuration</code>, for
+   * callers to tune it per query.
+   * @return
+   */
+  public ScanProfile getDefaultScanProfile() {
+    return new ScanProfile(this.DEFAULT_SCAN_PROFILE);
+  }
+
+  /**
+   * Get the vertex cache, enabled by
+   * {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_ENTRIES_KEY} or
+   * {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_BYTES_KEY}.
+   * @return the cache for its hit/miss/eviction counts, <code>null</code> if not enabled
+   */
+  public ResultCache getVertexCache() {
+    return this.VERTEX_CACHE;
+  }
+
+  /**
+   * The table pool, shared by the <code>Graph</code>s opened against the same cluster.
+   * @return the pool for its borrowed/idle counts and wait time
+   */
+  public TablePool getTablePool() {
+    return this.POOL;
+  }
+  
+  /**
+   * Get <code>Vertex</code>s by given ids with one batched multi-get. The underlying
+   * <code>HTable</code> groups the gets by region server and sends them in parallel.
+   * @param ids vertex ids
+   * @return vertices in the same order as given ids, <code>null</code> for the ones not found
+   */
+  public List<Vertex> getVertices(Collection<String> ids) {
+    Validate.notNull(ids, "ids shall always not be null");
+    List<Vertex> vertices = new ArrayList<Vertex>(ids.size());
+    if (ids.isEmpty()) return vertices;
+
+    Result[] rs = null;
+    if (null == this.VERTEX_CACHE) {
+      rs = getResults(ids, this.VERTEX_TABLE_NAME);
+    } else {
+      rs = getCachedResults(ids);
+    }
+    for (Result r : rs) {
+      if (null == r || r.isEmpty()) {
+        vertices.add(null);
+      } else {
+        vertices.add(new Vertex(r, this));
+      }
+    }
+    return vertices;
+  }
+
+  /**
+   * Get <code>Edge</code>s by given ids with one batched multi-get.
+   * @param ids edge ids
+   * @return edges in the same order as given ids, <code>null</code> for the ones not found
+   */
+  public List<Edge> getEdges(Collection<String> ids) {
+    Validate.notNull(ids, "ids shall always not be null");
+    List<Edge> edges = new ArrayList<Edge>(ids.size());
+    if (ids.isEmpty()) return edges;
+
+    for (Result r : getResults(ids, this.EDGE_TABLE_NAME)) {
+      if (null == r || r.isEmpty()) {
+        edges.add(null);
+      } else {
+        edges.add(new Edge(r, this));
+      }
+    }
+    return edges;
+  }
+
+  /**
+   * Get the vertex <code>Result</code>s from the cache, and multi-get the ones not cached.
+   */
+  private Result[] getCachedResults(Collection<String> ids) {
+    Result[] rs = new Result[ids.size()];
+    List<String> missedIds = new ArrayList<String>();
+    List<Integer> missedIdxs = new ArrayList<Integer>();
+    int idx = 0;
+    for (String id : ids) {
+      rs[idx] = this.VERTEX_CACHE.get(id);
+      if (null == rs[idx]) {
+        missedIds.add(id);
+        missedIdxs.add(idx);
+      }
+      idx++;
+    }
+    if (!missedIds.isEmpty()) {
+      Result[] missedRs = getResults(missedIds, this.VERTEX_TABLE_NAME);
+      for (int a = 0; a < missedRs.length; a++) {
+        rs[missedIdxs.get(a)] = missedRs[a];
+        this.VERTEX_CACHE.put(missedIds.get(a), missedRs[a]);
+      }
+    }
+    return rs;
+  }
+
+  /**
+   * Get the <code>Vertex</code>s on given side of each <code>Edge</code> with one batched
+   * multi-get.
+   * @param edges
+   * @param direction which side of the edges to get, see {@link Edge#getVertex(Direction)}
+   * @return vertices in the same order as given edges, <code>null</code> for the ones not found
+   */
+  public List<Vertex> getVertices(Iterable<com.tinkerpop.blueprints.Edge> edges,
+      Direction direction) {
+    Validate.notNull(edges, "edges shall always not be null");
+    Validate.notNull(direction, "direction shall always not be null");
+    List<String> ids = new ArrayList<String>();
+    for (com.tinkerpop.blueprints.Edge edge : edges) {
+      ids.add(((Edge) edge).getVertexId(direction));
+    }
+    return getVertices(ids);
+  }
+
+  /**
+   * Get the <code>Vertex</code>s on given side of the <code>Edge</code>s lazily. The edges are
+   * consumed in batches of {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY},
+   * each batch is resolved with one multi-get, so at most one batch is held in memory.
+   * @param edges
+   * @param direction which side of the edges to get, see {@link Edge#getVertex(Direction)}
+   * @return the vertices, the ones not found are skipped
+   */
+  protected Iterable<com.tinkerpop.blueprints.Vertex> getVerticesLazily(
+      Iterable<com.tinkerpop.blueprints.Edge> edges, Direction direction) {
+    return new BatchVertexIterable(edges, direction, this.VERTICES_BATCH_SIZE, this);
+  }
+
+  /**
+   * Resolve the vertices of given ids lazily, in batches of one multi-get each.
+   * @param ids
+   * @return the vertices, the ones not found are skipped
+   */
+  protected Iterable<com.tinkerpop.blueprints.Vertex> getVerticesLazily(Iterable<String> ids) {
+    return new BatchVertexIterable(ids, this.VERTICES_BATCH_SIZE, this);
+  }
+
+  /**
+   * @param key
+   * @param tableName
+   * @return the <code>Get</code> of the whole row, without the adjacency columns
+   */
+  private Get newGet(Object key, String tableName) {
+    Get get = new Get(this.SALT.toRow(key.toString()));
+    // the adjacency columns are only read for the edges
+    if (this.ADJACENCY_ENABLED && this.VERTEX_TABLE_NAME.equals(tableName)) {
+      get.setFilter(new FamilyFilter(CompareOp.NOT_EQUAL, new BinaryComparator(Adjacency.FAMILY)));
+    }
+    return get;
+  }
+
+  private Result[] getResults(Collection<?> keys, String tableName) {
+    HTableInterface table = this.POOL.getTable(tableName);
+    List<Get> gets = new ArrayList<Get>(keys.size());
+    for (Object key : keys) {
+      gets.add(newGet(key, tableName));
+    }
+    Result[] rs;
+    try {
+      rs = table.get(gets);
+    } catch (IOException e) {
+      LOG.error("multi-get from table:" + tableName + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      this.returnTable(table);
+    }
+    return rs;
+  }
+
+  /* (non-Javadoc)
+   * @see com.tinkerpop.blueprints.Graph#getVertices()
+   */
+  @Override
+  public Iterable<com.tinkerpop.blueprints.Vertex> getVertices() {
+    return getVertices(this.DEFAULT_SCAN_PROFILE);
+  }
+
+  /**
+   * Get all <code>Vertex</code>s with given <code>ScanProfile</code>.
+   * @param profile
+   * @return
+   */
+  public Iterable<com.tinkerpop.blueprints.Vertex> getVertices(ScanProfile profile) {
+    Validate.notNull(profile, "profile shall always not be null");
+    HTableInterface table = this.POOL.getTable(VERTEX_TABLE_NAME);
+    Scan scan = profile.apply(new Scan());
+    ResultScanner rs = null;
+    VertexIterable vertexIt = null;
+      try {
+        rs = table.getScanner(scan);
+      } catch (IOException e) {
+        LOG.error("getVertices failed", e);
+        this.returnTable(table);
+        throw new RuntimeException(e);
+      }
+      vertexIt = new VertexIterable(table, rs, this);
+    return vertexIt;
+  }
+
+  /* (non-Javadoc)
+   * @see com.tinkerpop.blueprints.Graph#getVertices(java.lang.String, java.lang.Object)
+   */
   @Override
   public Iterable<com.tinkerpop.blueprints.Vertex> getVertices(String key, Object value) {
+    if (isKeyIndexed(this.VERTEX_INDEX_TABLE_NAME, key) && null != value) {
+      HBaseGraphQuery query = new HBaseGraphQuery(this);
+      query.has(key, value);
+      // re-check, the index might be stale
+      return query.filter(getVerticesLazily(getIndexedIds(this.VERTEX_INDEX_TABLE_NAME, key,
+        value)));
+    }
     CollectElementStrategy<com.tinkerpop.blueprints.Vertex> strategy = 
         new CollectElementStrategy<com.tinkerpop.blueprints.Vertex>(this.VERTEX_TABLE_NAME) {
           @Override
@@ -374,7 +1662,6 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
     if(null == key || "".equals(key) || null == value) return ;
     Validate.notNull(strategy, "strategy shall always not be null");
     
-    HTableInterface table = this.POOL.getTable(strategy.getTableName());
     Properties.Pair<byte[], byte[]> pair = null;
     Scan scan = new Scan();
     try {
@@ -387,15 +1674,215 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
         Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME), pair.key, CompareOp.EQUAL, pair.value);
     filter.setFilterIfMissing(true);
     scan.setFilter(filter);
+    // batch and projection do not work with the row filter
+    this.DEFAULT_SCAN_PROFILE.applyCaching(scan);
+    HTableInterface table = this.POOL.getTable(strategy.getTableName());
     try {
       ResultScanner rs = table.getScanner(scan);
       strategy.newIterable(table, rs, this);
     } catch (IOException e) {
       LOG.error("getScanner failed", e);
-      if(table != null)
-      // this.POOL.putTable(table);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Create the key index and index the existing elements by a client-side scan. For big tables,
+   * build it with {@link org.trend.hgraph.mapreduce.index.BuildPropertyIndex} instead. The key is
+   * registered after the index is built.
+   * @see com.tinkerpop.blueprints.KeyIndexableGraph#createKeyIndex(java.lang.String,
+   *      java.lang.Class, com.tinkerpop.blueprints.Parameter[])
+   */
+  @SuppressWarnings("rawtypes")
+  @Override
+  public <T extends Element> void createKeyIndex(String key, Class<T> elementClass,
+      Parameter... indexParameters) {
+    Validate.notEmpty(key, "key shall always not be null or empty");
+    String indexTableName = getIndexTableName(elementClass);
+    String tableName = com.tinkerpop.blueprints.Vertex.class.isAssignableFrom(elementClass)
+        ? this.VERTEX_TABLE_NAME : this.EDGE_TABLE_NAME;
+
+    Scan scan = new Scan();
+    scan.addFamily(Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME));
+    scan.setFilter(new ColumnPrefixFilter(PropertyIndex.getKeyPrefix(key)));
+    this.DEFAULT_SCAN_PROFILE.applyCaching(scan);
+    scan.setCacheBlocks(false);
+    List<String> keys = Collections.singletonList(key);
+
+    HTableInterface table = this.POOL.getTable(tableName);
+    HTableInterface index = this.POOL.getTable(indexTableName);
+    ResultScanner rs = null;
+    try {
+      rs = table.getScanner(scan);
+      List<Put> puts = new ArrayList<Put>(INDEX_BATCH_SIZE);
+      for (Result r : rs) {
+        puts.addAll(PropertyIndex.toPuts(toId(r.getRow()), r, keys));
+        if (puts.size() >= INDEX_BATCH_SIZE) {
+          index.put(puts);
+          puts = new ArrayList<Put>(INDEX_BATCH_SIZE);
+        }
+      }
+      if (!puts.isEmpty()) index.put(puts);
+      index.put(PropertyIndex.getKeyPut(key));
+    } catch (IOException e) {
+      LOG.error("createKeyIndex for key:" + key + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      if (null != rs) rs.close();
+      this.returnTable(table);
+      this.returnTable(index);
+    }
+    getIndexedKeySet(indexTableName).add(key);
+  }
+
+  /**
+   * Unregister the key first, then delete its index rows.
+   * @see com.tinkerpop.blueprints.KeyIndexableGraph#dropKeyIndex(java.lang.String,
+   *      java.lang.Class)
+   */
+  @Override
+  public <T extends Element> void dropKeyIndex(String key, Class<T> elementClass) {
+    Validate.notEmpty(key, "key shall always not be null or empty");
+    String indexTableName = getIndexTableName(elementClass);
+    byte[] prefix = PropertyIndex.getKeyPrefix(key);
+    Scan scan = new Scan(prefix, getStopRow(prefix));
+    scan.setFilter(new KeyOnlyFilter());
+    this.DEFAULT_SCAN_PROFILE.applyCaching(scan);
+
+    HTableInterface index = this.POOL.getTable(indexTableName);
+    ResultScanner rs = null;
+    try {
+      index.delete(new Delete(PropertyIndex.getKeyPut(key).getRow()));
+      getIndexedKeySet(indexTableName).remove(key);
+      rs = index.getScanner(scan);
+      List<Delete> deletes = new ArrayList<Delete>(INDEX_BATCH_SIZE);
+      for (Result r : rs) {
+        deletes.add(new Delete(r.getRow()));
+        if (deletes.size() >= INDEX_BATCH_SIZE) {
+          index.delete(deletes);
+          deletes = new ArrayList<Delete>(INDEX_BATCH_SIZE);
+        }
+      }
+      if (!deletes.isEmpty()) index.delete(deletes);
+    } catch (IOException e) {
+      LOG.error("dropKeyIndex for key:" + key + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      if (null != rs) rs.close();
+      this.returnTable(index);
+    }
+  }
+
+  /**
+   * The keys are loaded once per <code>Graph</code>, the ones indexed by other clients afterwards
+   * are seen after reopening it.
+   * @see com.tinkerpop.blueprints.KeyIndexableGraph#getIndexedKeys(java.lang.Class)
+   */
+  @Override
+  public <T extends Element> Set<String> getIndexedKeys(Class<T> elementClass) {
+    Validate.notNull(elementClass, "elementClass shall always not be null");
+    String indexTableName = com.tinkerpop.blueprints.Vertex.class.isAssignableFrom(elementClass)
+        ? this.VERTEX_INDEX_TABLE_NAME : this.EDGE_INDEX_TABLE_NAME;
+    if (null == indexTableName) return Collections.emptySet();
+    return new HashSet<String>(getIndexedKeySet(indexTableName));
+  }
+
+  private <T extends Element> String getIndexTableName(Class<T> elementClass) {
+    Validate.notNull(elementClass, "elementClass shall always not be null");
+    String indexTableName = null;
+    String confKey = null;
+    if (com.tinkerpop.blueprints.Vertex.class.isAssignableFrom(elementClass)) {
+      indexTableName = this.VERTEX_INDEX_TABLE_NAME;
+      confKey = HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_INDEX_NAME_KEY;
+    } else if (com.tinkerpop.blueprints.Edge.class.isAssignableFrom(elementClass)) {
+      indexTableName = this.EDGE_INDEX_TABLE_NAME;
+      confKey = HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_INDEX_NAME_KEY;
+    } else {
+      throw new IllegalArgumentException("elementClass:" + elementClass + " is not supported");
+    }
+    if (null == indexTableName) {
+      throw new UnsupportedOperationException("key index is not supported without " + confKey
+          + " configured");
+    }
+    return indexTableName;
+  }
+
+  private boolean isKeyIndexed(String indexTableName, String key) {
+    if (null == indexTableName || null == key) return false;
+    return getIndexedKeySet(indexTableName).contains(key);
+  }
+
+  private Set<String> getIndexedKeySet(String indexTableName) {
+    Set<String> keys = this.INDEXED_KEYS.get(indexTableName);
+    if (null != keys) return keys;
+
+    keys = Collections.synchronizedSet(new HashSet<String>());
+    byte[] prefix = PropertyIndex.getKeyRowPrefix();
+    Scan scan = new Scan(prefix, getStopRow(prefix));
+    scan.setFilter(new KeyOnlyFilter());
+    HTableInterface index = this.POOL.getTable(indexTableName);
+    ResultScanner rs = null;
+    try {
+      rs = index.getScanner(scan);
+      for (Result r : rs) {
+        keys.add(PropertyIndex.toKey(r.getRow()));
+      }
+    } catch (IOException e) {
+      LOG.error("load indexed keys from table:" + indexTableName + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      if (null != rs) rs.close();
+      this.returnTable(index);
+    }
+    Set<String> old = this.INDEXED_KEYS.putIfAbsent(indexTableName, keys);
+    return null == old ? keys : old;
+  }
+
+  /**
+   * Get the ids of the elements indexed with given property value, by a prefix scan.
+   */
+  private Iterable<String> getIndexedIds(String indexTableName, String key, Object value) {
+    final byte[] prefix;
+    try {
+      prefix = PropertyIndex.getPrefix(key, value);
+    } catch (UnsupportedDataTypeException e) {
+      LOG.error("valueToBytes failed", e);
+      throw new RuntimeException(e);
+    }
+    Scan scan = new Scan(prefix, getStopRow(prefix));
+    scan.setFilter(new KeyOnlyFilter());
+    this.DEFAULT_SCAN_PROFILE.applyCaching(scan);
+    HTableInterface index = this.POOL.getTable(indexTableName);
+    ResultScanner rs = null;
+    try {
+      rs = index.getScanner(scan);
+    } catch (IOException e) {
+      LOG.error("getIndexedIds for key:" + key + " failed", e);
+      this.returnTable(index);
       throw new RuntimeException(e);
     }
+    return new AbstractElementIterable<String>(index, rs, this) {
+      @Override
+      protected String newElement(Result r) {
+        byte[] row = r.getRow();
+        return Bytes.toString(row, prefix.length, row.length - prefix.length);
+      }
+    };
+  }
+
+  /**
+   * Find the shortest directed paths between two vertices, see {@link ShortestPath} for the
+   * other options.
+   * @param sourceId
+   * @param targetId
+   * @param maxDepth max edges of a path
+   * @return the paths as vertex ids from the source to the target, empty if not found
+   */
+  public List<List<String>> getShortestPaths(String sourceId, String targetId, int maxDepth) {
+    ShortestPath shortestPath = new ShortestPath(this);
+    shortestPath.setMaxDepth(maxDepth);
+    return shortestPath.find(sourceId, targetId);
   }
 
   /* (non-Javadoc)
@@ -403,60 +1890,322 @@ public class Graph implements com.tinkerpop.blueprints.Graph {
    */
   @Override
   public GraphQuery query() {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
+    return new HBaseGraphQuery(this);
   }
 
-  /* (non-Javadoc)
+  /**
+   * Scan the edge table with given <code>Filter</code>, for the queries.
+   * @param filter <code>null</code> for all edges
+   * @return
+   */
+  protected EdgeIterable scanEdges(Filter filter) {
+    HTableInterface table = this.POOL.getTable(EDGE_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = table.getScanner(newFilterScan(filter));
+    } catch (IOException e) {
+      LOG.error("scanEdges failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    return new EdgeIterable(table, rs, this);
+  }
+
+  /**
+   * Scan the vertex table with given <code>Filter</code>, for the queries.
+   * @param filter <code>null</code> for all vertices
+   * @return
+   */
+  protected VertexIterable scanVertices(Filter filter) {
+    HTableInterface table = this.POOL.getTable(VERTEX_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = table.getScanner(newFilterScan(filter));
+    } catch (IOException e) {
+      LOG.error("scanVertices failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    return new VertexIterable(table, rs, this);
+  }
+
+  private Scan newFilterScan(Filter filter) {
+    Scan scan = new Scan();
+    // batch and projection do not work with the row filters
+    this.DEFAULT_SCAN_PROFILE.applyCaching(scan);
+    if (null != filter) scan.setFilter(filter);
+    return scan;
+  }
+
+  /**
+   * Buffer the deletes of given edge rows, its index rows, adjacency column and counters, see
+   * {@link #getWriteBuffer()}.
    * @see com.tinkerpop.blueprints.Graph#removeEdge(com.tinkerpop.blueprints.Edge)
    */
   @Override
-  public void removeEdge(com.tinkerpop.blueprints.Edge arg0) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
+  public void removeEdge(com.tinkerpop.blueprints.Edge edge) {
+    Validate.notNull(edge, "edge shall always not be null");
+    deleteEdge(edge.getId().toString(), edge, true);
   }
 
-  /* (non-Javadoc)
+  /**
+   * Buffer the deletes of given vertex row, its index rows and its edges, see
+   * {@link #removeVertices(Collection)} for how the edges are found, it scans the whole edge table
+   * without the reverse edge table. The buffered writes are flushed first, for finding the edges
+   * added but not flushed yet.
    * @see com.tinkerpop.blueprints.Graph#removeVertex(com.tinkerpop.blueprints.Vertex)
    */
   @Override
-  public void removeVertex(com.tinkerpop.blueprints.Vertex arg0) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
+  public void removeVertex(com.tinkerpop.blueprints.Vertex vertex) {
+    Validate.notNull(vertex, "vertex shall always not be null");
+    flush();
+    deleteVertices(Collections.singleton(vertex.getId().toString()), vertex);
   }
 
-  /* (non-Javadoc)
+  /**
+   * Remove given vertices with all their edges, and wait for the deletes done.
+   * <p>
+   * The outgoing edges are found by one keys-only scan over the edge ranges of all vertices. The
+   * incoming ones are read from the reverse edge table if
+   * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY} configured, otherwise by
+   * one keys-only scan of the whole edge table filtered by the target suffixes server-side. The
+   * edges are deleted in chunks, with their indexed properties read back by multi-gets, and the
+   * deletes are sent in the batches of the {@link WriteBuffer}.
+   * <p>
+   * For a large number of vertices, see {@link org.trend.hgraph.mapreduce.remove.RemoveVertices}.
+   * @param ids vertex ids
+   * @return count of the edges removed
+   */
+  public long removeVertices(Collection<String> ids) {
+    Validate.notEmpty(ids, "ids shall always not be null or empty");
+    flush();
+    long count = deleteVertices(new HashSet<String>(ids), null);
+    flush();
+    return count;
+  }
+
+  /**
+   * @param ids distinct vertex ids
+   * @param vertex the only vertex in given ids, for its indexed properties, <code>null</code> to
+   *          read them back
+   * @return count of the edges deleted
+   */
+  private long deleteVertices(Set<String> ids, com.tinkerpop.blueprints.Vertex vertex) {
+    // the adjacency columns and counters of the outgoing edges go with the vertex rows
+    long count = deleteEdges(getEdgeIds(ids, Direction.OUT), false, ids);
+    if (null != this.EDGE_REVERSE_TABLE_NAME) {
+      count += deleteEdges(getEdgeIds(ids, Direction.IN), true, ids);
+    } else {
+      count += deleteEdges(getIncomingEdgeIds(ids), true, ids);
+    }
+
+    if (null != this.VERTEX_INDEX_TABLE_NAME
+        && !getIndexedKeySet(this.VERTEX_INDEX_TABLE_NAME).isEmpty()) {
+      if (null != vertex) {
+        deleteIndexRows(this.VERTEX_INDEX_TABLE_NAME, vertex.getId().toString(), vertex);
+      } else {
+        for (Vertex v : getVertices(ids)) {
+          if (null != v) deleteIndexRows(this.VERTEX_INDEX_TABLE_NAME, v.getId().toString(), v);
+        }
+      }
+    }
+    WriteBuffer buffer = getWriteBuffer();
+    for (String id : ids) {
+      buffer.add(this.VERTEX_TABLE_NAME, new Delete(this.SALT.toRow(id)));
+    }
+    return count;
+  }
+
+  /**
+   * Get the ids of the edges pointing to given vertices without the reverse edge table, by one
+   * keys-only scan of the whole edge table with a <code>RowFilter</code> on the target suffixes.
+   * @param vertexIds
+   * @return the edge ids, in rowkey order
+   */
+  private AbstractElementIterable<String> getIncomingEdgeIds(Collection<String> vertexIds) {
+    StringBuilder regex = new StringBuilder();
+    for (String id : vertexIds) {
+      regex.append(0 == regex.length() ? "(?:" : "|").append(Pattern.quote(id));
+    }
+    regex.insert(0, Pattern.quote(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2));
+    regex.append(")$");
+    Filter suffix = new RowFilter(CompareOp.EQUAL, new RegexStringComparator(regex.toString()));
+
+    ScanProfile profile = new ScanProfile(this.DEFAULT_SCAN_PROFILE);
+    if (null == profile.getFilter()) {
+      profile.setFilter(suffix);
+    } else {
+      FilterList filters = new FilterList(Operator.MUST_PASS_ALL);
+      filters.addFilter(profile.getFilter());
+      filters.addFilter(suffix);
+      profile.setFilter(filters);
+    }
+    Scan scan = getKeyOnlyProfile(profile).apply(new Scan());
+    // one pass over the whole table, do not evict the hot blocks
+    scan.setCacheBlocks(false);
+
+    HTableInterface table = this.POOL.getTable(EDGE_TABLE_NAME);
+    ResultScanner rs = null;
+    try {
+      rs = table.getScanner(scan);
+    } catch (IOException e) {
+      LOG.error("getIncomingEdgeIds with " + vertexIds.size() + " vertices failed", e);
+      this.returnTable(table);
+      throw new RuntimeException(e);
+    }
+    return new AbstractElementIterable<String>(table, rs, this) {
+      @Override
+      protected String newElement(Result r) {
+        return toId(r.getRow());
+      }
+    };
+  }
+
+  /**
+   * Delete the edges of given ids in chunks of {@link #INDEX_BATCH_SIZE}.
+   * @param ids edge ids or reversed ones, closed when done
+   * @param incoming <code>true</code> for the edges pointing to the removed vertices, the ones
+   *          from the removed vertices are skipped as deleted by the outgoing pass already
+   * @param removedIds
+   * @return count of the edges deleted
+   */
+  private long deleteEdges(AbstractElementIterable<String> ids, boolean incoming,
+      Set<String> removedIds) {
+    long count = 0;
+    List<String> chunk = new ArrayList<String>();
+    try {
+      String edgeId = null;
+      String[] parts = null;
+      for (String id : ids) {
+        edgeId = incoming && null != this.EDGE_REVERSE_TABLE_NAME ? Edge.fromReversedId(id) : id;
+        parts = null == edgeId ? null : Edge.split(edgeId);
+        if (null == parts) {
+          LOG.warn("skip invalid edge id:" + id);
+          continue;
+        }
+        if (incoming && removedIds.contains(parts[0])) continue;
+        chunk.add(edgeId);
+        if (chunk.size() >= INDEX_BATCH_SIZE) {
+          deleteEdges(chunk, removedIds);
+          count += chunk.size();
+          chunk = new ArrayList<String>();
+        }
+      }
+    } finally {
+      ids.close();
+    }
+    if (!chunk.isEmpty()) {
+      deleteEdges(chunk, removedIds);
+      count += chunk.size();
+    }
+    return count;
+  }
+
+  private void deleteEdges(List<String> edgeIds, Set<String> removedIds) {
+    List<Edge> edges = null;
+    if (null != this.EDGE_INDEX_TABLE_NAME
+        && !getIndexedKeySet(this.EDGE_INDEX_TABLE_NAME).isEmpty()) {
+      edges = getEdges(edgeIds);
+    }
+    String edgeId = null;
+    for (int a = 0; a < edgeIds.size(); a++) {
+      edgeId = edgeIds.get(a);
+      deleteEdge(edgeId, null == edges ? null : edges.get(a),
+        !removedIds.contains(Edge.split(edgeId)[0]));
+    }
+  }
+
+  /**
+   * @param edgeId
+   * @param edge for its indexed properties, <code>null</code> if not found or not needed
+   * @param sourceKept <code>false</code> if the source vertex is removed as well
+   */
+  private void deleteEdge(String edgeId, com.tinkerpop.blueprints.Edge edge, boolean sourceKept) {
+    String[] parts = Edge.split(edgeId);
+    Validate.notNull(parts, "id:" + edgeId + " is not a valid edge id");
+    if (null != edge) deleteIndexRows(this.EDGE_INDEX_TABLE_NAME, edgeId, edge);
+    WriteBuffer buffer = getWriteBuffer();
+    buffer.add(this.EDGE_TABLE_NAME, new Delete(this.SALT.toRow(edgeId)));
+    if (null != this.EDGE_REVERSE_TABLE_NAME) {
+      buffer.add(this.EDGE_REVERSE_TABLE_NAME,
+        new Delete(this.SALT.toRow(Edge.toReversedId(edgeId))));
+    }
+    if (!sourceKept) return;
+    if (this.ADJACENCY_ENABLED) {
+      Delete delete = new Delete(this.SALT.toRow(parts[0]));
+      delete.deleteColumns(Adjacency.FAMILY, Adjacency.toQualifier(parts[1], parts[2]));
+      buffer.add(this.VERTEX_TABLE_NAME, delete);
+    }
+    if (isEdgeCountsEnabled()) bufferEdgeCount(parts[0], parts[1], -1L);
+  }
+
+  private void deleteIndexRows(String indexTableName, String id, Element element) {
+    if (null == indexTableName) return;
+    WriteBuffer buffer = getWriteBuffer();
+    Object value = null;
+    for (String key : new ArrayList<String>(getIndexedKeySet(indexTableName))) {
+      value = element.getProperty(key);
+      if (null == value) continue;
+      try {
+        buffer.add(indexTableName, new Delete(PropertyIndex.getRow(key, value, id)));
+      } catch (UnsupportedDataTypeException e) {
+        LOG.error("PropertyIndex.getRow failed", e);
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * Flush the buffered writes, then release the table pool.
    * @see com.tinkerpop.blueprints.Graph#shutdown()
    */
   @Override
   public void shutdown() {
-    
+    // the pool is shared with other graphs, release it only once
+    if (!this.SHUTDOWN.compareAndSet(false, true)) return;
     try {
-      this.POOL.close();
-    } catch (IOException e1) {
-      LOG.error("pool close failed", e1);
-      throw new RuntimeException(e1);
-    } catch(Exception e2) {
-      //fallback to call old pool.close method if above not support...
-      try {
-        this.POOL.closeTablePool(this.VERTEX_TABLE_NAME);
-      } catch(Exception e3) {
-        LOG.warn("pool.close " + this.VERTEX_TABLE_NAME + " failed", e3);
-      }
-      try {
-        this.POOL.closeTablePool(this.EDGE_TABLE_NAME);
-      } catch(Exception e3) {
-        LOG.warn("pool.close " + this.EDGE_TABLE_NAME + " failed", e3);
+      synchronized (this) {
+        if (null != this.WRITE_BUFFER) this.WRITE_BUFFER.close();
       }
+    } finally {
+      this.POOL.close();
     }
   }
+
   
+  /**
+   * Borrow a table from the pool, shall be returned by {@link #returnTable(HTableInterface)}.
+   * @param tableName
+   * @return
+   */
+  protected HTableInterface getTable(String tableName) {
+    return this.POOL.getTable(tableName);
+  }
+
   /**
    * client code return their resource back to <code>Graph</code>
    * @param table
    */
   protected void returnTable(HTableInterface table) {
-    // this.POOL.putTable(table);
+    this.POOL.returnTable(table);
+  }
+
+  protected void scannerOpened() {
+    this.OPEN_SCANNER_COUNT.incrementAndGet();
+  }
+
+  protected void scannerClosed() {
+    this.OPEN_SCANNER_COUNT.decrementAndGet();
+  }
+
+  /**
+   * Get number of scanners opened by this <code>Graph</code> and not closed yet, a number keeps
+   * growing means some iterables are not iterated to the end nor closed.
+   * @return open scanner count
+   * @see AbstractElementIterable#close()
+   */
+  public int getOpenScannerCount() {
+    return this.OPEN_SCANNER_COUNT.get();
   }
 
 }
@@ -26,12 +26,116 @@ public class HBaseGraphConstants {
   public static final String HBASE_GRAPH_TABLE_VERTEX_NAME_KEY = "hbase.graph.table.vertex.name";
   
   public static final String HBASE_GRAPH_TABLE_EDGE_NAME_KEY = "hbase.graph.table.edge.name";
+
+  public static final String HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY = "hbase.graph.table.edge.reverse.name";
+  
+  public static final String HBASE_GRAPH_TABLE_VERTEX_INDEX_NAME_KEY = "hbase.graph.table.vertex.index.name";
+
+  public static final String HBASE_GRAPH_TABLE_EDGE_INDEX_NAME_KEY = "hbase.graph.table.edge.index.name";
+  
+  public static final String HBASE_GRAPH_TABLE_ID_NAME_KEY = "hbase.graph.table.id.name";
+
+  public static final String HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY = "hbase.graph.table.rowkey.v2.labels";
+
+  public static final String HBASE_GRAPH_TABLE_SALT_BUCKETS_KEY = "hbase.graph.table.salt.buckets";
+
+  public static final String HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY = "hbase.graph.table.adjacency.enabled";
+
+  public static final String HBASE_GRAPH_TABLE_EDGE_COUNTS_ENABLED_KEY = "hbase.graph.table.edge.counts.enabled";
   
   public static final String HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME = "property";
   
   public static final String HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER = "@";
 
+  /**
+   * suffix of the property qualifiers <code>&lt;key&gt;@&lt;type&gt;@String</code>, the values
+   * are in the string form of their type whatever the length
+   */
+  public static final String HBASE_GRAPH_TABLE_COLFAM_PROPERTY_STRING_FORM_SUFFIX = "@String";
+
+  public static final String HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME = "count";
+
+  public static final String HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME = "adjacency";
+
+  public static final String HBASE_GRAPH_TABLE_COLFAM_INDEX_NAME = "index";
+
+  public static final String HBASE_GRAPH_TABLE_INDEX_DELIMITER = "|";
+
+  public static final String HBASE_GRAPH_TABLE_COLFAM_ID_NAME = "id";
+
+  public static final String HBASE_GRAPH_TABLE_COLQUAL_EDGE_COUNT_NAME = "edgeCount";
+
   public static final String HBASE_GRAPH_TABLE_EDGE_DELIMITER_1 = "-->";
 
   public static final String HBASE_GRAPH_TABLE_EDGE_DELIMITER_2 = "-->";
+
+  public static final String HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1 = "<--";
+
+  public static final String HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2 = "<--";
+
+  public static final String HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY = "hbase.graph.client.vertices.batch.size";
+
+  public static final int HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_DEFAULT = 100;
+
+  public static final String HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_ENTRIES_KEY = "hbase.graph.client.cache.vertex.max.entries";
+
+  public static final int HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_ENTRIES_DEFAULT = 0;
+
+  public static final String HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_BYTES_KEY = "hbase.graph.client.cache.vertex.max.bytes";
+
+  public static final long HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_BYTES_DEFAULT = 0L;
+
+  public static final String HBASE_GRAPH_CLIENT_CACHE_VERTEX_TTL_KEY = "hbase.graph.client.cache.vertex.ttl";
+
+  public static final long HBASE_GRAPH_CLIENT_CACHE_VERTEX_TTL_DEFAULT = 60000L;
+
+  public static final String HBASE_GRAPH_CLIENT_SCAN_CACHING_KEY = "hbase.graph.client.scan.caching";
+
+  public static final int HBASE_GRAPH_CLIENT_SCAN_CACHING_DEFAULT = 100;
+
+  public static final String HBASE_GRAPH_CLIENT_SCAN_BATCH_KEY = "hbase.graph.client.scan.batch";
+
+  public static final int HBASE_GRAPH_CLIENT_SCAN_BATCH_DEFAULT = 0;
+
+  public static final String HBASE_GRAPH_CLIENT_SCAN_CACHE_BLOCKS_KEY = "hbase.graph.client.scan.cacheblocks";
+
+  public static final boolean HBASE_GRAPH_CLIENT_SCAN_CACHE_BLOCKS_DEFAULT = true;
+
+  public static final String HBASE_GRAPH_CLIENT_SCAN_FAMILIES_KEY = "hbase.graph.client.scan.families";
+
+  public static final String HBASE_GRAPH_CLIENT_SCAN_PARALLEL_QUEUE_SIZE_KEY = "hbase.graph.client.scan.parallel.queue.size";
+
+  public static final int HBASE_GRAPH_CLIENT_SCAN_PARALLEL_QUEUE_SIZE_DEFAULT = 1000;
+
+  public static final String HBASE_GRAPH_CLIENT_POOL_MAX_SIZE_KEY = "hbase.graph.client.pool.max.size";
+
+  public static final int HBASE_GRAPH_CLIENT_POOL_MAX_SIZE_DEFAULT = 10;
+
+  public static final String HBASE_GRAPH_CLIENT_POOL_MAX_ACTIVE_KEY = "hbase.graph.client.pool.max.active";
+
+  public static final int HBASE_GRAPH_CLIENT_POOL_MAX_ACTIVE_DEFAULT = 0;
+
+  public static final String HBASE_GRAPH_CLIENT_POOL_WAIT_TIMEOUT_KEY = "hbase.graph.client.pool.wait.timeout";
+
+  public static final long HBASE_GRAPH_CLIENT_POOL_WAIT_TIMEOUT_DEFAULT = 60000L;
+
+  public static final String HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_KEY = "hbase.graph.client.traversal.parallelism";
+
+  public static final int HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_DEFAULT = 10;
+
+  public static final String HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_KEY = "hbase.graph.client.write.batch.size";
+
+  public static final int HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_DEFAULT = 1000;
+
+  public static final String HBASE_GRAPH_CLIENT_WRITE_BUFFER_MAX_PENDING_KEY = "hbase.graph.client.write.buffer.max.pending";
+
+  public static final int HBASE_GRAPH_CLIENT_WRITE_BUFFER_MAX_PENDING_DEFAULT = 10000;
+
+  public static final String HBASE_GRAPH_CLIENT_WRITE_FLUSH_INTERVAL_KEY = "hbase.graph.client.write.flush.interval";
+
+  public static final long HBASE_GRAPH_CLIENT_WRITE_FLUSH_INTERVAL_DEFAULT = 1000L;
+
+  public static final String HBASE_GRAPH_CLIENT_WRITE_FLUSH_THREADS_KEY = "hbase.graph.client.write.flush.threads";
+
+  public static final int HBASE_GRAPH_CLIENT_WRITE_FLUSH_THREADS_DEFAULT = 2;
 }
@@ -19,7 +19,6 @@ package org.trend.hgraph;
 
 import org.apache.commons.lang.Validate;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.hbase.client.HTablePool;
 
 /**
  * A Factory for initializing the <code>Graph</code> object.
@@ -28,17 +27,16 @@ import org.apache.hadoop.hbase.client.HTablePool;
  */
 public class HBaseGraphFactory {
   
-  private final static int MAX_SIZE = 10;
-  
   /**
-   * Open a <code>Graph</code>.
+   * Open a <code>Graph</code>. The <code>Graph</code>s opened against the same cluster share one
+   * {@link TablePool}, and a <code>Graph</code> is safe to be shared by threads, so there is no
+   * need to open one per thread.
    * @param conf <code>HBaseConfiguration</code>
    * @return a <code>Graph</code>
    */
   public static Graph open(Configuration conf) {
     Validate.notNull(conf, "conf shall always not be null");
-    HTablePool pool = new HTablePool(conf, MAX_SIZE);
-    return new Graph(pool, conf);
+    return new Graph(TablePool.acquire(conf), conf);
   }
 
 }
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import org.apache.commons.lang.Validate;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * <code>GraphQuery</code> scanning the vertex or edge table with the predicates pushed down to the
+ * region servers.
+ * @author scott_miao
+ * @see AbstractQuery
+ */
+public class HBaseGraphQuery extends AbstractQuery implements GraphQuery {
+
+  private final Graph graph;
+
+  /**
+   * @param graph
+   */
+  protected HBaseGraphQuery(Graph graph) {
+    super();
+    Validate.notNull(graph, "graph shall always not be null");
+    this.graph = graph;
+  }
+
+  @Override
+  public GraphQuery has(String key, Object value) {
+    this.addHas(key, Compare.EQUAL, value);
+    return this;
+  }
+
+  @Override
+  public <T extends Comparable<T>> GraphQuery has(String key, T value, Compare compare) {
+    this.addHas(key, compare, value);
+    return this;
+  }
+
+  /**
+   * Keep the elements with given property set.
+   * @param key
+   * @return
+   */
+  public GraphQuery has(String key) {
+    this.addHas(key, Compare.NOT_EQUAL, null);
+    return this;
+  }
+
+  /**
+   * Keep the elements without given property.
+   * @param key
+   * @return
+   */
+  public GraphQuery hasNot(String key) {
+    this.addHas(key, Compare.EQUAL, null);
+    return this;
+  }
+
+  /**
+   * Keep the elements whose given property is not equal to given value, or not set.
+   * @param key
+   * @param value
+   * @return
+   */
+  public GraphQuery hasNot(String key, Object value) {
+    this.addHas(key, Compare.NOT_EQUAL, value);
+    return this;
+  }
+
+  @Override
+  public <T extends Comparable<T>> GraphQuery interval(String key, T startValue, T endValue) {
+    this.addInterval(key, startValue, endValue);
+    return this;
+  }
+
+  @Override
+  public GraphQuery limit(long max) {
+    this.setLimit(max);
+    return this;
+  }
+
+  @Override
+  public Iterable<Edge> edges() {
+    return this.filter(this.graph.scanEdges(this.buildFilter()));
+  }
+
+  @Override
+  public Iterable<Vertex> vertices() {
+    return this.filter(this.graph.scanVertices(this.buildFilter()));
+  }
+
+}
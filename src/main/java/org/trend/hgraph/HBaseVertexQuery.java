@@ -0,0 +1,246 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.lang.Validate;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.VertexQuery;
+
+/**
+ * <code>VertexQuery</code> over the edges of one vertex. Labels are turned into bounded rowkey
+ * ranges, the property predicates and the limit are pushed down as in {@link HBaseGraphQuery}.
+ * <p>
+ * {@link #vertexIds()} and {@link #count()} without property predicates run keys-only scans and
+ * parse the vertex ids from the rowkeys, {@link #count()} of the outgoing edges reads the edge
+ * counters if there. The default direction is {@link Direction#BOTH}, which requires the reverse
+ * edge table.
+ * @author scott_miao
+ */
+public class HBaseVertexQuery extends AbstractQuery implements VertexQuery {
+
+  private static final String[] NO_LABELS = new String[0];
+
+  private final Vertex vertex;
+  private Direction direction = Direction.BOTH;
+  private String[] labels = NO_LABELS;
+
+  /**
+   * @param vertex
+   */
+  protected HBaseVertexQuery(Vertex vertex) {
+    super();
+    Validate.notNull(vertex, "vertex shall always not be null");
+    this.vertex = vertex;
+  }
+
+  @Override
+  public VertexQuery direction(Direction direction) {
+    Validate.notNull(direction, "direction shall always not be null");
+    this.direction = direction;
+    return this;
+  }
+
+  @Override
+  public VertexQuery labels(String... labels) {
+    this.labels = null == labels ? NO_LABELS : labels;
+    return this;
+  }
+
+  @Override
+  public VertexQuery has(String key, Object value) {
+    this.addHas(key, Compare.EQUAL, value);
+    return this;
+  }
+
+  @Override
+  public <T extends Comparable<T>> VertexQuery has(String key, T value, Compare compare) {
+    this.addHas(key, compare, value);
+    return this;
+  }
+
+  /**
+   * Keep the edges with given property set.
+   * @param key
+   * @return
+   */
+  public VertexQuery has(String key) {
+    this.addHas(key, Compare.NOT_EQUAL, null);
+    return this;
+  }
+
+  /**
+   * Keep the edges without given property.
+   * @param key
+   * @return
+   */
+  public VertexQuery hasNot(String key) {
+    this.addHas(key, Compare.EQUAL, null);
+    return this;
+  }
+
+  /**
+   * Keep the edges whose given property is not equal to given value, or not set.
+   * @param key
+   * @param value
+   * @return
+   */
+  public VertexQuery hasNot(String key, Object value) {
+    this.addHas(key, Compare.NOT_EQUAL, value);
+    return this;
+  }
+
+  @Override
+  public <T extends Comparable<T>> VertexQuery interval(String key, T startValue, T endValue) {
+    this.addInterval(key, startValue, endValue);
+    return this;
+  }
+
+  @Override
+  public VertexQuery limit(long max) {
+    this.setLimit(max);
+    return this;
+  }
+
+  @Override
+  public Iterable<com.tinkerpop.blueprints.Edge> edges() {
+    ScanProfile profile = this.vertex.getGraph().getDefaultScanProfile();
+    profile.setFilter(this.buildFilter());
+    return this.filter(this.vertex.getEdges(profile, this.direction, this.labels));
+  }
+
+  @Override
+  public Iterable<com.tinkerpop.blueprints.Vertex> vertices() {
+    return this.vertex.getGraph().getVerticesLazily(this.getVertexIds());
+  }
+
+  /**
+   * @return an <code>Iterable&lt;String&gt;</code> of the vertex ids
+   */
+  @Override
+  public Object vertexIds() {
+    return this.getVertexIds();
+  }
+
+  @Override
+  public long count() {
+    if (!this.hasPredicates() && this.getLimit() == Long.MAX_VALUE
+        && Direction.OUT == this.direction) {
+      if (this.labels.length == 0) return this.vertex.getEdgeCount();
+      Set<String> labels = new LinkedHashSet<String>();
+      for (String label : this.labels) {
+        labels.add(label);
+      }
+      long count = 0L;
+      for (String label : labels) {
+        count += this.vertex.getEdgeCount(label);
+      }
+      return count;
+    }
+
+    long count = 0L;
+    for (Iterator<String> it = this.getVertexIds().iterator(); it.hasNext(); it.next()) {
+      count++;
+    }
+    return count;
+  }
+
+  private Iterable<String> getVertexIds() {
+    // the edge properties are needed to re-check the predicates
+    if (this.hasPredicates()) return new OtherVertexIds(this.edges(), (String) this.vertex.getId());
+
+    Graph graph = this.vertex.getGraph();
+    ScanProfile profile = graph.getDefaultScanProfile();
+    profile.setFilter(this.buildFilter());
+    Iterable<String> ids = null;
+    switch (this.direction) {
+    case OUT:
+      ids = graph.getVertexIds(this.vertex, Direction.OUT, profile, this.labels);
+      break;
+    case IN:
+      ids = graph.getVertexIds(this.vertex, Direction.IN, profile, this.labels);
+      break;
+    case BOTH:
+      // incoming first, it fails fast if the reverse edge table not configured
+      Iterable<String> inIds = graph.getVertexIds(this.vertex, Direction.IN, profile, this.labels);
+      ids = new ChainedIterable<String>(
+          graph.getVertexIds(this.vertex, Direction.OUT, profile, this.labels), inIds);
+      break;
+    default:
+      throw new RuntimeException("direction:" + this.direction + " is not supported");
+    }
+    return this.cutOff(ids);
+  }
+
+  /**
+   * Map the edges to the ids of the vertices on their other side.
+   */
+  private static class OtherVertexIds implements Iterable<String>, Closeable {
+    private final Iterable<com.tinkerpop.blueprints.Edge> edges;
+    private final String id;
+
+    private OtherVertexIds(Iterable<com.tinkerpop.blueprints.Edge> edges, String id) {
+      this.edges = edges;
+      this.id = id;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      final Iterator<com.tinkerpop.blueprints.Edge> it = this.edges.iterator();
+      return new Iterator<String>() {
+
+        @Override
+        public boolean hasNext() {
+          return it.hasNext();
+        }
+
+        @Override
+        public String next() {
+          Edge edge = (Edge) it.next();
+          // the source of an outgoing edge is the vertex itself
+          String src = edge.getVertexId(Direction.IN);
+          return id.equals(src) ? edge.getVertexId(Direction.OUT) : src;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+
+      };
+    }
+
+    @Override
+    public void close() {
+      if (this.edges instanceof Closeable) {
+        try {
+          ((Closeable) this.edges).close();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+  }
+
+}
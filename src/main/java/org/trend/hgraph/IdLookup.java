@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Look up the original vertex ids of the v2 vertex rowkeys, see {@link RowKeyCodec}.
+ * <p>
+ * The id table, given by {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_ID_NAME_KEY}, keeps one row
+ * per vertex, keyed by the vertex rowkey with the original id as the value of the
+ * <code>id</code> family. It covers the vertices only referred by edges as well.
+ * @author scott_miao
+ */
+public class IdLookup implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IdLookup.class);
+
+  public static final byte[] FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ID_NAME);
+
+  private final TablePool pool;
+  private final String tableName;
+  private boolean closed = false;
+
+  /**
+   * @param conf the id table is given by
+   *          {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_ID_NAME_KEY}
+   */
+  public IdLookup(Configuration conf) {
+    super();
+    Validate.notNull(conf, "conf shall always not be null");
+    String tableName = conf.get(HBaseGraphConstants.HBASE_GRAPH_TABLE_ID_NAME_KEY);
+    Validate.notEmpty(tableName, HBaseGraphConstants.HBASE_GRAPH_TABLE_ID_NAME_KEY
+        + " shall not be null or empty");
+    this.tableName = tableName;
+    this.pool = TablePool.acquire(conf);
+  }
+
+  /**
+   * @param id original vertex id
+   * @return the row of the id table for given id
+   */
+  public static Put toPut(String id) {
+    Put put = new Put(RowKeyCodec.toVertexKey(id));
+    put.add(FAMILY, HConstants.EMPTY_BYTE_ARRAY, Bytes.toBytes(id));
+    return put;
+  }
+
+  /**
+   * @param vertexKey
+   * @return the original id, <code>null</code> if not found
+   */
+  public String getId(byte[] vertexKey) {
+    List<byte[]> keys = new ArrayList<byte[]>(1);
+    keys.add(vertexKey);
+    return getIds(keys).get(0);
+  }
+
+  /**
+   * Look up the original ids with one multi-get.
+   * @param vertexKeys
+   * @return the original ids in the same order, <code>null</code> for the ones not found
+   */
+  public List<String> getIds(List<byte[]> vertexKeys) {
+    Validate.notNull(vertexKeys, "vertexKeys shall always not be null");
+    List<Get> gets = new ArrayList<Get>(vertexKeys.size());
+    for (byte[] key : vertexKeys) {
+      Validate.isTrue(null != key && key.length == RowKeyCodec.VERTEX_KEY_LENGTH,
+        "vertex key shall be " + RowKeyCodec.VERTEX_KEY_LENGTH + " bytes");
+      Get get = new Get(key);
+      get.addFamily(FAMILY);
+      gets.add(get);
+    }
+    HTableInterface table = this.pool.getTable(this.tableName);
+    Result[] results = null;
+    try {
+      results = table.get(gets);
+    } catch (IOException e) {
+      LOG.error("look up " + gets.size() + " ids from table:" + this.tableName + " failed", e);
+      throw new RuntimeException(e);
+    } finally {
+      this.pool.returnTable(table);
+    }
+    List<String> ids = new ArrayList<String>(results.length);
+    for (Result r : results) {
+      byte[] value = null == r ? null : r.getValue(FAMILY, HConstants.EMPTY_BYTE_ARRAY);
+      ids.add(null == value ? null : Bytes.toString(value));
+    }
+    return ids;
+  }
+
+  /**
+   * Release the shared table pool, it is safe to call it more than once.
+   */
+  @Override
+  public synchronized void close() {
+    if (this.closed) return;
+    this.closed = true;
+    this.pool.close();
+  }
+
+}
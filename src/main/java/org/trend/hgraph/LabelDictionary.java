@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * The edge label codes of the v2 schema, see {@link RowKeyCodec}.
+ * <p>
+ * The labels are listed in {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY}, the
+ * code of a label is its position in the list, starting from <code>1</code>. New labels shall only
+ * be appended, reordering or removing a label changes the codes already written.
+ * @author scott_miao
+ */
+public class LabelDictionary {
+
+  /** codes are 2 bytes unsigned, <code>0</code> is not used */
+  public static final int MAX_SIZE = 0xFFFF;
+
+  private final List<String> labels;
+  private final Map<String, Short> codes;
+
+  /**
+   * @param labels in code order
+   */
+  public LabelDictionary(List<String> labels) {
+    super();
+    Validate.notNull(labels, "labels shall always not be null");
+    Validate.isTrue(labels.size() <= MAX_SIZE, "labels shall not be more than " + MAX_SIZE);
+    Map<String, Short> codes = new HashMap<String, Short>();
+    for (int a = 0; a < labels.size(); a++) {
+      String label = labels.get(a);
+      Validate.notEmpty(label, "label shall always not be null or empty");
+      Validate.isTrue(!codes.containsKey(label), "label:" + label + " is duplicated");
+      codes.put(label, (short) (a + 1));
+    }
+    this.labels = Collections.unmodifiableList(new ArrayList<String>(labels));
+    this.codes = codes;
+  }
+
+  /**
+   * @param conf
+   * @return the dictionary listed in
+   *         {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY}
+   */
+  public static LabelDictionary create(Configuration conf) {
+    Validate.notNull(conf, "conf shall always not be null");
+    List<String> labels = new ArrayList<String>();
+    String[] values = conf.getStrings(HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY);
+    if (null != values) {
+      for (String value : values) {
+        labels.add(value.trim());
+      }
+    }
+    return new LabelDictionary(labels);
+  }
+
+  /**
+   * @param label
+   * @return whether given label has a code
+   */
+  public boolean contains(String label) {
+    return this.codes.containsKey(label);
+  }
+
+  /**
+   * @param label
+   * @return the code of given label
+   * @throws IllegalArgumentException if the label is not in this dictionary
+   */
+  public short getCode(String label) {
+    Short code = this.codes.get(label);
+    if (null == code) {
+      throw new IllegalArgumentException("label:" + label + " is not in the dictionary, append it to "
+          + HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY);
+    }
+    return code;
+  }
+
+  /**
+   * @param code
+   * @return the label of given code
+   * @throws IllegalArgumentException if the code is not in this dictionary
+   */
+  public String getLabel(short code) {
+    int idx = (code & 0xFFFF) - 1;
+    if (idx < 0 || idx >= this.labels.size()) {
+      throw new IllegalArgumentException("code:" + (code & 0xFFFF) + " is not in the dictionary");
+    }
+    return this.labels.get(idx);
+  }
+
+  /**
+   * @return the labels in code order
+   */
+  public List<String> getLabels() {
+    return this.labels;
+  }
+
+}
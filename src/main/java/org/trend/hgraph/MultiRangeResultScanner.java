@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+
+/**
+ * A <code>ResultScanner</code> which runs a list of bounded <code>Scan</code>s against one table,
+ * one after another, and merges their results client-side.
+ * <p>
+ * The <code>Scan</code>s shall be given in rowkey order and shall not overlap, so the merged
+ * results stay in rowkey order. Only one underlying scanner is open at a time.
+ * @author scott_miao
+ */
+class MultiRangeResultScanner implements ResultScanner {
+
+  private final HTableInterface table;
+  private final Iterator<Scan> scans;
+  private ResultScanner current;
+
+  /**
+   * Open the scanner for the first range immediately, the rest are opened on demand.
+   * @param table
+   * @param scans
+   * @throws IOException
+   */
+  MultiRangeResultScanner(HTableInterface table, List<Scan> scans) throws IOException {
+    super();
+    Validate.notNull(table, "table shall always not be null");
+    Validate.notEmpty(scans, "scans shall always not be null or empty");
+    this.table = table;
+    this.scans = new ArrayList<Scan>(scans).iterator();
+    this.current = nextScanner();
+  }
+
+  private ResultScanner nextScanner() throws IOException {
+    if (!this.scans.hasNext()) return null;
+    return this.table.getScanner(this.scans.next());
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.hbase.client.ResultScanner#next()
+   */
+  @Override
+  public Result next() throws IOException {
+    Result r = null;
+    while (null != this.current) {
+      r = this.current.next();
+      if (null != r) return r;
+      this.current.close();
+      this.current = nextScanner();
+    }
+    return null;
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.hbase.client.ResultScanner#next(int)
+   */
+  @Override
+  public Result[] next(int nbRows) throws IOException {
+    List<Result> results = new ArrayList<Result>(nbRows);
+    Result r = null;
+    for (int a = 0; a < nbRows; a++) {
+      r = next();
+      if (null == r) break;
+      results.add(r);
+    }
+    return results.toArray(new Result[results.size()]);
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.hbase.client.ResultScanner#close()
+   */
+  @Override
+  public void close() {
+    if (null != this.current) {
+      this.current.close();
+      this.current = null;
+    }
+    // drop the ranges not opened yet
+    while (this.scans.hasNext()) {
+      this.scans.next();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Iterable#iterator()
+   */
+  @Override
+  public Iterator<Result> iterator() {
+    return new Iterator<Result>() {
+      private Result next = null;
+
+      @Override
+      public boolean hasNext() {
+        if (null == this.next) {
+          try {
+            this.next = MultiRangeResultScanner.this.next();
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+        return null != this.next;
+      }
+
+      @Override
+      public Result next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Result r = this.next;
+        this.next = null;
+        return r;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+}
@@ -0,0 +1,238 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterate a table by running a list of <code>Scan</code>s, usually one per region, on a bounded
+ * thread pool. The segments hand their elements over a bounded queue, so the scanners wait for a
+ * slow consumer instead of buffering the table in memory. The elements come in no particular
+ * order.
+ * <p>
+ * It can be iterated only once. Callers stop iterating early shall call {@link #close()}, which
+ * stops the segments and releases their scanners.
+ * @author scott_miao
+ */
+public abstract class ParallelElementIterable<T> implements Iterable<T>, Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelElementIterable.class);
+
+  private static final AtomicInteger POOL_SEQ = new AtomicInteger();
+
+  /** marks the end of one segment */
+  private static final Object END = new Object();
+
+  private final Graph graph;
+  private final String tableName;
+  private final List<Scan> scans;
+  private final int parallelism;
+  private final BlockingQueue<Object> queue;
+  private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+  private ExecutorService executor = null;
+  private volatile boolean closed = false;
+
+  /**
+   * @param graph
+   * @param tableName
+   * @param scans the segments
+   * @param parallelism max number of segments scanned at the same time
+   * @param queueSize max number of elements waiting for the consumer
+   */
+  protected ParallelElementIterable(Graph graph, String tableName, List<Scan> scans,
+      int parallelism, int queueSize) {
+    super();
+    Validate.notNull(graph, "graph shall always not be null");
+    Validate.notEmpty(tableName, "tableName shall always not be null or empty");
+    Validate.notEmpty(scans, "scans shall always not be null or empty");
+    Validate.isTrue(parallelism > 0, "parallelism shall be greater than 0");
+    Validate.isTrue(queueSize > 0, "queueSize shall be greater than 0");
+    this.graph = graph;
+    this.tableName = tableName;
+    this.scans = new ArrayList<Scan>(scans);
+    this.parallelism = parallelism;
+    this.queue = new ArrayBlockingQueue<Object>(queueSize);
+  }
+
+  /**
+   * Create the element for given <code>Result</code>, called by the segment threads.
+   * @param r
+   * @return
+   */
+  protected abstract T newElement(Result r);
+
+  /**
+   * @return number of segments
+   */
+  public int getSegmentCount() {
+    return this.scans.size();
+  }
+
+  @Override
+  public synchronized Iterator<T> iterator() {
+    if (null != this.executor) throw new IllegalStateException("it can be iterated only once");
+    final int poolSeq = POOL_SEQ.incrementAndGet();
+    this.executor = Executors.newFixedThreadPool(Math.min(this.parallelism, this.scans.size()),
+      new ThreadFactory() {
+        private final AtomicInteger threadSeq = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "hgraph-parallel-scan-" + poolSeq + "-"
+              + this.threadSeq.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    for (Scan scan : this.scans) {
+      this.executor.execute(new Segment(scan));
+    }
+    this.executor.shutdown();
+
+    return new Iterator<T>() {
+      private int ended = 0;
+      private T next = null;
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public boolean hasNext() {
+        if (null != this.next) return true;
+        Object o = null;
+        while (!closed && this.ended < scans.size()) {
+          try {
+            o = queue.take();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException(e);
+          }
+          if (END == o) {
+            this.ended++;
+            checkError();
+            continue;
+          }
+          this.next = (T) o;
+          return true;
+        }
+        checkError();
+        close();
+        return false;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T element = this.next;
+        this.next = null;
+        return element;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  private void checkError() {
+    Throwable t = this.error.get();
+    if (null == t) return;
+    close();
+    throw new RuntimeException("parallel scan on table:" + this.tableName + " failed", t);
+  }
+
+  /**
+   * Stop the segments and release their scanners, it is safe to call it more than once.
+   */
+  @Override
+  public synchronized void close() {
+    if (this.closed) return;
+    this.closed = true;
+    if (null != this.executor) this.executor.shutdownNow();
+    this.queue.clear();
+  }
+
+  /**
+   * @return whether it is closed
+   */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  private class Segment implements Runnable {
+    private final Scan scan;
+
+    private Segment(Scan scan) {
+      this.scan = scan;
+    }
+
+    @Override
+    public void run() {
+      if (closed) return;
+      HTableInterface table = graph.getTable(tableName);
+      ResultScanner rs = null;
+      try {
+        rs = table.getScanner(this.scan);
+        graph.scannerOpened();
+        for (Result r : rs) {
+          if (closed) return;
+          queue.put(newElement(r));
+        }
+      } catch (InterruptedException e) {
+        // closed by the consumer
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Throwable t) {
+        LOG.error("scan segment:" + this.scan + " failed", t);
+        error.compareAndSet(null, t);
+      } finally {
+        if (null != rs) {
+          rs.close();
+          graph.scannerClosed();
+        }
+        graph.returnTable(table);
+      }
+      try {
+        if (!closed) queue.put(END);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+}
@@ -18,8 +18,9 @@
 package org.trend.hgraph;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -37,24 +38,76 @@ import org.apache.hadoop.hbase.util.Bytes;
  *
  */
 public class Properties {
-  
-  private Map<String, Object> keyValueMap = new HashMap<String, Object>();
-  
+
+  private static final byte[] PROPERTY_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  // type codes, index of TYPES
+  private static final byte STRING = 0;
+  private static final byte INTEGER = 1;
+  private static final byte LONG = 2;
+  private static final byte SHORT = 3;
+  private static final byte FLOAT = 4;
+  private static final byte DOUBLE = 5;
+  private static final byte BOOLEAN = 6;
+  private static final byte BIG_DECIMAL = 7;
+
   @SuppressWarnings("rawtypes")
-  private Map<String, Class> keyValueTypeMap = new HashMap<String, Class>();
+  private static final Class[] TYPES = new Class[] { String.class, Integer.class, Long.class,
+      Short.class, Float.class, Double.class, Boolean.class, BigDecimal.class };
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  // parallel arrays, one slot per property. numeric and boolean values are kept in the
+  // primitive slots, float/double as their raw long bits, others in the object slots.
+  private String[] keys = null;
+  private byte[] types = null;
+  private long[] primitives = null;
+  private Object[] objects = null;
+  private int size = 0;
+
+  /**
+   * the raw <code>KeyValue</code>s not decoded yet, <code>null</code> once decoded. Before that,
+   * the slots hold the properties found so far.
+   */
+  private KeyValue[] raw = null;
+
+  /** the keys not found in {@link #raw}, <code>null</code> if none */
+  private Set<String> missingKeys = null;
+
+  public Properties() {
+    super();
+  }
+
+  /**
+   * Hold the <code>KeyValue</code>s of given <code>Result</code>, and decode them on demand.
+   * @param r
+   */
+  protected Properties(Result r) {
+    super();
+    Validate.notNull(r, "r shall always not be null");
+    if (!r.isEmpty()) this.raw = r.raw();
+  }
   
   /**
-   * Get property by given key.
+   * Get property by given key. If not decoded yet, only the property of given key is decoded,
+   * and kept for the next calls.
    * @param key
-   * @return
+   * @return the value in its declared type
    */
   public Object getProperty(String key) {
-    return this.keyValueMap.get(key);
+    int idx = indexOf(key);
+    if (idx < 0 && null != this.raw) {
+      idx = findProperty(key);
+    }
+    return idx < 0 ? null : valueAt(idx);
   }
   
   @SuppressWarnings("rawtypes")
   public Class getPropertyType(String key) {
-    return this.keyValueTypeMap.get(key);
+    this.decode();
+    int idx = indexOf(key);
+    return idx < 0 ? null : TYPES[this.types[idx]];
   }
   
   /**
@@ -62,7 +115,12 @@ public class Properties {
    * @return a set of keys
    */
   public Set<String> getPropertyKeys() {
-    return this.keyValueMap.keySet();
+    this.decode();
+    Set<String> keySet = new HashSet<String>(this.size * 2);
+    for (int a = 0; a < this.size; a++) {
+      keySet.add(this.keys[a]);
+    }
+    return keySet;
   }
   
   /**
@@ -72,9 +130,20 @@ public class Properties {
    */
   public Object removeProperty(String key) {
     if(null == key) return null;
-    Object oldValue = null;
-    oldValue = this.keyValueMap.remove(key);
-    this.keyValueTypeMap.remove(key);
+    this.decode();
+    int idx = indexOf(key);
+    if (idx < 0) return null;
+    Object oldValue = valueAt(idx);
+    int moved = this.size - idx - 1;
+    if (moved > 0) {
+      System.arraycopy(this.keys, idx + 1, this.keys, idx, moved);
+      System.arraycopy(this.types, idx + 1, this.types, idx, moved);
+      System.arraycopy(this.primitives, idx + 1, this.primitives, idx, moved);
+      System.arraycopy(this.objects, idx + 1, this.objects, idx, moved);
+    }
+    this.size--;
+    this.keys[this.size] = null;
+    this.objects[this.size] = null;
     return oldValue;
   }
   
@@ -88,11 +157,12 @@ public class Properties {
   public Object setProperty(String key, Object value) throws UnsupportedDataTypeException {
     Validate.notEmpty(key, "key shall always not be empty or null");
     Validate.notNull(value, "value shall always not be null");
-    Object oldValue = this.removeProperty(key);
+    this.decode();
     @SuppressWarnings("rawtypes")
     Pair<Class, Object> pair = keyValueToPair(key, value, new TypeClassPairStrategy());
-    this.keyValueMap.put(key, value);
-    this.keyValueTypeMap.put(key, pair.key);
+    int idx = indexOf(key);
+    Object oldValue = idx < 0 ? null : valueAt(idx);
+    this.addProperty(key, pair.key, value);
     return oldValue;
   }
   
@@ -101,7 +171,8 @@ public class Properties {
    * @return
    */
   public long getCount() {
-    return this.keyValueMap.size();
+    this.decode();
+    return this.size;
   }
   
   /* (non-Javadoc)
@@ -109,6 +180,14 @@ public class Properties {
    */
   @Override
   public String toString() {
+    this.decode();
+    Map<String, Object> keyValueMap = new HashMap<String, Object>(this.size * 2);
+    @SuppressWarnings("rawtypes")
+    Map<String, Class> keyValueTypeMap = new HashMap<String, Class>(this.size * 2);
+    for (int a = 0; a < this.size; a++) {
+      keyValueMap.put(this.keys[a], valueAt(a));
+      keyValueTypeMap.put(this.keys[a], TYPES[this.types[a]]);
+    }
     return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE).
         append("keyValueMap", keyValueMap).
         append("keyValueTypeMap", keyValueTypeMap).
@@ -339,70 +418,302 @@ public class Properties {
     Validate.notEmpty(key, "key shall always not be null or empty");
     Validate.notNull(type, "type shall always not be null");
     Validate.notNull(value, "value shall always not be null");
-    Object oldValue = null;
-    oldValue = this.keyValueMap.put(key, value);
-    this.keyValueTypeMap.put(key, type);
+    byte code = typeOf(type);
+    Validate.isTrue(code >= 0, "type:" + type + " is not supported");
+    int idx = slotFor(key);
+    Object oldValue = this.types[idx] < 0 ? null : valueAt(idx);
+    this.types[idx] = code;
+    this.objects[idx] = null;
+    switch (code) {
+    case INTEGER:
+    case LONG:
+    case SHORT:
+      this.primitives[idx] = ((Number) value).longValue();
+      break;
+    case FLOAT:
+    case DOUBLE:
+      this.primitives[idx] = Double.doubleToRawLongBits(((Number) value).doubleValue());
+      break;
+    case BOOLEAN:
+      this.primitives[idx] = ((Boolean) value) ? 1L : 0L;
+      break;
+    default:
+      this.objects[idx] = value;
+    }
     return oldValue;
   }
   
   /**
-   * add a property.
+   * add properties.
    * @param r
    * @return
    * @throws UnsupportedDataTypeException
    */
   protected void addProperty(Result r) throws UnsupportedDataTypeException {
-    byte[] value = null;
-    Object newValue = null;
-    String keyStr = null;
-    String typeStr = null;
-    @SuppressWarnings("rawtypes")
-    Class type = null;
-    int delIdx = 0;
-    List<KeyValue> kvs = r.list();
-    for(KeyValue kv : kvs) {
-      keyStr = Bytes.toString(kv.getQualifier());
-      delIdx = keyStr.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER);
-      typeStr = keyStr.substring(delIdx + 
-          HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER.length(), 
-          keyStr.length());
-      keyStr = keyStr.substring(0, delIdx);
-      value = kv.getValue();
-
-      type = String.class;
-      newValue = Bytes.toString(value);
-      // if(String.class.getSimpleName().equals(typeStr)) {
-      // type = String.class;
-      // // newValue = Bytes.toString(value);
-      // } else if(Integer.class.getSimpleName().equals(typeStr)) {
-      // type = Integer.class;
-      // // newValue = Bytes.toInt(value);
-      // } else if(Long.class.getSimpleName().equals(typeStr)) {
-      // type = Long.class;
-      // // newValue = Bytes.toLong(value);
-      // } else if(Float.class.getSimpleName().equals(typeStr)) {
-      // type = Float.class;
-      // // newValue = Bytes.toFloat(value);
-      // } else if(Double.class.getSimpleName().equals(typeStr)) {
-      // type = Double.class;
-      // // newValue = Bytes.toDouble(value);
-      // } else if(Short.class.getSimpleName().equals(typeStr)) {
-      // type = Short.class;
-      // // newValue = Bytes.toShort(value);
-      // } else if(Boolean.class.getSimpleName().equals(typeStr)) {
-      // type = Boolean.class;
-      // // newValue = Bytes.toBoolean(value);
-      // } else if(BigDecimal.class.getSimpleName().equals(typeStr)) {
-      // type = BigDecimal.class;
-      // // newValue = Bytes.toBigDecimal(value);
-      // } else {
-      // throw new UnsupportedDataTypeException("Not support data type for value:" + value);
-      // }
-      
-      this.addProperty(keyStr, type, newValue);
+    if (r.isEmpty()) return;
+    for (KeyValue kv : r.raw()) {
+      this.addProperty(kv);
     }
   }
-  
-  
+
+  private void addProperty(KeyValue kv) {
+    // other families, e.g. counters, are not properties
+    if (!kv.matchingFamily(PROPERTY_FAMILY)) return;
+    String keyStr = Bytes.toString(kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength());
+    int delIdx = keyStr.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER);
+    if (delIdx < 0) return;
+    String typeName = keyStr.substring(delIdx
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER.length());
+    boolean stringForm = typeName.endsWith(
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_STRING_FORM_SUFFIX);
+    if (stringForm) {
+      typeName = typeName.substring(0, typeName.length()
+          - HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_STRING_FORM_SUFFIX.length());
+    }
+    keyStr = keyStr.substring(0, delIdx);
+    this.decodeInto(slotFor(keyStr), typeOf(typeName), stringForm, kv.getBuffer(),
+      kv.getValueOffset(), kv.getValueLength());
+  }
+
+  /**
+   * Decode a value into given slot. The value is in the binary form written by
+   * {@link #keyValueToBytes(String, Object)} if its length matches the declared type, otherwise
+   * it is parsed from its string form, e.g. imported by <code>ImportTsv</code>, and kept as a
+   * <code>String</code> if not parsable. The string-form values of the binary width, e.g.
+   * <code>"1234"</code> as an <code>Integer</code>, shall be declared by the qualifier
+   * <code>&lt;key&gt;@&lt;type&gt;@String</code>, see
+   * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_COLFAM_PROPERTY_STRING_FORM_SUFFIX}.
+   */
+  private void decodeInto(int idx, byte type, boolean stringForm, byte[] b, int off, int len) {
+    this.objects[idx] = null;
+    if (!stringForm) {
+      if (decodeBinary(idx, type, b, off, len)) return;
+    }
+    String str = Bytes.toString(b, off, len);
+    Object value = STRING == type ? null : parse(type, str);
+    if (null == value) {
+      this.types[idx] = STRING;
+      this.objects[idx] = str;
+    } else {
+      this.addProperty(this.keys[idx], TYPES[type], value);
+    }
+  }
+
+  /**
+   * @return <code>false</code> if the length does not match the binary form of given type
+   */
+  private boolean decodeBinary(int idx, byte type, byte[] b, int off, int len) {
+    switch (type) {
+    case INTEGER:
+      if (len == Bytes.SIZEOF_INT) {
+        setPrimitive(idx, type, Bytes.toInt(b, off));
+        return true;
+      }
+      break;
+    case LONG:
+      if (len == Bytes.SIZEOF_LONG) {
+        setPrimitive(idx, type, Bytes.toLong(b, off));
+        return true;
+      }
+      break;
+    case SHORT:
+      if (len == Bytes.SIZEOF_SHORT) {
+        setPrimitive(idx, type, Bytes.toShort(b, off));
+        return true;
+      }
+      break;
+    case FLOAT:
+      if (len == Bytes.SIZEOF_FLOAT) {
+        setPrimitive(idx, type, Double.doubleToRawLongBits(Bytes.toFloat(b, off)));
+        return true;
+      }
+      break;
+    case DOUBLE:
+      if (len == Bytes.SIZEOF_DOUBLE) {
+        setPrimitive(idx, type, Double.doubleToRawLongBits(Bytes.toDouble(b, off)));
+        return true;
+      }
+      break;
+    case BOOLEAN:
+      if (len == Bytes.SIZEOF_BOOLEAN) {
+        setPrimitive(idx, type, b[off] != (byte) 0 ? 1L : 0L);
+        return true;
+      }
+      break;
+    case BIG_DECIMAL:
+      if (len > Bytes.SIZEOF_INT) {
+        this.types[idx] = type;
+        this.objects[idx] = Bytes.toBigDecimal(b, off, len);
+        return true;
+      }
+      break;
+    default:
+    }
+    return false;
+  }
+
+  private void setPrimitive(int idx, byte type, long value) {
+    this.types[idx] = type;
+    this.primitives[idx] = value;
+  }
+
+  /**
+   * Parse the string form of a property value into given type, a <code>Boolean</code> is
+   * either <code>true</code>/<code>false</code> or <code>1</code>/<code>0</code>.
+   * @param typeName simple name of a supported type, e.g. <code>Long</code>, as in the
+   *          qualifiers <code>&lt;key&gt;@&lt;type&gt;</code>
+   * @param str
+   * @return the value, <code>null</code> if the type is not supported or the string is not
+   *         parsable
+   */
+  public static Object parseValue(String typeName, String str) {
+    Validate.notNull(str, "str shall always not be null");
+    for (byte a = 0; a < TYPES.length; a++) {
+      if (TYPES[a].getSimpleName().equals(typeName)) return STRING == a ? str : parse(a, str);
+    }
+    return null;
+  }
+
+  private static Object parse(byte type, String str) {
+    try {
+      switch (type) {
+      case INTEGER:
+        return Integer.valueOf(str.trim());
+      case LONG:
+        return Long.valueOf(str.trim());
+      case SHORT:
+        return Short.valueOf(str.trim());
+      case FLOAT:
+        return Float.valueOf(str.trim());
+      case DOUBLE:
+        return Double.valueOf(str.trim());
+      case BOOLEAN:
+        if ("true".equalsIgnoreCase(str.trim()) || "1".equals(str.trim())) return Boolean.TRUE;
+        if ("false".equalsIgnoreCase(str.trim()) || "0".equals(str.trim())) return Boolean.FALSE;
+        return null;
+      case BIG_DECIMAL:
+        return new BigDecimal(str.trim());
+      default:
+        return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private Object valueAt(int idx) {
+    long v = this.primitives[idx];
+    switch (this.types[idx]) {
+    case INTEGER:
+      return Integer.valueOf((int) v);
+    case LONG:
+      return Long.valueOf(v);
+    case SHORT:
+      return Short.valueOf((short) v);
+    case FLOAT:
+      return Float.valueOf((float) Double.longBitsToDouble(v));
+    case DOUBLE:
+      return Double.valueOf(Double.longBitsToDouble(v));
+    case BOOLEAN:
+      return Boolean.valueOf(v != 0L);
+    default:
+      return this.objects[idx];
+    }
+  }
+
+  private int indexOf(String key) {
+    for (int a = 0; a < this.size; a++) {
+      if (this.keys[a].equals(key)) return a;
+    }
+    return -1;
+  }
+
+  /**
+   * Get the slot of given key, a new slot is appended if not exists, with its type set to -1.
+   */
+  private int slotFor(String key) {
+    int idx = indexOf(key);
+    if (idx >= 0) return idx;
+    ensureCapacity(this.size + 1);
+    idx = this.size++;
+    this.keys[idx] = key;
+    this.types[idx] = -1;
+    return idx;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (null == this.keys) {
+      int initial = Math.max(INITIAL_CAPACITY, capacity);
+      this.keys = new String[initial];
+      this.types = new byte[initial];
+      this.primitives = new long[initial];
+      this.objects = new Object[initial];
+      return;
+    }
+    if (this.keys.length >= capacity) return;
+    int newCapacity = Math.max(capacity, this.keys.length * 2);
+    this.keys = Arrays.copyOf(this.keys, newCapacity);
+    this.types = Arrays.copyOf(this.types, newCapacity);
+    this.primitives = Arrays.copyOf(this.primitives, newCapacity);
+    this.objects = Arrays.copyOf(this.objects, newCapacity);
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static byte typeOf(Class type) {
+    for (byte a = 0; a < TYPES.length; a++) {
+      if (TYPES[a] == type) return a;
+    }
+    return -1;
+  }
+
+  /**
+   * @return type code of given type name, {@link #STRING} for the ones not supported
+   */
+  private static byte typeOf(String typeName) {
+    for (byte a = 0; a < TYPES.length; a++) {
+      if (TYPES[a].getSimpleName().equals(typeName)) return a;
+    }
+    return STRING;
+  }
+
+  /**
+   * Decode all the raw <code>KeyValue</code>s held, if not decoded yet.
+   */
+  private void decode() {
+    if (null == this.raw) return;
+    KeyValue[] kvs = this.raw;
+    this.raw = null;
+    this.missingKeys = null;
+    ensureCapacity(kvs.length);
+    for (KeyValue kv : kvs) {
+      this.addProperty(kv);
+    }
+  }
+
+  /**
+   * Find and decode the property of given key from the raw <code>KeyValue</code>s into its slot,
+   * without decoding the others. The keys not found are remembered as well.
+   * @param key
+   * @return index of the slot, <code>-1</code> if not found
+   */
+  private int findProperty(String key) {
+    if (null == key) return -1;
+    if (null != this.missingKeys && this.missingKeys.contains(key)) return -1;
+    byte[] prefix =
+        Bytes.toBytes(key + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER);
+    for (KeyValue kv : this.raw) {
+      if (kv.getQualifierLength() < prefix.length || !kv.matchingFamily(PROPERTY_FAMILY)) continue;
+      if (Bytes.equals(kv.getBuffer(), kv.getQualifierOffset(), prefix.length, prefix, 0,
+        prefix.length)) {
+        this.addProperty(kv);
+        int idx = indexOf(key);
+        if (idx >= 0) return idx;
+        break;
+      }
+    }
+    if (null == this.missingKeys) this.missingKeys = new HashSet<String>();
+    this.missingKeys.add(key);
+    return -1;
+  }
 
 }
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.activation.UnsupportedDataTypeException;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Rowkey layout of the property index tables.
+ * <p>
+ * Each indexed property of an element is one row
+ * <code>&lt;key&gt;@&lt;type&gt;|&lt;encoded value&gt;|&lt;element id&gt;</code>, so the elements
+ * with a given property value are found by one prefix scan. The value is encoded from its binary
+ * form, see {@link Properties#keyValueToBytes(String, Object)}, into lower-case hex, which keeps
+ * its byte order and never contains the delimiter. The values written in their string form, e.g.
+ * by <code>ImportTsv</code>, are decoded first, so both forms share one index entry.
+ * <p>
+ * The indexed keys are registered by the rows <code>@&lt;key&gt;</code>, property keys never
+ * contain <code>@</code>.
+ * @author scott_miao
+ */
+public class PropertyIndex {
+
+  public static final byte[] FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_INDEX_NAME);
+
+  private static final byte[] DELIMITER =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_INDEX_DELIMITER);
+
+  private static final String KEY_ROW_PREFIX =
+      HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER;
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * Get the prefix of the index rows for given property value.
+   * @param key
+   * @param value
+   * @return
+   * @throws UnsupportedDataTypeException
+   */
+  public static byte[] getPrefix(String key, Object value) throws UnsupportedDataTypeException {
+    Validate.notEmpty(key, "key shall always not be null or empty");
+    Validate.notNull(value, "value shall always not be null");
+    Properties.Pair<byte[], byte[]> pair = Properties.keyValueToBytes(key, value);
+    return Bytes.add(pair.key, DELIMITER, Bytes.add(toHex(pair.value), DELIMITER));
+  }
+
+  /**
+   * Get the index row for given property value of given element.
+   * @param key
+   * @param value
+   * @param id element id
+   * @return
+   * @throws UnsupportedDataTypeException
+   */
+  public static byte[] getRow(String key, Object value, String id)
+      throws UnsupportedDataTypeException {
+    Validate.notEmpty(id, "id shall always not be null or empty");
+    return Bytes.add(getPrefix(key, value), Bytes.toBytes(id));
+  }
+
+  /**
+   * Get the prefix of all index rows of given key.
+   * @param key
+   * @return
+   */
+  public static byte[] getKeyPrefix(String key) {
+    Validate.notEmpty(key, "key shall always not be null or empty");
+    return Bytes.toBytes(key + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER);
+  }
+
+  /**
+   * Get the row registering given key as indexed.
+   * @param key
+   * @return
+   */
+  public static Put getKeyPut(String key) {
+    Validate.notEmpty(key, "key shall always not be null or empty");
+    Put put = new Put(Bytes.toBytes(KEY_ROW_PREFIX + key));
+    put.add(FAMILY, HConstants.EMPTY_BYTE_ARRAY, HConstants.EMPTY_BYTE_ARRAY);
+    return put;
+  }
+
+  /**
+   * @return the prefix of the rows registering the indexed keys
+   */
+  static byte[] getKeyRowPrefix() {
+    return Bytes.toBytes(KEY_ROW_PREFIX);
+  }
+
+  /**
+   * @param row a row registering an indexed key
+   * @return the key
+   */
+  static String toKey(byte[] row) {
+    return Bytes.toString(row).substring(KEY_ROW_PREFIX.length());
+  }
+
+  /**
+   * Get the index rows of given element row for given keys.
+   * @param r an element row
+   * @param keys indexed keys
+   * @return <code>Put</code>s for the keys the element has
+   */
+  public static List<Put> toPuts(Result r, Collection<String> keys) {
+    Validate.notNull(r, "r shall always not be null");
+    return toPuts(Bytes.toString(r.getRow()), r, keys);
+  }
+
+  /**
+   * Get the index rows of given element row for given keys.
+   * @param id the element id, e.g. the rowkey of <code>r</code> without its salt
+   * @param r an element row
+   * @param keys indexed keys
+   * @return <code>Put</code>s for the keys the element has
+   * @see RowKeySalt
+   */
+  public static List<Put> toPuts(String id, Result r, Collection<String> keys) {
+    Validate.notNull(id, "id shall always not be null");
+    Validate.notNull(r, "r shall always not be null");
+    Validate.notNull(keys, "keys shall always not be null");
+    List<Put> puts = new ArrayList<Put>(keys.size());
+    if (r.isEmpty()) return puts;
+    Properties properties = new Properties(r);
+    Object value = null;
+    Put put = null;
+    for (String key : keys) {
+      value = properties.getProperty(key);
+      if (null == value) continue;
+      try {
+        put = new Put(getRow(key, value, id));
+      } catch (UnsupportedDataTypeException e) {
+        // decoded values are always in the supported types
+        throw new IllegalStateException(e);
+      }
+      put.add(FAMILY, HConstants.EMPTY_BYTE_ARRAY, HConstants.EMPTY_BYTE_ARRAY);
+      puts.add(put);
+    }
+    return puts;
+  }
+
+  private static byte[] toHex(byte[] value) {
+    char[] chars = new char[value.length * 2];
+    for (int a = 0; a < value.length; a++) {
+      chars[a * 2] = HEX[(value[a] >> 4) & 0x0F];
+      chars[a * 2 + 1] = HEX[value[a] & 0x0F];
+    }
+    return Bytes.toBytes(new String(chars));
+  }
+
+}
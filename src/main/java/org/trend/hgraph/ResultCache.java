@@ -0,0 +1,278 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+
+/**
+ * A size-bounded, read-through cache of <code>Result</code>s keyed by rowkey.
+ * <p>
+ * The keys are spread over a fixed number of segments, each segment is an LRU list guarded by its
+ * own lock, so concurrent readers of different keys seldom contend. Entries are evicted in LRU
+ * order once a segment exceeds its share of the max entries or max bytes, and dropped on read
+ * once they are older than the TTL.
+ * <p>
+ * The <code>Result</code>s are cached instead of the elements, since the elements are mutable
+ * and shall not be shared between callers.
+ * @author scott_miao
+ */
+public class ResultCache {
+
+  private static final int MAX_SEGMENT_COUNT = 16;
+
+  /** rough per-entry overhead of the LRU list, the key and the entry itself */
+  private static final long ENTRY_OVERHEAD = 128L;
+
+  private final Segment[] segments;
+  private final long ttl;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong expirationCount = new AtomicLong();
+
+  /**
+   * @param maxEntries max number of entries, <code>0</code> for no limit
+   * @param maxBytes max estimated heap size in bytes, <code>0</code> for no limit
+   * @param ttl time-to-live of each entry in milliseconds, <code>0</code> for never expired
+   */
+  public ResultCache(int maxEntries, long maxBytes, long ttl) {
+    super();
+    Validate.isTrue(maxEntries >= 0, "maxEntries shall not be negative");
+    Validate.isTrue(maxBytes >= 0, "maxBytes shall not be negative");
+    Validate.isTrue(maxEntries > 0 || maxBytes > 0,
+      "either maxEntries or maxBytes shall be greater than 0");
+    Validate.isTrue(ttl >= 0, "ttl shall not be negative");
+    this.ttl = ttl;
+
+    int count = MAX_SEGMENT_COUNT;
+    if (maxEntries > 0 && maxEntries < count) count = maxEntries;
+    this.segments = new Segment[count];
+    int segmentMaxEntries = maxEntries == 0 ? 0 : (maxEntries + count - 1) / count;
+    long segmentMaxBytes = maxBytes == 0 ? 0 : (maxBytes + count - 1) / count;
+    for (int a = 0; a < count; a++) {
+      this.segments[a] = new Segment(segmentMaxEntries, segmentMaxBytes);
+    }
+  }
+
+  /**
+   * Get the cached <code>Result</code>.
+   * @param key
+   * @return <code>null</code> if not cached or expired
+   */
+  public Result get(String key) {
+    Validate.notNull(key, "key shall always not be null");
+    Result r = segmentFor(key).get(key, System.currentTimeMillis());
+    if (null == r) {
+      this.missCount.incrementAndGet();
+    } else {
+      this.hitCount.incrementAndGet();
+    }
+    return r;
+  }
+
+  /**
+   * Cache a <code>Result</code>, empty ones are ignored.
+   * @param key
+   * @param result
+   */
+  public void put(String key, Result result) {
+    Validate.notNull(key, "key shall always not be null");
+    if (null == result || result.isEmpty()) return;
+    segmentFor(key).put(key, result, heapSize(result), System.currentTimeMillis());
+  }
+
+  /**
+   * Drop the cached <code>Result</code>, for the writers changing it.
+   * @param key
+   */
+  public void invalidate(String key) {
+    Validate.notNull(key, "key shall always not be null");
+    segmentFor(key).remove(key);
+  }
+
+  /**
+   * Drop all cached <code>Result</code>s.
+   */
+  public void clear() {
+    for (Segment segment : this.segments) {
+      segment.clear();
+    }
+  }
+
+  /**
+   * @return number of cached entries, including the expired ones not dropped yet
+   */
+  public long size() {
+    long size = 0;
+    for (Segment segment : this.segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * @return estimated heap size of cached entries in bytes
+   */
+  public long getBytes() {
+    long bytes = 0;
+    for (Segment segment : this.segments) {
+      bytes += segment.getBytes();
+    }
+    return bytes;
+  }
+
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  public long getExpirationCount() {
+    return this.expirationCount.get();
+  }
+
+  /**
+   * @return hits / (hits + misses), <code>0</code> if never read
+   */
+  public double getHitRatio() {
+    long hits = this.hitCount.get();
+    long total = hits + this.missCount.get();
+    return total == 0 ? 0D : (double) hits / total;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).
+        append("size", size()).
+        append("bytes", getBytes()).
+        append("hitCount", getHitCount()).
+        append("missCount", getMissCount()).
+        append("evictionCount", getEvictionCount()).
+        append("expirationCount", getExpirationCount()).
+        toString();
+  }
+
+  private Segment segmentFor(String key) {
+    return this.segments[(key.hashCode() & Integer.MAX_VALUE) % this.segments.length];
+  }
+
+  private static long heapSize(Result result) {
+    long size = ENTRY_OVERHEAD;
+    for (KeyValue kv : result.raw()) {
+      size += kv.heapSize();
+    }
+    return size;
+  }
+
+  private static class Entry {
+    private final Result result;
+    private final long size;
+    private final long createdTime;
+
+    private Entry(Result result, long size, long createdTime) {
+      this.result = result;
+      this.size = size;
+      this.createdTime = createdTime;
+    }
+  }
+
+  /**
+   * An LRU list guarded by its own lock.
+   */
+  private class Segment {
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries =
+        new LinkedHashMap<String, Entry>(16, 0.75F, true);
+    private long bytes = 0L;
+
+    private Segment(int maxEntries, long maxBytes) {
+      this.maxEntries = maxEntries;
+      this.maxBytes = maxBytes;
+    }
+
+    private synchronized Result get(String key, long now) {
+      Entry entry = this.entries.get(key);
+      if (null == entry) return null;
+      if (ttl > 0 && now - entry.createdTime >= ttl) {
+        this.entries.remove(key);
+        this.bytes -= entry.size;
+        expirationCount.incrementAndGet();
+        return null;
+      }
+      return entry.result;
+    }
+
+    private synchronized void put(String key, Result result, long size, long now) {
+      Entry old = this.entries.put(key, new Entry(result, size, now));
+      if (null != old) this.bytes -= old.size;
+      this.bytes += size;
+      // evict in LRU order, but always keep the newest one
+      Iterator<Map.Entry<String, Entry>> it = this.entries.entrySet().iterator();
+      while (this.entries.size() > 1 && isFull() && it.hasNext()) {
+        Entry eldest = it.next().getValue();
+        it.remove();
+        this.bytes -= eldest.size;
+        evictionCount.incrementAndGet();
+      }
+    }
+
+    private boolean isFull() {
+      return (this.maxEntries > 0 && this.entries.size() > this.maxEntries)
+          || (this.maxBytes > 0 && this.bytes > this.maxBytes);
+    }
+
+    private synchronized void remove(String key) {
+      Entry entry = this.entries.remove(key);
+      if (null != entry) this.bytes -= entry.size;
+    }
+
+    private synchronized void clear() {
+      this.entries.clear();
+      this.bytes = 0L;
+    }
+
+    private synchronized int size() {
+      return this.entries.size();
+    }
+
+    private synchronized long getBytes() {
+      return this.bytes;
+    }
+  }
+
+}
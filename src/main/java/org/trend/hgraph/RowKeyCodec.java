@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Rowkey layout of the compact, binary v2 schema.
+ * <p>
+ * A vertex rowkey is the first {@link #VERTEX_KEY_LENGTH} bytes of the MD5 digest of its original
+ * id, the original ids are kept in the id table, see {@link IdLookup}. An edge rowkey is
+ * <code>&lt;src key&gt;&lt;label code&gt;&lt;dst key&gt;</code> without any delimiter, and the
+ * reverse edge rowkey is <code>&lt;dst key&gt;&lt;label code&gt;&lt;src key&gt;</code>; the label
+ * codes are {@link #LABEL_CODE_LENGTH} bytes given by a {@link LabelDictionary}. All the parts
+ * are fixed-width, so they are read by offset instead of parsing.
+ * <p>
+ * Two different ids with the same 64 bits digest would share one vertex, the chance of that is
+ * about <code>n^2 / 2^65</code> for <code>n</code> vertices.
+ * <p>
+ * The v1 schema keeps the textual ids as the rowkeys, see {@link Edge#split(String)}.
+ * @author scott_miao
+ */
+public class RowKeyCodec {
+
+  public static final int VERTEX_KEY_LENGTH = 8;
+
+  public static final int LABEL_CODE_LENGTH = Bytes.SIZEOF_SHORT;
+
+  public static final int EDGE_KEY_LENGTH = VERTEX_KEY_LENGTH * 2 + LABEL_CODE_LENGTH;
+
+  private static final ThreadLocal<MessageDigest> MD5 = new ThreadLocal<MessageDigest>() {
+    @Override
+    protected MessageDigest initialValue() {
+      try {
+        return MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("MD5 not supported", e);
+      }
+    }
+  };
+
+  /**
+   * @param id original vertex id
+   * @return the vertex rowkey
+   */
+  public static byte[] toVertexKey(String id) {
+    Validate.notNull(id, "id shall always not be null");
+    return Arrays.copyOf(MD5.get().digest(Bytes.toBytes(id)), VERTEX_KEY_LENGTH);
+  }
+
+  /**
+   * @param srcId original source vertex id
+   * @param labelCode
+   * @param dstId original destination vertex id
+   * @return the edge rowkey
+   */
+  public static byte[] toEdgeKey(String srcId, short labelCode, String dstId) {
+    return toEdgeKey(toVertexKey(srcId), labelCode, toVertexKey(dstId));
+  }
+
+  /**
+   * @param srcKey source vertex rowkey
+   * @param labelCode
+   * @param dstKey destination vertex rowkey
+   * @return the edge rowkey
+   */
+  public static byte[] toEdgeKey(byte[] srcKey, short labelCode, byte[] dstKey) {
+    checkVertexKey(srcKey);
+    checkVertexKey(dstKey);
+    byte[] key = new byte[EDGE_KEY_LENGTH];
+    System.arraycopy(srcKey, 0, key, 0, VERTEX_KEY_LENGTH);
+    Bytes.putShort(key, VERTEX_KEY_LENGTH, labelCode);
+    System.arraycopy(dstKey, 0, key, VERTEX_KEY_LENGTH + LABEL_CODE_LENGTH, VERTEX_KEY_LENGTH);
+    return key;
+  }
+
+  /**
+   * Swap the vertex keys of an edge rowkey, it turns an edge rowkey into its reverse edge rowkey
+   * and vice versa.
+   * @param edgeKey
+   * @return
+   */
+  public static byte[] reverse(byte[] edgeKey) {
+    checkEdgeKey(edgeKey);
+    return toEdgeKey(getTargetKey(edgeKey), getLabelCode(edgeKey), getSourceKey(edgeKey));
+  }
+
+  /**
+   * @param edgeKey edge rowkey, or reverse edge rowkey for the destination vertex
+   * @return the source vertex rowkey
+   */
+  public static byte[] getSourceKey(byte[] edgeKey) {
+    checkEdgeKey(edgeKey);
+    return Arrays.copyOfRange(edgeKey, 0, VERTEX_KEY_LENGTH);
+  }
+
+  /**
+   * @param edgeKey edge rowkey
+   * @return the label code
+   */
+  public static short getLabelCode(byte[] edgeKey) {
+    checkEdgeKey(edgeKey);
+    return Bytes.toShort(edgeKey, VERTEX_KEY_LENGTH);
+  }
+
+  /**
+   * @param edgeKey edge rowkey, or reverse edge rowkey for the source vertex
+   * @return the destination vertex rowkey
+   */
+  public static byte[] getTargetKey(byte[] edgeKey) {
+    checkEdgeKey(edgeKey);
+    return Arrays.copyOfRange(edgeKey, VERTEX_KEY_LENGTH + LABEL_CODE_LENGTH, EDGE_KEY_LENGTH);
+  }
+
+  /**
+   * Get the rowkey prefix of the edges of given vertex with given label.
+   * @param vertexKey
+   * @param labelCode
+   * @return
+   */
+  public static byte[] getEdgePrefix(byte[] vertexKey, short labelCode) {
+    checkVertexKey(vertexKey);
+    byte[] prefix = Arrays.copyOf(vertexKey, VERTEX_KEY_LENGTH + LABEL_CODE_LENGTH);
+    Bytes.putShort(prefix, VERTEX_KEY_LENGTH, labelCode);
+    return prefix;
+  }
+
+  private static void checkVertexKey(byte[] key) {
+    Validate.isTrue(null != key && key.length == VERTEX_KEY_LENGTH, "vertex key shall be "
+        + VERTEX_KEY_LENGTH + " bytes");
+  }
+
+  private static void checkEdgeKey(byte[] key) {
+    Validate.isTrue(null != key && key.length == EDGE_KEY_LENGTH, "edge key shall be "
+        + EDGE_KEY_LENGTH + " bytes");
+  }
+
+}
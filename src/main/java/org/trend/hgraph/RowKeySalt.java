@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Salts the rowkeys of the vertex, edge and reverse edge tables with a bucket prefix, so the rows
+ * of skewed ids spread over {@link #getBuckets()} pre-split regions instead of a few hot ones.
+ * <p>
+ * The bucket is a fixed width decimal derived from the hash of the leading vertex id of a rowkey,
+ * i.e. the vertex id itself, the source id of an edge row and the target id of a reverse edge row.
+ * So a vertex row and its outgoing edge rows share one bucket, and the edges of a vertex stay
+ * contiguous and can still be read by one range scan, e.g. the salted vertex rowkey followed by
+ * <code>--&gt;</code> is the salted prefix of its edges.
+ * <p>
+ * Element ids stay unsalted, only the rowkeys carry the salt. With
+ * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_SALT_BUCKETS_KEY} not set, the rowkeys are the ids.
+ * @author scott_miao
+ */
+public class RowKeySalt {
+
+  /** the salt is a 4 digits decimal at most */
+  public static final int MAX_BUCKETS = 10000;
+
+  private final int buckets;
+  private final int width;
+
+  /**
+   * @param buckets <code>0</code> for not salted
+   */
+  public RowKeySalt(int buckets) {
+    super();
+    Validate.isTrue(buckets >= 0 && buckets <= MAX_BUCKETS, "buckets shall be between 0 and "
+        + MAX_BUCKETS + ", but was:" + buckets);
+    this.buckets = buckets;
+    this.width = buckets > 1 ? String.valueOf(buckets - 1).length() : 0;
+  }
+
+  /**
+   * @param conf
+   * @return the salt of {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_SALT_BUCKETS_KEY}
+   */
+  public static RowKeySalt create(Configuration conf) {
+    Validate.notNull(conf, "conf shall always not be null");
+    return new RowKeySalt(conf.getInt(HBaseGraphConstants.HBASE_GRAPH_TABLE_SALT_BUCKETS_KEY, 0));
+  }
+
+  /**
+   * @return whether the rowkeys are salted
+   */
+  public boolean isEnabled() {
+    return this.width > 0;
+  }
+
+  /**
+   * @return the number of buckets
+   */
+  public int getBuckets() {
+    return buckets;
+  }
+
+  /**
+   * @param key an id, an edge id or a reversed edge id, or a prefix of them
+   * @return the salted rowkey
+   */
+  public byte[] toRow(String key) {
+    Validate.notNull(key, "key shall always not be null");
+    return Bytes.toBytes(toRowString(key));
+  }
+
+  /**
+   * @param key an id, an edge id or a reversed edge id, or a prefix of them
+   * @return the salted rowkey, in <code>String</code>
+   */
+  public String toRowString(String key) {
+    Validate.notNull(key, "key shall always not be null");
+    if (!isEnabled()) return key;
+    return getSalt(getLeadingId(key)) + key;
+  }
+
+  /**
+   * @param row a salted rowkey
+   * @return the key without the salt
+   */
+  public String toKey(byte[] row) {
+    Validate.notNull(row, "row shall always not be null");
+    if (!isEnabled()) return Bytes.toString(row);
+    Validate.isTrue(row.length >= this.width, "row:" + Bytes.toStringBinary(row)
+        + " is not salted");
+    return Bytes.toString(row, this.width, row.length - this.width);
+  }
+
+  /**
+   * @param id vertex id
+   * @return the bucket prefix of given vertex id
+   */
+  String getSalt(String id) {
+    int bucket = (id.hashCode() & Integer.MAX_VALUE) % this.buckets;
+    return StringUtils.leftPad(String.valueOf(bucket), this.width, '0');
+  }
+
+  /**
+   * The leading vertex id decides the bucket, so the edges of a vertex are salted like the vertex.
+   * @param key
+   * @return
+   */
+  private static String getLeadingId(String key) {
+    int idx = key.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1);
+    int ridx = key.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1);
+    if (ridx >= 0 && (idx < 0 || ridx < idx)) idx = ridx;
+    return idx < 0 ? key : key.substring(0, idx);
+  }
+
+  /**
+   * @return the keys for pre-splitting a salted table into one region per bucket, empty if not
+   *         salted
+   */
+  public byte[][] getSplitKeys() {
+    if (!isEnabled()) return new byte[0][];
+    byte[][] keys = new byte[this.buckets - 1][];
+    for (int a = 1; a < this.buckets; a++) {
+      keys[a - 1] = Bytes.toBytes(StringUtils.leftPad(String.valueOf(a), this.width, '0'));
+    }
+    return keys;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "RowKeySalt [buckets=" + buckets + "]";
+  }
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Tuning options applied to the <code>Scan</code>s built by <code>Graph</code>.
+ * <p>
+ * The defaults are read from the <code>Configuration</code> given to
+ * {@link HBaseGraphFactory#open(Configuration)}, see {@link Graph#getDefaultScanProfile()}.
+ * Callers can copy the default one and tune it per query.
+ * @author scott_miao
+ */
+public class ScanProfile {
+
+  private int caching = HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_CACHING_DEFAULT;
+  private int batch = HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_BATCH_DEFAULT;
+  private boolean cacheBlocks = HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_CACHE_BLOCKS_DEFAULT;
+  private List<byte[]> families = new ArrayList<byte[]>();
+  private List<byte[][]> columns = new ArrayList<byte[][]>();
+  private Filter filter = null;
+
+  public ScanProfile() {
+    super();
+  }
+
+  /**
+   * Copy constructor.
+   * @param profile
+   */
+  public ScanProfile(ScanProfile profile) {
+    super();
+    Validate.notNull(profile, "profile shall always not be null");
+    this.caching = profile.caching;
+    this.batch = profile.batch;
+    this.cacheBlocks = profile.cacheBlocks;
+    this.families.addAll(profile.families);
+    this.columns.addAll(profile.columns);
+    this.filter = profile.filter;
+  }
+
+  /**
+   * Create a <code>ScanProfile</code> with the defaults set in given <code>Configuration</code>.
+   * @param conf
+   * @return
+   */
+  public static ScanProfile create(Configuration conf) {
+    Validate.notNull(conf, "conf shall always not be null");
+    ScanProfile profile = new ScanProfile();
+    profile.setCaching(conf.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_CACHING_KEY,
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_CACHING_DEFAULT));
+    profile.setBatch(conf.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_BATCH_KEY,
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_BATCH_DEFAULT));
+    profile.setCacheBlocks(conf.getBoolean(
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_CACHE_BLOCKS_KEY,
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_CACHE_BLOCKS_DEFAULT));
+    String[] families = conf.getStrings(HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_FAMILIES_KEY);
+    if (null != families) {
+      for (String family : families) {
+        if (family.trim().length() > 0) profile.addFamily(family.trim());
+      }
+    }
+    return profile;
+  }
+
+  /**
+   * Apply this profile to given <code>Scan</code>.
+   * @param scan
+   * @return the same <code>Scan</code>
+   */
+  public Scan apply(Scan scan) {
+    Validate.notNull(scan, "scan shall always not be null");
+    if (this.caching > 0) scan.setCaching(this.caching);
+    // batch does not work with the row filters, e.g. SingleColumnValueFilter
+    if (this.batch > 0 && null == this.filter) scan.setBatch(this.batch);
+    scan.setCacheBlocks(this.cacheBlocks);
+    for (byte[] family : this.families) {
+      scan.addFamily(family);
+    }
+    for (byte[][] column : this.columns) {
+      scan.addColumn(column[0], column[1]);
+    }
+    if (null != this.filter) scan.setFilter(this.filter);
+    return scan;
+  }
+
+  /**
+   * Apply the caching options only, for the <code>Scan</code>s with their own filters and columns.
+   * @param scan
+   * @return the same <code>Scan</code>
+   */
+  public Scan applyCaching(Scan scan) {
+    Validate.notNull(scan, "scan shall always not be null");
+    if (this.caching > 0) scan.setCaching(this.caching);
+    scan.setCacheBlocks(this.cacheBlocks);
+    return scan;
+  }
+
+  /**
+   * @return number of rows fetched per RPC
+   */
+  public int getCaching() {
+    return caching;
+  }
+
+  /**
+   * @param caching number of rows fetched per RPC, <code>0</code> for the HBase default
+   */
+  public void setCaching(int caching) {
+    Validate.isTrue(caching >= 0, "caching shall not be negative");
+    this.caching = caching;
+  }
+
+  /**
+   * @return max number of columns per <code>Result</code>
+   */
+  public int getBatch() {
+    return batch;
+  }
+
+  /**
+   * Limit the columns per <code>Result</code> for very wide rows. The partial <code>Result</code>s
+   * of one row are merged back into one element by the element iterables.
+   * @param batch max number of columns per <code>Result</code>, <code>0</code> for no limit
+   */
+  public void setBatch(int batch) {
+    Validate.isTrue(batch >= 0, "batch shall not be negative");
+    this.batch = batch;
+  }
+
+  public boolean isCacheBlocks() {
+    return cacheBlocks;
+  }
+
+  /**
+   * @param cacheBlocks <code>false</code> for the one-off full scans, to not to pollute the block
+   *          cache of region servers
+   */
+  public void setCacheBlocks(boolean cacheBlocks) {
+    this.cacheBlocks = cacheBlocks;
+  }
+
+  /**
+   * Fetch the whole family.
+   * @param family
+   */
+  public void addFamily(String family) {
+    Validate.notEmpty(family, "family shall always not be null or empty");
+    this.families.add(Bytes.toBytes(family));
+  }
+
+  /**
+   * Fetch the column only.
+   * @param family
+   * @param qualifier
+   */
+  public void addColumn(String family, String qualifier) {
+    Validate.notEmpty(family, "family shall always not be null or empty");
+    Validate.notEmpty(qualifier, "qualifier shall always not be null or empty");
+    this.columns.add(new byte[][] { Bytes.toBytes(family), Bytes.toBytes(qualifier) });
+  }
+
+  public Filter getFilter() {
+    return filter;
+  }
+
+  /**
+   * Filter the rows on the region servers, {@link #setBatch(int)} is ignored once it is set.
+   * @param filter <code>null</code> for no filter
+   */
+  public void setFilter(Filter filter) {
+    this.filter = filter;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    List<String> families = new ArrayList<String>();
+    for (byte[] family : this.families) {
+      families.add(Bytes.toString(family));
+    }
+    List<String> columns = new ArrayList<String>();
+    for (byte[][] column : this.columns) {
+      columns.add(Bytes.toString(column[0]) + ":" + Bytes.toString(column[1]));
+    }
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).
+        append("caching", caching).
+        append("batch", batch).
+        append("cacheBlocks", cacheBlocks).
+        append("families", families).
+        append("columns", columns).
+        append("filter", filter).
+        toString();
+  }
+
+}
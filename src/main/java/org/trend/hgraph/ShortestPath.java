@@ -0,0 +1,321 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * Find the shortest paths between two vertices by a bidirectional, meet-in-the-middle
+ * breadth-first search.
+ * <p>
+ * The search grows a frontier from the source and one from the target, one whole level at a time,
+ * always the smaller one, until they meet. In directed mode the source side follows the outgoing
+ * edges and the target side the incoming edges; in undirected mode both sides follow both. The
+ * incoming edges need {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY}, without
+ * it the target side grows along the outgoing edges only in undirected mode, and not at all in
+ * directed mode, i.e. a one-sided search.
+ * <p>
+ * The search gives up once the paths would be longer than {@link #setMaxDepth(int)} or
+ * {@link #setMaxVisited(int)} vertices are visited; the edges of a level are streamed, its scan
+ * stops as soon as the visited vertices reach the limit. Not thread-safe.
+ * @author scott_miao
+ */
+public class ShortestPath {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ShortestPath.class);
+
+  private final Graph graph;
+  private boolean directed = true;
+  private String[] labels = new String[0];
+  private int maxDepth = 6;
+  private int maxVisited = 100000;
+  private int maxPaths = 1;
+  private int parallelism;
+  private int chunkSize;
+
+  /**
+   * @param graph
+   */
+  public ShortestPath(Graph graph) {
+    super();
+    Validate.notNull(graph, "graph shall always not be null");
+    this.graph = graph;
+    this.parallelism =
+        graph.getConf().getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_DEFAULT);
+    this.chunkSize =
+        graph.getConf().getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_DEFAULT);
+  }
+
+  /**
+   * @param directed whether the paths follow the edge directions, <code>true</code> by default
+   */
+  public void setDirected(boolean directed) {
+    this.directed = directed;
+  }
+
+  /**
+   * @param labels the edge labels to follow, empty for all labels
+   */
+  public void setLabels(String... labels) {
+    this.labels = null == labels ? new String[0] : labels;
+  }
+
+  /**
+   * @param maxDepth max edges of a path, <code>6</code> by default
+   */
+  public void setMaxDepth(int maxDepth) {
+    Validate.isTrue(maxDepth >= 0, "maxDepth shall not be negative");
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * @param maxVisited max vertices visited by both sides, <code>100000</code> by default
+   */
+  public void setMaxVisited(int maxVisited) {
+    Validate.isTrue(maxVisited > 0, "maxVisited shall be greater than 0");
+    this.maxVisited = maxVisited;
+  }
+
+  /**
+   * @param maxPaths max paths returned, all of the same shortest length, <code>1</code> by default
+   */
+  public void setMaxPaths(int maxPaths) {
+    Validate.isTrue(maxPaths > 0, "maxPaths shall be greater than 0");
+    this.maxPaths = maxPaths;
+  }
+
+  /**
+   * @param parallelism see {@link Traversal#setParallelism(int)}
+   */
+  public void setParallelism(int parallelism) {
+    Validate.isTrue(parallelism > 0, "parallelism shall be greater than 0");
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * One side of the search. The parents of a vertex are its neighbors one level closer to the
+   * root, all of them are kept so every shortest path can be rebuilt.
+   */
+  private static class Side {
+    private final Map<String, List<String>> parents = new HashMap<String, List<String>>();
+    private List<String> frontier = new ArrayList<String>();
+    private final List<Direction> directions;
+    private int depth = 0;
+
+    private Side(String root, List<Direction> directions) {
+      this.parents.put(root, Collections.<String> emptyList());
+      this.frontier.add(root);
+      this.directions = directions;
+    }
+
+    private boolean canGrow() {
+      return !this.directions.isEmpty() && !this.frontier.isEmpty();
+    }
+  }
+
+  /**
+   * Find the shortest paths from <code>sourceId</code> to <code>targetId</code>.
+   * @param sourceId
+   * @param targetId
+   * @return the paths as vertex ids from the source to the target, empty if not found within the
+   *         limits
+   */
+  public List<List<String>> find(String sourceId, String targetId) {
+    Validate.notEmpty(sourceId, "sourceId shall always not be null or empty");
+    Validate.notEmpty(targetId, "targetId shall always not be null or empty");
+    List<List<String>> paths = new ArrayList<List<String>>();
+    if (sourceId.equals(targetId)) {
+      paths.add(Collections.singletonList(sourceId));
+      return paths;
+    }
+
+    boolean reversible = this.graph.hasReverseEdgeTable();
+    List<Direction> forward = new ArrayList<Direction>();
+    List<Direction> backward = new ArrayList<Direction>();
+    forward.add(Direction.OUT);
+    if (this.directed) {
+      if (reversible) backward.add(Direction.IN);
+    } else {
+      backward.add(Direction.OUT);
+      if (reversible) {
+        forward.add(Direction.IN);
+        backward.add(Direction.IN);
+      }
+    }
+    Side source = new Side(sourceId, forward);
+    Side target = new Side(targetId, backward);
+
+    FrontierScanner scanner = new FrontierScanner(this.graph, this.parallelism, this.chunkSize);
+    try {
+      while (source.depth + target.depth < this.maxDepth
+          && source.parents.size() + target.parents.size() < this.maxVisited) {
+        Side side = null;
+        if (source.canGrow() && target.canGrow()) {
+          side = source.frontier.size() <= target.frontier.size() ? source : target;
+        } else if (source.canGrow()) {
+          side = source;
+        } else if (target.canGrow()) {
+          side = target;
+        } else {
+          break;
+        }
+        Side other = side == source ? target : source;
+        List<String> meets = grow(side, other, scanner);
+        if (!meets.isEmpty()) {
+          for (String meet : meets) {
+            for (List<String> head : getPaths(source, meet)) {
+              for (List<String> tail : getPaths(target, meet)) {
+                List<String> path = new ArrayList<String>(head);
+                for (int a = tail.size() - 2; a >= 0; a--) {
+                  path.add(tail.get(a));
+                }
+                paths.add(path);
+                if (paths.size() >= this.maxPaths) return paths;
+              }
+            }
+          }
+          return paths;
+        }
+      }
+    } finally {
+      scanner.close();
+      LOG.debug("find paths from:" + sourceId + " to:" + targetId + ", source depth:"
+          + source.depth + ", target depth:" + target.depth + ", visited:"
+          + (source.parents.size() + target.parents.size()) + ", paths:" + paths.size());
+    }
+    return paths;
+  }
+
+  /**
+   * Collects the new vertices of one level from the streamed edge rowkeys, stops the scan once
+   * the visited vertices reach the limit.
+   */
+  private static class LevelHandler implements FrontierScanner.Handler {
+    private final Side side;
+    private final int maxNew;
+    private final Map<String, List<String>> next = new LinkedHashMap<String, List<String>>();
+    private String delimiter1;
+    private String delimiter2;
+    private boolean full = false;
+
+    private LevelHandler(Side side, int maxNew) {
+      this.side = side;
+      this.maxNew = maxNew;
+    }
+
+    private void setDirection(Direction direction) {
+      boolean reversed = Direction.IN == direction;
+      this.delimiter1 = reversed ? HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1
+          : HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1;
+      this.delimiter2 = reversed ? HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2
+          : HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2;
+    }
+
+    @Override
+    public boolean handle(String edgeId) {
+      String from = edgeId.substring(0, edgeId.indexOf(this.delimiter1));
+      String to = edgeId.substring(edgeId.lastIndexOf(this.delimiter2) + this.delimiter2.length());
+      if (this.side.parents.containsKey(to)) return true;
+      List<String> parents = this.next.get(to);
+      if (null == parents) {
+        parents = new ArrayList<String>(1);
+        this.next.put(to, parents);
+      }
+      if (!parents.contains(from)) parents.add(from);
+      this.full = this.next.size() >= this.maxNew;
+      return !this.full;
+    }
+  }
+
+  /**
+   * Grow given side by one level, or part of it if the visited vertices reach the limit.
+   * @return the new vertices already visited by the other side, nearest to its root first
+   */
+  private List<String> grow(Side side, Side other, FrontierScanner scanner) {
+    LevelHandler handler =
+        new LevelHandler(side, this.maxVisited - side.parents.size() - other.parents.size());
+    for (Direction direction : side.directions) {
+      handler.setDirection(direction);
+      if (!scanner.scan(side.frontier, direction, handler, this.labels)) break;
+    }
+    if (handler.full) LOG.debug("level:" + (side.depth + 1) + " truncated by maxVisited");
+    side.parents.putAll(handler.next);
+    side.frontier = new ArrayList<String>(handler.next.keySet());
+    side.depth++;
+
+    // the vertices met at the same level of the other side give the shortest paths
+    List<String> meets = new ArrayList<String>();
+    int nearest = Integer.MAX_VALUE;
+    for (String id : side.frontier) {
+      if (!other.parents.containsKey(id)) continue;
+      int depth = getDepth(other, id);
+      if (depth < nearest) {
+        meets.clear();
+        nearest = depth;
+      }
+      if (depth == nearest) meets.add(id);
+    }
+    return meets;
+  }
+
+  private static int getDepth(Side side, String id) {
+    int depth = 0;
+    List<String> parents = side.parents.get(id);
+    while (!parents.isEmpty()) {
+      depth++;
+      parents = side.parents.get(parents.get(0));
+    }
+    return depth;
+  }
+
+  /**
+   * @return the paths from the root of given side to given vertex
+   */
+  private List<List<String>> getPaths(Side side, String id) {
+    List<List<String>> paths = new ArrayList<List<String>>();
+    List<String> parents = side.parents.get(id);
+    if (parents.isEmpty()) {
+      List<String> path = new ArrayList<String>();
+      path.add(id);
+      paths.add(path);
+      return paths;
+    }
+    for (String parent : parents) {
+      for (List<String> path : getPaths(side, parent)) {
+        path.add(id);
+        paths.add(path);
+        if (paths.size() >= this.maxPaths) return paths;
+      }
+    }
+    return paths;
+  }
+
+}
@@ -0,0 +1,352 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.HTableFactory;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread-safe pool of <code>HTableInterface</code>s, shared by all the <code>Graph</code>s
+ * opened against the same cluster.
+ * <p>
+ * One pool is kept per cluster, identified by its ZooKeeper quorum, client port and znode parent.
+ * All the tables of a pool are created from the same <code>Configuration</code>, so they share one
+ * <code>HConnection</code>. The pool is reference counted, {@link #acquire(Configuration)} retains
+ * it and {@link #close()} releases it, the tables are closed once the last holder releases it.
+ * <p>
+ * At most {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_POOL_MAX_SIZE_KEY} idle tables are kept
+ * per table name, the surplus ones are closed when returned. If
+ * {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_POOL_MAX_ACTIVE_KEY} is set, borrowers wait for a
+ * table once that many are borrowed, up to
+ * {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_POOL_WAIT_TIMEOUT_KEY} milliseconds.
+ * <p>
+ * The borrowed/idle counts and the time spent in {@link #getTable(String)} are reported for
+ * monitoring.
+ * @author scott_miao
+ */
+public class TablePool implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TablePool.class);
+
+  /** shared pools by cluster key */
+  private static final Map<String, TablePool> POOLS = new HashMap<String, TablePool>();
+
+  private final String clusterKey;
+  private final Configuration conf;
+  private final HTableInterfaceFactory factory;
+  private final int maxSize;
+  private final int maxActive;
+  private final long waitTimeout;
+
+  private final ConcurrentMap<String, BlockingQueue<HTableInterface>> idleTables =
+      new ConcurrentHashMap<String, BlockingQueue<HTableInterface>>();
+  private final ConcurrentMap<String, Semaphore> permits =
+      new ConcurrentHashMap<String, Semaphore>();
+
+  /** guarded by <code>POOLS</code> */
+  private int refCount = 1;
+  private volatile boolean closed = false;
+
+  private final AtomicInteger borrowedCount = new AtomicInteger();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicLong borrowCount = new AtomicLong();
+  private final AtomicLong createCount = new AtomicLong();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  /**
+   * Create a pool not shared with others, usually for tests.
+   * @param conf
+   * @param factory
+   */
+  protected TablePool(Configuration conf, HTableInterfaceFactory factory) {
+    this(null, conf, factory);
+  }
+
+  private TablePool(String clusterKey, Configuration conf, HTableInterfaceFactory factory) {
+    super();
+    Validate.notNull(conf, "conf shall always not be null");
+    Validate.notNull(factory, "factory shall always not be null");
+    this.clusterKey = clusterKey;
+    this.conf = conf;
+    this.factory = factory;
+
+    int maxSize =
+        conf.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_SIZE_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_SIZE_DEFAULT);
+    Validate.isTrue(maxSize > 0, HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_SIZE_KEY
+        + " shall be greater than 0");
+    this.maxSize = maxSize;
+    int maxActive =
+        conf.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_ACTIVE_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_ACTIVE_DEFAULT);
+    Validate.isTrue(maxActive >= 0, HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_ACTIVE_KEY
+        + " shall not be negative");
+    this.maxActive = maxActive;
+    long waitTimeout =
+        conf.getLong(HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_WAIT_TIMEOUT_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_WAIT_TIMEOUT_DEFAULT);
+    Validate.isTrue(waitTimeout >= 0, HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_WAIT_TIMEOUT_KEY
+        + " shall not be negative");
+    this.waitTimeout = waitTimeout;
+  }
+
+  /**
+   * Get the shared pool of the cluster given by <code>conf</code>, create one if not exists. The
+   * settings of the pool are taken from the <code>conf</code> which creates it.
+   * @param conf
+   * @return the pool, shall be released by {@link #close()}
+   */
+  public static TablePool acquire(Configuration conf) {
+    Validate.notNull(conf, "conf shall always not be null");
+    String key = getClusterKey(conf);
+    synchronized (POOLS) {
+      TablePool pool = POOLS.get(key);
+      if (null != pool) {
+        pool.refCount++;
+        return pool;
+      }
+      pool = new TablePool(key, conf, new HTableFactory());
+      POOLS.put(key, pool);
+      LOG.info("table pool created for cluster:" + key);
+      return pool;
+    }
+  }
+
+  static String getClusterKey(Configuration conf) {
+    return conf.get(HConstants.ZOOKEEPER_QUORUM) + ":"
+        + conf.get(HConstants.ZOOKEEPER_CLIENT_PORT, "" + HConstants.DEFAULT_ZOOKEPER_CLIENT_PORT)
+        + ":"
+        + conf.get(HConstants.ZOOKEEPER_ZNODE_PARENT, HConstants.DEFAULT_ZOOKEEPER_ZNODE_PARENT);
+  }
+
+  /**
+   * Borrow a table, it shall be given back by {@link #returnTable(HTableInterface)}.
+   * @param tableName
+   * @return
+   */
+  public HTableInterface getTable(String tableName) {
+    Validate.notEmpty(tableName, "tableName shall always not be null or empty");
+    if (this.closed) throw new IllegalStateException("pool already closed");
+    long start = System.nanoTime();
+    Semaphore permit = getPermit(tableName);
+    if (null != permit) {
+      try {
+        if (!permit.tryAcquire(this.waitTimeout, TimeUnit.MILLISECONDS)) {
+          recordWait(System.nanoTime() - start);
+          throw new RuntimeException("wait for table:" + tableName + " timed out after "
+              + this.waitTimeout + "ms, borrowed:" + getBorrowedCount());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("wait for table:" + tableName + " interrupted", e);
+      }
+    }
+    HTableInterface table = getIdleQueue(tableName).poll();
+    if (null != table) {
+      this.idleCount.decrementAndGet();
+    } else {
+      try {
+        table = this.factory.createHTableInterface(this.conf, Bytes.toBytes(tableName));
+      } catch (RuntimeException e) {
+        if (null != permit) permit.release();
+        throw e;
+      }
+      this.createCount.incrementAndGet();
+    }
+    recordWait(System.nanoTime() - start);
+    this.borrowedCount.incrementAndGet();
+    this.borrowCount.incrementAndGet();
+    return table;
+  }
+
+  /**
+   * Give back a table borrowed by {@link #getTable(String)}, it is closed instead if the pool is
+   * full or closed.
+   * @param table
+   */
+  public void returnTable(HTableInterface table) {
+    if (null == table) return;
+    String tableName = Bytes.toString(table.getTableName());
+    this.borrowedCount.decrementAndGet();
+    try {
+      if (!this.closed && getIdleQueue(tableName).offer(table)) {
+        this.idleCount.incrementAndGet();
+        // closed in the meantime, drain it ourselves
+        if (this.closed) closeIdleTables();
+      } else {
+        releaseTable(table);
+      }
+    } finally {
+      Semaphore permit = getPermit(tableName);
+      if (null != permit) permit.release();
+    }
+  }
+
+  /**
+   * Release this pool, the idle tables are closed once no one holds it. Tables returned after that
+   * are closed directly.
+   */
+  @Override
+  public void close() {
+    synchronized (POOLS) {
+      if (this.closed) return;
+      if (--this.refCount > 0) return;
+      this.closed = true;
+      if (null != this.clusterKey && POOLS.get(this.clusterKey) == this) {
+        POOLS.remove(this.clusterKey);
+      }
+    }
+    closeIdleTables();
+    LOG.info("table pool closed for cluster:" + this.clusterKey + ", " + this);
+  }
+
+  private void closeIdleTables() {
+    HTableInterface table = null;
+    for (BlockingQueue<HTableInterface> queue : this.idleTables.values()) {
+      while (null != (table = queue.poll())) {
+        this.idleCount.decrementAndGet();
+        releaseTable(table);
+      }
+    }
+  }
+
+  private void releaseTable(HTableInterface table) {
+    try {
+      this.factory.releaseHTableInterface(table);
+    } catch (IOException e) {
+      LOG.warn("close table:" + Bytes.toString(table.getTableName()) + " failed", e);
+    }
+  }
+
+  private BlockingQueue<HTableInterface> getIdleQueue(String tableName) {
+    BlockingQueue<HTableInterface> queue = this.idleTables.get(tableName);
+    if (null == queue) {
+      queue = new LinkedBlockingQueue<HTableInterface>(this.maxSize);
+      BlockingQueue<HTableInterface> old = this.idleTables.putIfAbsent(tableName, queue);
+      if (null != old) queue = old;
+    }
+    return queue;
+  }
+
+  private Semaphore getPermit(String tableName) {
+    if (this.maxActive == 0) return null;
+    Semaphore permit = this.permits.get(tableName);
+    if (null == permit) {
+      permit = new Semaphore(this.maxActive, true);
+      Semaphore old = this.permits.putIfAbsent(tableName, permit);
+      if (null != old) permit = old;
+    }
+    return permit;
+  }
+
+  private void recordWait(long nanos) {
+    this.waitNanos.addAndGet(nanos);
+    long max = 0L;
+    while (nanos > (max = this.maxWaitNanos.get())) {
+      if (this.maxWaitNanos.compareAndSet(max, nanos)) break;
+    }
+  }
+
+  /**
+   * @return whether this pool is closed
+   */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * @return number of tables borrowed and not returned yet
+   */
+  public int getBorrowedCount() {
+    return this.borrowedCount.get();
+  }
+
+  /**
+   * @return number of tables kept idle in this pool
+   */
+  public int getIdleCount() {
+    return this.idleCount.get();
+  }
+
+  /**
+   * @return total number of borrows
+   */
+  public long getBorrowCount() {
+    return this.borrowCount.get();
+  }
+
+  /**
+   * @return total number of tables created, the borrows not served by an idle table
+   */
+  public long getCreateCount() {
+    return this.createCount.get();
+  }
+
+  /**
+   * @return total time spent in {@link #getTable(String)}, in milliseconds
+   */
+  public long getWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(this.waitNanos.get());
+  }
+
+  /**
+   * @return max time spent in one {@link #getTable(String)}, in milliseconds
+   */
+  public long getMaxWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos.get());
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).
+        append("borrowed", getBorrowedCount()).
+        append("idle", getIdleCount()).
+        append("borrowCount", getBorrowCount()).
+        append("createCount", getCreateCount()).
+        append("waitTime", getWaitTime()).
+        append("maxWaitTime", getMaxWaitTime()).
+        toString();
+  }
+
+}
@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.lang.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * A level-synchronous, breadth-first traversal from a set of seed vertices.
+ * <p>
+ * Each level expands the whole frontier at once: the edge rowkeys of the frontier vertices are
+ * fetched by keys-only range scans, split into chunks scanned in parallel, and the new vertices are
+ * resolved by batched multi-gets if {@link #setLoadVertices(boolean)} is set. The edge rowkeys are
+ * streamed, the scan of a level stops once {@link #setMaxPerLevel(int)} new vertices are taken. The visited vertices
+ * are kept in a compact {@link VisitedSet}, each vertex is visited at most once.
+ * <p>
+ * The {@link Visitor} is always called from the thread calling {@link #traverse(Visitor, String...)},
+ * in level order. A <code>Traversal</code> may be reused but shall not be shared by threads.
+ * @author scott_miao
+ */
+public class Traversal {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Traversal.class);
+
+  /**
+   * Callback for the visited vertices and edges.
+   */
+  public static interface Visitor {
+
+    /**
+     * @param id vertex id
+     * @param vertex <code>null</code> if {@link Traversal#setLoadVertices(boolean)} not set
+     * @param depth <code>0</code> for the seeds
+     * @return <code>false</code> to stop the traversal
+     */
+    boolean visitVertex(String id, Vertex vertex, int depth);
+
+    /**
+     * Called for each edge of the expanded vertices, including the ones leading to visited
+     * vertices. The edges after {@link Traversal#setMaxPerLevel(int)} reached are not scanned,
+     * unless {@link Traversal#setVisitAllEdges(boolean)} is set.
+     * @param id edge rowkey, in the reverse edge table for {@link Direction#IN}
+     * @param depth depth of the vertex it leads to
+     * @return <code>false</code> to stop the traversal
+     */
+    boolean visitEdge(String id, int depth);
+  }
+
+  private final Graph graph;
+  private Direction direction = Direction.OUT;
+  private String[] labels = new String[0];
+  private int maxDepth = 1;
+  private int maxPerLevel = 0;
+  private int parallelism;
+  private int chunkSize;
+  private boolean loadVertices = false;
+  private boolean visitAllEdges = false;
+
+  /**
+   * @param graph
+   */
+  public Traversal(Graph graph) {
+    super();
+    Validate.notNull(graph, "graph shall always not be null");
+    this.graph = graph;
+    this.parallelism =
+        graph.getConf().getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_DEFAULT);
+    Validate.isTrue(this.parallelism > 0,
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_KEY
+          + " shall be greater than 0");
+    this.chunkSize =
+        graph.getConf().getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_DEFAULT);
+  }
+
+  /**
+   * @param direction {@link Direction#OUT} by default, {@link Direction#IN} needs the reverse
+   *          edge table
+   */
+  public void setDirection(Direction direction) {
+    Validate.notNull(direction, "direction shall always not be null");
+    Validate.isTrue(Direction.BOTH != direction, "direction:" + direction + " is not supported");
+    this.direction = direction;
+  }
+
+  /**
+   * @param labels the edge labels to follow, empty for all labels
+   */
+  public void setLabels(String... labels) {
+    this.labels = null == labels ? new String[0] : labels;
+  }
+
+  /**
+   * @param maxDepth max hops from the seeds, <code>1</code> by default
+   */
+  public void setMaxDepth(int maxDepth) {
+    Validate.isTrue(maxDepth >= 0, "maxDepth shall not be negative");
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * @param maxPerLevel max new vertices taken into one level, the rest are dropped;
+   *          <code>0</code> for no limit, by default
+   */
+  public void setMaxPerLevel(int maxPerLevel) {
+    Validate.isTrue(maxPerLevel >= 0, "maxPerLevel shall not be negative");
+    this.maxPerLevel = maxPerLevel;
+  }
+
+  /**
+   * @param parallelism number of threads scanning the edges of one level, default from
+   *          {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_TRAVERSAL_PARALLELISM_KEY}
+   */
+  public void setParallelism(int parallelism) {
+    Validate.isTrue(parallelism > 0, "parallelism shall be greater than 0");
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * @param chunkSize max frontier vertices scanned by one task, default from
+   *          {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY}
+   */
+  public void setChunkSize(int chunkSize) {
+    Validate.isTrue(chunkSize > 0, "chunkSize shall be greater than 0");
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * @param loadVertices whether to resolve the visited vertices, the ones not found in the vertex
+   *          table are skipped then; only the ids are visited by default
+   */
+  public void setLoadVertices(boolean loadVertices) {
+    this.loadVertices = loadVertices;
+  }
+
+  /**
+   * @param visitAllEdges whether to scan and visit all edges of a level after
+   *          {@link #setMaxPerLevel(int)} reached; not by default
+   */
+  public void setVisitAllEdges(boolean visitAllEdges) {
+    this.visitAllEdges = visitAllEdges;
+  }
+
+  /**
+   * Traverse from given seeds.
+   * @param visitor
+   * @param seeds
+   * @return number of visited vertices
+   */
+  public long traverse(Visitor visitor, String... seeds) {
+    Validate.notNull(visitor, "visitor shall always not be null");
+    Validate.notNull(seeds, "seeds shall always not be null");
+    VisitedSet visited = new VisitedSet();
+    List<String> frontier = new ArrayList<String>(seeds.length);
+    for (String seed : seeds) {
+      if (visited.add(seed)) frontier.add(seed);
+    }
+
+    FrontierScanner scanner = new FrontierScanner(this.graph, this.parallelism, this.chunkSize);
+    long count = 0L;
+    StopWatch timer = new StopWatch();
+    try {
+      Level level = visitVertices(frontier, 0, visitor);
+      count += level.vertices.size();
+      for (int depth = 1; depth <= this.maxDepth && !level.stopped
+          && !level.vertices.isEmpty(); depth++) {
+        timer.reset();
+        timer.start();
+        LevelHandler handler = new LevelHandler(visitor, visited, depth);
+        scanner.scan(level.vertices, this.direction, handler, this.labels);
+        if (handler.stopped) break;
+
+        level = visitVertices(handler.next, depth, visitor);
+        count += level.vertices.size();
+        timer.stop();
+        LOG.debug("level:" + depth + " expanded, edges:" + handler.edgeCount + ", vertices:"
+            + level.vertices.size() + ", truncated:" + handler.full + ", took:" + timer.getTime()
+            + "ms");
+      }
+    } finally {
+      scanner.close();
+    }
+    return count;
+  }
+
+  /**
+   * Collects the new vertices of one level from the streamed edge rowkeys.
+   */
+  private class LevelHandler implements FrontierScanner.Handler {
+    private final Visitor visitor;
+    private final VisitedSet visited;
+    private final int depth;
+    private final String delimiter;
+    private final List<String> next = new ArrayList<String>();
+    private long edgeCount = 0L;
+    private boolean full = false;
+    private boolean stopped = false;
+
+    private LevelHandler(Visitor visitor, VisitedSet visited, int depth) {
+      this.visitor = visitor;
+      this.visited = visited;
+      this.depth = depth;
+      this.delimiter = Direction.IN == Traversal.this.direction
+          ? HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2
+          : HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2;
+    }
+
+    @Override
+    public boolean handle(String edgeId) {
+      this.edgeCount++;
+      if (!this.visitor.visitEdge(edgeId, this.depth)) {
+        this.stopped = true;
+        return false;
+      }
+      if (this.full) return true;
+      String id = edgeId.substring(edgeId.lastIndexOf(this.delimiter) + this.delimiter.length());
+      if (this.visited.add(id)) {
+        this.next.add(id);
+        this.full = maxPerLevel > 0 && this.next.size() >= maxPerLevel;
+      }
+      return !this.full || visitAllEdges;
+    }
+  }
+
+  /**
+   * The vertices of one level which are visited, and whether the visitor asked to stop.
+   */
+  private static class Level {
+    private final List<String> vertices;
+    private final boolean stopped;
+
+    private Level(List<String> vertices, boolean stopped) {
+      this.vertices = vertices;
+      this.stopped = stopped;
+    }
+  }
+
+  private Level visitVertices(List<String> ids, int depth, Visitor visitor) {
+    List<String> vertices = new ArrayList<String>(ids.size());
+    if (ids.isEmpty()) return new Level(vertices, false);
+    if (!this.loadVertices) {
+      for (String id : ids) {
+        vertices.add(id);
+        if (!visitor.visitVertex(id, null, depth)) return new Level(vertices, true);
+      }
+      return new Level(vertices, false);
+    }
+    // batched multi-gets, the missing ones are skipped
+    for (com.tinkerpop.blueprints.Vertex v : this.graph.getVerticesLazily(ids)) {
+      vertices.add((String) v.getId());
+      if (!visitor.visitVertex((String) v.getId(), (Vertex) v, depth)) {
+        return new Level(vertices, true);
+      }
+    }
+    return new Level(vertices, false);
+  }
+
+}
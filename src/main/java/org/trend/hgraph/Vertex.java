@@ -17,7 +17,13 @@
  */
 package org.trend.hgraph;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import org.apache.commons.lang.Validate;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
 
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.VertexQuery;
@@ -28,22 +34,83 @@ import com.tinkerpop.blueprints.VertexQuery;
  *
  */
 public class Vertex extends AbstractElement implements com.tinkerpop.blueprints.Vertex {
-  
+
+  private static final byte[] COUNT_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME);
+
+  /** precomputed edge counts keyed by label, total count keyed by <code>null</code> */
+  private Map<String, Long> edgeCounts = null;
+
   /**
    * @param result
    * @param graph
    */
   protected Vertex(Result result, Graph graph) {
     super(result, graph);
+    this.extractEdgeCounts(result);
   }
 
-  /* (non-Javadoc)
+  /**
+   * @param id the vertex id, for the <code>Result</code>s without any cells
+   * @param result
+   * @param graph
+   */
+  protected Vertex(String id, Result result, Graph graph) {
+    super(id, result, graph);
+    this.extractEdgeCounts(result);
+  }
+
+  private void extractEdgeCounts(Result r) {
+    // not maintained, they might be stale
+    if (r.isEmpty() || !this.getGraph().isEdgeCountsEnabled()) return;
+    NavigableMap<byte[], byte[]> counts = r.getFamilyMap(COUNT_FAMILY);
+    if (null == counts || counts.isEmpty()) return;
+    this.edgeCounts = new HashMap<String, Long>();
+    String qualifier = null;
+    String prefix = HBaseGraphConstants.HBASE_GRAPH_TABLE_COLQUAL_EDGE_COUNT_NAME
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1;
+    for (Map.Entry<byte[], byte[]> count : counts.entrySet()) {
+      if (count.getValue().length != Bytes.SIZEOF_LONG) continue;
+      qualifier = Bytes.toString(count.getKey());
+      if (HBaseGraphConstants.HBASE_GRAPH_TABLE_COLQUAL_EDGE_COUNT_NAME.equals(qualifier)) {
+        this.edgeCounts.put(null, Bytes.toLong(count.getValue()));
+      } else if (qualifier.startsWith(prefix)) {
+        this.edgeCounts.put(qualifier.substring(prefix.length()), Bytes.toLong(count.getValue()));
+      }
+    }
+    // the total one marks the counters backfilled, the others are partial without it
+    if (!this.edgeCounts.containsKey(null)) this.edgeCounts = null;
+  }
+
+  /**
+   * Get the qualifier of the edge counter column in
+   * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME} family.
+   * @param label <code>null</code> for the counter of all edges
+   * @return <code>edgeCount</code> or <code>edgeCount--&gt;&lt;label&gt;</code>
+   */
+  public static byte[] getEdgeCountQualifier(String label) {
+    if (null == label) {
+      return Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLQUAL_EDGE_COUNT_NAME);
+    }
+    return Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLQUAL_EDGE_COUNT_NAME
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1 + label);
+  }
+
+  /**
+   * Add an outgoing edge to given vertex, see {@link Graph#addEdge(Object, com.tinkerpop.blueprints.Vertex, com.tinkerpop.blueprints.Vertex, String)}.
    * @see com.tinkerpop.blueprints.Vertex#addEdge(java.lang.String, com.tinkerpop.blueprints.Vertex)
    */
   @Override
-  public Edge addEdge(String arg0, com.tinkerpop.blueprints.Vertex arg1) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
+  public Edge addEdge(String label, com.tinkerpop.blueprints.Vertex inVertex) {
+    return this.getGraph().addEdge(null, this, inVertex, label);
+  }
+
+  /* (non-Javadoc)
+   * @see com.tinkerpop.blueprints.Element#remove()
+   */
+  @Override
+  public void remove() {
+    this.getGraph().removeVertex(this);
   }
 
   /**
@@ -60,10 +127,35 @@ public class Vertex extends AbstractElement implements com.tinkerpop.blueprints.
   @Override
   public Iterable<com.tinkerpop.blueprints.Edge> getEdges(Direction direction, String... labels) {
     if(null == direction || null == labels || labels.length == 0) return null;
+    return getEdges(this.getGraph().getDefaultScanProfile(), direction, labels);
+  }
+
+  /**
+   * get <code>Edge</code>s with given <code>ScanProfile</code>.
+   * @param profile the scan tuning for this query
+   * @param direction
+   * @param labels empty for all labels
+   * @return the edges
+   * @see Graph#getDefaultScanProfile()
+   */
+  public Iterable<com.tinkerpop.blueprints.Edge> getEdges(ScanProfile profile,
+      Direction direction, String... labels) {
+    Validate.notNull(profile, "profile shall always not be null");
+    Validate.notNull(direction, "direction shall always not be null");
     Iterable<com.tinkerpop.blueprints.Edge> edges = null;
     switch(direction) {
     case OUT:
-      edges = this.getGraph().getEdges(this, labels);
+      edges = this.getGraph().getEdges(this, profile, labels);
+      break;
+    case IN:
+      edges = this.getGraph().getInEdges(this, profile, labels);
+      break;
+    case BOTH:
+      // incoming first, it fails fast if the reverse edge table not configured
+      Iterable<com.tinkerpop.blueprints.Edge> inEdges =
+          this.getGraph().getInEdges(this, profile, labels);
+      edges = new ChainedIterable<com.tinkerpop.blueprints.Edge>(
+          this.getGraph().getEdges(this, profile, labels), inEdges);
       break;
     default:
       throw new RuntimeException("direction:" + direction + " is not supported");
@@ -72,13 +164,57 @@ public class Vertex extends AbstractElement implements com.tinkerpop.blueprints.
     return edges;
   }
 
+  /**
+   * get one page of the outgoing <code>Edge</code>s, for serving the vertices with lots of edges
+   * with bounded memory per call.
+   * <pre>
+   * EdgePage page = vertex.getEdges(labels, 100, null);
+   * while (page.hasMore()) {
+   *   page = vertex.getEdges(labels, 100, page.getContinuationToken());
+   * }
+   * </pre>
+   * @param labels <code>null</code> or empty for all labels
+   * @param pageSize max edges of the page
+   * @param continuationToken from the previous page, <code>null</code> for the first page
+   * @return the page
+   */
+  public EdgePage getEdges(String[] labels, int pageSize, String continuationToken) {
+    return this.getGraph().getEdgePage(this, pageSize, continuationToken,
+      null == labels ? new String[0] : labels);
+  }
+
   /* (non-Javadoc)
    * @see com.tinkerpop.blueprints.Vertex#getVertices(com.tinkerpop.blueprints.Direction, java.lang.String[])
    */
   @Override
   public Iterable<com.tinkerpop.blueprints.Vertex> getVertices(Direction direction,
       String... labels) {
-    throw new UnsupportedOperationException("Due to memory usage consideration pls use getEdges instead");
+    if(null == direction) return null;
+    boolean noLabels = null == labels || labels.length == 0;
+    Graph graph = this.getGraph();
+    Iterable<com.tinkerpop.blueprints.Vertex> vertices = null;
+    switch(direction) {
+    case OUT:
+      vertices = graph.getVerticesLazily(
+        noLabels ? graph.getEdges(this) : graph.getEdges(this, labels), Direction.OUT);
+      break;
+    case IN:
+      // the source vertices, see Edge#getVertex(Direction)
+      vertices = graph.getVerticesLazily(graph.getInEdges(this, labels), Direction.IN);
+      break;
+    case BOTH:
+      Iterable<com.tinkerpop.blueprints.Vertex> inVertices =
+          graph.getVerticesLazily(graph.getInEdges(this, labels), Direction.IN);
+      vertices = new ChainedIterable<com.tinkerpop.blueprints.Vertex>(
+          graph.getVerticesLazily(
+            noLabels ? graph.getEdges(this) : graph.getEdges(this, labels), Direction.OUT),
+          inVertices);
+      break;
+    default:
+      throw new RuntimeException("direction:" + direction + " is not supported");
+    }
+
+    return vertices;
   }
 
   /* (non-Javadoc)
@@ -86,8 +222,7 @@ public class Vertex extends AbstractElement implements com.tinkerpop.blueprints.
    */
   @Override
   public VertexQuery query() {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException();
+    return new HBaseVertexQuery(this);
   }
   
   /**
@@ -95,8 +230,27 @@ public class Vertex extends AbstractElement implements com.tinkerpop.blueprints.
    * @return
    */
   public long getEdgeCount() {
+    if (null != this.edgeCounts && this.edgeCounts.containsKey(null)) {
+      return this.edgeCounts.get(null);
+    }
     return this.getGraph().getEdgeCount(this);
   }
+
+  /**
+   * get number of egdes with given label for this <code>Vertex</code>.
+   * @param label
+   * @return
+   */
+  public long getEdgeCount(String label) {
+    Validate.notEmpty(label, "label shall always not be null or empty");
+    if (null != this.edgeCounts) {
+      Long count = this.edgeCounts.get(label);
+      if (null != count) return count;
+      // the counters are there, but no one for this label
+      if (this.edgeCounts.containsKey(null)) return 0L;
+    }
+    return this.getGraph().getEdgeCount(this, label);
+  }
   
 
 }
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+
+/**
+ * Iterate the ids of the vertices on the other side of the edges, parsed from the edge rowkeys.
+ * @author scott_miao
+ */
+class VertexIdIterable extends AbstractElementIterable<String> {
+
+  private final String delimiter;
+
+  /**
+   * @param table
+   * @param rs
+   * @param graph
+   * @param reversed <code>true</code> if the rows are from the reverse edge table
+   */
+  VertexIdIterable(HTableInterface table, ResultScanner rs, Graph graph, boolean reversed) {
+    super(table, rs, graph);
+    this.delimiter = reversed ? HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2
+        : HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2;
+  }
+
+  @Override
+  protected String newElement(Result r) {
+    String row = getGraph().toId(r.getRow());
+    return row.substring(row.lastIndexOf(this.delimiter) + this.delimiter.length());
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * A compact set of visited ids, each id is kept as the first 64 bits of its MD5 digest in an
+ * open-addressing <code>long</code> table, about 16 bytes per id instead of a <code>String</code>
+ * entry in a <code>HashSet</code>.
+ * <p>
+ * Two different ids sharing the same 64 bits are taken as one, the chance of that is negligible
+ * for the graph sizes here. Not thread-safe.
+ * @author scott_miao
+ */
+class VisitedSet {
+
+  private static final int MIN_CAPACITY = 16;
+
+  /** <code>0</code> stands for an empty slot, a digest of <code>0</code> is stored as 1 */
+  private long[] slots;
+  private int size = 0;
+  private final MessageDigest digest;
+
+  VisitedSet() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * @param expectedSize
+   */
+  VisitedSet(int expectedSize) {
+    super();
+    Validate.isTrue(expectedSize >= 0, "expectedSize shall not be negative");
+    int capacity = MIN_CAPACITY;
+    while (capacity < expectedSize * 2) {
+      capacity <<= 1;
+    }
+    this.slots = new long[capacity];
+    try {
+      this.digest = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 not supported", e);
+    }
+  }
+
+  /**
+   * @param id
+   * @return <code>true</code> if the id is not visited before
+   */
+  boolean add(String id) {
+    Validate.notNull(id, "id shall always not be null");
+    long hash = hash(id);
+    if (!insert(this.slots, hash)) return false;
+    this.size++;
+    // keep the load factor under 0.5
+    if (this.size * 2 > this.slots.length) resize();
+    return true;
+  }
+
+  /**
+   * @param id
+   * @return whether the id is visited
+   */
+  boolean contains(String id) {
+    Validate.notNull(id, "id shall always not be null");
+    long hash = hash(id);
+    int mask = this.slots.length - 1;
+    for (int a = index(hash, mask);; a = (a + 1) & mask) {
+      if (this.slots[a] == 0L) return false;
+      if (this.slots[a] == hash) return true;
+    }
+  }
+
+  /**
+   * @return number of visited ids
+   */
+  int size() {
+    return this.size;
+  }
+
+  private long hash(String id) {
+    long hash = Bytes.toLong(this.digest.digest(Bytes.toBytes(id)));
+    return hash == 0L ? 1L : hash;
+  }
+
+  private static int index(long hash, int mask) {
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private static boolean insert(long[] slots, long hash) {
+    int mask = slots.length - 1;
+    for (int a = index(hash, mask);; a = (a + 1) & mask) {
+      if (slots[a] == hash) return false;
+      if (slots[a] == 0L) {
+        slots[a] = hash;
+        return true;
+      }
+    }
+  }
+
+  private void resize() {
+    long[] slots = new long[this.slots.length << 1];
+    for (long hash : this.slots) {
+      if (hash != 0L) insert(slots, hash);
+    }
+    this.slots = slots;
+  }
+
+}
@@ -0,0 +1,601 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A client-side write buffer of the <code>Graph</code> write path, the mutations are batched per
+ * table and sent by one <code>HTableInterface#batch(List)</code> call per batch.
+ * <p>
+ * A table is flushed in background once {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_KEY}
+ * mutations are buffered for it, and all the tables are flushed every
+ * {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_WRITE_FLUSH_INTERVAL_KEY} milliseconds, by
+ * {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_WRITE_FLUSH_THREADS_KEY} threads. The writers block
+ * once {@link HBaseGraphConstants#HBASE_GRAPH_CLIENT_WRITE_BUFFER_MAX_PENDING_KEY} mutations are
+ * pending, until the flushes catch up.
+ * <p>
+ * The counter increments are summed up per row and column in the buffer, and sent as one
+ * <code>Increment</code> per row at flush time, after the other mutations of the batch. The
+ * flushes of one table are serialized, so its batches are sent in order. With a guard column set
+ * by {@link #setCounterGuard(String, byte[], byte[])}, the increments of the rows without it are
+ * dropped, so the counters not initialized are not created from a partial count.
+ * <p>
+ * As <code>HTableInterface#batch(List)</code> does not order the mutations of one row, a mutation
+ * conflicting with a pending one of the same row is added after the pending ones are flushed:
+ * two puts of the same column, or a put and a delete covering the same column. The deletes of
+ * different columns and the puts of different columns of a row are batched together. A batch with
+ * deletes is followed by a pause of one millisecond, so a put of the next batch is not stamped in
+ * the same millisecond as the delete and masked by it.
+ * <p>
+ * A failure of a background flush is reported by the next {@link #add(String, Mutation)} or
+ * {@link #flush()} call, the mutations of the failed batch are dropped.
+ * @author scott_miao
+ */
+public class WriteBuffer implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WriteBuffer.class);
+
+  private final TablePool pool;
+  private final int batchSize;
+  private final int maxPending;
+  private final ScheduledExecutorService executor;
+
+  private final ConcurrentMap<String, TableBuffer> buffers =
+      new ConcurrentHashMap<String, TableBuffer>();
+  private final Semaphore pending;
+  private final AtomicReference<IOException> error = new AtomicReference<IOException>();
+  private volatile boolean closed = false;
+  private volatile Listener listener = null;
+  /** family and qualifier of the guard column by table name */
+  private final ConcurrentMap<String, byte[][]> counterGuards =
+      new ConcurrentHashMap<String, byte[][]>();
+
+  private final AtomicLong mutationCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+
+  /**
+   * @param pool the tables are borrowed from
+   * @param conf
+   */
+  public WriteBuffer(TablePool pool, Configuration conf) {
+    super();
+    Validate.notNull(pool, "pool shall always not be null");
+    Validate.notNull(conf, "conf shall always not be null");
+    this.pool = pool;
+    int batchSize =
+        conf.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_DEFAULT);
+    Validate.isTrue(batchSize > 0, HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_KEY
+        + " shall be greater than 0");
+    this.batchSize = batchSize;
+    int maxPending =
+        conf.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BUFFER_MAX_PENDING_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BUFFER_MAX_PENDING_DEFAULT);
+    Validate.isTrue(maxPending >= batchSize,
+      HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BUFFER_MAX_PENDING_KEY
+          + " shall not be less than " + HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_KEY);
+    this.maxPending = maxPending;
+    this.pending = new Semaphore(maxPending);
+    int threads =
+        conf.getInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_FLUSH_THREADS_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_FLUSH_THREADS_DEFAULT);
+    Validate.isTrue(threads > 0, HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_FLUSH_THREADS_KEY
+        + " shall be greater than 0");
+    long interval =
+        conf.getLong(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_FLUSH_INTERVAL_KEY,
+          HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_FLUSH_INTERVAL_DEFAULT);
+    Validate.isTrue(interval > 0, HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_FLUSH_INTERVAL_KEY
+        + " shall be greater than 0");
+
+    this.executor = new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+      private final AtomicInteger threadSeq = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "hgraph-write-flush-" + this.threadSeq.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    this.executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        for (String tableName : buffers.keySet()) {
+          flushQuietly(tableName);
+        }
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Notified after each batch of a table is sent, successfully or not.
+   */
+  public interface Listener {
+
+    /**
+     * @param tableName
+     * @param rows the rows mutated or incremented by the batch
+     */
+    void flushed(String tableName, Collection<byte[]> rows);
+
+  }
+
+  /**
+   * @param listener <code>null</code> for none
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Only increment the counters of given table on the rows having given column, checked by one
+   * multi-get per flush.
+   * @param tableName
+   * @param family
+   * @param qualifier
+   */
+  public void setCounterGuard(String tableName, byte[] family, byte[] qualifier) {
+    Validate.notEmpty(tableName, "tableName shall always not be null or empty");
+    Validate.notNull(family, "family shall always not be null");
+    Validate.notNull(qualifier, "qualifier shall always not be null");
+    this.counterGuards.put(tableName, new byte[][] { family, qualifier });
+  }
+
+  /**
+   * Buffer given mutation, block if the buffer is full. The pending mutations of the table are
+   * flushed first if given one conflicts with them.
+   * @param tableName
+   * @param mutation a <code>Put</code> or <code>Delete</code>
+   */
+  public void add(String tableName, Mutation mutation) {
+    Validate.notNull(mutation, "mutation shall always not be null");
+    TableBuffer buffer = acquire(tableName);
+    int size = 0;
+    while (true) {
+      synchronized (buffer) {
+        if (!buffer.conflicts(mutation)) {
+          buffer.add(mutation);
+          buffer.permits++;
+          size = buffer.rows.size();
+          break;
+        }
+      }
+      try {
+        flush(tableName);
+      } catch (IOException e) {
+        this.pending.release();
+        throw new RuntimeException(e);
+      }
+    }
+    if (size >= this.batchSize) flushAsync(tableName);
+  }
+
+  /**
+   * Buffer a counter increment, summed up with the pending ones of the same column.
+   * @param tableName
+   * @param row
+   * @param family
+   * @param qualifier
+   * @param amount
+   */
+  public void increment(String tableName, byte[] row, byte[] family, byte[] qualifier,
+      long amount) {
+    Validate.notNull(row, "row shall always not be null");
+    Validate.notNull(family, "family shall always not be null");
+    Validate.notNull(qualifier, "qualifier shall always not be null");
+    TableBuffer buffer = acquire(tableName);
+    int size = 0;
+    synchronized (buffer) {
+      Map<byte[], Map<byte[], Long>> columns = buffer.counters.get(row);
+      if (null == columns) {
+        columns = new TreeMap<byte[], Map<byte[], Long>>(Bytes.BYTES_COMPARATOR);
+        buffer.counters.put(row, columns);
+      }
+      Map<byte[], Long> qualifiers = columns.get(family);
+      if (null == qualifiers) {
+        qualifiers = new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+        columns.put(family, qualifiers);
+      }
+      Long sum = qualifiers.get(qualifier);
+      qualifiers.put(qualifier, null == sum ? amount : sum + amount);
+      buffer.permits++;
+      size = buffer.rows.size() + buffer.counters.size();
+    }
+    if (size >= this.batchSize) flushAsync(tableName);
+  }
+
+  /**
+   * Take a pending slot for one mutation, wait for it if the buffer is full.
+   * @param tableName
+   * @return the buffer of given table
+   */
+  private TableBuffer acquire(String tableName) {
+    Validate.notEmpty(tableName, "tableName shall always not be null or empty");
+    if (this.closed) throw new IllegalStateException("write buffer is closed");
+    checkError();
+    try {
+      this.pending.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("interrupted while waiting for the write buffer", e);
+    }
+    this.mutationCount.incrementAndGet();
+    TableBuffer buffer = this.buffers.get(tableName);
+    if (null == buffer) {
+      TableBuffer newBuffer = new TableBuffer();
+      buffer = this.buffers.putIfAbsent(tableName, newBuffer);
+      if (null == buffer) buffer = newBuffer;
+    }
+    return buffer;
+  }
+
+  private void flushAsync(final String tableName) {
+    try {
+      this.executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          flushQuietly(tableName);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // closing, the pending ones are flushed by close()
+      LOG.debug("flush of table:" + tableName + " rejected", e);
+    }
+  }
+
+  private void flushQuietly(String tableName) {
+    try {
+      flush(tableName);
+    } catch (IOException e) {
+      this.error.compareAndSet(null, e);
+    }
+  }
+
+  /**
+   * Send the pending mutations of given table. The caller waits for the running flush of the
+   * same table, if any.
+   * @param tableName
+   * @throws IOException
+   */
+  private void flush(String tableName) throws IOException {
+    TableBuffer buffer = this.buffers.get(tableName);
+    if (null == buffer) return;
+    buffer.flushLock.lock();
+    try {
+      List<Row> rows = null;
+      Map<byte[], Map<byte[], Map<byte[], Long>>> counters = null;
+      int permits = 0;
+      boolean deletes = false;
+      synchronized (buffer) {
+        if (buffer.permits == 0) return;
+        rows = buffer.rows;
+        counters = buffer.counters;
+        permits = buffer.permits;
+        deletes = buffer.deletes;
+        buffer.clear();
+      }
+
+      HTableInterface table = this.pool.getTable(tableName);
+      try {
+        if (!rows.isEmpty()) table.batch(rows);
+        byte[][] guard = this.counterGuards.get(tableName);
+        if (null != guard && !counters.isEmpty()) counters = filterGuarded(table, counters, guard);
+        for (Map.Entry<byte[], Map<byte[], Map<byte[], Long>>> row : counters.entrySet()) {
+          table.increment(toIncrement(row.getKey(), row.getValue()));
+        }
+        this.flushCount.incrementAndGet();
+      } catch (IOException e) {
+        this.failedCount.addAndGet(permits);
+        LOG.error("flush " + permits + " mutation(s) into table:" + tableName + " failed", e);
+        throw e;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        this.failedCount.addAndGet(permits);
+        throw new IOException("flush into table:" + tableName + " interrupted", e);
+      } finally {
+        this.pool.returnTable(table);
+        this.pending.release(permits);
+        notifyFlushed(tableName, rows, counters.keySet());
+      }
+      // the next batch is stamped in a later millisecond than the deletes
+      if (deletes) {
+        try {
+          TimeUnit.MILLISECONDS.sleep(1L);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    } finally {
+      buffer.flushLock.unlock();
+    }
+  }
+
+  private void notifyFlushed(String tableName, List<Row> rows, Collection<byte[]> counterRows) {
+    Listener listener = this.listener;
+    if (null == listener) return;
+    List<byte[]> keys = new ArrayList<byte[]>(rows.size() + counterRows.size());
+    for (Row row : rows) {
+      keys.add(row.getRow());
+    }
+    keys.addAll(counterRows);
+    try {
+      listener.flushed(tableName, keys);
+    } catch (RuntimeException e) {
+      LOG.error("listener failed for table:" + tableName, e);
+    }
+  }
+
+  /**
+   * @return the counters of the rows having given guard column
+   */
+  private static Map<byte[], Map<byte[], Map<byte[], Long>>> filterGuarded(
+      HTableInterface table, Map<byte[], Map<byte[], Map<byte[], Long>>> counters, byte[][] guard)
+      throws IOException {
+    List<Get> gets = new ArrayList<Get>(counters.size());
+    Get get = null;
+    for (byte[] row : counters.keySet()) {
+      get = new Get(row);
+      get.addColumn(guard[0], guard[1]);
+      gets.add(get);
+    }
+    Result[] results = table.get(gets);
+    Map<byte[], Map<byte[], Map<byte[], Long>>> guarded = newCounters();
+    int a = 0;
+    for (Map.Entry<byte[], Map<byte[], Map<byte[], Long>>> row : counters.entrySet()) {
+      Result r = results[a++];
+      if (null != r && !r.isEmpty()) guarded.put(row.getKey(), row.getValue());
+    }
+    return guarded;
+  }
+
+  private static Increment toIncrement(byte[] row, Map<byte[], Map<byte[], Long>> columns) {
+    Increment increment = new Increment(row);
+    for (Map.Entry<byte[], Map<byte[], Long>> family : columns.entrySet()) {
+      for (Map.Entry<byte[], Long> qualifier : family.getValue().entrySet()) {
+        increment.addColumn(family.getKey(), qualifier.getKey(), qualifier.getValue());
+      }
+    }
+    return increment;
+  }
+
+  private static Map<byte[], Map<byte[], Map<byte[], Long>>> newCounters() {
+    return new TreeMap<byte[], Map<byte[], Map<byte[], Long>>>(Bytes.BYTES_COMPARATOR);
+  }
+
+  /**
+   * Throw the failure of the background flushes since the last call, if any.
+   */
+  private void checkError() {
+    IOException e = this.error.getAndSet(null);
+    if (null != e) throw new RuntimeException("a background flush failed", e);
+  }
+
+  /**
+   * Send all the pending mutations and wait for them.
+   * @throws RuntimeException if a flush failed, including the background ones since the last
+   *           call
+   */
+  public void flush() {
+    IOException failure = null;
+    for (String tableName : this.buffers.keySet()) {
+      try {
+        flush(tableName);
+      } catch (IOException e) {
+        if (null == failure) failure = e;
+      }
+    }
+    if (null != failure) {
+      this.error.set(null);
+      throw new RuntimeException(failure);
+    }
+    checkError();
+  }
+
+  /**
+   * Send the pending mutations of given table and wait for them if some of them are of given row,
+   * for a read of the row to see them.
+   * @param tableName
+   * @param row
+   */
+  public void flush(String tableName, byte[] row) {
+    Validate.notEmpty(tableName, "tableName shall always not be null or empty");
+    Validate.notNull(row, "row shall always not be null");
+    TableBuffer buffer = this.buffers.get(tableName);
+    if (null == buffer) return;
+    synchronized (buffer) {
+      if (!buffer.mutations.containsKey(row)) return;
+    }
+    try {
+      flush(tableName);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Flush the pending mutations and stop the flush threads, it is safe to call it more than once.
+   */
+  @Override
+  public void close() {
+    if (this.closed) return;
+    this.closed = true;
+    this.executor.shutdown();
+    try {
+      this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+  }
+
+  /**
+   * @return the number of mutations buffered and not sent yet
+   */
+  public int getPendingCount() {
+    return this.maxPending - this.pending.availablePermits();
+  }
+
+  /**
+   * @return the number of mutations added
+   */
+  public long getMutationCount() {
+    return this.mutationCount.get();
+  }
+
+  /**
+   * @return the number of batches sent
+   */
+  public long getFlushCount() {
+    return this.flushCount.get();
+  }
+
+  /**
+   * @return the number of mutations dropped by the failed flushes
+   */
+  public long getFailedCount() {
+    return this.failedCount.get();
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+        .append("batchSize", this.batchSize).append("maxPending", this.maxPending)
+        .append("pendingCount", getPendingCount()).append("mutationCount", getMutationCount())
+        .append("flushCount", getFlushCount()).append("failedCount", getFailedCount())
+        .toString();
+  }
+
+  /**
+   * The mutations of one table, guarded by itself.
+   */
+  private static class TableBuffer {
+    private List<Row> rows = new ArrayList<Row>();
+    /** the pending mutations in {@link #rows} by row, for finding the conflicts */
+    private Map<byte[], List<Mutation>> mutations = newMutations();
+    private boolean deletes = false;
+    private Map<byte[], Map<byte[], Map<byte[], Long>>> counters = newCounters();
+    /** number of pending slots taken by the mutations above */
+    private int permits = 0;
+    /** serializes the flushes of the table */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private void add(Mutation mutation) {
+      this.rows.add(mutation);
+      List<Mutation> pending = this.mutations.get(mutation.getRow());
+      if (null == pending) {
+        pending = new ArrayList<Mutation>(1);
+        this.mutations.put(mutation.getRow(), pending);
+      }
+      pending.add(mutation);
+      if (mutation instanceof Delete) this.deletes = true;
+    }
+
+    private boolean conflicts(Mutation mutation) {
+      List<Mutation> pending = this.mutations.get(mutation.getRow());
+      if (null == pending) return false;
+      for (Mutation m : pending) {
+        if (WriteBuffer.conflicts(m, mutation)) return true;
+      }
+      return false;
+    }
+
+    private void clear() {
+      this.rows = new ArrayList<Row>();
+      this.mutations = newMutations();
+      this.deletes = false;
+      this.counters = newCounters();
+      this.permits = 0;
+    }
+  }
+
+  private static Map<byte[], List<Mutation>> newMutations() {
+    return new TreeMap<byte[], List<Mutation>>(Bytes.BYTES_COMPARATOR);
+  }
+
+  /**
+   * Whether two mutations of the same row shall not be sent in one batch: two puts of the same
+   * column, or a put and a delete covering the same column. Two deletes never conflict.
+   * @param m1
+   * @param m2
+   * @return
+   */
+  static boolean conflicts(Mutation m1, Mutation m2) {
+    boolean delete1 = m1 instanceof Delete;
+    boolean delete2 = m2 instanceof Delete;
+    if (delete1 && delete2) return false;
+    // a delete of the whole row
+    if ((delete1 && m1.getFamilyMap().isEmpty()) || (delete2 && m2.getFamilyMap().isEmpty())) {
+      return true;
+    }
+    List<KeyValue> kvs2 = null;
+    for (Map.Entry<byte[], List<KeyValue>> family : m1.getFamilyMap().entrySet()) {
+      kvs2 = m2.getFamilyMap().get(family.getKey());
+      if (null == kvs2) continue;
+      for (KeyValue kv1 : family.getValue()) {
+        for (KeyValue kv2 : kvs2) {
+          if (kv1.isDeleteFamily() || kv2.isDeleteFamily()
+              || Bytes.equals(kv1.getQualifier(), kv2.getQualifier())) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+}
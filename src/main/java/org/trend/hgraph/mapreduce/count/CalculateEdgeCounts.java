@@ -0,0 +1,249 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.count;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
+import org.apache.hadoop.hbase.mapreduce.TableMapper;
+import org.apache.hadoop.hbase.mapreduce.TableReducer;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.Vertex;
+
+/**
+ * A MR to backfill the edge counters of each vertex, by counting the edges in the edge table.
+ * The counters are stored in {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME}
+ * family of the vertex table, one for all edges and one for each label.
+ * <p>
+ * The first job clears the existing counters, so the vertices and labels without edges left,
+ * e.g. after the vertices removed, do not keep their stale counts. The readers fall back to
+ * scanning the edges until the second job writes the counted values, so stop the writers
+ * incrementing them while this MR is running.
+ * @author scott_miao
+ * @see Vertex#getEdgeCount()
+ * @see Vertex#getEdgeCount(String)
+ */
+public class CalculateEdgeCounts extends Configured implements Tool {
+
+  protected CalculateEdgeCounts(Configuration conf) {
+    super(conf);
+  }
+
+  private static final byte[] FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME);
+
+  private static class ClearMapper extends TableMapper<ImmutableBytesWritable, Delete> {
+
+    enum Counters {
+      CLEARED_VERTEX_COUNT
+    }
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      Delete delete = new Delete(value.getRow());
+      delete.deleteFamily(FAMILY);
+      context.write(key, delete);
+      context.getCounter(Counters.CLEARED_VERTEX_COUNT).increment(1L);
+    }
+
+  }
+
+  private static class Mapper extends TableMapper<Text, MapWritable> {
+
+    enum Counters {
+      EDGE_COUNT, INVALID_EDGE_COUNT
+    }
+
+    private Text srcId = null;
+    private MapWritable labelCounts = new MapWritable();
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      String rowKey = Bytes.toString(key.get());
+      int idx1 = rowKey.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1);
+      int idx2 = idx1 < 0 ? -1 : rowKey.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2,
+        idx1 + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1.length());
+      if (idx2 < 0) {
+        context.getCounter(Counters.INVALID_EDGE_COUNT).increment(1L);
+        return;
+      }
+      String src = rowKey.substring(0, idx1);
+      Text label = new Text(rowKey.substring(
+        idx1 + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1.length(), idx2));
+
+      // edges of the same vertex are contiguous, aggregate them before write out
+      if (null != srcId && !srcId.toString().equals(src)) {
+        flush(context);
+      }
+      if (null == srcId) srcId = new Text(src);
+      LongWritable count = (LongWritable) labelCounts.get(label);
+      if (null == count) {
+        labelCounts.put(label, new LongWritable(1L));
+      } else {
+        count.set(count.get() + 1L);
+      }
+      context.getCounter(Counters.EDGE_COUNT).increment(1L);
+    }
+
+    private void flush(Context context) throws IOException, InterruptedException {
+      context.write(srcId, labelCounts);
+      srcId = null;
+      labelCounts = new MapWritable();
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+      if (null != srcId) flush(context);
+    }
+
+  }
+
+  private static class Reducer extends TableReducer<Text, MapWritable, ImmutableBytesWritable> {
+
+    enum Counters {
+      VERTEX_COUNT
+    }
+
+    @Override
+    protected void reduce(Text key, Iterable<MapWritable> values, Context context)
+        throws IOException, InterruptedException {
+      // one vertex's edges may be split into different mappers
+      MapWritable labelCounts = new MapWritable();
+      LongWritable count = null;
+      for (MapWritable value : values) {
+        for (Map.Entry<Writable, Writable> entry : value.entrySet()) {
+          count = (LongWritable) labelCounts.get(entry.getKey());
+          if (null == count) {
+            labelCounts.put(new Text((Text) entry.getKey()),
+              new LongWritable(((LongWritable) entry.getValue()).get()));
+          } else {
+            count.set(count.get() + ((LongWritable) entry.getValue()).get());
+          }
+        }
+      }
+
+      byte[] rowKey = Bytes.toBytes(key.toString());
+      Put put = new Put(rowKey);
+      long total = 0L;
+      for (Map.Entry<Writable, Writable> entry : labelCounts.entrySet()) {
+        count = (LongWritable) entry.getValue();
+        put.add(FAMILY, Vertex.getEdgeCountQualifier(entry.getKey().toString()),
+          Bytes.toBytes(count.get()));
+        total += count.get();
+      }
+      put.add(FAMILY, Vertex.getEdgeCountQualifier(null), Bytes.toBytes(total));
+      context.write(new ImmutableBytesWritable(rowKey), put);
+      context.getCounter(Counters.VERTEX_COUNT).increment(1L);
+    }
+
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.util.Tool#run(java.lang.String[])
+   */
+  @Override
+  public int run(String[] args) throws Exception {
+    if (null == args || args.length != 2) {
+      System.err.println("options shall be 2 !!");
+      printUsage();
+      return -1;
+    }
+
+    String edgeTableName = args[0];
+    String vertexTableName = args[1];
+    Job job = createClearJob(this.getConf(), vertexTableName);
+    boolean success = job.waitForCompletion(true);
+    if (!success) return -1;
+    job = createSubmittableJob(this.getConf(), edgeTableName, vertexTableName);
+    success = job.waitForCompletion(true);
+    return success ? 0 : -1;
+  }
+
+  /**
+   * Create the job deleting the counters of all vertices.
+   * @param conf
+   * @param vertexTableName
+   * @return
+   * @throws IOException
+   */
+  public static Job createClearJob(Configuration conf, String vertexTableName)
+      throws IOException {
+    Job job = new Job(conf, "clearEdgeCounts_" + vertexTableName);
+    job.setJarByClass(CalculateEdgeCounts.class);
+    Scan scan = new Scan();
+    scan.setCacheBlocks(false);
+    scan.addFamily(FAMILY);
+    // only the vertices having counters
+    scan.setFilter(new FirstKeyOnlyFilter());
+    TableMapReduceUtil.initTableMapperJob(vertexTableName, scan, ClearMapper.class,
+      ImmutableBytesWritable.class, Delete.class, job);
+    TableMapReduceUtil.initTableReducerJob(vertexTableName, null, job);
+    job.setNumReduceTasks(0);
+    return job;
+  }
+
+  public static Job createSubmittableJob(Configuration conf, String edgeTableName,
+      String vertexTableName) throws IOException {
+    Job job = new Job(conf, "calculateEdgeCounts_" + edgeTableName);
+    job.setJarByClass(CalculateEdgeCounts.class);
+    Scan scan = new Scan();
+    scan.setCacheBlocks(false);
+    // only the rowkeys are needed
+    scan.setFilter(new FirstKeyOnlyFilter());
+    TableMapReduceUtil.initTableMapperJob(edgeTableName, scan, Mapper.class, Text.class,
+      MapWritable.class, job);
+    TableMapReduceUtil.initTableReducerJob(vertexTableName, Reducer.class, job);
+    return job;
+  }
+
+  private static void printUsage() {
+    System.err.println(CalculateEdgeCounts.class.getSimpleName()
+        + " Usage: <edge-table> <vertex-table>");
+    System.err.println("count the edges of each vertex in <edge-table>, and store the counts into "
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME
+        + " family of <vertex-table>, replacing the existing ones");
+  }
+
+  public static final void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    Tool tool = new CalculateEdgeCounts(conf);
+    int status = ToolRunner.run(tool, args);
+    System.exit(status);
+  }
+
+}
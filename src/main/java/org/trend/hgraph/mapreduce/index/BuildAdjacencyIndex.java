@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.index;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
+import org.apache.hadoop.hbase.mapreduce.TableMapper;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.Adjacency;
+import org.trend.hgraph.Edge;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.RowKeySalt;
+
+/**
+ * A MR to build the adjacency columns of the vertex table from the edge table. Each edge row
+ * <code>&lt;src&gt;--&gt;&lt;label&gt;--&gt;&lt;dst&gt;</code> is packed into the column
+ * <code>&lt;label&gt;--&gt;&lt;dst&gt;</code> of the adjacency family on the row of
+ * <code>&lt;src&gt;</code>, see {@link Adjacency}.
+ * @author scott_miao
+ * @see HBaseGraphConstants#HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY
+ */
+public class BuildAdjacencyIndex extends Configured implements Tool {
+
+  protected BuildAdjacencyIndex(Configuration conf) {
+    super(conf);
+  }
+
+  private static class Mapper extends TableMapper<ImmutableBytesWritable, Put> {
+
+    enum Counters {
+      ADJACENT_EDGE_COUNT, INVALID_EDGE_COUNT
+    }
+
+    private RowKeySalt salt;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      this.salt = RowKeySalt.create(context.getConfiguration());
+    }
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      String edgeId = this.salt.toKey(key.get());
+      String[] parts = Edge.split(edgeId);
+      if (null == parts) {
+        context.getCounter(Counters.INVALID_EDGE_COUNT).increment(1L);
+        return;
+      }
+      byte[] rowkey = this.salt.toRow(parts[0]);
+      Put put = Adjacency.toPut(rowkey, edgeId, value);
+      context.write(new ImmutableBytesWritable(rowkey), put);
+      context.getCounter(Counters.ADJACENT_EDGE_COUNT).increment(1L);
+    }
+
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.util.Tool#run(java.lang.String[])
+   */
+  @Override
+  public int run(String[] args) throws Exception {
+    if (null == args || args.length != 2) {
+      System.err.println("options shall be 2 !!");
+      printUsage();
+      return -1;
+    }
+
+    String edgeTableName = args[0];
+    String vertexTableName = args[1];
+    Job job = createSubmittableJob(this.getConf(), edgeTableName, vertexTableName);
+    boolean success = job.waitForCompletion(true);
+    return success ? 0 : -1;
+  }
+
+  public static Job createSubmittableJob(Configuration conf, String edgeTableName,
+      String vertexTableName) throws IOException {
+    Job job = new Job(conf, "buildAdjacencyIndex_" + edgeTableName);
+    job.setJarByClass(BuildAdjacencyIndex.class);
+    Scan scan = new Scan();
+    scan.setCacheBlocks(false);
+    TableMapReduceUtil.initTableMapperJob(edgeTableName, scan, Mapper.class, null, null, job);
+    TableMapReduceUtil.initTableReducerJob(vertexTableName, null, job);
+    job.setNumReduceTasks(0);
+    return job;
+  }
+
+  private static void printUsage() {
+    System.err.println(BuildAdjacencyIndex.class.getSimpleName()
+        + " Usage: <edge-table> <vertex-table>");
+    System.err.println("pack each edge of <edge-table> into the column family "
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME + " of <vertex-table>, as "
+        + "the column <label>" + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2
+        + "<dst> on the row of <src>");
+    System.err.println("then set " + HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY
+        + " to true for reading the outgoing edges by one Get");
+  }
+
+  public static final void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    Tool tool = new BuildAdjacencyIndex(conf);
+    int status = ToolRunner.run(tool, args);
+    System.exit(status);
+  }
+
+}
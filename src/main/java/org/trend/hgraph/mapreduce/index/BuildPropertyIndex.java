@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.MultipleColumnPrefixFilter;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
+import org.apache.hadoop.hbase.mapreduce.TableMapper;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.PropertyIndex;
+import org.trend.hgraph.RowKeySalt;
+
+/**
+ * A MR to build the property index of given keys from a vertex or edge table. Each property value
+ * of an element is written as one row of the index table, see {@link PropertyIndex}. The keys are
+ * registered into the index table after the job succeeds, so the clients start to use the index
+ * only after it is fully built.
+ * @author scott_miao
+ * @see HBaseGraphConstants#HBASE_GRAPH_TABLE_VERTEX_INDEX_NAME_KEY
+ * @see HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_INDEX_NAME_KEY
+ */
+public class BuildPropertyIndex extends Configured implements Tool {
+
+  public static final String KEYS = "hgraph.mapreduce.index.keys";
+
+  protected BuildPropertyIndex(Configuration conf) {
+    super(conf);
+  }
+
+  private static class Mapper extends TableMapper<ImmutableBytesWritable, Put> {
+
+    enum Counters {
+      INDEXED_ELEMENT_COUNT, INDEX_ROW_COUNT
+    }
+
+    private List<String> keys;
+    private RowKeySalt salt;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      this.keys = Arrays.asList(context.getConfiguration().getStrings(KEYS));
+      this.salt = RowKeySalt.create(context.getConfiguration());
+    }
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      List<Put> puts = PropertyIndex.toPuts(this.salt.toKey(key.get()), value,
+        this.keys);
+      if (puts.isEmpty()) return;
+      for (Put put : puts) {
+        context.write(new ImmutableBytesWritable(put.getRow()), put);
+      }
+      context.getCounter(Counters.INDEXED_ELEMENT_COUNT).increment(1L);
+      context.getCounter(Counters.INDEX_ROW_COUNT).increment(puts.size());
+    }
+
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.util.Tool#run(java.lang.String[])
+   */
+  @Override
+  public int run(String[] args) throws Exception {
+    if (null == args || args.length != 3) {
+      System.err.println("options shall be 3 !!");
+      printUsage();
+      return -1;
+    }
+
+    String tableName = args[0];
+    String indexTableName = args[1];
+    String[] keys = args[2].split(",");
+    Job job = createSubmittableJob(this.getConf(), tableName, indexTableName, keys);
+    boolean success = job.waitForCompletion(true);
+    if (!success) return -1;
+
+    HTable index = new HTable(this.getConf(), indexTableName);
+    try {
+      List<Put> puts = new ArrayList<Put>(keys.length);
+      for (String key : keys) {
+        puts.add(PropertyIndex.getKeyPut(key));
+      }
+      index.put(puts);
+    } finally {
+      index.close();
+    }
+    return 0;
+  }
+
+  public static Job createSubmittableJob(Configuration conf, String tableName,
+      String indexTableName, String... keys) throws IOException {
+    conf.setStrings(KEYS, keys);
+    Job job = new Job(conf, "buildPropertyIndex_" + tableName);
+    job.setJarByClass(BuildPropertyIndex.class);
+    byte[][] prefixes = new byte[keys.length][];
+    for (int a = 0; a < keys.length; a++) {
+      prefixes[a] = PropertyIndex.getKeyPrefix(keys[a]);
+    }
+    Scan scan = new Scan();
+    scan.addFamily(Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME));
+    scan.setFilter(new MultipleColumnPrefixFilter(prefixes));
+    scan.setCacheBlocks(false);
+    TableMapReduceUtil.initTableMapperJob(tableName, scan, Mapper.class, null, null, job);
+    TableMapReduceUtil.initTableReducerJob(indexTableName, null, job);
+    job.setNumReduceTasks(0);
+    return job;
+  }
+
+  private static void printUsage() {
+    System.err.println(BuildPropertyIndex.class.getSimpleName()
+        + " Usage: <vertex-or-edge-table> <index-table> <key>[,<key>...]");
+    System.err.println("index the given property keys of <vertex-or-edge-table> into <index-table>");
+    System.err.println("then set " + HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_INDEX_NAME_KEY
+        + " or " + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_INDEX_NAME_KEY
+        + " to <index-table> for Graph.getVertices(key, value) or Graph.getEdges(key, value)");
+  }
+
+  public static final void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    Tool tool = new BuildPropertyIndex(conf);
+    int status = ToolRunner.run(tool, args);
+    System.exit(status);
+  }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.index;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
+import org.apache.hadoop.hbase.mapreduce.TableMapper;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.Edge;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.RowKeySalt;
+
+/**
+ * A MR to build the reverse edge table from the edge table. Each edge row
+ * <code>&lt;src&gt;--&gt;&lt;label&gt;--&gt;&lt;dst&gt;</code> is copied with all its columns to
+ * <code>&lt;dst&gt;&lt;--&lt;label&gt;&lt;--&lt;src&gt;</code>, so the incoming edges of a
+ * vertex can be read by a bounded range scan.
+ * @author scott_miao
+ * @see HBaseGraphConstants#HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY
+ */
+public class BuildReverseEdgeIndex extends Configured implements Tool {
+
+  protected BuildReverseEdgeIndex(Configuration conf) {
+    super(conf);
+  }
+
+  private static class Mapper extends TableMapper<ImmutableBytesWritable, Put> {
+
+    enum Counters {
+      REVERSED_EDGE_COUNT, INVALID_EDGE_COUNT
+    }
+
+    private RowKeySalt salt;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      this.salt = RowKeySalt.create(context.getConfiguration());
+    }
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      // the reverse row is salted by its target vertex, not by the source of the edge row
+      String reversedId = Edge.toReversedId(this.salt.toKey(key.get()));
+      if (null == reversedId) {
+        context.getCounter(Counters.INVALID_EDGE_COUNT).increment(1L);
+        return;
+      }
+      byte[] rowkey = this.salt.toRow(reversedId);
+      Put put = new Put(rowkey);
+      for (KeyValue kv : value.raw()) {
+        put.add(kv.getFamily(), kv.getQualifier(), kv.getTimestamp(), kv.getValue());
+      }
+      context.write(new ImmutableBytesWritable(rowkey), put);
+      context.getCounter(Counters.REVERSED_EDGE_COUNT).increment(1L);
+    }
+
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.util.Tool#run(java.lang.String[])
+   */
+  @Override
+  public int run(String[] args) throws Exception {
+    if (null == args || args.length != 2) {
+      System.err.println("options shall be 2 !!");
+      printUsage();
+      return -1;
+    }
+
+    String edgeTableName = args[0];
+    String reverseEdgeTableName = args[1];
+    Job job = createSubmittableJob(this.getConf(), edgeTableName, reverseEdgeTableName);
+    boolean success = job.waitForCompletion(true);
+    return success ? 0 : -1;
+  }
+
+  public static Job createSubmittableJob(Configuration conf, String edgeTableName,
+      String reverseEdgeTableName) throws IOException {
+    Job job = new Job(conf, "buildReverseEdgeIndex_" + edgeTableName);
+    job.setJarByClass(BuildReverseEdgeIndex.class);
+    Scan scan = new Scan();
+    scan.setCacheBlocks(false);
+    TableMapReduceUtil.initTableMapperJob(edgeTableName, scan, Mapper.class, null, null, job);
+    TableMapReduceUtil.initTableReducerJob(reverseEdgeTableName, null, job);
+    job.setNumReduceTasks(0);
+    return job;
+  }
+
+  private static void printUsage() {
+    System.err.println(BuildReverseEdgeIndex.class.getSimpleName()
+        + " Usage: <edge-table> <reverse-edge-table>");
+    System.err.println("copy each edge of <edge-table> to <reverse-edge-table> keyed by "
+        + "<dst>" + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1 + "<label>"
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_2 + "<src>");
+    System.err.println("then set " + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY
+        + " to <reverse-edge-table> for Direction.IN/BOTH support");
+  }
+
+  public static final void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    Tool tool = new BuildReverseEdgeIndex(conf);
+    int status = ToolRunner.run(tool, args);
+    System.exit(status);
+  }
+
+}
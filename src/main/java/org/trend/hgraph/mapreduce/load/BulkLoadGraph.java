@@ -0,0 +1,351 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.load;
+
+import java.io.IOException;
+
+import javax.activation.UnsupportedDataTypeException;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.HFileOutputFormat;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.Adjacency;
+import org.trend.hgraph.Edge;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.Properties;
+import org.trend.hgraph.RowKeySalt;
+
+/**
+ * A MR to load the vertex and edge records into the graph tables by HFiles, skipping the WAL and
+ * memstore of the region servers. One record per line, the fields are separated by
+ * {@link #SEPARATOR}, tab by default:
+ * 
+ * <pre>
+ * V  &lt;vertex-id&gt;  [&lt;key&gt;[@&lt;type&gt;]=&lt;value&gt; ...]
+ * E  &lt;src-id&gt;  &lt;label&gt;  &lt;dst-id&gt;  [&lt;key&gt;[@&lt;type&gt;]=&lt;value&gt; ...]
+ * </pre>
+ * 
+ * The values are stored in the binary form of their type, <code>String</code> if not given, see
+ * {@link Properties#parseValue(String, String)}. A record without properties gets the empty
+ * marker cell the graph API writes. The input is text files, or <code>SequenceFile</code>s with
+ * one record per <code>Text</code> value if {@link #INPUT_FORMAT} is <code>sequence</code>.
+ * <p>
+ * One job per table reads the input and keeps the records of its table, the rows are
+ * partitioned by the current region boundaries of the table and sorted into HFiles under
+ * <code>&lt;output-path&gt;/&lt;table&gt;</code>, which are then bulk loaded. Pre-split the empty
+ * tables, e.g. by {@link RowKeySalt#getSplitKeys()}, for more reducers. The rowkeys are salted if
+ * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_SALT_BUCKETS_KEY} is set.
+ * <p>
+ * The vertex job writes the adjacency column of each edge on the row of its source vertex if
+ * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY} is set, the vertex table shall
+ * have the adjacency family then. The key index rows and the edge counters are not written, run
+ * {@link org.trend.hgraph.mapreduce.index.BuildPropertyIndex} and
+ * {@link org.trend.hgraph.mapreduce.count.CalculateEdgeCounts} afterwards if needed.
+ * @author scott_miao
+ */
+public class BulkLoadGraph extends Configured implements Tool {
+
+  public static final String INPUT_FORMAT = "hgraph.mapreduce.load.input.format";
+
+  public static final String SEPARATOR = "hgraph.mapreduce.load.separator";
+
+  public static final String SEPARATOR_DEFAULT = "\t";
+
+  /** the records kept by one job, see {@link RecordType} */
+  static final String RECORD_TYPE = "hgraph.mapreduce.load.record.type";
+
+  static final String VERTEX_RECORD = "V";
+
+  static final String EDGE_RECORD = "E";
+
+  private static final byte[] PROPERTY_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  /**
+   * The rows a job writes.
+   */
+  public static enum RecordType {
+    VERTEX, EDGE, REVERSE_EDGE
+  }
+
+  protected BulkLoadGraph(Configuration conf) {
+    super(conf);
+  }
+
+  static class Mapper extends org.apache.hadoop.mapreduce.Mapper<Object, Text,
+      ImmutableBytesWritable, Put> {
+
+    enum Counters {
+      ROW_COUNT, SKIPPED_RECORD_COUNT, INVALID_RECORD_COUNT
+    }
+
+    private RecordType recordType;
+    private String separator;
+    private RowKeySalt salt;
+    private boolean adjacency;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      Configuration conf = context.getConfiguration();
+      this.recordType = RecordType.valueOf(conf.get(RECORD_TYPE));
+      this.separator = conf.get(SEPARATOR, SEPARATOR_DEFAULT);
+      this.salt = RowKeySalt.create(conf);
+      this.adjacency = RecordType.VERTEX == this.recordType
+          && conf.getBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, false);
+    }
+
+    @Override
+    protected void map(Object key, Text value, Context context) throws IOException,
+        InterruptedException {
+      String line = value.toString();
+      if (StringUtils.isBlank(line)) return;
+      String[] fields = StringUtils.splitByWholeSeparatorPreserveAllTokens(line, this.separator);
+      Put put = null;
+      try {
+        put = toPut(fields, this.recordType, this.salt);
+        if (null == put && this.adjacency) put = toAdjacencyPut(fields, this.salt);
+      } catch (IllegalArgumentException e) {
+        context.getCounter(Counters.INVALID_RECORD_COUNT).increment(1L);
+        return;
+      }
+      if (null == put) {
+        context.getCounter(Counters.SKIPPED_RECORD_COUNT).increment(1L);
+        return;
+      }
+      context.write(new ImmutableBytesWritable(put.getRow()), put);
+      context.getCounter(Counters.ROW_COUNT).increment(1L);
+    }
+
+  }
+
+  /**
+   * Transfer the fields of a record into the row of given type.
+   * @param fields
+   * @param recordType
+   * @param salt
+   * @return <code>null</code> if the record is not for given type
+   * @throws IllegalArgumentException if the record is not valid
+   */
+  static Put toPut(String[] fields, RecordType recordType, RowKeySalt salt) {
+    Validate.notEmpty(fields, "fields shall always not be null or empty");
+    String rowKey = null;
+    int propertyIdx = 0;
+    if (VERTEX_RECORD.equals(fields[0])) {
+      if (RecordType.VERTEX != recordType) return null;
+      Validate.isTrue(fields.length >= 2, "vertex record shall have a vertex id");
+      rowKey = toId(fields[1]);
+      propertyIdx = 2;
+    } else if (EDGE_RECORD.equals(fields[0])) {
+      if (RecordType.VERTEX == recordType) return null;
+      Validate.isTrue(fields.length >= 4, "edge record shall have src-id, label and dst-id");
+      rowKey = toId(fields[1]) + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1
+          + toId(fields[2]) + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2
+          + toId(fields[3]);
+      if (RecordType.REVERSE_EDGE == recordType) rowKey = Edge.toReversedId(rowKey);
+      propertyIdx = 4;
+    } else {
+      throw new IllegalArgumentException("record type:" + fields[0] + " is not supported");
+    }
+
+    Put put = new Put(salt.toRow(rowKey));
+    for (int a = propertyIdx; a < fields.length; a++) {
+      if (StringUtils.isEmpty(fields[a])) continue;
+      addProperty(put, fields[a]);
+    }
+    if (put.isEmpty()) {
+      put.add(PROPERTY_FAMILY, HConstants.EMPTY_BYTE_ARRAY, HConstants.EMPTY_BYTE_ARRAY);
+    }
+    return put;
+  }
+
+  /**
+   * Transfer an edge record into its adjacency column, on the row of its source vertex.
+   * @param fields
+   * @param salt
+   * @return <code>null</code> if the record is not an edge
+   * @throws IllegalArgumentException if the record is not valid
+   * @see Adjacency
+   */
+  static Put toAdjacencyPut(String[] fields, RowKeySalt salt) {
+    Validate.notEmpty(fields, "fields shall always not be null or empty");
+    if (!EDGE_RECORD.equals(fields[0])) return null;
+    Put edge = toPut(fields, RecordType.EDGE, salt);
+    Put put = new Put(salt.toRow(fields[1]));
+    put.add(Adjacency.FAMILY, Adjacency.toQualifier(fields[2], fields[3]),
+      Adjacency.pack(new Result(edge.getFamilyMap().get(PROPERTY_FAMILY))));
+    return put;
+  }
+
+  private static String toId(String id) {
+    Validate.notEmpty(id, "id shall always not be null or empty");
+    Validate.isTrue(!id.contains(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_1)
+        && !id.contains(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_DELIMITER_1),
+      "id:" + id + " shall not contain the edge delimiters");
+    return id;
+  }
+
+  /**
+   * Add a property field <code>&lt;key&gt;[@&lt;type&gt;]=&lt;value&gt;</code>.
+   */
+  private static void addProperty(Put put, String field) {
+    int idx = field.indexOf('=');
+    Validate.isTrue(idx > 0, "property:" + field + " shall be <key>[@<type>]=<value>");
+    String key = field.substring(0, idx);
+    String str = field.substring(idx + 1);
+    String typeName = String.class.getSimpleName();
+    int typeIdx = key.indexOf(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER);
+    if (typeIdx >= 0) {
+      typeName = key.substring(typeIdx
+          + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME_DELIMITER.length());
+      key = key.substring(0, typeIdx);
+    }
+    Validate.notEmpty(key, "property:" + field + " shall have a key");
+    Object value = Properties.parseValue(typeName, str);
+    Validate.notNull(value, "property:" + field + " is not a valid " + typeName);
+    Properties.Pair<byte[], byte[]> pair = null;
+    try {
+      pair = Properties.keyValueToBytes(key, value);
+    } catch (UnsupportedDataTypeException e) {
+      // parsed values are always in the supported types
+      throw new IllegalStateException(e);
+    }
+    put.add(PROPERTY_FAMILY, pair.key, pair.value);
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.util.Tool#run(java.lang.String[])
+   */
+  @Override
+  public int run(String[] args) throws Exception {
+    if (null == args || args.length < 4 || args.length > 5) {
+      System.err.println("options shall be 4 or 5 !!");
+      printUsage();
+      return -1;
+    }
+    Configuration conf = this.getConf();
+    String inputPath = args[0];
+    Path outputPath = new Path(args[1]);
+    String vertexTableName = args[2];
+    String edgeTableName = args[3];
+    String reverseEdgeTableName = args.length == 5 ? args[4] : null;
+
+    if (!load(conf, RecordType.VERTEX, inputPath, outputPath, vertexTableName)) return -1;
+    if (!load(conf, RecordType.EDGE, inputPath, outputPath, edgeTableName)) return -1;
+    if (null != reverseEdgeTableName
+        && !load(conf, RecordType.REVERSE_EDGE, inputPath, outputPath, reverseEdgeTableName)) {
+      return -1;
+    }
+    return 0;
+  }
+
+  private static boolean load(Configuration conf, RecordType recordType, String inputPath,
+      Path outputPath, String tableName) throws Exception {
+    Path tableOutputPath = new Path(outputPath, tableName);
+    Job job = createSubmittableJob(conf, recordType, inputPath, tableOutputPath, tableName);
+    if (!job.waitForCompletion(true)) return false;
+    bulkLoad(conf, tableOutputPath, tableName);
+    return true;
+  }
+
+  public static Job createSubmittableJob(Configuration conf, RecordType recordType,
+      String inputPath, Path outputPath, String tableName) throws IOException {
+    Configuration jobConf = new Configuration(conf);
+    jobConf.set(RECORD_TYPE, recordType.name());
+    Job job = new Job(jobConf, "bulkLoadGraph_" + tableName);
+    job.setJarByClass(BulkLoadGraph.class);
+    if ("sequence".equals(jobConf.get(INPUT_FORMAT))) {
+      job.setInputFormatClass(SequenceFileInputFormat.class);
+    } else {
+      job.setInputFormatClass(TextInputFormat.class);
+    }
+    FileInputFormat.addInputPaths(job, inputPath);
+    job.setMapperClass(Mapper.class);
+    job.setMapOutputKeyClass(ImmutableBytesWritable.class);
+    job.setMapOutputValueClass(Put.class);
+    FileOutputFormat.setOutputPath(job, outputPath);
+
+    HTable table = new HTable(jobConf, tableName);
+    try {
+      // the total order partitioner on the region boundaries, and the PutSortReducer
+      HFileOutputFormat.configureIncrementalLoad(job, table);
+    } finally {
+      table.close();
+    }
+    return job;
+  }
+
+  /**
+   * Move the HFiles under given path into the regions of given table.
+   * @param conf
+   * @param path
+   * @param tableName
+   * @throws Exception
+   */
+  public static void bulkLoad(Configuration conf, Path path, String tableName) throws Exception {
+    HTable table = new HTable(conf, tableName);
+    try {
+      new LoadIncrementalHFiles(conf).doBulkLoad(path, table);
+    } finally {
+      table.close();
+    }
+  }
+
+  private static void printUsage() {
+    System.err.println(BulkLoadGraph.class.getSimpleName()
+        + " Usage: [-D" + INPUT_FORMAT + "=text|sequence] [-D" + SEPARATOR + "=<separator>]"
+        + " <input-path> <output-path> <vertex-table> <edge-table> [<reverse-edge-table>]");
+    System.err.println("load the records of <input-path> into the tables by HFiles written under"
+        + " <output-path>/<table>, one record per line:");
+    System.err.println("  " + VERTEX_RECORD + "<separator><vertex-id>[<separator><key>[@<type>]"
+        + "=<value>...]");
+    System.err.println("  " + EDGE_RECORD + "<separator><src-id><separator><label><separator>"
+        + "<dst-id>[<separator><key>[@<type>]=<value>...]");
+    System.err.println("the tables shall exist, pre-split them for more reducers.");
+    System.err.println("set " + HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY
+        + " to true for writing the adjacency columns as well,");
+    System.err.println("and run BuildPropertyIndex and CalculateEdgeCounts afterwards for the key"
+        + " indexes and edge counters, if needed.");
+  }
+
+  public static final void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    Tool tool = new BulkLoadGraph(conf);
+    int status = ToolRunner.run(tool, args);
+    System.exit(status);
+  }
+
+}
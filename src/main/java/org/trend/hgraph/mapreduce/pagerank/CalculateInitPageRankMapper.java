@@ -35,6 +35,7 @@ import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Counter;
 import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.RowKeySalt;
 
 /**
  * A <code>Mapper</code> for calculating initial pagerank value from HBase.
@@ -132,14 +133,16 @@ public class CalculateInitPageRankMapper extends TableMapper<Text, DoubleWritabl
     String key = null;
     LinkedList<String> rowKeys = new LinkedList<String>();
     StopWatch sw = null;
+    RowKeySalt salt = RowKeySalt.create(conf);
     // Put put = null;
     try {
+      // the vertex and its outgoing edges share one salt, so the vertex rowkey is the edge prefix
       Scan scan = getRowKeyOnlyScan(rowKey);
       sw = new StopWatch();
       sw.start();
       rs = edgeTable.getScanner(scan);
       for (Result r : rs) {
-        key = getOutgoingRowKey(r);
+        key = getOutgoingRowKey(r, salt);
         // collect outgoing rowkeys
         rowKeys.add(key);
       }
@@ -155,7 +158,7 @@ public class CalculateInitPageRankMapper extends TableMapper<Text, DoubleWritabl
     return rowKeys;
   }
 
-  private static String getOutgoingRowKey(Result r) {
+  private static String getOutgoingRowKey(Result r, RowKeySalt salt) {
     String rowKey;
     String outgoingRowKey;
     int idx;
@@ -167,7 +170,8 @@ public class CalculateInitPageRankMapper extends TableMapper<Text, DoubleWritabl
     outgoingRowKey =
         rowKey.substring(idx + HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_DELIMITER_2.length(),
           rowKey.length());
-    return outgoingRowKey;
+    // salt it as a vertex rowkey
+    return salt.toRowString(outgoingRowKey);
   }
 
   /*
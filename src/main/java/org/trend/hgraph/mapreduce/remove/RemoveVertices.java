@@ -0,0 +1,277 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.remove;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FilterList.Operator;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.MultiTableOutputFormat;
+import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
+import org.apache.hadoop.hbase.mapreduce.TableMapper;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.Adjacency;
+import org.trend.hgraph.Edge;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.RowKeySalt;
+import org.trend.hgraph.mapreduce.count.CalculateEdgeCounts;
+
+/**
+ * A MR to remove the vertices listed in a file, one id per line, with all their edges. It is the
+ * bulk version of {@link org.trend.hgraph.Graph#removeVertices(java.util.Collection)}.
+ * <p>
+ * The first job scans the keys of the edge table once, every edge from or to a listed vertex is
+ * deleted with its reverse edge row and its adjacency column, if configured. The listed ids are
+ * loaded into the memory of each mapper. The second job deletes the vertex rows, so a failed run
+ * can simply be run again.
+ * <p>
+ * The edge counters are not updated, rerun {@link CalculateEdgeCounts} to replace them if they
+ * are enabled. The index rows left are skipped at reading time, or rebuild the indexes.
+ * @author scott_miao
+ */
+public class RemoveVertices extends Configured implements Tool {
+
+  public static final String VERTEX_ID_FILE = "hgraph.mapreduce.remove.vertex.id.file";
+
+  public static final String VERTEX_TABLE = "hgraph.mapreduce.remove.vertex.table";
+
+  public static final String EDGE_TABLE = "hgraph.mapreduce.remove.edge.table";
+
+  public static final String EDGE_REVERSE_TABLE = "hgraph.mapreduce.remove.edge.reverse.table";
+
+  protected RemoveVertices(Configuration conf) {
+    super(conf);
+  }
+
+  /**
+   * Read the vertex ids of given file, the blank lines are skipped.
+   * @param conf
+   * @param path
+   * @return
+   * @throws IOException
+   */
+  static Set<String> readIds(Configuration conf, Path path) throws IOException {
+    Set<String> ids = new HashSet<String>();
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(FileSystem.get(conf).open(path),
+          HConstants.UTF8_ENCODING));
+      String line = null;
+      while (null != (line = reader.readLine())) {
+        line = line.trim();
+        if (line.length() > 0) ids.add(line);
+      }
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+    return ids;
+  }
+
+  private static class EdgeMapper extends TableMapper<ImmutableBytesWritable, Delete> {
+
+    enum Counters {
+      REMOVED_EDGE_COUNT, INVALID_EDGE_COUNT
+    }
+
+    private ImmutableBytesWritable vertexTable;
+    private ImmutableBytesWritable edgeTable;
+    private ImmutableBytesWritable edgeReverseTable;
+    private boolean adjacencyEnabled;
+    private RowKeySalt salt;
+    private Set<String> ids;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      Configuration conf = context.getConfiguration();
+      this.vertexTable = new ImmutableBytesWritable(Bytes.toBytes(conf.get(VERTEX_TABLE)));
+      this.edgeTable = new ImmutableBytesWritable(Bytes.toBytes(conf.get(EDGE_TABLE)));
+      String edgeReverseTableName = conf.get(EDGE_REVERSE_TABLE);
+      if (null != edgeReverseTableName) {
+        this.edgeReverseTable = new ImmutableBytesWritable(Bytes.toBytes(edgeReverseTableName));
+      }
+      this.adjacencyEnabled =
+          conf.getBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, false);
+      this.salt = RowKeySalt.create(conf);
+      this.ids = readIds(conf, new Path(conf.get(VERTEX_ID_FILE)));
+    }
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      String edgeId = this.salt.toKey(key.get());
+      String[] parts = Edge.split(edgeId);
+      if (null == parts) {
+        context.getCounter(Counters.INVALID_EDGE_COUNT).increment(1L);
+        return;
+      }
+      boolean sourceRemoved = this.ids.contains(parts[0]);
+      if (!sourceRemoved && !this.ids.contains(parts[2])) return;
+
+      context.write(this.edgeTable, new Delete(key.copyBytes()));
+      if (null != this.edgeReverseTable) {
+        context.write(this.edgeReverseTable,
+          new Delete(this.salt.toRow(Edge.toReversedId(edgeId))));
+      }
+      // the adjacency columns of a removed source go with its vertex row
+      if (this.adjacencyEnabled && !sourceRemoved) {
+        Delete delete = new Delete(this.salt.toRow(parts[0]));
+        delete.deleteColumns(Adjacency.FAMILY, Adjacency.toQualifier(parts[1], parts[2]));
+        context.write(this.vertexTable, delete);
+      }
+      context.getCounter(Counters.REMOVED_EDGE_COUNT).increment(1L);
+    }
+
+  }
+
+  private static class VertexMapper extends
+      Mapper<LongWritable, Text, ImmutableBytesWritable, Delete> {
+
+    enum Counters {
+      REMOVED_VERTEX_COUNT
+    }
+
+    private ImmutableBytesWritable vertexTable;
+    private RowKeySalt salt;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      Configuration conf = context.getConfiguration();
+      this.vertexTable = new ImmutableBytesWritable(Bytes.toBytes(conf.get(VERTEX_TABLE)));
+      this.salt = RowKeySalt.create(conf);
+    }
+
+    @Override
+    protected void map(LongWritable key, Text value, Context context) throws IOException,
+        InterruptedException {
+      String id = value.toString().trim();
+      if (id.length() == 0) return;
+      context.write(this.vertexTable, new Delete(this.salt.toRow(id)));
+      context.getCounter(Counters.REMOVED_VERTEX_COUNT).increment(1L);
+    }
+
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.util.Tool#run(java.lang.String[])
+   */
+  @Override
+  public int run(String[] args) throws Exception {
+    if (null == args || args.length < 3 || args.length > 4) {
+      System.err.println("options shall be 3 or 4 !!");
+      printUsage();
+      return -1;
+    }
+
+    String idFile = args[0];
+    String vertexTableName = args[1];
+    String edgeTableName = args[2];
+    String edgeReverseTableName = args.length > 3 ? args[3] : null;
+
+    Job job =
+        createEdgeJob(this.getConf(), idFile, vertexTableName, edgeTableName,
+          edgeReverseTableName);
+    if (!job.waitForCompletion(true)) return -1;
+
+    job = createVertexJob(this.getConf(), idFile, vertexTableName);
+    return job.waitForCompletion(true) ? 0 : -1;
+  }
+
+  public static Job createEdgeJob(Configuration conf, String idFile, String vertexTableName,
+      String edgeTableName, String edgeReverseTableName) throws IOException {
+    Configuration jobConf = new Configuration(conf);
+    jobConf.set(VERTEX_ID_FILE, idFile);
+    jobConf.set(VERTEX_TABLE, vertexTableName);
+    jobConf.set(EDGE_TABLE, edgeTableName);
+    if (null != edgeReverseTableName) jobConf.set(EDGE_REVERSE_TABLE, edgeReverseTableName);
+    Job job = new Job(jobConf, "removeVertices_" + edgeTableName);
+    job.setJarByClass(RemoveVertices.class);
+    // only the rowkeys are needed
+    Scan scan = new Scan();
+    scan.setCacheBlocks(false);
+    FilterList filters = new FilterList(Operator.MUST_PASS_ALL);
+    filters.addFilter(new FirstKeyOnlyFilter());
+    filters.addFilter(new KeyOnlyFilter());
+    scan.setFilter(filters);
+    TableMapReduceUtil.initTableMapperJob(edgeTableName, scan, EdgeMapper.class,
+      ImmutableBytesWritable.class, Delete.class, job);
+    job.setOutputFormatClass(MultiTableOutputFormat.class);
+    job.setNumReduceTasks(0);
+    return job;
+  }
+
+  public static Job createVertexJob(Configuration conf, String idFile, String vertexTableName)
+      throws IOException {
+    Configuration jobConf = new Configuration(conf);
+    jobConf.set(VERTEX_TABLE, vertexTableName);
+    Job job = new Job(jobConf, "removeVertices_" + vertexTableName);
+    job.setJarByClass(RemoveVertices.class);
+    job.setMapperClass(VertexMapper.class);
+    job.setInputFormatClass(TextInputFormat.class);
+    FileInputFormat.addInputPaths(job, idFile);
+    job.setMapOutputKeyClass(ImmutableBytesWritable.class);
+    job.setMapOutputValueClass(Delete.class);
+    job.setOutputFormatClass(MultiTableOutputFormat.class);
+    TableMapReduceUtil.addDependencyJars(job);
+    job.setNumReduceTasks(0);
+    return job;
+  }
+
+  private static void printUsage() {
+    System.err.println(RemoveVertices.class.getSimpleName()
+        + " Usage: <vertex-id-file> <vertex-table> <edge-table> [<reverse-edge-table>]");
+    System.err.println("remove the vertices listed in <vertex-id-file>, one id per line, with "
+        + "all their edges and reverse edges.");
+    System.err.println("set " + HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY
+        + " to true for removing the adjacency columns as well,");
+    System.err.println("and rerun " + CalculateEdgeCounts.class.getSimpleName()
+        + " if the edge counters are enabled.");
+  }
+
+  public static final void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    Tool tool = new RemoveVertices(conf);
+    int status = ToolRunner.run(tool, args);
+    System.exit(status);
+  }
+
+}
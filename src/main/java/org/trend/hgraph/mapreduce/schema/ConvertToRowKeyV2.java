@@ -0,0 +1,292 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.schema;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.MultiTableOutputFormat;
+import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
+import org.apache.hadoop.hbase.mapreduce.TableMapper;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.Edge;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.IdLookup;
+import org.trend.hgraph.LabelDictionary;
+import org.trend.hgraph.RowKeySalt;
+import org.trend.hgraph.RowKeyCodec;
+
+/**
+ * A MR to migrate the vertex and edge tables of the textual v1 schema into the binary v2 schema,
+ * see {@link RowKeyCodec}. The rows are copied with their property columns under the v2 rowkeys,
+ * and the original id of every vertex, including the ones only referred by edges, is written into
+ * the id table for {@link IdLookup}. The reverse edge rows are written from the edge rows by
+ * {@link RowKeyCodec#reverse(byte[])} if a v2 reverse edge table is given.
+ * <p>
+ * The v2 schema is a storage format only, <code>Graph</code> does not read it. The adjacency and
+ * edge counter columns of the vertex rows are skipped, as their qualifiers hold the textual v1 ids
+ * and labels.
+ * <p>
+ * The label codes are taken from
+ * {@link HBaseGraphConstants#HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY}, the edges with a label not
+ * listed there are skipped and counted, and the tool returns <code>-1</code> then.
+ * @author scott_miao
+ */
+public class ConvertToRowKeyV2 extends Configured implements Tool {
+
+  public static final String VERTEX_TABLE = "hgraph.mapreduce.schema.vertex.table";
+
+  public static final String EDGE_TABLE = "hgraph.mapreduce.schema.edge.table";
+
+  public static final String REVERSE_EDGE_TABLE = "hgraph.mapreduce.schema.reverse.edge.table";
+
+  public static final String ID_TABLE = "hgraph.mapreduce.schema.id.table";
+
+  /** the families keyed by the v1 ids, not copied */
+  private static final byte[][] V1_FAMILIES = new byte[][] {
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME),
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME) };
+
+  protected ConvertToRowKeyV2(Configuration conf) {
+    super(conf);
+  }
+
+  /**
+   * @param rowkey
+   * @param r
+   * @return a <code>Put</code> of the columns of given result under given rowkey, without the
+   *         adjacency and edge counter columns; <code>null</code> if there is nothing to copy
+   */
+  static Put copy(byte[] rowkey, Result r) {
+    Put put = new Put(rowkey);
+    for (KeyValue kv : r.raw()) {
+      if (isV1Family(kv)) continue;
+      put.add(kv.getFamily(), kv.getQualifier(), kv.getTimestamp(), kv.getValue());
+    }
+    return put.isEmpty() ? null : put;
+  }
+
+  private static boolean isV1Family(KeyValue kv) {
+    for (byte[] family : V1_FAMILIES) {
+      if (kv.matchingFamily(family)) return true;
+    }
+    return false;
+  }
+
+  private static class VertexMapper extends TableMapper<ImmutableBytesWritable, Put> {
+
+    enum Counters {
+      VERTEX_COUNT
+    }
+
+    private ImmutableBytesWritable vertexTable;
+    private ImmutableBytesWritable idTable;
+    private RowKeySalt salt;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      Configuration conf = context.getConfiguration();
+      this.vertexTable = new ImmutableBytesWritable(Bytes.toBytes(conf.get(VERTEX_TABLE)));
+      this.idTable = new ImmutableBytesWritable(Bytes.toBytes(conf.get(ID_TABLE)));
+      this.salt = RowKeySalt.create(conf);
+    }
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      String id = this.salt.toKey(value.getRow());
+      Put put = copy(RowKeyCodec.toVertexKey(id), value);
+      // the rows with the adjacency or counter columns only
+      if (null != put) context.write(this.vertexTable, put);
+      context.write(this.idTable, IdLookup.toPut(id));
+      context.getCounter(Counters.VERTEX_COUNT).increment(1L);
+    }
+
+  }
+
+  private static class EdgeMapper extends TableMapper<ImmutableBytesWritable, Put> {
+
+    enum Counters {
+      EDGE_COUNT, INVALID_EDGE_COUNT, UNKNOWN_LABEL_COUNT
+    }
+
+    private ImmutableBytesWritable edgeTable;
+    private ImmutableBytesWritable reverseEdgeTable;
+    private ImmutableBytesWritable idTable;
+    private RowKeySalt salt;
+    private LabelDictionary labels;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+      Configuration conf = context.getConfiguration();
+      this.edgeTable = new ImmutableBytesWritable(Bytes.toBytes(conf.get(EDGE_TABLE)));
+      String reverseEdgeTableName = conf.get(REVERSE_EDGE_TABLE);
+      if (null != reverseEdgeTableName) {
+        this.reverseEdgeTable = new ImmutableBytesWritable(Bytes.toBytes(reverseEdgeTableName));
+      }
+      this.idTable = new ImmutableBytesWritable(Bytes.toBytes(conf.get(ID_TABLE)));
+      this.labels = LabelDictionary.create(conf);
+      this.salt = RowKeySalt.create(conf);
+    }
+
+    @Override
+    protected void map(ImmutableBytesWritable key, Result value, Context context)
+        throws IOException, InterruptedException {
+      String[] parts = Edge.split(this.salt.toKey(value.getRow()));
+      if (null == parts) {
+        context.getCounter(Counters.INVALID_EDGE_COUNT).increment(1L);
+        return;
+      }
+      if (!this.labels.contains(parts[1])) {
+        context.getCounter(Counters.UNKNOWN_LABEL_COUNT).increment(1L);
+        return;
+      }
+      byte[] rowkey = RowKeyCodec.toEdgeKey(parts[0], this.labels.getCode(parts[1]), parts[2]);
+      Put put = copy(rowkey, value);
+      if (null != put) {
+        context.write(this.edgeTable, put);
+        if (null != this.reverseEdgeTable) {
+          context.write(this.reverseEdgeTable, copy(RowKeyCodec.reverse(rowkey), value));
+        }
+      }
+      // the vertices may exist only as the edge ends
+      context.write(this.idTable, IdLookup.toPut(parts[0]));
+      context.write(this.idTable, IdLookup.toPut(parts[2]));
+      context.getCounter(Counters.EDGE_COUNT).increment(1L);
+    }
+
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.util.Tool#run(java.lang.String[])
+   */
+  @Override
+  public int run(String[] args) throws Exception {
+    if (null == args || (args.length != 5 && args.length != 6)) {
+      System.err.println("options shall be 5 or 6 !!");
+      printUsage();
+      return -1;
+    }
+    Configuration conf = this.getConf();
+    if (LabelDictionary.create(conf).getLabels().isEmpty()) {
+      System.err.println(HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY
+          + " shall not be empty !!");
+      printUsage();
+      return -1;
+    }
+
+    String vertexTableName = args[0];
+    String edgeTableName = args[1];
+    String v2VertexTableName = args[2];
+    String v2EdgeTableName = args[3];
+    String idTableName = args[4];
+    String v2ReverseEdgeTableName = args.length > 5 ? args[5] : null;
+
+    Job job = createVertexJob(conf, vertexTableName, v2VertexTableName, idTableName);
+    if (!job.waitForCompletion(true)) return -1;
+
+    job =
+        createEdgeJob(conf, edgeTableName, v2EdgeTableName, v2ReverseEdgeTableName, idTableName);
+    if (!job.waitForCompletion(true)) return -1;
+    long unknown =
+        job.getCounters().findCounter(EdgeMapper.Counters.UNKNOWN_LABEL_COUNT).getValue();
+    if (unknown > 0L) {
+      System.err.println(unknown + " edges skipped for their labels not in "
+          + HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY
+          + ", append the labels and run again !!");
+      return -1;
+    }
+    return 0;
+  }
+
+  public static Job createVertexJob(Configuration conf, String vertexTableName,
+      String v2VertexTableName, String idTableName) throws IOException {
+    Configuration jobConf = new Configuration(conf);
+    jobConf.set(VERTEX_TABLE, v2VertexTableName);
+    jobConf.set(ID_TABLE, idTableName);
+    Job job = new Job(jobConf, "convertToRowKeyV2_" + vertexTableName);
+    initJob(job, vertexTableName, VertexMapper.class);
+    return job;
+  }
+
+  /**
+   * @param conf
+   * @param edgeTableName
+   * @param v2EdgeTableName
+   * @param v2ReverseEdgeTableName <code>null</code> for not writing the reverse edge rows
+   * @param idTableName
+   * @return
+   * @throws IOException
+   */
+  public static Job createEdgeJob(Configuration conf, String edgeTableName,
+      String v2EdgeTableName, String v2ReverseEdgeTableName, String idTableName)
+      throws IOException {
+    Configuration jobConf = new Configuration(conf);
+    jobConf.set(EDGE_TABLE, v2EdgeTableName);
+    if (null != v2ReverseEdgeTableName) jobConf.set(REVERSE_EDGE_TABLE, v2ReverseEdgeTableName);
+    jobConf.set(ID_TABLE, idTableName);
+    Job job = new Job(jobConf, "convertToRowKeyV2_" + edgeTableName);
+    initJob(job, edgeTableName, EdgeMapper.class);
+    return job;
+  }
+
+  private static void initJob(Job job, String tableName,
+      Class<? extends TableMapper<ImmutableBytesWritable, Put>> mapper) throws IOException {
+    job.setJarByClass(ConvertToRowKeyV2.class);
+    Scan scan = new Scan();
+    scan.setCacheBlocks(false);
+    TableMapReduceUtil.initTableMapperJob(tableName, scan, mapper, ImmutableBytesWritable.class,
+      Put.class, job);
+    job.setOutputFormatClass(MultiTableOutputFormat.class);
+    job.setNumReduceTasks(0);
+  }
+
+  private static void printUsage() {
+    System.err.println(ConvertToRowKeyV2.class.getSimpleName() + " Usage: -D"
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY
+        + "=<label>[,<label>...] <vertex-table> <edge-table> <v2-vertex-table> <v2-edge-table>"
+        + " <id-table> [<v2-reverse-edge-table>]");
+    System.err.println("copy <vertex-table> and <edge-table> into <v2-vertex-table> and "
+        + "<v2-edge-table> keyed by the binary v2 rowkeys,");
+    System.err.println("write the reverse edge rows into <v2-reverse-edge-table> if given, "
+        + "the adjacency and count families are not copied,");
+    System.err.println("and write the original vertex ids into <id-table> with family '"
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ID_NAME + "'.");
+    System.err.println("the label codes are the positions in "
+        + HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY
+        + ", only append new labels to it later.");
+  }
+
+  public static final void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    Tool tool = new ConvertToRowKeyV2(conf);
+    int status = ToolRunner.run(tool, args);
+    System.exit(status);
+  }
+
+}
@@ -21,9 +21,6 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -40,11 +37,9 @@ import org.apache.hadoop.util.ToolRunner;
 import org.trend.hgraph.Graph;
 import org.trend.hgraph.HBaseGraphConstants;
 import org.trend.hgraph.HBaseGraphFactory;
+import org.trend.hgraph.Traversal;
 import org.trend.hgraph.Vertex;
 
-import com.tinkerpop.blueprints.Direction;
-import com.tinkerpop.blueprints.Edge;
-
 /**
  * @author scott_miao
  */
@@ -151,7 +146,7 @@ public class FindCandidateEntities extends Configured implements Tool {
       rs = table.getScanner(scan);
       for (Result r : rs) {
         System.out.print(".");
-        rowkey = Bytes.toString(r.getRow());
+        rowkey = graph.getRowKeySalt().toKey(r.getRow());
         if (isTarget(graph, rowkey, num)) {
           printOutTargets(graph, rowkey, num, vertexOutputFile, edgeOutputFile);
           break;
@@ -196,8 +191,7 @@ public class FindCandidateEntities extends Configured implements Tool {
       doBreadthFirstSearch(g, id, mn, new SearchStrategy() {
 
         @Override
-        public void processV(Vertex v) throws IOException {
-          String id = v.getId() + "";
+        public void processV(String id) throws IOException {
           try {
             fvw.append(id + "\n");
           } catch (IOException e) {
@@ -208,8 +202,7 @@ public class FindCandidateEntities extends Configured implements Tool {
         }
 
         @Override
-        public void processE(Edge e) throws IOException {
-          String id = e.getId() + "";
+        public void processE(String id) throws IOException {
           try {
             few.append(id + "\n");
           } catch (IOException ex) {
@@ -231,12 +224,12 @@ public class FindCandidateEntities extends Configured implements Tool {
       yes = doBreadthFirstSearch(g, id, mn, new SearchStrategy() {
 
         @Override
-        public void processV(Vertex v) {
+        public void processV(String id) {
           // DO NOTHING
         }
 
         @Override
-        public void processE(Edge e) {
+        public void processE(String id) {
           // DO NOTHING
         }
       });
@@ -248,41 +241,47 @@ public class FindCandidateEntities extends Configured implements Tool {
     return yes;
   }
 
-  private static boolean doBreadthFirstSearch(Graph g, String id, long mn, SearchStrategy s)
-      throws IOException {
-    boolean yes = false;
-    Vertex v = g.getVertex(id);
-    long cn = 0L;
-    String hashCode = null;
-    Set<String> set = new HashSet<String>();
-    if (null != v) {
-      LinkedList<Vertex> queue = new LinkedList<Vertex>();
-      queue.add(v);
-      while (queue.size() > 0) {
-        v = queue.removeFirst();
-        hashCode = SecurityUtils.encrypt(v.getId() + "", "SHA");
-        if (!set.contains(hashCode)) {
-          set.add(hashCode);
-          cn++;
-          s.processV(v);
-          if (cn == mn) {
-            yes = true;
-            break;
-          }
-          for (Edge e : v.getEdges()) {
-            s.processE(e);
-            queue.add((Vertex) e.getVertex(Direction.OUT));
-          }
+  private static boolean doBreadthFirstSearch(Graph g, String id, final long mn,
+      final SearchStrategy s) throws IOException {
+    if (!g.containsVertex(id)) return false;
+    // expand level by level until enough vertices found
+    Traversal traversal = new Traversal(g);
+    traversal.setMaxDepth(Integer.MAX_VALUE);
+    final long[] cn = new long[1];
+    final IOException[] error = new IOException[1];
+    traversal.traverse(new Traversal.Visitor() {
+
+      @Override
+      public boolean visitVertex(String id, Vertex vertex, int depth) {
+        try {
+          s.processV(id);
+        } catch (IOException e) {
+          error[0] = e;
+          return false;
         }
+        cn[0]++;
+        return cn[0] < mn;
       }
-    }
-    return yes;
+
+      @Override
+      public boolean visitEdge(String id, int depth) {
+        try {
+          s.processE(id);
+        } catch (IOException e) {
+          error[0] = e;
+          return false;
+        }
+        return true;
+      }
+    }, id);
+    if (null != error[0]) throw error[0];
+    return cn[0] == mn;
   }
 
   private static interface SearchStrategy {
-    void processV(Vertex v) throws IOException;
+    void processV(String id) throws IOException;
 
-    void processE(Edge e) throws IOException;
+    void processE(String id) throws IOException;
   }
 
   private static void printUsage() {
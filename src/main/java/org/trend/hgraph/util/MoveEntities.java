@@ -36,9 +36,9 @@ import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
-import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
+import org.trend.hgraph.RowKeySalt;
 
 /**
  * @author scott_miao
@@ -120,10 +120,12 @@ public class MoveEntities extends Configured implements Tool {
       NavigableMap<byte[], byte[]> cqMap = null;
       Entry<byte[], NavigableMap<byte[], byte[]>> cfEntry = null;
       Entry<byte[], byte[]> cqEntry = null;
+      // the source and destination tables are salted alike
+      RowKeySalt salt = RowKeySalt.create(conf);
         long cnt = 0L;
       while (it.hasNext()) {
         key = it.next();
-        bKey = Bytes.toBytes(key);
+        bKey = salt.toRow(key);
         get = new Get(bKey);
         r = sTable.get(get);
         if (r.isEmpty()) {
@@ -17,6 +17,9 @@
  */
 package org.trend.hgraph.util;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.hbase.HBaseConfiguration;
@@ -129,25 +132,32 @@ public class PrintGraph extends Configured implements Tool {
 
       a++;
       if (a <= l) {
-        for (Edge e : v.getEdges()) {
-          doPrintGraph(e, a, l);
-        }
+        doPrintGraph(g, v, a, l);
       }
     }
   }
 
-  private static void doPrintGraph(Edge e, int cl, int ml) {
+  private static void doPrintGraph(Graph g, Vertex v, int cl, int ml) {
     if (cl <= ml) {
-      System.out.println("level:" + cl);
-      System.out.println("e=" + e);
-      Vertex v = (Vertex) e.getVertex(Direction.OUT);
-      System.out.println("v=" + v);
-      int nl = cl + 1;
-      if (nl <= cl) {
-        long ecnt = v.getEdgeCount();
-        System.out.println("has " + ecnt + " edge(s)");
-        for (Edge edge : v.getEdges()) {
-          doPrintGraph(edge, nl, ml);
+      // resolve all sub-vertices with one multi-get instead of one get per edge
+      List<Edge> edges = new ArrayList<Edge>();
+      for (Edge e : v.getEdges()) {
+        edges.add(e);
+      }
+      List<Vertex> vertices = g.getVertices(edges, Direction.OUT);
+      Edge e = null;
+      Vertex sv = null;
+      for (int a = 0; a < edges.size(); a++) {
+        e = edges.get(a);
+        sv = vertices.get(a);
+        System.out.println("level:" + cl);
+        System.out.println("e=" + e);
+        System.out.println("v=" + sv);
+        int nl = cl + 1;
+        if (nl <= cl && null != sv) {
+          long ecnt = sv.getEdgeCount();
+          System.out.println("has " + ecnt + " edge(s)");
+          doPrintGraph(g, sv, nl, ml);
         }
       }
     }
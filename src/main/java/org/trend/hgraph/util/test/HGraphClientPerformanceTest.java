@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 import org.trend.hgraph.Graph;
 import org.trend.hgraph.HBaseGraphConstants;
 import org.trend.hgraph.HBaseGraphFactory;
+import org.trend.hgraph.Traversal;
 import org.trend.hgraph.Vertex;
 
 import com.tinkerpop.blueprints.Direction;
@@ -61,11 +62,24 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
     super(conf);
   }
 
+  private static final Traversal.Visitor NOOP_VISITOR = new Traversal.Visitor() {
+    @Override
+    public boolean visitVertex(String id, Vertex vertex, int depth) {
+      return true;
+    }
+
+    @Override
+    public boolean visitEdge(String id, int depth) {
+      return true;
+    }
+  };
+
   private static class Task implements Runnable {
 
     private static final String DATE_FORMAT_PATTERN = "yyyy-MM-dd HH:mm:ss.S";
 
     private boolean isMs;
+    private boolean isBatched;
     private long taskSt;
 
     private File ipf;
@@ -75,18 +89,19 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
     private File opf;
     private FileWriter fw;
 
-    private Configuration conf;
     private Graph g;
     private long level;
     private StopWatch timer;
 
-    protected Task(File inputFile, File outputPath, Configuration conf, long level, boolean toMs) {
+    protected Task(File inputFile, File outputPath, Graph g, long level, boolean toMs,
+        boolean batched) {
       super();
       this.ipf = inputFile;
       this.opf = outputPath;
-      this.conf = conf;
+      this.g = g;
       this.level = level;
       this.isMs = toMs;
+      this.isBatched = batched;
     }
 
     @Override
@@ -108,7 +123,11 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
           try {
             // DO NOTHING
           } finally {
-            LOGGER.info(Thread.currentThread().getName() + " finished the test");
+            LOGGER.info(Thread.currentThread().getName() + " finished the test, open scanners:"
+                + g.getOpenScannerCount() + ", table pool:" + g.getTablePool());
+            if (null != g.getVertexCache()) {
+              LOGGER.info(Thread.currentThread().getName() + " vertex cache:" + g.getVertexCache());
+            }
             // housekeeping
             LineIterator.closeQuietly(lit);
             IOUtils.closeQuietly(fr);
@@ -124,12 +143,22 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
       LOGGER.info("test for id:" + id);
       timer.reset();
       timer.start();
-      LOGGER.debug("HEAD:g.getVertex");
-      Vertex v = g.getVertex(id);
-      LOGGER.debug("TAIL:g.getVertex");
-      LOGGER.debug("HEAD:traverse(v, 1, level)");
-      long count = traverse(v, 1, level);
-      LOGGER.debug("TAIL:traverse(v, 1, level)");
+      long count = 0L;
+      if (isBatched) {
+        LOGGER.debug("HEAD:traversal.traverse(id)");
+        Traversal traversal = new Traversal(g);
+        traversal.setMaxDepth((int) level - 1);
+        traversal.setLoadVertices(true);
+        count = traversal.traverse(NOOP_VISITOR, id);
+        LOGGER.debug("TAIL:traversal.traverse(id)");
+      } else {
+        LOGGER.debug("HEAD:g.getVertex");
+        Vertex v = g.getVertex(id);
+        LOGGER.debug("TAIL:g.getVertex");
+        LOGGER.debug("HEAD:traverse(v, 1, level)");
+        count = traverse(g, v, 1, level);
+        LOGGER.debug("TAIL:traverse(v, 1, level)");
+      }
       timer.stop();
       long st = timer.getStartTime();
       StringBuffer sb = new StringBuffer();
@@ -154,9 +183,6 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
 
     // start to initialize
     private boolean initial() {
-      // graph object
-      g = HBaseGraphFactory.open(conf);
-
       // task start time
       if (isMs) {
         taskSt = System.currentTimeMillis();
@@ -186,7 +212,7 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
       return true;
     }
 
-    private static long traverse(Vertex v, long cl, long ml) {
+    private static long traverse(Graph g, Vertex v, long cl, long ml) {
       if (cl >= ml) {
         return 1;
       }
@@ -194,16 +220,22 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
       long count = 1L;
       // v.getPropertyKeys();
       LOGGER.debug("HEAD:for(Edge e: v.getEdges)");
+      List<Edge> edges = new ArrayList<Edge>();
       for (Edge e : v.getEdges()) {
-        LOGGER.debug("HEAD:e = v.getEdges[]");
         // load data from remote
         // e.getPropertyKeys();
-        LOGGER.debug("HEAD:traverse(e.getVertex, cl + 1, ml)");
-        count += traverse((Vertex) e.getVertex(Direction.OUT), cl + 1, ml);
-        LOGGER.debug("TAIL:traverse(e.getVertex, cl + 1, ml)");
-        LOGGER.debug("TAIL:e = v.getEdges[]");
+        edges.add(e);
       }
       LOGGER.debug("TAIL:for(Edge e: v.getEdges)");
+      LOGGER.debug("HEAD:g.getVertices(edges, OUT)");
+      List<Vertex> vertices = g.getVertices(edges, Direction.OUT);
+      LOGGER.debug("TAIL:g.getVertices(edges, OUT)");
+      for (Vertex sv : vertices) {
+        if (null == sv) continue;
+        LOGGER.debug("HEAD:traverse(sv, cl + 1, ml)");
+        count += traverse(g, sv, cl + 1, ml);
+        LOGGER.debug("TAIL:traverse(sv, cl + 1, ml)");
+      }
       return count;
     }
   }
@@ -226,6 +258,7 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
     int threads = 100;
     long interval = 1000; // ms
     boolean isMs = false;
+    boolean isBatched = false;
     for (int a = 0; a < args.length; a++) {
       cmd = args[a];
       if (cmd.startsWith("-")) {
@@ -257,6 +290,8 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
           }
         } else if ("-m".equals(cmd)) {
           isMs = true;
+        } else if ("-b".equals(cmd)) {
+          isBatched = true;
         } else if ("-i".equals(cmd)) {
           a++;
           cmd = args[a];
@@ -301,6 +336,9 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
     conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, vt);
     conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY, et);
 
+    // one graph shared by all test threads
+    Graph g = HBaseGraphFactory.open(conf);
+
     // run test threads
     ThreadFactory tf = new DaemonThreadFactory(Executors.defaultThreadFactory());
     ExecutorService pool = Executors.newFixedThreadPool(threads, tf);
@@ -310,21 +348,26 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
     Future f = null;
 
     for (int a = 0; a < threads; a++) {
-      fs.add(pool.submit(new Task(ipf, opp, conf, level, isMs)));
+      fs.add(pool.submit(new Task(ipf, opp, g, level, isMs, isBatched)));
       synchronized (this) {
         wait(interval);
       }
     }
 
-    while (fs.size() > 0) {
-      f = fs.get(0);
-      f.get();
-      if (f.isDone()) {
-        if (f.isCancelled()) {
-          LOGGER.warn("a future:" + f + " was cancelled !!");
+    try {
+      while (fs.size() > 0) {
+        f = fs.get(0);
+        f.get();
+        if (f.isDone()) {
+          if (f.isCancelled()) {
+            LOGGER.warn("a future:" + f + " was cancelled !!");
+          }
+          fs.remove(0);
         }
-        fs.remove(0);
       }
+    } finally {
+      LOGGER.info("all tests finished, table pool:" + g.getTablePool());
+      g.shutdown();
     }
 
     return 0;
@@ -349,10 +392,11 @@ public class HGraphClientPerformanceTest extends Configured implements Tool {
   private static final void printUsage() {
     System.err.print(HGraphClientPerformanceTest.class.getSimpleName() + " Usage:");
     System.err
-        .println("[-m] [-l <numerric>] [-t <numeric>] [-i <numeric>] <vertex-table> <edge-table> <input-rowkeys-file> <output-path>");
+        .println("[-m] [-b] [-l <numerric>] [-t <numeric>] [-i <numeric>] <vertex-table> <edge-table> <input-rowkeys-file> <output-path>");
     System.err.println("A simple tool for testing the query performance for both <vertex-table> and <edge-table>.");
     System.err.println("Usually companion with " + GetRandomRowsByRegions.class.getSimpleName());
     System.err.println("  -m: change time format to millisecond from each task start");
+    System.err.println("  -b: traverse level by level in batches, the count becomes distinct vertices");
     System.err.println("  -l: how many levels to test, default is 2");
     System.err.println("  -t: how many threads to test, default is 100");
     System.err.println("  -i: how long the interval for each thread to start, default is 1000ms");
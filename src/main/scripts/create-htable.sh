@@ -26,3 +26,21 @@ echo "describe 'test.vertex'" | hbase shell
 
 echo "create 'test.edge', {NAME => 'property', BLOOMFILTER => 'ROW', COMPRESSION => 'SNAPPY', TTL => '7776000'}" | hbase shell
 echo "describe 'test.edge'" | hbase shell
+
+echo "create 'test.edge.reverse', {NAME => 'property', BLOOMFILTER => 'ROW', COMPRESSION => 'SNAPPY', TTL => '7776000'}" | hbase shell
+echo "describe 'test.edge.reverse'" | hbase shell
+
+echo "create 'test.vertex.index', {NAME => 'index', BLOOMFILTER => 'ROW', COMPRESSION => 'SNAPPY', TTL => '7776000'}" | hbase shell
+echo "describe 'test.vertex.index'" | hbase shell
+
+echo "create 'test.edge.index', {NAME => 'index', BLOOMFILTER => 'ROW', COMPRESSION => 'SNAPPY', TTL => '7776000'}" | hbase shell
+echo "describe 'test.edge.index'" | hbase shell
+
+echo "create 'test.vertex.v2', {NAME => 'property', BLOOMFILTER => 'ROW', COMPRESSION => 'SNAPPY', TTL => '7776000'}" | hbase shell
+echo "describe 'test.vertex.v2'" | hbase shell
+
+echo "create 'test.edge.v2', {NAME => 'property', BLOOMFILTER => 'ROW', COMPRESSION => 'SNAPPY', TTL => '7776000'}" | hbase shell
+echo "describe 'test.edge.v2'" | hbase shell
+
+echo "create 'test.id', {NAME => 'id', BLOOMFILTER => 'ROW', COMPRESSION => 'SNAPPY', TTL => '7776000'}" | hbase shell
+echo "describe 'test.id'" | hbase shell
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+public class AdjacencyTest {
+
+  private static final byte[] ROW = Bytes.toBytes("40012-->knows-->40008");
+  private static final byte[] PROPERTY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  @Test
+  public void testPackAndUnpack() {
+    List<KeyValue> kvs = new ArrayList<KeyValue>();
+    kvs.add(new KeyValue(ROW, Bytes.toBytes("count"), Bytes.toBytes("edgeCount"),
+        Bytes.toBytes(1L)));
+    kvs.add(new KeyValue(ROW, PROPERTY, Bytes.toBytes("since@Integer"), Bytes.toBytes(2010)));
+    kvs.add(new KeyValue(ROW, PROPERTY, Bytes.toBytes("weight@String"), Bytes.toBytes("0.5")));
+    byte[] value = Adjacency.pack(new Result(kvs));
+
+    Result r = Adjacency.unpack(ROW, value);
+    // the non-property cells are dropped
+    assertEquals(2, r.size());
+    Properties properties = new Properties(r);
+    assertEquals("0.5", properties.getProperty("weight"));
+    assertEquals(2010, properties.getProperty("since"));
+    assertArrayEquals(ROW, r.getRow());
+  }
+
+  @Test
+  public void testPackAndUnpack_noProperties() {
+    byte[] value = Adjacency.pack(new Result(new ArrayList<KeyValue>()));
+    assertEquals(0, value.length);
+    assertTrue(Adjacency.unpack(ROW, value).isEmpty());
+  }
+
+  @Test
+  public void testToPut() {
+    Put put = Adjacency.toPut(Bytes.toBytes("40012"), "40012-->knows-->40008",
+      new Result(new ArrayList<KeyValue>()));
+    KeyValue kv = put.getFamilyMap().get(Adjacency.FAMILY).get(0);
+    assertEquals("knows-->40008", Bytes.toString(kv.getQualifier()));
+    assertEquals("40012-->knows-->40008", Adjacency.toEdgeId("40012", kv.getQualifier()));
+    assertNull(Adjacency.toPut(Bytes.toBytes("40012"), "40012", new Result()));
+  }
+
+}
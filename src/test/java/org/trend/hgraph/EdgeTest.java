@@ -66,6 +66,30 @@ public class EdgeTest extends AbstractHBaseGraphTest {
     assertEquals("0.4", value);
   }
   
+  @Test
+  public void testGetProperty_notFound() {
+    assertNull(edge.getProperty("foo"));
+    assertNull(edge.getProperty("weigh"));
+  }
+
+  @Test
+  public void testSetProperty_afterGetProperty() {
+    assertEquals("0.4", edge.getProperty("weight"));
+    edge.setProperty("weight", "0.5");
+    edge.setProperty("foo", "bar");
+    assertEquals("0.5", edge.getProperty("weight"));
+    assertEquals("bar", edge.getProperty("foo"));
+    assertEquals(2, edge.getPropertyKeys().size());
+
+    // the writes are persisted, restore the shared test data
+    this.graph.flush();
+    edge.setProperty("weight", "0.4");
+    edge.removeProperty("foo");
+    this.graph.flush();
+    assertEquals("0.4", this.graph.getEdge("40012-->created-->40004").getProperty("weight"));
+    assertNull(this.graph.getEdge("40012-->created-->40004").getProperty("foo"));
+  }
+  
   @Test
   public void testGetPropertyKeys() {
     Set<String> keys = edge.getPropertyKeys();
@@ -105,6 +129,14 @@ public class EdgeTest extends AbstractHBaseGraphTest {
     Vertex vertex = null;
     vertex = (Vertex) edge.getVertex(Direction.BOTH);
   }
-  
-  
+
+  @Test
+  public void testSplit() {
+    assertArrayEquals(new String[] { "40012", "created", "40004" },
+      Edge.split("40012-->created-->40004"));
+    assertNull(Edge.split("40012-->created"));
+    assertEquals("40004<--created<--40012", Edge.toReversedId("40012-->created-->40004"));
+    assertEquals("40012-->created-->40004", Edge.fromReversedId("40004<--created<--40012"));
+  }
+
 }
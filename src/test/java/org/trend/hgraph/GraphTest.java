@@ -19,7 +19,28 @@ package org.trend.hgraph;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -30,6 +51,8 @@ import org.trend.hgraph.Graph;
 import org.trend.hgraph.HBaseGraphFactory;
 import org.trend.hgraph.Vertex;
 
+import com.tinkerpop.blueprints.Direction;
+
 public class GraphTest extends AbstractHBaseGraphTest {
   
   private Graph graph = null;
@@ -125,4 +148,318 @@ public class GraphTest extends AbstractHBaseGraphTest {
     assertEquals(2, count);
   }
 
+  @Test
+  public void testGetVerticesCollection() {
+    List<Vertex> vertices = graph.getVertices(Arrays.asList("40024", "foo", "40004"));
+    assertNotNull(vertices);
+    assertEquals(3, vertices.size());
+    assertEquals("40024", vertices.get(0).getId());
+    assertNull(vertices.get(1));
+    assertEquals("40004", vertices.get(2).getId());
+  }
+
+  @Test
+  public void testGetVerticesIterableDirection() {
+    Vertex vertex = graph.getVertex("40012");
+    assertNotNull(vertex);
+    List<com.tinkerpop.blueprints.Edge> edges = new ArrayList<com.tinkerpop.blueprints.Edge>();
+    for (com.tinkerpop.blueprints.Edge edge : vertex.getEdges()) {
+      edges.add(edge);
+    }
+    List<Vertex> vertices = graph.getVertices(edges, Direction.OUT);
+    assertEquals(edges.size(), vertices.size());
+    for (int a = 0; a < edges.size(); a++) {
+      assertNotNull(vertices.get(a));
+      assertEquals(edges.get(a).getVertex(Direction.OUT).getId(), vertices.get(a).getId());
+    }
+  }
+
+  @Test
+  public void testGetVertex_cached() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_ENTRIES_KEY, 10);
+    Graph graph = HBaseGraphFactory.open(conf);
+    try {
+      ResultCache cache = graph.getVertexCache();
+      assertNotNull(cache);
+      Vertex vertex = graph.getVertex("40012");
+      assertNotNull(vertex);
+      assertEquals(0, cache.getHitCount());
+      assertEquals(1, cache.getMissCount());
+
+      vertex = graph.getVertex("40012");
+      assertNotNull(vertex);
+      assertEquals("40012", vertex.getId());
+      assertEquals(1, cache.getHitCount());
+
+      List<Vertex> vertices = graph.getVertices(Arrays.asList("40012", "40004"));
+      assertEquals("40012", vertices.get(0).getId());
+      assertEquals("40004", vertices.get(1).getId());
+      assertEquals(2, cache.getHitCount());
+      assertEquals(2, cache.size());
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetVertex_notCachedByDefault() {
+    assertNull(graph.getVertexCache());
+  }
+
+  @Test
+  public void testGetEdges_closedOnExhausted() {
+    Iterable<com.tinkerpop.blueprints.Edge> edges = graph.getEdges();
+    assertEquals(1, graph.getOpenScannerCount());
+    int count = 0;
+    for (com.tinkerpop.blueprints.Edge edge : edges) {
+      assertNotNull(edge);
+      count++;
+    }
+    assertEquals(6, count);
+    assertTrue(((EdgeIterable) edges).isClosed());
+    assertEquals(0, graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testGetVertices_closedEarly() {
+    VertexIterable vertices = (VertexIterable) graph.getVertices();
+    try {
+      Iterator<com.tinkerpop.blueprints.Vertex> it = vertices.iterator();
+      assertTrue(it.hasNext());
+      assertNotNull(it.next());
+      assertEquals(1, graph.getOpenScannerCount());
+    } finally {
+      vertices.close();
+    }
+    assertEquals(0, graph.getOpenScannerCount());
+    assertFalse(vertices.iterator().hasNext());
+    // closing twice is harmless
+    vertices.close();
+    assertEquals(0, graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testGetVerticesScanProfile_batchMerged() {
+    ScanProfile profile = graph.getDefaultScanProfile();
+    profile.setCaching(2);
+    profile.setBatch(1);
+    int count = 0;
+    for (com.tinkerpop.blueprints.Vertex vertex : graph.getVertices(profile)) {
+      assertNotNull(vertex);
+      assertEquals(2, vertex.getPropertyKeys().size());
+      count++;
+    }
+    assertEquals(6, count);
+    assertEquals(0, graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testGetEdgesScanProfile_families() {
+    ScanProfile profile = graph.getDefaultScanProfile();
+    profile.setCacheBlocks(false);
+    profile.addFamily(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+    int count = 0;
+    for (com.tinkerpop.blueprints.Edge edge : graph.getEdges(profile)) {
+      assertNotNull(edge.getProperty("weight"));
+      count++;
+    }
+    assertEquals(6, count);
+  }
+
+  @Test
+  public void testGetEdgesScanProfile_vertex() {
+    Vertex vertex = graph.getVertex("40012");
+    ScanProfile profile = graph.getDefaultScanProfile();
+    profile.setCaching(1);
+    int count = 0;
+    for (com.tinkerpop.blueprints.Edge edge : vertex.getEdges(profile, Direction.OUT)) {
+      assertNotNull(edge);
+      count++;
+    }
+    assertEquals(3, count);
+  }
+
+  @Test
+  public void testGetVertex_projected() {
+    Vertex vertex = graph.getVertex("40012", "name", "foo");
+    assertNotNull(vertex);
+    assertEquals("40012", vertex.getId());
+    assertEquals("marko", vertex.getProperty("name"));
+    assertNull(vertex.getProperty("age"));
+    assertEquals(1, vertex.getPropertyKeys().size());
+  }
+
+  @Test
+  public void testGetVertex_projectedNoMatch() {
+    Vertex vertex = graph.getVertex("40012", "foo");
+    assertNotNull(vertex);
+    assertEquals("40012", vertex.getId());
+    assertEquals(0, vertex.getPropertyKeys().size());
+    assertNull(graph.getVertex("foo", "name"));
+  }
+
+  @Test
+  public void testGetEdge_projected() {
+    Edge edge = graph.getEdge("40012-->created-->40004", "weight");
+    assertNotNull(edge);
+    assertEquals("0.4", edge.getProperty("weight"));
+    assertNull(graph.getEdge("40012-->created-->foo", "weight"));
+  }
+
+  @Test
+  public void testContains() {
+    assertTrue(graph.containsVertex("40012"));
+    assertFalse(graph.containsVertex("foo"));
+    assertTrue(graph.containsEdge("40012-->created-->40004"));
+    assertFalse(graph.containsEdge("40012-->created-->foo"));
+  }
+
+  @Test
+  public void testGetVerticesParallel() {
+    List<String> ids = new ArrayList<String>();
+    for (com.tinkerpop.blueprints.Vertex vertex : graph.getVerticesParallel(4)) {
+      ids.add((String) vertex.getId());
+    }
+    Collections.sort(ids);
+    assertEquals(Arrays.asList("40004", "40008", "40012", "40016", "40020", "40024"), ids);
+    assertEquals(0, graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testGetEdgesParallel_closedEarly() throws InterruptedException {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_SCAN_PARALLEL_QUEUE_SIZE_KEY, 1);
+    Graph graph = HBaseGraphFactory.open(conf);
+    try {
+      ParallelElementIterable<com.tinkerpop.blueprints.Edge> edges = graph.getEdgesParallel(2);
+      Iterator<com.tinkerpop.blueprints.Edge> it = edges.iterator();
+      assertTrue(it.hasNext());
+      assertNotNull(it.next());
+      edges.close();
+      assertFalse(it.hasNext());
+      // the segment threads release their scanners asynchronously
+      for (int a = 0; a < 50 && graph.getOpenScannerCount() > 0; a++) {
+        Thread.sleep(100L);
+      }
+      assertEquals(0, graph.getOpenScannerCount());
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testTablePool_sharedByGraphsAndThreads() throws InterruptedException {
+    Graph other = HBaseGraphFactory.open(new Configuration(TEST_UTIL.getConfiguration()));
+    final TablePool pool = this.graph.getTablePool();
+    try {
+      assertSame(pool, other.getTablePool());
+      final AtomicInteger found = new AtomicInteger();
+      Thread[] threads = new Thread[20];
+      for (int a = 0; a < threads.length; a++) {
+        final Graph g = a % 2 == 0 ? this.graph : other;
+        threads[a] = new Thread() {
+          @Override
+          public void run() {
+            for (int b = 0; b < 10; b++) {
+              if (null != g.getVertex("40012")) found.incrementAndGet();
+            }
+          }
+        };
+        threads[a].start();
+      }
+      for (Thread t : threads) {
+        t.join();
+      }
+      assertEquals(200, found.get());
+      assertEquals(0, pool.getBorrowedCount());
+      assertTrue(pool.getIdleCount() > 0);
+    } finally {
+      other.shutdown();
+    }
+    // still held by this.graph
+    assertFalse(pool.isClosed());
+    other.shutdown();
+    assertFalse(pool.isClosed());
+    assertNotNull(this.graph.getVertex("40012"));
+  }
+
+  @Test
+  public void testRowKeySalt() throws Exception {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_TABLE_SALT_BUCKETS_KEY, 4);
+    RowKeySalt salt = RowKeySalt.create(conf);
+    copySalted(salt, "test.vertex", "test.vertex.salted");
+    copySalted(salt, "test.edge", "test.edge.salted");
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, "test.vertex.salted");
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY, "test.edge.salted");
+
+    Graph graph = HBaseGraphFactory.open(conf);
+    try {
+      Vertex vertex = graph.getVertex("40012");
+      assertNotNull(vertex);
+      assertEquals("40012", vertex.getId());
+      assertNull(graph.getVertex("40012-->knows-->40008"));
+
+      List<String> ids = new ArrayList<String>();
+      for (com.tinkerpop.blueprints.Edge edge : vertex.getEdges(Direction.OUT)) {
+        ids.add((String) edge.getId());
+      }
+      Collections.sort(ids);
+      assertEquals(Arrays.asList("40012-->created-->40004", "40012-->knows-->40008",
+        "40012-->knows-->40024"), ids);
+      assertEquals(2, vertex.getEdgeCount("knows"));
+      assertNotNull(graph.getEdge("40012-->knows-->40008"));
+
+      int count = 0;
+      for (com.tinkerpop.blueprints.Vertex v : graph.getVertices()) {
+        assertNotNull(graph.getVertex(v.getId()));
+        count++;
+      }
+      assertEquals(countRows("test.vertex"), count);
+      assertEquals(0, graph.getOpenScannerCount());
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  private static void copySalted(RowKeySalt salt, String from, String to) throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    HTableDescriptor desc = new HTableDescriptor(to);
+    desc.addFamily(new HColumnDescriptor(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME));
+    desc.addFamily(new HColumnDescriptor(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME));
+    TEST_UTIL.getHBaseAdmin().createTable(desc, salt.getSplitKeys());
+    HTable source = new HTable(conf, from);
+    HTable target = new HTable(conf, to);
+    ResultScanner rs = source.getScanner(new Scan());
+    try {
+      for (Result r : rs) {
+        Put put = new Put(salt.toRow(Bytes.toString(r.getRow())));
+        for (KeyValue kv : r.raw()) {
+          put.add(kv.getFamily(), kv.getQualifier(), kv.getValue());
+        }
+        target.put(put);
+      }
+    } finally {
+      rs.close();
+      source.close();
+      target.close();
+    }
+  }
+
+  private static int countRows(String tableName) throws Exception {
+    HTable table = new HTable(TEST_UTIL.getConfiguration(), tableName);
+    ResultScanner rs = table.getScanner(new Scan());
+    int count = 0;
+    try {
+      for (@SuppressWarnings("unused") Result r : rs) {
+        count++;
+      }
+    } finally {
+      rs.close();
+      table.close();
+    }
+    return count;
+  }
+
 }
@@ -0,0 +1,472 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+
+public class GraphWriteTest extends AbstractHBaseGraphTest {
+
+  private static final String VERTEX_TABLE = "test.write.vertex";
+  private static final String EDGE_TABLE = "test.write.edge";
+  private static final String EDGE_REVERSE_TABLE = "test.write.edge.reverse";
+  private static final String VERTEX_INDEX_TABLE = "test.write.vertex.index";
+
+  private Graph graph = null;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+    Configuration conf = TEST_UTIL.getConfiguration();
+    createTable(conf, Bytes.toBytes(VERTEX_TABLE), transfer2BytesArray(new String[] {
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME,
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME,
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME }));
+    createTable(conf, Bytes.toBytes(EDGE_TABLE), transfer2BytesArray(new String[] {
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME }));
+    createTable(conf, Bytes.toBytes(EDGE_REVERSE_TABLE), transfer2BytesArray(new String[] {
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME }));
+    createTable(conf, Bytes.toBytes(VERTEX_INDEX_TABLE), transfer2BytesArray(new String[] {
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_INDEX_NAME }));
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    this.graph = HBaseGraphFactory.open(newConf());
+  }
+
+  private static Configuration newConf() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, VERTEX_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY, EDGE_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY, EDGE_REVERSE_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_INDEX_NAME_KEY, VERTEX_INDEX_TABLE);
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, true);
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_COUNTS_ENABLED_KEY, true);
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_KEY, 3);
+    return conf;
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    this.graph.shutdown();
+  }
+
+  @Test
+  public void testAddVertexAndEdge() {
+    Vertex a = this.graph.addVertex("a1");
+    Vertex b = this.graph.addVertex("b1");
+    Vertex c = this.graph.addVertex("c1");
+    a.setProperty("name", "malware");
+    Edge knows = a.addEdge("knows", b);
+    assertEquals("a1-->knows-->b1", knows.getId());
+    knows.setProperty("weight", 0.5D);
+    this.graph.addEdge(null, a, c, "created");
+    this.graph.flush();
+    assertEquals(0, this.graph.getWriteBuffer().getPendingCount());
+
+    Vertex vertex = this.graph.getVertex("a1");
+    assertNotNull(vertex);
+    assertEquals("malware", vertex.getProperty("name"));
+    assertEquals(1, vertex.getPropertyKeys().size());
+    assertEquals(2L, vertex.getEdgeCount());
+    assertEquals(1L, vertex.getEdgeCount("knows"));
+    assertNotNull(this.graph.getVertex("c1"));
+    assertEquals(0L, this.graph.getVertex("c1").getPropertyCount());
+
+    Edge edge = this.graph.getEdge("a1-->knows-->b1");
+    assertNotNull(edge);
+    assertEquals(0.5D, edge.getProperty("weight"));
+    // read from the adjacency column
+    List<com.tinkerpop.blueprints.Edge> edges = new ArrayList<com.tinkerpop.blueprints.Edge>();
+    for (com.tinkerpop.blueprints.Edge e : vertex.getEdges(Direction.OUT, "knows")) {
+      edges.add(e);
+    }
+    assertEquals(1, edges.size());
+    assertEquals(0.5D, edges.get(0).getProperty("weight"));
+    // read from the reverse edge table
+    int count = 0;
+    for (com.tinkerpop.blueprints.Edge e : this.graph.getVertex("b1").getEdges(Direction.IN,
+      "knows")) {
+      assertEquals("a1-->knows-->b1", e.getId());
+      assertEquals(0.5D, e.getProperty("weight"));
+      count++;
+    }
+    assertEquals(1, count);
+  }
+
+  @Test
+  public void testAddVertex_nullId() {
+    Vertex vertex = this.graph.addVertex(null);
+    assertNotNull(vertex.getId());
+    this.graph.flush();
+    assertTrue(this.graph.containsVertex(vertex.getId()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddVertex_delimiterInId() {
+    this.graph.addVertex("a-->b");
+  }
+
+  @Test
+  public void testSetProperty_indexed() {
+    this.graph.createKeyIndex("name", com.tinkerpop.blueprints.Vertex.class);
+    Vertex vertex = this.graph.addVertex("d1");
+    vertex.setProperty("name", "trojan");
+    this.graph.flush();
+    assertEquals(1, size(this.graph.getVertices("name", "trojan")));
+
+    vertex.setProperty("name", "worm");
+    this.graph.flush();
+    assertEquals(0, size(this.graph.getVertices("name", "trojan")));
+    assertEquals(1, size(this.graph.getVertices("name", "worm")));
+
+    assertEquals("worm", vertex.removeProperty("name"));
+    this.graph.flush();
+    assertEquals(0, size(this.graph.getVertices("name", "worm")));
+    assertNull(this.graph.getVertex("d1").getProperty("name"));
+  }
+
+  @Test
+  public void testSetProperty_overStringForm() throws Exception {
+    // as imported by ImportTsv
+    HTable table = new HTable(TEST_UTIL.getConfiguration(), VERTEX_TABLE);
+    try {
+      Put put = new Put(Bytes.toBytes("i0"));
+      put.add(Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME),
+        Bytes.toBytes("risk@Integer@String"), Bytes.toBytes("1234"));
+      table.put(put);
+    } finally {
+      table.close();
+    }
+    Vertex vertex = this.graph.getVertex("i0");
+    assertEquals(Integer.valueOf(1234), vertex.getProperty("risk"));
+    vertex.setProperty("risk", 5);
+    this.graph.flush();
+    assertEquals(Integer.valueOf(5), this.graph.getVertex("i0").getProperty("risk"));
+  }
+
+  @Test
+  public void testSetProperty_thenRemoveInOneBatch() {
+    Vertex vertex = this.graph.addVertex("i1");
+    vertex.setProperty("risk", 1);
+    vertex.removeProperty("risk");
+    this.graph.flush();
+    assertNull(this.graph.getVertex("i1").getProperty("risk"));
+  }
+
+  @Test
+  public void testSetProperty_typeChangedInOneBatch() {
+    Vertex vertex = this.graph.addVertex("i2");
+    vertex.setProperty("risk", "a");
+    vertex.setProperty("risk", 5);
+    vertex.setProperty("risk", "b");
+    this.graph.flush();
+    vertex = this.graph.getVertex("i2");
+    assertEquals("b", vertex.getProperty("risk"));
+    assertEquals(1, vertex.getPropertyKeys().size());
+  }
+
+  @Test
+  public void testRemoveVertex_thenAddAgain() {
+    Vertex vertex = this.graph.addVertex("i3");
+    vertex.setProperty("name", "rootkit");
+    this.graph.flush();
+
+    this.graph.removeVertex(vertex);
+    this.graph.addVertex("i3");
+    this.graph.flush();
+    vertex = this.graph.getVertex("i3");
+    assertNotNull(vertex);
+    assertEquals(0L, vertex.getPropertyCount());
+  }
+
+  @Test
+  public void testSetProperty_indexedValueRestoredInOneBatch() {
+    this.graph.createKeyIndex("family", com.tinkerpop.blueprints.Vertex.class);
+    Vertex vertex = this.graph.addVertex("i4");
+    vertex.setProperty("family", "zbot");
+    vertex.setProperty("family", "zeus");
+    vertex.setProperty("family", "zbot");
+    this.graph.flush();
+    assertEquals(1, size(this.graph.getVertices("family", "zbot")));
+    assertEquals(0, size(this.graph.getVertices("family", "zeus")));
+  }
+
+  @Test
+  public void testSetProperty_cachedVertexInvalidatedByFlush() {
+    Configuration conf = newConf();
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_CACHE_VERTEX_MAX_ENTRIES_KEY, 100);
+    Graph graph = HBaseGraphFactory.open(conf);
+    try {
+      graph.addVertex("j1");
+      graph.flush();
+      Vertex vertex = graph.getVertex("j1");
+      vertex.setProperty("name", "keylogger");
+      // read before the flush caches the old row again
+      assertNull(graph.getVertex("j1").getProperty("name"));
+      graph.flush();
+      assertEquals("keylogger", graph.getVertex("j1").getProperty("name"));
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testEdgeCounts_enabledByCountFamily() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, VERTEX_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY, EDGE_TABLE);
+    Graph graph = HBaseGraphFactory.open(conf);
+    Edge edge = null;
+    try {
+      assertTrue(graph.isEdgeCountsEnabled());
+      Vertex k1 = graph.addVertex("k1");
+      edge = graph.addEdge(null, k1, graph.addVertex("k2"), "knows");
+      graph.flush();
+      assertEquals(1L, graph.getVertex("k1").getEdgeCount("knows"));
+    } finally {
+      graph.shutdown();
+    }
+
+    // the counters left stale are not read
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_COUNTS_ENABLED_KEY, false);
+    graph = HBaseGraphFactory.open(conf);
+    try {
+      assertFalse(graph.isEdgeCountsEnabled());
+      graph.removeEdge(edge);
+      graph.flush();
+      assertEquals(0L, graph.getVertex("k1").getEdgeCount());
+      assertEquals(0L, graph.getVertex("k1").getEdgeCount("knows"));
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testRemoveEdge() {
+    Vertex e1 = this.graph.addVertex("e1");
+    Vertex e2 = this.graph.addVertex("e2");
+    Edge edge = this.graph.addEdge(null, e1, e2, "knows");
+    this.graph.flush();
+    assertEquals(1L, this.graph.getVertex("e1").getEdgeCount("knows"));
+
+    edge.remove();
+    this.graph.flush();
+    assertNull(this.graph.getEdge(edge.getId()));
+    Vertex vertex = this.graph.getVertex("e1");
+    assertEquals(0L, vertex.getEdgeCount("knows"));
+    assertEquals(0, size(vertex.getEdges(Direction.OUT, "knows")));
+    assertEquals(0, size(this.graph.getVertex("e2").getEdges(Direction.IN, "knows")));
+  }
+
+  @Test
+  public void testAddEdge_countersNotBackfilled() throws Exception {
+    byte[] family = Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME);
+    Vertex j1 = this.graph.addVertex("j1");
+    Vertex j2 = this.graph.addVertex("j2");
+    this.graph.addEdge(null, j1, j2, "knows");
+    this.graph.flush();
+    HTable table = new HTable(TEST_UTIL.getConfiguration(), VERTEX_TABLE);
+    try {
+      Get get = new Get(Bytes.toBytes("j1"));
+      get.addFamily(family);
+      // left absent, read by scanning
+      assertTrue(table.get(get).isEmpty());
+      assertEquals(1L, this.graph.getVertex("j1").getEdgeCount("knows"));
+
+      // as backfilled by CalculateEdgeCounts
+      Put put = new Put(Bytes.toBytes("j1"));
+      put.add(family, Vertex.getEdgeCountQualifier(null), Bytes.toBytes(1L));
+      put.add(family, Vertex.getEdgeCountQualifier("knows"), Bytes.toBytes(1L));
+      table.put(put);
+      this.graph.addEdge(null, j1, this.graph.addVertex("j3"), "created");
+      this.graph.flush();
+      assertEquals(2L, Bytes.toLong(table.get(get).getValue(family,
+        Vertex.getEdgeCountQualifier(null))));
+      Vertex vertex = this.graph.getVertex("j1");
+      assertEquals(2L, vertex.getEdgeCount());
+      assertEquals(1L, vertex.getEdgeCount("created"));
+    } finally {
+      table.close();
+    }
+  }
+
+  @Test
+  public void testAddEdge_existing() throws Exception {
+    byte[] family = Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME);
+    Vertex k3 = this.graph.addVertex("k3");
+    Vertex k4 = this.graph.addVertex("k4");
+    HTable table = new HTable(TEST_UTIL.getConfiguration(), VERTEX_TABLE);
+    try {
+      Put put = new Put(Bytes.toBytes("k3"));
+      put.add(family, Vertex.getEdgeCountQualifier(null), Bytes.toBytes(0L));
+      table.put(put);
+    } finally {
+      table.close();
+    }
+    this.graph.addEdge(null, k3, k4, "knows").setProperty("weight", 0.5D);
+    this.graph.flush();
+
+    Edge edge = this.graph.addEdge(null, k3, k4, "knows");
+    assertEquals(0.5D, edge.getProperty("weight"));
+    this.graph.flush();
+    Vertex vertex = this.graph.getVertex("k3");
+    assertEquals(1L, vertex.getEdgeCount());
+    assertEquals(1L, vertex.getEdgeCount("knows"));
+    // read from the adjacency column
+    assertEquals(0.5D, vertex.getEdges(Direction.OUT, "knows").iterator().next()
+        .getProperty("weight"));
+  }
+
+  @Test
+  public void testRemoveVertex() {
+    Vertex f1 = this.graph.addVertex("f1");
+    Vertex f2 = this.graph.addVertex("f2");
+    Vertex f3 = this.graph.addVertex("f3");
+    this.graph.addEdge(null, f1, f2, "knows");
+    this.graph.addEdge(null, f3, f1, "knows");
+    this.graph.addEdge(null, f3, f2, "knows");
+
+    this.graph.removeVertex(f1);
+    this.graph.flush();
+    assertNull(this.graph.getVertex("f1"));
+    assertFalse(this.graph.containsEdge("f1-->knows-->f2"));
+    assertFalse(this.graph.containsEdge("f3-->knows-->f1"));
+    assertTrue(this.graph.containsEdge("f3-->knows-->f2"));
+    Vertex vertex = this.graph.getVertex("f3");
+    assertEquals(1L, vertex.getEdgeCount());
+    assertEquals(1, size(vertex.getEdges(Direction.OUT, "knows")));
+    assertEquals(1, size(this.graph.getVertex("f2").getEdges(Direction.IN, "knows")));
+  }
+
+  @Test
+  public void testAddEdge_selfLoop() {
+    assertTrue(this.graph.getFeatures().supportsSelfLoops);
+    Vertex h1 = this.graph.addVertex("h1");
+    this.graph.addEdge(null, h1, h1, "likes");
+    this.graph.flush();
+    assertTrue(this.graph.containsEdge("h1-->likes-->h1"));
+    Vertex vertex = this.graph.getVertex("h1");
+    assertEquals(1L, vertex.getEdgeCount());
+    assertEquals(1, size(vertex.getEdges(Direction.OUT, "likes")));
+    assertEquals(1, size(vertex.getEdges(Direction.IN, "likes")));
+    assertEquals("h1", vertex.getVertices(Direction.OUT, "likes").iterator().next().getId());
+
+    this.graph.removeVertex(vertex);
+    this.graph.flush();
+    assertNull(this.graph.getVertex("h1"));
+    assertFalse(this.graph.containsEdge("h1-->likes-->h1"));
+  }
+
+  @Test
+  public void testRemoveVertex_withoutReverseTable() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, VERTEX_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY, EDGE_TABLE);
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, true);
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_COUNTS_ENABLED_KEY, true);
+    Graph graph = HBaseGraphFactory.open(conf);
+    try {
+      Vertex g1 = graph.addVertex("g1");
+      Vertex g2 = graph.addVertex("g2");
+      Vertex g3 = graph.addVertex("g3");
+      graph.addEdge(null, g2, g1, "knows");
+      graph.addEdge(null, g3, g1, "created");
+      graph.addEdge(null, g3, g2, "knows");
+      graph.addEdge(null, g2, g3, "knows-g1");
+
+      graph.removeVertex(g1);
+      graph.flush();
+      assertNull(graph.getVertex("g1"));
+      assertFalse(graph.containsEdge("g2-->knows-->g1"));
+      assertFalse(graph.containsEdge("g3-->created-->g1"));
+      assertTrue(graph.containsEdge("g3-->knows-->g2"));
+      assertTrue(graph.containsEdge("g2-->knows-g1-->g3"));
+      assertEquals(1L, graph.getVertex("g2").getEdgeCount());
+      assertEquals(0L, graph.getVertex("g3").getEdgeCount("created"));
+      assertEquals(0, graph.getOpenScannerCount());
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testRemoveVertices() {
+    this.graph.createKeyIndex("name", com.tinkerpop.blueprints.Vertex.class);
+    Vertex h1 = this.graph.addVertex("h1");
+    Vertex h2 = this.graph.addVertex("h2");
+    Vertex h3 = this.graph.addVertex("h3");
+    Vertex h4 = this.graph.addVertex("h4");
+    h1.setProperty("name", "spyware");
+    this.graph.addEdge(null, h1, h2, "knows");
+    this.graph.addEdge(null, h2, h1, "knows");
+    this.graph.addEdge(null, h3, h1, "knows");
+    this.graph.addEdge(null, h3, h2, "created");
+    this.graph.addEdge(null, h3, h4, "knows");
+    this.graph.addEdge(null, h4, h3, "knows");
+
+    assertEquals(4L, this.graph.removeVertices(Arrays.asList("h1", "h2", "h1")));
+    assertEquals(0, this.graph.getWriteBuffer().getPendingCount());
+    assertNull(this.graph.getVertex("h1"));
+    assertNull(this.graph.getVertex("h2"));
+    assertEquals(0, size(this.graph.getVertices("name", "spyware")));
+    assertFalse(this.graph.containsEdge("h1-->knows-->h2"));
+    assertFalse(this.graph.containsEdge("h3-->created-->h2"));
+    assertTrue(this.graph.containsEdge("h3-->knows-->h4"));
+    Vertex vertex = this.graph.getVertex("h3");
+    assertEquals(1L, vertex.getEdgeCount());
+    assertEquals(1, size(vertex.getEdges(Direction.OUT)));
+    assertEquals(1, size(this.graph.getVertex("h3").getEdges(Direction.IN)));
+    assertEquals(0, this.graph.getOpenScannerCount());
+  }
+
+  private static int size(Iterable<?> it) {
+    int count = 0;
+    for (@SuppressWarnings("unused") Object o : it) {
+      count++;
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Query.Compare;
+
+public class HBaseGraphQueryTest extends AbstractHBaseGraphTest {
+
+  private Graph graph = null;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    this.graph = HBaseGraphFactory.open(TEST_UTIL.getConfiguration());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    this.graph.shutdown();
+  }
+
+  private static int count(Iterable<? extends com.tinkerpop.blueprints.Element> elements) {
+    int count = 0;
+    for (com.tinkerpop.blueprints.Element element : elements) {
+      assertNotNull(element);
+      count++;
+    }
+    return count;
+  }
+
+  @Test
+  public void testVertices_has() {
+    assertEquals(2, count(graph.query().has("lang", "java").vertices()));
+  }
+
+  @Test
+  public void testVertices_interval() {
+    assertEquals(2, count(graph.query().interval("name", "l", "p").vertices()));
+  }
+
+  @Test
+  public void testVertices_hasCompare() {
+    assertEquals(3,
+      count(graph.query().has("name", "peter", Compare.GREATER_THAN_EQUAL).vertices()));
+    assertEquals(3, count(graph.query().has("name", "peter", Compare.LESS_THAN).vertices()));
+  }
+
+  @Test
+  public void testVertices_typeMismatch() {
+    assertEquals(0, count(graph.query().has("lang", 27).vertices()));
+  }
+
+  @Test
+  public void testEdges_has() {
+    assertEquals(2, count(graph.query().has("weight", "0.4").edges()));
+  }
+
+  @Test
+  public void testEdges_hasNot() {
+    HBaseGraphQuery query = (HBaseGraphQuery) graph.query();
+    assertEquals(4, count(query.hasNot("weight", "0.4").edges()));
+    query = (HBaseGraphQuery) graph.query();
+    assertEquals(0, count(query.hasNot("weight").edges()));
+  }
+
+  @Test
+  public void testEdges_limit() {
+    assertEquals(1, count(graph.query().has("weight", "0.4").limit(1).edges()));
+    assertEquals(0, graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testVertices_limitNotExact() {
+    HBaseGraphQuery query = (HBaseGraphQuery) graph.query();
+    assertEquals(3, count(query.has("name").limit(3).vertices()));
+    assertEquals(0, graph.getOpenScannerCount());
+  }
+
+}
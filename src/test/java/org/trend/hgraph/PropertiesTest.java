@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+public class PropertiesTest {
+
+  private static final byte[] ROW = Bytes.toBytes("row");
+  private static final byte[] FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  private static KeyValue newKeyValue(String key, Object value) throws Exception {
+    Properties.Pair<byte[], byte[]> pair = Properties.keyValueToBytes(key, value);
+    return new KeyValue(ROW, FAMILY, pair.key, pair.value);
+  }
+
+  private static KeyValue newStringKeyValue(String qualifier, String value) {
+    return new KeyValue(ROW, FAMILY, Bytes.toBytes(qualifier), Bytes.toBytes(value));
+  }
+
+  private static Result newResult(KeyValue... kvs) {
+    List<KeyValue> list = new ArrayList<KeyValue>();
+    for (KeyValue kv : kvs) {
+      list.add(kv);
+    }
+    return new Result(list);
+  }
+
+  @Test
+  public void testGetProperty_typed() throws Exception {
+    Properties properties = new Properties(newResult(
+      newKeyValue("b", Boolean.TRUE),
+      newKeyValue("bd", new BigDecimal("12.34")),
+      newKeyValue("d", 0.5D),
+      newKeyValue("f", 1.5F),
+      newKeyValue("i", 3),
+      newKeyValue("l", 4L),
+      newKeyValue("s", "foo"),
+      newKeyValue("sh", (short) 5)));
+    assertEquals(Boolean.TRUE, properties.getProperty("b"));
+    assertEquals(new BigDecimal("12.34"), properties.getProperty("bd"));
+    assertEquals(0.5D, properties.getProperty("d"));
+    assertEquals(1.5F, properties.getProperty("f"));
+    assertEquals(3, properties.getProperty("i"));
+    assertEquals(4L, properties.getProperty("l"));
+    assertEquals("foo", properties.getProperty("s"));
+    assertEquals((short) 5, properties.getProperty("sh"));
+    assertNull(properties.getProperty("x"));
+
+    assertEquals(8, properties.getCount());
+    assertEquals(Double.class, properties.getPropertyType("d"));
+    assertEquals(0.5D, properties.getProperty("d"));
+    assertEquals(4L, properties.getProperty("l"));
+  }
+
+  @Test
+  public void testGetProperty_decodedOnce() throws Exception {
+    Properties properties = new Properties(newResult(
+      newKeyValue("bd", new BigDecimal("12.34")),
+      newKeyValue("i", 3)));
+    Object value = properties.getProperty("bd");
+    assertEquals(new BigDecimal("12.34"), value);
+    assertSame(value, properties.getProperty("bd"));
+    assertNull(properties.getProperty("x"));
+    assertNull(properties.getProperty("x"));
+
+    // the found and missing keys do not change the others
+    assertEquals(2, properties.getCount());
+    assertEquals(new HashSet<String>(Arrays.asList("bd", "i")), properties.getPropertyKeys());
+    assertEquals(3, properties.getProperty("i"));
+    assertNull(properties.getProperty("x"));
+  }
+
+  @Test
+  public void testGetProperty_stringForm() {
+    Properties properties = new Properties(newResult(
+      newStringKeyValue("d@Double", "0.4"),
+      newStringKeyValue("l@Long", "abc"),
+      newStringKeyValue("u@Unknown", "bar")));
+    assertEquals(0.4D, properties.getProperty("d"));
+    assertEquals("abc", properties.getProperty("l"));
+    assertEquals("bar", properties.getProperty("u"));
+    assertEquals(Double.class, properties.getPropertyType("d"));
+    assertEquals(String.class, properties.getPropertyType("l"));
+  }
+
+  @Test
+  public void testGetProperty_stringFormOfBinaryWidth() {
+    Properties properties = new Properties(newResult(
+      newStringKeyValue("b0@Boolean@String", "0"),
+      newStringKeyValue("b1@Boolean@String", "1"),
+      newStringKeyValue("bd@BigDecimal@String", "12.345"),
+      newStringKeyValue("d@Double@String", "0.123456"),
+      newStringKeyValue("f@Float@String", "0.25"),
+      newStringKeyValue("i@Integer@String", "1234"),
+      newStringKeyValue("l@Long@String", "12345678"),
+      newStringKeyValue("sh@Short@String", "12"),
+      newStringKeyValue("x@Integer@String", "abcd")));
+    assertEquals(Boolean.FALSE, properties.getProperty("b0"));
+    assertEquals(Boolean.TRUE, properties.getProperty("b1"));
+    assertEquals(new BigDecimal("12.345"), properties.getProperty("bd"));
+    assertEquals(0.123456D, properties.getProperty("d"));
+    assertEquals(0.25F, properties.getProperty("f"));
+    assertEquals(1234, properties.getProperty("i"));
+    assertEquals(12345678L, properties.getProperty("l"));
+    assertEquals((short) 12, properties.getProperty("sh"));
+    assertEquals(Integer.class, properties.getPropertyType("i"));
+    assertEquals("abcd", properties.getProperty("x"));
+
+    // without the suffix, a value of the binary width is always binary
+    properties = new Properties(newResult(newStringKeyValue("i@Integer", "1234")));
+    assertEquals(825373492, properties.getProperty("i"));
+  }
+
+  @Test
+  public void testPropertyIndex_stringFormOfBinaryWidth() throws Exception {
+    List<Put> puts = PropertyIndex.toPuts("row",
+      newResult(newStringKeyValue("i@Integer@String", "1234")), Arrays.asList("i"));
+    assertEquals(1, puts.size());
+    assertTrue(Bytes.equals(PropertyIndex.getRow("i", 1234, "row"), puts.get(0).getRow()));
+  }
+
+  @Test
+  public void testGetProperty_binaryRoundTrip() throws Exception {
+    Properties properties = new Properties(newResult(
+      newKeyValue("b", Boolean.FALSE),
+      newKeyValue("bd", new BigDecimal("1")),
+      newKeyValue("i", 1234),
+      newKeyValue("ip", 825373492),
+      newKeyValue("l", 0x3030303030303030L),
+      newKeyValue("sh", (short) 12),
+      newKeyValue("shp", (short) 12345)));
+    assertEquals(Boolean.FALSE, properties.getProperty("b"));
+    assertEquals(new BigDecimal("1"), properties.getProperty("bd"));
+    assertEquals(1234, properties.getProperty("i"));
+    // the binary forms of all printable bytes, "1234", "00000000" and "09"
+    assertEquals(825373492, properties.getProperty("ip"));
+    assertEquals(0x3030303030303030L, properties.getProperty("l"));
+    assertEquals((short) 12, properties.getProperty("sh"));
+    assertEquals((short) 12345, properties.getProperty("shp"));
+  }
+
+  @Test
+  public void testSetRemoveProperty() throws Exception {
+    Properties properties = new Properties(newResult(
+      newKeyValue("a", 1L), newKeyValue("b", 2L), newKeyValue("c", 3L)));
+    assertEquals(2L, properties.removeProperty("b"));
+    assertEquals(2, properties.getCount());
+    assertNull(properties.getProperty("b"));
+    assertEquals(3L, properties.getProperty("c"));
+
+    assertEquals(1L, properties.setProperty("a", "one"));
+    assertEquals("one", properties.getProperty("a"));
+    assertEquals(String.class, properties.getPropertyType("a"));
+    for (int a = 0; a < 10; a++) {
+      properties.setProperty("key" + a, a);
+    }
+    assertEquals(12, properties.getCount());
+    assertTrue(properties.getPropertyKeys().contains("key9"));
+    assertEquals(9, properties.getProperty("key9"));
+  }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+public class ResultCacheTest {
+
+  private static Result newResult(String row) {
+    return new Result(new KeyValue[] { new KeyValue(Bytes.toBytes(row), Bytes.toBytes("property"),
+        Bytes.toBytes("name@String"), Bytes.toBytes("value-of-" + row)) });
+  }
+
+  @Test
+  public void testGetPut() {
+    ResultCache cache = new ResultCache(10, 0L, 0L);
+    assertNull(cache.get("a"));
+    cache.put("a", newResult("a"));
+    assertNotNull(cache.get("a"));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.size());
+    assertTrue(cache.getBytes() > 0);
+
+    cache.invalidate("a");
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getBytes());
+  }
+
+  @Test
+  public void testPut_emptyResultIgnored() {
+    ResultCache cache = new ResultCache(10, 0L, 0L);
+    cache.put("a", new Result());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testEviction_maxEntries() {
+    // one entry per segment
+    ResultCache cache = new ResultCache(1, 0L, 0L);
+    cache.put("a", newResult("a"));
+    cache.put("b", newResult("b"));
+    cache.put("c", newResult("c"));
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.getEvictionCount());
+    assertNotNull(cache.get("c"));
+  }
+
+  @Test
+  public void testEviction_lru() {
+    // 16 segments with 2 entries each, pick the keys falling in the same segment
+    ResultCache cache = new ResultCache(32, 0L, 0L);
+    String[] keys = new String[3];
+    for (int a = 0, b = 0; b < keys.length; a++) {
+      String key = "key" + a;
+      if ((key.hashCode() & Integer.MAX_VALUE) % 16 == 0) keys[b++] = key;
+    }
+    cache.put(keys[0], newResult(keys[0]));
+    cache.put(keys[1], newResult(keys[1]));
+    // keys[1] becomes the least recently used one
+    assertNotNull(cache.get(keys[0]));
+    cache.put(keys[2], newResult(keys[2]));
+    assertEquals(1, cache.getEvictionCount());
+    assertNotNull(cache.get(keys[0]));
+    assertNull(cache.get(keys[1]));
+    assertNotNull(cache.get(keys[2]));
+  }
+
+  @Test
+  public void testEviction_maxBytes() {
+    ResultCache cache = new ResultCache(0, 1L, 0L);
+    for (int a = 0; a < 100; a++) {
+      cache.put("key" + a, newResult("key" + a));
+    }
+    // each segment always keeps the newest one
+    assertTrue(cache.size() <= 16);
+    assertTrue(cache.getEvictionCount() >= 100 - 16);
+    assertEquals(100, cache.size() + cache.getEvictionCount());
+  }
+
+  @Test
+  public void testExpiration() throws InterruptedException {
+    ResultCache cache = new ResultCache(10, 0L, 1L);
+    cache.put("a", newResult("a"));
+    Thread.sleep(10L);
+    assertNull(cache.get("a"));
+    assertEquals(1, cache.getExpirationCount());
+    assertEquals(0, cache.size());
+  }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+public class RowKeyCodecTest {
+
+  @Test
+  public void testToVertexKey() {
+    byte[] key = RowKeyCodec.toVertexKey("http://www.example.com/a/very/long/url");
+    assertEquals(RowKeyCodec.VERTEX_KEY_LENGTH, key.length);
+    assertArrayEquals(key, RowKeyCodec.toVertexKey("http://www.example.com/a/very/long/url"));
+    assertFalse(Arrays.equals(key, RowKeyCodec.toVertexKey("http://www.example.com/")));
+  }
+
+  @Test
+  public void testToEdgeKey() {
+    byte[] key = RowKeyCodec.toEdgeKey("40012", (short) 2, "40024");
+    assertEquals(RowKeyCodec.EDGE_KEY_LENGTH, key.length);
+    assertArrayEquals(RowKeyCodec.toVertexKey("40012"), RowKeyCodec.getSourceKey(key));
+    assertArrayEquals(RowKeyCodec.toVertexKey("40024"), RowKeyCodec.getTargetKey(key));
+    assertEquals(2, RowKeyCodec.getLabelCode(key));
+
+    byte[] prefix = RowKeyCodec.getEdgePrefix(RowKeyCodec.toVertexKey("40012"), (short) 2);
+    assertTrue(Bytes.startsWith(key, prefix));
+  }
+
+  @Test
+  public void testReverse() {
+    byte[] key = RowKeyCodec.toEdgeKey("40012", (short) 0xFFFF, "40024");
+    byte[] reversed = RowKeyCodec.reverse(key);
+    assertArrayEquals(RowKeyCodec.toEdgeKey("40024", (short) 0xFFFF, "40012"), reversed);
+    assertArrayEquals(key, RowKeyCodec.reverse(reversed));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetSourceKey_invalidKey() {
+    RowKeyCodec.getSourceKey(Bytes.toBytes("40012-->knows-->40024"));
+  }
+
+  @Test
+  public void testLabelDictionary() {
+    LabelDictionary labels = new LabelDictionary(Arrays.asList("created", "knows"));
+    assertEquals(1, labels.getCode("created"));
+    assertEquals(2, labels.getCode("knows"));
+    assertEquals("knows", labels.getLabel((short) 2));
+    assertTrue(labels.contains("created"));
+    assertFalse(labels.contains("likes"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLabelDictionary_unknownLabel() {
+    new LabelDictionary(Arrays.asList("created")).getCode("knows");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLabelDictionary_duplicatedLabels() {
+    new LabelDictionary(Arrays.asList("created", "created"));
+  }
+
+}
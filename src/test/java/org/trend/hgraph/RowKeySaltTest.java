@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+public class RowKeySaltTest {
+
+  @Test
+  public void testToRow_notEnabled() {
+    RowKeySalt salt = RowKeySalt.create(new Configuration(false));
+    assertFalse(salt.isEnabled());
+    assertArrayEquals(Bytes.toBytes("40012"), salt.toRow("40012"));
+    assertEquals("40012-->knows-->40008", salt.toKey(Bytes.toBytes("40012-->knows-->40008")));
+    assertEquals(0, salt.getSplitKeys().length);
+
+    assertFalse(new RowKeySalt(1).isEnabled());
+  }
+
+  @Test
+  public void testToRowAndToKey() {
+    Configuration conf = new Configuration(false);
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_TABLE_SALT_BUCKETS_KEY, 16);
+    RowKeySalt salt = RowKeySalt.create(conf);
+    assertTrue(salt.isEnabled());
+    assertEquals(16, salt.getBuckets());
+
+    String row = salt.toRowString("40012");
+    assertEquals(7, row.length());
+    assertTrue(row.endsWith("40012"));
+    assertEquals("40012", salt.toKey(Bytes.toBytes(row)));
+
+    String edgeId = "40012-->knows-->40008";
+    assertEquals("40012-->knows-->40008", salt.toKey(salt.toRow(edgeId)));
+  }
+
+  @Test
+  public void testToRow_sameSaltForVertexAndItsEdges() {
+    RowKeySalt salt = new RowKeySalt(16);
+    String vertexRow = salt.toRowString("40012");
+    assertTrue(salt.toRowString("40012-->knows-->40008").startsWith(vertexRow + "-->"));
+    assertTrue(salt.toRowString("40012-->").startsWith(vertexRow));
+    assertTrue(salt.toRowString("40012-->knows-->").startsWith(vertexRow));
+    // the reverse edges are salted by their target vertex
+    assertTrue(salt.toRowString("40008<--knows<--40012").startsWith(salt.toRowString("40008")));
+  }
+
+  @Test
+  public void testToRow_spread() {
+    RowKeySalt salt = new RowKeySalt(8);
+    Set<String> salts = new HashSet<String>();
+    for (int a = 0; a < 1000; a++) {
+      salts.add(salt.toRowString("www.host" + a + ".com").substring(0, 1));
+    }
+    assertEquals(8, salts.size());
+  }
+
+  @Test
+  public void testGetSplitKeys() {
+    byte[][] keys = new RowKeySalt(12).getSplitKeys();
+    assertEquals(11, keys.length);
+    assertEquals("01", Bytes.toString(keys[0]));
+    assertEquals("11", Bytes.toString(keys[10]));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRowKeySalt_invalidBuckets() {
+    new RowKeySalt(-1);
+  }
+
+}
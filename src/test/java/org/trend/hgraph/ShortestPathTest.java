@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ShortestPathTest extends AbstractHBaseGraphTest {
+
+  private Graph graph = null;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    this.graph = HBaseGraphFactory.open(TEST_UTIL.getConfiguration());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    this.graph.shutdown();
+  }
+
+  @Test
+  public void testGetShortestPaths() {
+    List<List<String>> paths = this.graph.getShortestPaths("40012", "40020", 3);
+    assertEquals(1, paths.size());
+    assertEquals(Arrays.asList("40012", "40024", "40020"), paths.get(0));
+
+    paths = this.graph.getShortestPaths("40012", "40004", 3);
+    assertEquals(Arrays.asList(Arrays.asList("40012", "40004")), paths);
+    assertEquals(0, this.graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testFind_sameVertex() {
+    assertEquals(Arrays.asList(Arrays.asList("40012")),
+      new ShortestPath(this.graph).find("40012", "40012"));
+  }
+
+  @Test
+  public void testFind_directedNotConnected() {
+    // 40016 only reaches 40004
+    assertTrue(new ShortestPath(this.graph).find("40016", "40020").isEmpty());
+  }
+
+  @Test
+  public void testFind_undirected() {
+    ShortestPath shortestPath = new ShortestPath(this.graph);
+    assertTrue(shortestPath.find("40016", "40024").isEmpty());
+
+    // both sides grow along the outgoing edges and meet at 40004
+    shortestPath.setDirected(false);
+    List<List<String>> paths = shortestPath.find("40016", "40024");
+    assertEquals(Arrays.asList(Arrays.asList("40016", "40004", "40024")), paths);
+
+    paths = shortestPath.find("40012", "40016");
+    assertEquals(Arrays.asList(Arrays.asList("40012", "40004", "40016")), paths);
+  }
+
+  @Test
+  public void testFind_limits() {
+    ShortestPath shortestPath = new ShortestPath(this.graph);
+    shortestPath.setMaxDepth(1);
+    assertTrue(shortestPath.find("40012", "40020").isEmpty());
+
+    shortestPath.setMaxDepth(6);
+    shortestPath.setMaxVisited(2);
+    assertTrue(shortestPath.find("40012", "40020").isEmpty());
+    // the roots and one neighbor of 40012, its first level is cut short
+    shortestPath.setMaxVisited(3);
+    assertTrue(shortestPath.find("40012", "40020").isEmpty());
+
+    shortestPath.setMaxVisited(100);
+    shortestPath.setLabels("knows");
+    assertTrue(shortestPath.find("40012", "40020").isEmpty());
+    shortestPath.setLabels("knows", "created");
+    assertEquals(1, shortestPath.find("40012", "40020").size());
+  }
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.junit.Test;
+
+public class TablePoolTest {
+
+  /** creates the fake tables, and counts the released ones */
+  private static class FakeTableFactory implements HTableInterfaceFactory {
+    private final AtomicInteger releaseCount = new AtomicInteger();
+
+    @Override
+    public HTableInterface createHTableInterface(Configuration conf, final byte[] tableName) {
+      return (HTableInterface) Proxy.newProxyInstance(HTableInterface.class.getClassLoader(),
+        new Class<?>[] { HTableInterface.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("getTableName".equals(method.getName())) return tableName;
+            if ("hashCode".equals(method.getName())) return System.identityHashCode(proxy);
+            if ("equals".equals(method.getName())) return proxy == args[0];
+            return null;
+          }
+        });
+    }
+
+    @Override
+    public void releaseHTableInterface(HTableInterface table) throws IOException {
+      this.releaseCount.incrementAndGet();
+    }
+  }
+
+  private static Configuration newConf(int maxSize, int maxActive, long waitTimeout) {
+    Configuration conf = new Configuration(false);
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_SIZE_KEY, maxSize);
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_MAX_ACTIVE_KEY, maxActive);
+    conf.setLong(HBaseGraphConstants.HBASE_GRAPH_CLIENT_POOL_WAIT_TIMEOUT_KEY, waitTimeout);
+    return conf;
+  }
+
+  @Test
+  public void testGetTable_reused() {
+    TablePool pool = new TablePool(newConf(10, 0, 0L), new FakeTableFactory());
+    HTableInterface table = pool.getTable("t1");
+    assertEquals(1, pool.getBorrowedCount());
+    assertEquals(0, pool.getIdleCount());
+    pool.returnTable(table);
+    assertEquals(0, pool.getBorrowedCount());
+    assertEquals(1, pool.getIdleCount());
+
+    assertSame(table, pool.getTable("t1"));
+    assertNotSame(table, pool.getTable("t2"));
+    assertEquals(2, pool.getBorrowedCount());
+    assertEquals(0, pool.getIdleCount());
+    assertEquals(3, pool.getBorrowCount());
+    assertEquals(2, pool.getCreateCount());
+  }
+
+  @Test
+  public void testReturnTable_maxSize() {
+    FakeTableFactory factory = new FakeTableFactory();
+    TablePool pool = new TablePool(newConf(2, 0, 0L), factory);
+    HTableInterface[] tables = new HTableInterface[3];
+    for (int a = 0; a < tables.length; a++) {
+      tables[a] = pool.getTable("t1");
+    }
+    for (HTableInterface table : tables) {
+      pool.returnTable(table);
+    }
+    assertEquals(0, pool.getBorrowedCount());
+    assertEquals(2, pool.getIdleCount());
+    assertEquals(1, factory.releaseCount.get());
+  }
+
+  @Test
+  public void testGetTable_maxActiveTimedOut() {
+    TablePool pool = new TablePool(newConf(10, 1, 50L), new FakeTableFactory());
+    pool.getTable("t1");
+    // other tables are not limited by t1
+    pool.getTable("t2");
+    try {
+      pool.getTable("t1");
+      fail("shall time out");
+    } catch (RuntimeException e) {
+      // expected
+    }
+    assertEquals(2, pool.getBorrowedCount());
+    assertTrue(pool.getMaxWaitTime() >= 50L);
+  }
+
+  @Test
+  public void testGetTable_maxActiveWaited() throws Exception {
+    final TablePool pool = new TablePool(newConf(10, 1, 10000L), new FakeTableFactory());
+    final HTableInterface table = pool.getTable("t1");
+    Thread t = new Thread() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(100L);
+        } catch (InterruptedException e) {
+          return;
+        }
+        pool.returnTable(table);
+      }
+    };
+    t.start();
+    assertSame(table, pool.getTable("t1"));
+    t.join();
+    assertEquals(1, pool.getCreateCount());
+    assertTrue(pool.getMaxWaitTime() >= 50L);
+    assertTrue(pool.getWaitTime() >= pool.getMaxWaitTime());
+  }
+
+  @Test
+  public void testClose() {
+    FakeTableFactory factory = new FakeTableFactory();
+    TablePool pool = new TablePool(newConf(10, 0, 0L), factory);
+    HTableInterface t1 = pool.getTable("t1");
+    HTableInterface t2 = pool.getTable("t2");
+    pool.returnTable(t1);
+    pool.close();
+    assertTrue(pool.isClosed());
+    assertEquals(0, pool.getIdleCount());
+    assertEquals(1, factory.releaseCount.get());
+
+    // returned after closed
+    pool.returnTable(t2);
+    assertEquals(0, pool.getIdleCount());
+    assertEquals(2, factory.releaseCount.get());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGetTable_closed() {
+    TablePool pool = new TablePool(newConf(10, 0, 0L), new FakeTableFactory());
+    pool.close();
+    pool.getTable("t1");
+  }
+
+  @Test
+  public void testAcquire_sharedPerCluster() {
+    Configuration conf = newConf(10, 0, 0L);
+    conf.set(HConstants.ZOOKEEPER_QUORUM, "table-pool-test");
+    Configuration other = new Configuration(conf);
+    other.set(HConstants.ZOOKEEPER_ZNODE_PARENT, "/other");
+
+    TablePool pool = TablePool.acquire(conf);
+    TablePool otherPool = TablePool.acquire(other);
+    try {
+      assertSame(pool, TablePool.acquire(new Configuration(conf)));
+      assertNotSame(pool, otherPool);
+
+      pool.close();
+      assertFalse(pool.isClosed());
+      pool.close();
+      assertTrue(pool.isClosed());
+
+      TablePool newPool = TablePool.acquire(conf);
+      assertNotSame(pool, newPool);
+      newPool.close();
+    } finally {
+      otherPool.close();
+    }
+  }
+
+  @Test
+  public void testGetClusterKey() {
+    Configuration conf = new Configuration(false);
+    conf.set(HConstants.ZOOKEEPER_QUORUM, "zk1,zk2");
+    assertEquals("zk1,zk2:2181:/hbase", TablePool.getClusterKey(conf));
+  }
+
+}
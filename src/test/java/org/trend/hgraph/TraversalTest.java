@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TraversalTest extends AbstractHBaseGraphTest {
+
+  private Graph graph = null;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    this.graph = HBaseGraphFactory.open(TEST_UTIL.getConfiguration());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    this.graph.shutdown();
+  }
+
+  /** collects the visited ids by depth */
+  private static class CollectVisitor implements Traversal.Visitor {
+    private final List<Set<String>> levels = new ArrayList<Set<String>>();
+    private final List<String> edges = new ArrayList<String>();
+    private int maxVertices = Integer.MAX_VALUE;
+    private int vertexCount = 0;
+
+    @Override
+    public boolean visitVertex(String id, Vertex vertex, int depth) {
+      while (this.levels.size() <= depth) {
+        this.levels.add(new HashSet<String>());
+      }
+      this.levels.get(depth).add(id);
+      return ++this.vertexCount < this.maxVertices;
+    }
+
+    @Override
+    public boolean visitEdge(String id, int depth) {
+      this.edges.add(id);
+      return true;
+    }
+  }
+
+  private static Set<String> set(String... ids) {
+    return new HashSet<String>(Arrays.asList(ids));
+  }
+
+  @Test
+  public void testTraverse_twoHops() {
+    Traversal traversal = new Traversal(this.graph);
+    traversal.setMaxDepth(2);
+    CollectVisitor visitor = new CollectVisitor();
+    assertEquals(5, traversal.traverse(visitor, "40012"));
+    assertEquals(3, visitor.levels.size());
+    assertEquals(set("40012"), visitor.levels.get(0));
+    assertEquals(set("40004", "40008", "40024"), visitor.levels.get(1));
+    assertEquals(set("40020"), visitor.levels.get(2));
+    // the edge back to the visited 40004 is still reported
+    assertEquals(5, visitor.edges.size());
+  }
+
+  @Test
+  public void testTraverse_labels() {
+    Traversal traversal = new Traversal(this.graph);
+    traversal.setMaxDepth(3);
+    traversal.setLabels("knows");
+    CollectVisitor visitor = new CollectVisitor();
+    assertEquals(3, traversal.traverse(visitor, "40012"));
+    assertEquals(set("40008", "40024"), visitor.levels.get(1));
+  }
+
+  @Test
+  public void testTraverse_maxPerLevel() {
+    Traversal traversal = new Traversal(this.graph);
+    traversal.setMaxDepth(2);
+    traversal.setMaxPerLevel(1);
+    CollectVisitor visitor = new CollectVisitor();
+    // only the first edge in rowkey order is followed, 40004 has no edges
+    assertEquals(2, traversal.traverse(visitor, "40012"));
+    assertEquals(set("40004"), visitor.levels.get(1));
+    // the scan stops at the first edge
+    assertEquals(1, visitor.edges.size());
+
+    traversal.setVisitAllEdges(true);
+    visitor = new CollectVisitor();
+    assertEquals(2, traversal.traverse(visitor, "40012"));
+    assertEquals(set("40004"), visitor.levels.get(1));
+    assertEquals(3, visitor.edges.size());
+  }
+
+  @Test
+  public void testTraverse_parallelChunksAndLoadVertices() {
+    Traversal traversal = new Traversal(this.graph);
+    traversal.setMaxDepth(2);
+    traversal.setChunkSize(1);
+    traversal.setParallelism(2);
+    traversal.setLoadVertices(true);
+    final List<Vertex> vertices = new ArrayList<Vertex>();
+    CollectVisitor visitor = new CollectVisitor() {
+      @Override
+      public boolean visitVertex(String id, Vertex vertex, int depth) {
+        vertices.add(vertex);
+        return super.visitVertex(id, vertex, depth);
+      }
+    };
+    assertEquals(6, traversal.traverse(visitor, "40012", "40016", "40012"));
+    assertEquals(set("40004", "40008", "40024"), visitor.levels.get(1));
+    assertEquals(set("40020"), visitor.levels.get(2));
+    for (Vertex vertex : vertices) {
+      assertNotNull(vertex);
+    }
+    assertEquals(0, this.graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testTraverse_stoppedByVisitor() {
+    Traversal traversal = new Traversal(this.graph);
+    traversal.setMaxDepth(2);
+    CollectVisitor visitor = new CollectVisitor();
+    visitor.maxVertices = 2;
+    assertEquals(2, traversal.traverse(visitor, "40012"));
+  }
+
+  @Test
+  public void testTraverse_missingSeedSkipped() {
+    Traversal traversal = new Traversal(this.graph);
+    traversal.setLoadVertices(true);
+    assertEquals(0, traversal.traverse(new CollectVisitor(), "99999"));
+  }
+
+}
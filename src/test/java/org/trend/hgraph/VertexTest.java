@@ -19,7 +19,14 @@ package org.trend.hgraph;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.apache.commons.lang.time.StopWatch;
+import org.apache.hadoop.conf.Configuration;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -70,7 +77,37 @@ public class VertexTest extends AbstractHBaseGraphTest {
     }
     assertEquals(2, count);
   }
-  
+
+  @Test
+  public void testGetEdgesDirectionOutStringArray_labelNotPrefix() {
+    Vertex vertex = this.graph.getVertex("40012");
+    assertNotNull(vertex);
+    Iterable<com.tinkerpop.blueprints.Edge> edges =
+        vertex.getEdges(Direction.OUT, "know", "create");
+    assertNotNull(edges);
+    int count = 0;
+    for(com.tinkerpop.blueprints.Edge edge : edges) {
+      assertNotNull(edge);
+      count++;
+    }
+    assertEquals(0, count);
+  }
+
+  @Test
+  public void testGetEdgesDirectionOutStringArray_multiLabels() {
+    Vertex vertex = this.graph.getVertex("40012");
+    assertNotNull(vertex);
+    Iterable<com.tinkerpop.blueprints.Edge> edges =
+        vertex.getEdges(Direction.OUT, "knows", "created", "knows");
+    assertNotNull(edges);
+    int count = 0;
+    for(com.tinkerpop.blueprints.Edge edge : edges) {
+      assertNotNull(edge);
+      count++;
+    }
+    assertEquals(3, count);
+  }
+
   @Test(expected=RuntimeException.class)
   public void testGetEdgesDirectionInStringArray() {
     Vertex vertex = this.graph.getVertex("40004");
@@ -100,7 +137,7 @@ public class VertexTest extends AbstractHBaseGraphTest {
     assertEquals(3, vertex.getEdgeCount());
   }
 
-  @Test(expected=UnsupportedOperationException.class)
+  @Test
   public void testGetVerticesDirectionOutStringArray() {
     Vertex vertex = this.graph.getVertex("40012");
     System.out.println("vertex=" + vertex);
@@ -116,6 +153,41 @@ public class VertexTest extends AbstractHBaseGraphTest {
     assertEquals(2, count);
   }
   
+  @Test
+  public void testGetVerticesDirectionOutNoLabels() {
+    Vertex vertex = this.graph.getVertex("40012");
+    assertNotNull(vertex);
+    Iterable<com.tinkerpop.blueprints.Vertex> vertices = vertex.getVertices(Direction.OUT);
+    assertNotNull(vertices);
+    int count = 0;
+    for(com.tinkerpop.blueprints.Vertex v : vertices) {
+      assertNotNull(v);
+      count++;
+    }
+    assertEquals(3, count);
+  }
+
+  @Test
+  public void testGetVerticesDirectionOutStringArray_smallBatch() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_VERTICES_BATCH_SIZE_KEY, 1);
+    Graph graph = HBaseGraphFactory.open(conf);
+    try {
+      Vertex vertex = graph.getVertex("40012");
+      assertNotNull(vertex);
+      Iterable<com.tinkerpop.blueprints.Vertex> vertices =
+          vertex.getVertices(Direction.OUT, "knows", "created");
+      int count = 0;
+      for(com.tinkerpop.blueprints.Vertex v : vertices) {
+        assertNotNull(v);
+        count++;
+      }
+      assertEquals(3, count);
+    } finally {
+      graph.shutdown();
+    }
+  }
+
   @Test(expected=RuntimeException.class)
   public void testGetVerticesDirectionInStringArray() {
     Vertex vertex = this.graph.getVertex("40004");
@@ -126,4 +198,106 @@ public class VertexTest extends AbstractHBaseGraphTest {
         vertex.getVertices(Direction.IN, "created");
   }
 
+  @Test
+  public void testQueryCount() {
+    Vertex vertex = this.graph.getVertex("40012");
+    assertEquals(3, vertex.query().direction(Direction.OUT).count());
+    assertEquals(2, vertex.query().direction(Direction.OUT).labels("knows", "foo").count());
+    assertEquals(1, vertex.query().direction(Direction.OUT).has("weight", "0.4").count());
+    assertEquals(2, vertex.query().direction(Direction.OUT).limit(2).count());
+    assertEquals(0, this.graph.getOpenScannerCount());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testQueryVertexIds() {
+    Vertex vertex = this.graph.getVertex("40012");
+    Iterable<String> ids =
+        (Iterable<String>) vertex.query().direction(Direction.OUT).labels("knows").vertexIds();
+    Set<String> set = new HashSet<String>();
+    for (String id : ids) {
+      set.add(id);
+    }
+    assertEquals(new HashSet<String>(Arrays.asList("40008", "40024")), set);
+  }
+
+  @Test
+  public void testQueryEdgesAndVertices() {
+    Vertex vertex = this.graph.getVertex("40012");
+    int count = 0;
+    for (com.tinkerpop.blueprints.Edge edge : vertex.query().direction(Direction.OUT)
+        .interval("weight", "0.45", "1.5").edges()) {
+      assertEquals("knows", edge.getLabel());
+      count++;
+    }
+    assertEquals(2, count);
+
+    count = 0;
+    for (com.tinkerpop.blueprints.Vertex v : vertex.query().direction(Direction.OUT)
+        .labels("created").vertices()) {
+      assertEquals("40004", v.getId());
+      count++;
+    }
+    assertEquals(1, count);
+
+    count = 0;
+    for (com.tinkerpop.blueprints.Vertex v : vertex.query().direction(Direction.OUT).limit(1)
+        .vertices()) {
+      assertNotNull(v);
+      count++;
+    }
+    assertEquals(1, count);
+    assertEquals(0, this.graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testGetEdgesPage() {
+    Vertex vertex = this.graph.getVertex("40012");
+    EdgePage page = vertex.getEdges(null, 2, null);
+    assertEquals(2, page.getEdges().size());
+    assertEquals("40012-->created-->40004", page.getEdges().get(0).getId());
+    assertEquals("40012-->knows-->40008", page.getEdges().get(1).getId());
+    assertTrue(page.hasMore());
+
+    page = vertex.getEdges(null, 2, page.getContinuationToken());
+    assertEquals(1, page.getEdges().size());
+    assertEquals("40012-->knows-->40024", page.getEdges().get(0).getId());
+    assertFalse(page.hasMore());
+
+    // exactly one full page
+    page = vertex.getEdges(new String[] { "knows", "created" }, 3, null);
+    assertEquals(3, page.getEdges().size());
+    assertNull(page.getContinuationToken());
+    assertEquals(0, this.graph.getOpenScannerCount());
+  }
+
+  @Test
+  public void testGetEdgesPage_labels() {
+    Vertex vertex = this.graph.getVertex("40012");
+    String[] labels = new String[] { "knows" };
+    List<String> ids = new ArrayList<String>();
+    String token = null;
+    do {
+      EdgePage page = vertex.getEdges(labels, 1, token);
+      for (Edge edge : page.getEdges()) {
+        ids.add(edge.getId().toString());
+      }
+      token = page.getContinuationToken();
+    } while (null != token);
+    assertEquals(Arrays.asList("40012-->knows-->40008", "40012-->knows-->40024"), ids);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetEdgesPage_tokenOfOtherLabels() {
+    Vertex vertex = this.graph.getVertex("40012");
+    EdgePage page = vertex.getEdges(null, 1, null);
+    vertex.getEdges(new String[] { "knows" }, 1, page.getContinuationToken());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testQuery_bothWithoutReverseTable() {
+    Vertex vertex = this.graph.getVertex("40012");
+    vertex.query().count();
+  }
+
 }
@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VisitedSetTest {
+
+  @Test
+  public void testAdd() {
+    VisitedSet set = new VisitedSet();
+    assertTrue(set.add("40012"));
+    assertFalse(set.add("40012"));
+    assertTrue(set.add(""));
+    assertEquals(2, set.size());
+    assertTrue(set.contains("40012"));
+    assertFalse(set.contains("40004"));
+  }
+
+  @Test
+  public void testAdd_resized() {
+    VisitedSet set = new VisitedSet(1);
+    for (int a = 0; a < 10000; a++) {
+      assertTrue(set.add("id-" + a));
+    }
+    assertEquals(10000, set.size());
+    for (int a = 0; a < 10000; a++) {
+      assertTrue(set.contains("id-" + a));
+      assertFalse(set.add("id-" + a));
+    }
+    assertFalse(set.contains("id-10000"));
+  }
+
+}
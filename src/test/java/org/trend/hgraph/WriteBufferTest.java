@@ -0,0 +1,340 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Test;
+
+public class WriteBufferTest {
+
+  private static final byte[] FAMILY = Bytes.toBytes("count");
+  private static final byte[] QUALIFIER = Bytes.toBytes("edgeCount");
+
+  /** records the batches and increments sent to the fake tables */
+  private static class FakeTableFactory implements HTableInterfaceFactory {
+    private final List<List<? extends Row>> batches = new CopyOnWriteArrayList<List<? extends Row>>();
+    private final List<Increment> increments = new CopyOnWriteArrayList<Increment>();
+    /** rows having the guard column */
+    private final Set<String> guarded = new CopyOnWriteArraySet<String>();
+    private volatile boolean failed = false;
+    private volatile CountDownLatch blocker = null;
+
+    @Override
+    public HTableInterface createHTableInterface(Configuration conf, final byte[] tableName) {
+      return (HTableInterface) Proxy.newProxyInstance(HTableInterface.class.getClassLoader(),
+        new Class<?>[] { HTableInterface.class }, new InvocationHandler() {
+          @SuppressWarnings("unchecked")
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("getTableName".equals(method.getName())) return tableName;
+            if ("hashCode".equals(method.getName())) return System.identityHashCode(proxy);
+            if ("equals".equals(method.getName())) return proxy == args[0];
+            if ("batch".equals(method.getName())) {
+              if (null != blocker) blocker.await();
+              if (failed) throw new IOException("fake failure");
+              batches.add((List<? extends Row>) args[0]);
+            }
+            if ("increment".equals(method.getName())) increments.add((Increment) args[0]);
+            if ("get".equals(method.getName()) && args[0] instanceof List) {
+              List<Get> gets = (List<Get>) args[0];
+              Result[] results = new Result[gets.size()];
+              for (int a = 0; a < results.length; a++) {
+                byte[] row = gets.get(a).getRow();
+                results[a] = guarded.contains(Bytes.toString(row)) ?
+                    new Result(new KeyValue[] { new KeyValue(row, FAMILY, QUALIFIER,
+                        Bytes.toBytes(1L)) }) : new Result();
+              }
+              return results;
+            }
+            return null;
+          }
+        });
+    }
+
+    @Override
+    public void releaseHTableInterface(HTableInterface table) throws IOException {
+    }
+  }
+
+  private final FakeTableFactory factory = new FakeTableFactory();
+  private WriteBuffer buffer = null;
+
+  private WriteBuffer newBuffer(int batchSize, int maxPending, long interval) {
+    Configuration conf = new Configuration(false);
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BATCH_SIZE_KEY, batchSize);
+    conf.setInt(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_BUFFER_MAX_PENDING_KEY, maxPending);
+    conf.setLong(HBaseGraphConstants.HBASE_GRAPH_CLIENT_WRITE_FLUSH_INTERVAL_KEY, interval);
+    this.buffer = new WriteBuffer(new TablePool(conf, this.factory), conf);
+    return this.buffer;
+  }
+
+  private static Put newPut(String row) {
+    Put put = new Put(Bytes.toBytes(row));
+    put.add(Bytes.toBytes("property"), Bytes.toBytes("name@String"), Bytes.toBytes(row));
+    return put;
+  }
+
+  private static void waitFor(List<?> list, int size) throws InterruptedException {
+    for (int a = 0; a < 100 && list.size() < size; a++) {
+      Thread.sleep(50L);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    if (null != this.buffer) this.buffer.close();
+  }
+
+  @Test
+  public void testAdd_flushedByBatchSize() throws InterruptedException {
+    WriteBuffer buffer = newBuffer(2, 10, 60000L);
+    buffer.add("t1", newPut("r1"));
+    buffer.add("t1", newPut("r2"));
+    waitFor(this.factory.batches, 1);
+    assertEquals(1, this.factory.batches.size());
+    assertEquals(2, this.factory.batches.get(0).size());
+
+    buffer.add("t1", newPut("r3"));
+    assertEquals(1, buffer.getPendingCount());
+    buffer.flush();
+    assertEquals(2, this.factory.batches.size());
+    assertEquals(0, buffer.getPendingCount());
+    assertEquals(3, buffer.getMutationCount());
+    assertEquals(2, buffer.getFlushCount());
+  }
+
+  @Test
+  public void testAdd_flushedByInterval() throws InterruptedException {
+    WriteBuffer buffer = newBuffer(100, 1000, 100L);
+    buffer.add("t1", newPut("r1"));
+    buffer.add("t2", newPut("r2"));
+    waitFor(this.factory.batches, 2);
+    assertEquals(2, this.factory.batches.size());
+    assertEquals(0, buffer.getPendingCount());
+  }
+
+  @Test
+  public void testIncrement_summed() {
+    WriteBuffer buffer = newBuffer(100, 1000, 60000L);
+    byte[] row = Bytes.toBytes("r1");
+    buffer.increment("t1", row, FAMILY, QUALIFIER, 1L);
+    buffer.increment("t1", Bytes.toBytes("r1"), FAMILY, QUALIFIER, 2L);
+    buffer.increment("t1", row, FAMILY, Bytes.toBytes("edgeCount-->knows"), -1L);
+    buffer.flush();
+    assertEquals(0, this.factory.batches.size());
+    assertEquals(1, this.factory.increments.size());
+    Increment increment = this.factory.increments.get(0);
+    assertEquals(3L, increment.getFamilyMap().get(FAMILY).get(QUALIFIER).longValue());
+    assertEquals(-1L,
+      increment.getFamilyMap().get(FAMILY).get(Bytes.toBytes("edgeCount-->knows")).longValue());
+  }
+
+  @Test
+  public void testAdd_blockedWhenFull() throws InterruptedException {
+    final WriteBuffer buffer = newBuffer(2, 2, 60000L);
+    this.factory.blocker = new CountDownLatch(1);
+    buffer.add("t1", newPut("r1"));
+    buffer.add("t1", newPut("r2"));
+    Thread writer = new Thread() {
+      @Override
+      public void run() {
+        buffer.add("t1", newPut("r3"));
+      }
+    };
+    writer.start();
+    writer.join(300L);
+    assertTrue(writer.isAlive());
+    assertEquals(2, buffer.getPendingCount());
+
+    this.factory.blocker.countDown();
+    writer.join(5000L);
+    assertTrue(!writer.isAlive());
+    buffer.flush();
+    assertEquals(0, buffer.getPendingCount());
+    assertEquals(2, this.factory.batches.size());
+  }
+
+  @Test
+  public void testFlush_failed() {
+    WriteBuffer buffer = newBuffer(100, 1000, 60000L);
+    this.factory.failed = true;
+    buffer.add("t1", newPut("r1"));
+    try {
+      buffer.flush();
+      fail("flush shall fail");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+    assertEquals(1, buffer.getFailedCount());
+    assertEquals(0, buffer.getPendingCount());
+
+    // the failed batch is dropped
+    this.factory.failed = false;
+    buffer.flush();
+    assertEquals(0, this.factory.batches.size());
+  }
+
+  @Test
+  public void testAdd_backgroundFailureReported() throws InterruptedException {
+    WriteBuffer buffer = newBuffer(1, 10, 60000L);
+    this.factory.failed = true;
+    buffer.add("t1", newPut("r1"));
+    for (int a = 0; a < 100 && buffer.getFailedCount() == 0; a++) {
+      TimeUnit.MILLISECONDS.sleep(50L);
+    }
+    try {
+      buffer.add("t1", newPut("r2"));
+      fail("the background failure shall be reported");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+    this.factory.failed = false;
+    buffer.add("t1", newPut("r2"));
+    buffer.flush();
+  }
+
+  @Test
+  public void testAdd_conflictFlushedFirst() {
+    WriteBuffer buffer = newBuffer(100, 1000, 60000L);
+    byte[] family = Bytes.toBytes("property");
+    buffer.add("t1", newPut("r1"));
+    Put put = new Put(Bytes.toBytes("r1"));
+    put.add(family, Bytes.toBytes("risk@Integer"), Bytes.toBytes(1));
+    buffer.add("t1", put);
+    // a delete of other column of a pending row
+    Delete delete = new Delete(Bytes.toBytes("r1"));
+    delete.deleteColumns(family, Bytes.toBytes("risk@String"));
+    buffer.add("t1", delete);
+    assertEquals(0, this.factory.batches.size());
+
+    delete = new Delete(Bytes.toBytes("r1"));
+    delete.deleteColumns(family, Bytes.toBytes("risk@Integer"));
+    buffer.add("t1", delete);
+    assertEquals(1, this.factory.batches.size());
+    assertEquals(3, this.factory.batches.get(0).size());
+
+    // two deletes do not conflict, a put after a row delete does
+    buffer.add("t1", new Delete(Bytes.toBytes("r1")));
+    assertEquals(1, this.factory.batches.size());
+    buffer.add("t1", newPut("r1"));
+    assertEquals(2, this.factory.batches.size());
+    assertEquals(2, this.factory.batches.get(1).size());
+    buffer.flush();
+    assertEquals(3, this.factory.batches.size());
+  }
+
+  @Test
+  public void testConflicts() {
+    byte[] row = Bytes.toBytes("r1");
+    byte[] family = Bytes.toBytes("property");
+    Put put1 = new Put(row);
+    put1.add(family, Bytes.toBytes("name@String"), Bytes.toBytes("a"));
+    Put put2 = new Put(row);
+    put2.add(family, Bytes.toBytes("name@String"), Bytes.toBytes("b"));
+    assertTrue(WriteBuffer.conflicts(put1, put2));
+    Put put3 = new Put(row);
+    put3.add(family, Bytes.toBytes("risk@Integer"), Bytes.toBytes(1));
+    assertFalse(WriteBuffer.conflicts(put1, put3));
+
+    Delete delete = new Delete(row);
+    delete.deleteFamily(family);
+    assertTrue(WriteBuffer.conflicts(put1, delete));
+    assertTrue(WriteBuffer.conflicts(new Delete(row), put1));
+    assertFalse(WriteBuffer.conflicts(new Delete(row), delete));
+  }
+
+  @Test
+  public void testListener() {
+    WriteBuffer buffer = newBuffer(100, 1000, 60000L);
+    final List<String> rows = new CopyOnWriteArrayList<String>();
+    buffer.setListener(new WriteBuffer.Listener() {
+      @Override
+      public void flushed(String tableName, Collection<byte[]> keys) {
+        for (byte[] key : keys) {
+          rows.add(tableName + ":" + Bytes.toString(key));
+        }
+      }
+    });
+    buffer.add("t1", newPut("r1"));
+    buffer.increment("t1", Bytes.toBytes("r2"), FAMILY, QUALIFIER, 1L);
+    assertEquals(0, rows.size());
+    buffer.flush();
+    assertEquals(Arrays.asList("t1:r1", "t1:r2"), rows);
+  }
+
+  @Test
+  public void testIncrement_guarded() {
+    WriteBuffer buffer = newBuffer(100, 1000, 60000L);
+    buffer.setCounterGuard("t1", FAMILY, QUALIFIER);
+    this.factory.guarded.add("r1");
+    buffer.increment("t1", Bytes.toBytes("r1"), FAMILY, QUALIFIER, 1L);
+    buffer.increment("t1", Bytes.toBytes("r2"), FAMILY, QUALIFIER, 1L);
+    // no guard on t2
+    buffer.increment("t2", Bytes.toBytes("r3"), FAMILY, QUALIFIER, 1L);
+    buffer.flush();
+    assertEquals(2, this.factory.increments.size());
+    for (Increment increment : this.factory.increments) {
+      assertFalse("r2".equals(Bytes.toString(increment.getRow())));
+    }
+  }
+
+  @Test
+  public void testClose() {
+    WriteBuffer buffer = newBuffer(100, 1000, 60000L);
+    buffer.add("t1", newPut("r1"));
+    buffer.close();
+    assertEquals(1, this.factory.batches.size());
+    buffer.close();
+    try {
+      buffer.add("t1", newPut("r2"));
+      fail("closed buffer shall not accept writes");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.count;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.util.Tool;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trend.hgraph.AbstractHBaseGraphTest;
+import org.trend.hgraph.Graph;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.HBaseGraphFactory;
+import org.trend.hgraph.Vertex;
+
+public class CalculateEdgeCountsTest extends AbstractHBaseGraphTest {
+
+  private Graph graph = null;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+    HBaseAdmin admin = new HBaseAdmin(TEST_UTIL.getConfiguration());
+    admin.disableTable("test.vertex");
+    admin.addColumn("test.vertex",
+      new HColumnDescriptor(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME));
+    admin.enableTable("test.vertex");
+    admin.close();
+
+    Tool tool = new CalculateEdgeCounts(TEST_UTIL.getConfiguration());
+    int status = tool.run(new String[] { "test.edge", "test.vertex" });
+    assertEquals(0, status);
+    printTable("test.vertex");
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    this.graph = HBaseGraphFactory.open(TEST_UTIL.getConfiguration());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    this.graph.shutdown();
+  }
+
+  @Test
+  public void testGetEdgeCount() {
+    Vertex vertex = this.graph.getVertex("40012");
+    assertNotNull(vertex);
+    assertEquals(3, vertex.getEdgeCount());
+    assertEquals(2, vertex.getEdgeCount("knows"));
+    assertEquals(1, vertex.getEdgeCount("created"));
+    assertEquals(0, vertex.getEdgeCount("foo"));
+    // counters are not properties
+    assertEquals(2, vertex.getPropertyCount());
+  }
+
+  @Test
+  public void testGetEdgeCount_noEdges() {
+    Vertex vertex = this.graph.getVertex("40004");
+    assertNotNull(vertex);
+    assertEquals(0, vertex.getEdgeCount());
+    assertEquals(0, vertex.getEdgeCount("knows"));
+  }
+
+  @Test
+  public void testRun_afterVertexRemoved() throws Exception {
+    // a writer not maintaining the counters, e.g. RemoveVertices
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_COUNTS_ENABLED_KEY, false);
+    Graph writer = HBaseGraphFactory.open(conf);
+    Tool tool = new CalculateEdgeCounts(TEST_UTIL.getConfiguration());
+    try {
+      Vertex v1 = writer.addVertex("removal-1");
+      Vertex v2 = writer.addVertex("removal-2");
+      Vertex v3 = writer.addVertex("removal-3");
+      writer.addEdge(null, v1, v2, "knows");
+      writer.addEdge(null, v1, v3, "created");
+      writer.addEdge(null, v2, v3, "knows");
+      writer.flush();
+      assertEquals(0, tool.run(new String[] { "test.edge", "test.vertex" }));
+      assertEquals(2, this.graph.getVertex("removal-1").getEdgeCount());
+
+      writer.removeVertex(writer.getVertex("removal-3"));
+      writer.flush();
+      assertEquals(0, tool.run(new String[] { "test.edge", "test.vertex" }));
+    } finally {
+      writer.shutdown();
+    }
+
+    Vertex vertex = this.graph.getVertex("removal-1");
+    assertEquals(1, vertex.getEdgeCount());
+    assertEquals(1, vertex.getEdgeCount("knows"));
+    assertEquals(0, vertex.getEdgeCount("created"));
+    vertex = this.graph.getVertex("removal-2");
+    assertEquals(0, vertex.getEdgeCount());
+    assertEquals(0, vertex.getEdgeCount("knows"));
+  }
+
+  @Test
+  public void testIncrementEdgeCount() {
+    this.graph.incrementEdgeCount("40024", "knows", 1L);
+    Vertex vertex = this.graph.getVertex("40024");
+    assertNotNull(vertex);
+    assertEquals(3, vertex.getEdgeCount());
+    assertEquals(1, vertex.getEdgeCount("knows"));
+    assertEquals(2, vertex.getEdgeCount("created"));
+    this.graph.incrementEdgeCount("40024", "knows", -1L);
+  }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.Tool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trend.hgraph.AbstractHBaseGraphTest;
+import org.trend.hgraph.Graph;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.HBaseGraphFactory;
+import org.trend.hgraph.Traversal;
+import org.trend.hgraph.Vertex;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+
+public class BuildAdjacencyIndexTest extends AbstractHBaseGraphTest {
+
+  private static final String TABLE = "test.vertex.adjacency";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+    importData(
+        new String[] {
+            "-Dimporttsv.columns=HBASE_ROW_KEY,property:name@String,property:lang@String,property:age@String",
+            "-Dimporttsv.separator=|"},
+        TABLE,
+        new String[] {HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME,
+            HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME},
+        "org/trend/hgraph/vertex-test.data");
+    Tool tool = new BuildAdjacencyIndex(TEST_UTIL.getConfiguration());
+    int status = tool.run(new String[] { "test.edge", TABLE });
+    assertEquals(0, status);
+    printTable(TABLE);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  private static Graph openGraph() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, TABLE);
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, true);
+    return HBaseGraphFactory.open(conf);
+  }
+
+  @Test
+  public void testGetEdgesDirectionOut() {
+    Graph graph = openGraph();
+    try {
+      assertTrue(graph.isAdjacencyEnabled());
+      Vertex vertex = graph.getVertex("40012");
+      assertNotNull(vertex);
+      assertEquals(3, vertex.getEdgeCount());
+      assertEquals(2, vertex.getEdgeCount("knows"));
+
+      int count = 0;
+      for (Edge edge : vertex.getEdges(Direction.OUT, "knows")) {
+        assertEquals("knows", edge.getLabel());
+        assertEquals("40012", edge.getVertex(Direction.IN).getId());
+        assertEquals(graph.getEdge(edge.getId()).getProperty("weight"),
+          edge.getProperty("weight"));
+        count++;
+      }
+      assertEquals(2, count);
+
+      Set<Object> ids = new HashSet<Object>();
+      for (com.tinkerpop.blueprints.Vertex v : vertex.getVertices(Direction.OUT)) {
+        ids.add(v.getId());
+      }
+      assertEquals(3, ids.size());
+      assertEquals(1, vertex.query().direction(Direction.OUT).has("weight", "0.4").count());
+      assertEquals(0, graph.getOpenScannerCount());
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testTraverse() {
+    Graph graph = openGraph();
+    try {
+      Traversal traversal = new Traversal(graph);
+      traversal.setMaxDepth(2);
+      final Set<String> visited = new HashSet<String>();
+      long count = traversal.traverse(new Traversal.Visitor() {
+        @Override
+        public boolean visitVertex(String id, Vertex vertex, int depth) {
+          visited.add(id);
+          return true;
+        }
+
+        @Override
+        public boolean visitEdge(String id, int depth) {
+          return true;
+        }
+      }, "40012");
+      assertEquals(5, count);
+      assertTrue(visited.contains("40020"));
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+}
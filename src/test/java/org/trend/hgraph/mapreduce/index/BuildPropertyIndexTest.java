@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.util.Tool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trend.hgraph.AbstractHBaseGraphTest;
+import org.trend.hgraph.Graph;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.HBaseGraphFactory;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+
+public class BuildPropertyIndexTest extends AbstractHBaseGraphTest {
+
+  private static final String VERTEX_INDEX_TABLE = "test.vertex.index";
+  private static final String EDGE_INDEX_TABLE = "test.edge.index";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+    byte[][] families =
+        new byte[][] { Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_INDEX_NAME) };
+    createTable(TEST_UTIL.getConfiguration(), Bytes.toBytes(VERTEX_INDEX_TABLE), families);
+    createTable(TEST_UTIL.getConfiguration(), Bytes.toBytes(EDGE_INDEX_TABLE), families);
+    Tool tool = new BuildPropertyIndex(TEST_UTIL.getConfiguration());
+    int status = tool.run(new String[] { "test.vertex", VERTEX_INDEX_TABLE, "name,lang" });
+    assertEquals(0, status);
+    printTable(VERTEX_INDEX_TABLE);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  private static Graph openGraph() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_INDEX_NAME_KEY, VERTEX_INDEX_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_INDEX_NAME_KEY, EDGE_INDEX_TABLE);
+    return HBaseGraphFactory.open(conf);
+  }
+
+  private static int count(Iterable<? extends Element> elements) {
+    int count = 0;
+    for (@SuppressWarnings("unused") Element element : elements) {
+      count++;
+    }
+    return count;
+  }
+
+  @Test
+  public void testGetVertices() {
+    Graph graph = openGraph();
+    try {
+      assertEquals(new HashSet<String>(Arrays.asList("name", "lang")),
+        graph.getIndexedKeys(Vertex.class));
+      assertEquals(2, count(graph.getVertices("lang", "java")));
+      for (Vertex vertex : graph.getVertices("name", "marko")) {
+        assertEquals("40012", vertex.getId());
+      }
+      assertEquals(1, count(graph.getVertices("name", "marko")));
+      assertEquals(0, count(graph.getVertices("name", "foo")));
+      assertEquals(0, graph.getOpenScannerCount());
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testCreateAndDropKeyIndex() {
+    Graph graph = openGraph();
+    try {
+      assertTrue(graph.getIndexedKeys(Edge.class).isEmpty());
+      graph.createKeyIndex("weight", Edge.class);
+      assertEquals(new HashSet<String>(Arrays.asList("weight")), graph.getIndexedKeys(Edge.class));
+      assertEquals(2, count(graph.getEdges("weight", "0.4")));
+      assertEquals(0, count(graph.getEdges("weight", "0.3")));
+
+      graph.dropKeyIndex("weight", Edge.class);
+      assertTrue(graph.getIndexedKeys(Edge.class).isEmpty());
+      // back to the full scan
+      assertEquals(2, count(graph.getEdges("weight", "0.4")));
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.util.Tool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trend.hgraph.AbstractHBaseGraphTest;
+import org.trend.hgraph.Graph;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.HBaseGraphFactory;
+import org.trend.hgraph.Vertex;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+
+public class BuildReverseEdgeIndexTest extends AbstractHBaseGraphTest {
+
+  private static final String TABLE = "test.edge.reverse";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+    createTable(TEST_UTIL.getConfiguration(), Bytes.toBytes(TABLE),
+      new byte[][] { Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME) });
+    Tool tool = new BuildReverseEdgeIndex(TEST_UTIL.getConfiguration());
+    int status = tool.run(new String[] { "test.edge", TABLE });
+    assertEquals(0, status);
+    printTable(TABLE);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  private static Graph openGraph() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY, TABLE);
+    return HBaseGraphFactory.open(conf);
+  }
+
+  @Test
+  public void testGetEdgesDirectionIn() {
+    Graph graph = openGraph();
+    try {
+      Vertex vertex = graph.getVertex("40004");
+      assertNotNull(vertex);
+      int count = 0;
+      for (Edge edge : vertex.getEdges(Direction.IN, "created")) {
+        assertEquals("created", edge.getLabel());
+        assertEquals("40004", edge.getVertex(Direction.OUT).getId());
+        assertNotNull(graph.getEdge(edge.getId()));
+        count++;
+      }
+      assertEquals(3, count);
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetEdgesDirectionBoth() {
+    Graph graph = openGraph();
+    try {
+      Vertex vertex = graph.getVertex("40024");
+      assertNotNull(vertex);
+      int count = 0;
+      for (Edge edge : vertex.getEdges(Direction.BOTH, "knows", "created")) {
+        assertNotNull(edge);
+        count++;
+      }
+      // 40024-->created-->40020, 40024-->created-->40004, 40012-->knows-->40024
+      assertEquals(3, count);
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetVerticesDirectionIn() {
+    Graph graph = openGraph();
+    try {
+      Vertex vertex = graph.getVertex("40004");
+      assertNotNull(vertex);
+      int count = 0;
+      for (com.tinkerpop.blueprints.Vertex v : vertex.getVertices(Direction.IN)) {
+        assertNotNull(v);
+        count++;
+      }
+      // 40012, 40016 and 40024
+      assertEquals(3, count);
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+}
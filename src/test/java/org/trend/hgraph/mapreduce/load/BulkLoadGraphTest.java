@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.util.Tool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trend.hgraph.Adjacency;
+import org.trend.hgraph.Edge;
+import org.trend.hgraph.Graph;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.HBaseGraphFactory;
+import org.trend.hgraph.RowKeySalt;
+import org.trend.hgraph.Vertex;
+import org.trend.hgraph.mapreduce.load.BulkLoadGraph.RecordType;
+import org.trend.hgraph.test.AbstractHBaseMiniClusterTest;
+
+import com.tinkerpop.blueprints.Direction;
+
+public class BulkLoadGraphTest extends AbstractHBaseMiniClusterTest {
+
+  private static final String INPUT_FILE = "org/trend/hgraph/mapreduce/load/graph-bulkload.data";
+  private static final String VERTEX_TABLE = "test.load.vertex";
+  private static final String EDGE_TABLE = "test.load.edge";
+  private static final String EDGE_REVERSE_TABLE = "test.load.edge.reverse";
+
+  private static final byte[] PROPERTY_FAMILY =
+      Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseMiniClusterTest.setUpBeforeClass();
+    Configuration conf = TEST_UTIL.getConfiguration();
+    byte[][] families = new byte[][] { PROPERTY_FAMILY };
+    createTable(conf, Bytes.toBytes(VERTEX_TABLE), families);
+    createTable(conf, Bytes.toBytes(EDGE_TABLE), families);
+    createTable(conf, Bytes.toBytes(EDGE_REVERSE_TABLE), families);
+
+    InputStream ips = ClassLoader.getSystemResourceAsStream(INPUT_FILE);
+    assertNotNull(ips);
+    FSDataOutputStream op = FileSystem.get(conf).create(new Path(INPUT_FILE), true);
+    IOUtils.write(IOUtils.toString(ips), op, HConstants.UTF8_ENCODING);
+    IOUtils.closeQuietly(op);
+    IOUtils.closeQuietly(ips);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseMiniClusterTest.tearDownAfterClass();
+  }
+
+  @Test
+  public void testToPut() {
+    RowKeySalt salt = RowKeySalt.create(new Configuration(false));
+    String[] vertex = new String[] { "V", "m01", "name=trojan", "risk@Integer=5" };
+    Put put = BulkLoadGraph.toPut(vertex, RecordType.VERTEX, salt);
+    assertEquals("m01", Bytes.toString(put.getRow()));
+    assertTrue(put.has(PROPERTY_FAMILY, Bytes.toBytes("name@String")));
+    assertTrue(put.has(PROPERTY_FAMILY, Bytes.toBytes("risk@Integer")));
+    assertNull(BulkLoadGraph.toPut(vertex, RecordType.EDGE, salt));
+
+    String[] edge = new String[] { "E", "m01", "infect", "h01" };
+    assertNull(BulkLoadGraph.toPut(edge, RecordType.VERTEX, salt));
+    put = BulkLoadGraph.toPut(edge, RecordType.EDGE, salt);
+    assertEquals("m01-->infect-->h01", Bytes.toString(put.getRow()));
+    // the marker cell of a record without properties
+    assertTrue(put.has(PROPERTY_FAMILY, HConstants.EMPTY_BYTE_ARRAY));
+    put = BulkLoadGraph.toPut(edge, RecordType.REVERSE_EDGE, salt);
+    assertEquals("h01<--infect<--m01", Bytes.toString(put.getRow()));
+  }
+
+  @Test
+  public void testToAdjacencyPut() {
+    RowKeySalt salt = RowKeySalt.create(new Configuration(false));
+    assertNull(BulkLoadGraph.toAdjacencyPut(new String[] { "V", "m01" }, salt));
+    Put put = BulkLoadGraph.toAdjacencyPut(
+      new String[] { "E", "m01", "infect", "h01", "weight@Double=0.75" }, salt);
+    assertEquals("m01", Bytes.toString(put.getRow()));
+    assertTrue(put.has(Adjacency.FAMILY, Bytes.toBytes("infect-->h01")));
+    Result edge = Adjacency.unpack(Bytes.toBytes("m01-->infect-->h01"),
+      put.get(Adjacency.FAMILY, Bytes.toBytes("infect-->h01")).get(0).getValue());
+    assertEquals(0.75D,
+      Bytes.toDouble(edge.getValue(PROPERTY_FAMILY, Bytes.toBytes("weight@Double"))), 0.0D);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToPut_invalidValue() {
+    BulkLoadGraph.toPut(new String[] { "V", "m03", "risk@Integer=high" }, RecordType.VERTEX,
+      RowKeySalt.create(new Configuration(false)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToPut_invalidId() {
+    BulkLoadGraph.toPut(new String[] { "E", "m01", "in-->fect", "h01" }, RecordType.EDGE,
+      RowKeySalt.create(new Configuration(false)));
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    Tool tool = new BulkLoadGraph(conf);
+    int status = tool.run(new String[] { INPUT_FILE, "test.load.output", VERTEX_TABLE,
+        EDGE_TABLE, EDGE_REVERSE_TABLE });
+    assertEquals(0, status);
+    printTable(VERTEX_TABLE);
+    printTable(EDGE_TABLE);
+
+    Configuration graphConf = new Configuration(conf);
+    graphConf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, VERTEX_TABLE);
+    graphConf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY, EDGE_TABLE);
+    graphConf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY, EDGE_REVERSE_TABLE);
+    Graph graph = HBaseGraphFactory.open(graphConf);
+    try {
+      Vertex vertex = graph.getVertex("m01");
+      assertNotNull(vertex);
+      assertEquals("trojan", vertex.getProperty("name"));
+      assertEquals(Integer.valueOf(5), vertex.getProperty("risk"));
+      assertEquals(0.5D, graph.getVertex("m02").getProperty("score"));
+      assertEquals(0L, graph.getVertex("h01").getPropertyCount());
+      // invalid records are skipped
+      assertNull(graph.getVertex("m03"));
+      assertNull(graph.getVertex("bad"));
+
+      Edge edge = graph.getEdge("m01-->infect-->h01");
+      assertNotNull(edge);
+      assertEquals(0.75D, edge.getProperty("weight"));
+      assertEquals(Boolean.TRUE, graph.getEdge("m01-->drop-->m02").getProperty("seen"));
+      assertEquals(2L, vertex.getEdgeCount());
+
+      int count = 0;
+      for (com.tinkerpop.blueprints.Edge e : graph.getVertex("h01").getEdges(Direction.IN,
+        "infect")) {
+        assertNotNull(e);
+        count++;
+      }
+      assertEquals(2, count);
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.remove;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.util.Tool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trend.hgraph.Graph;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.HBaseGraphFactory;
+import org.trend.hgraph.Vertex;
+import org.trend.hgraph.test.AbstractHBaseMiniClusterTest;
+
+import com.tinkerpop.blueprints.Direction;
+
+public class RemoveVerticesTest extends AbstractHBaseMiniClusterTest {
+
+  private static final String ID_FILE = "org/trend/hgraph/mapreduce/remove/vertex-ids.data";
+  private static final String VERTEX_TABLE = "test.remove.vertex";
+  private static final String EDGE_TABLE = "test.remove.edge";
+  private static final String EDGE_REVERSE_TABLE = "test.remove.edge.reverse";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseMiniClusterTest.setUpBeforeClass();
+    Configuration conf = TEST_UTIL.getConfiguration();
+    createTable(conf, Bytes.toBytes(VERTEX_TABLE), transfer2BytesArray(new String[] {
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME,
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME }));
+    createTable(conf, Bytes.toBytes(EDGE_TABLE), transfer2BytesArray(new String[] {
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME }));
+    createTable(conf, Bytes.toBytes(EDGE_REVERSE_TABLE), transfer2BytesArray(new String[] {
+        HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME }));
+
+    FSDataOutputStream op = FileSystem.get(conf).create(new Path(ID_FILE), true);
+    IOUtils.write("r1\n\n r2 \n", op, HConstants.UTF8_ENCODING);
+    IOUtils.closeQuietly(op);
+
+    Graph graph = openGraph();
+    try {
+      Vertex r1 = graph.addVertex("r1");
+      Vertex r2 = graph.addVertex("r2");
+      Vertex r3 = graph.addVertex("r3");
+      Vertex r4 = graph.addVertex("r4");
+      r1.setProperty("name", "adware");
+      graph.addEdge(null, r1, r2, "knows");
+      graph.addEdge(null, r3, r1, "knows");
+      graph.addEdge(null, r3, r4, "knows");
+      graph.addEdge(null, r4, r2, "created");
+      graph.flush();
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseMiniClusterTest.tearDownAfterClass();
+  }
+
+  private static Graph openGraph() {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_VERTEX_NAME_KEY, VERTEX_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_NAME_KEY, EDGE_TABLE);
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_EDGE_REVERSE_NAME_KEY, EDGE_REVERSE_TABLE);
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, true);
+    return HBaseGraphFactory.open(conf);
+  }
+
+  @Test
+  public void testReadIds() throws Exception {
+    assertEquals(new HashSet<String>(Arrays.asList("r1", "r2")),
+      RemoveVertices.readIds(TEST_UTIL.getConfiguration(), new Path(ID_FILE)));
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(HBaseGraphConstants.HBASE_GRAPH_TABLE_ADJACENCY_ENABLED_KEY, true);
+    Tool tool = new RemoveVertices(conf);
+    int status =
+        tool.run(new String[] { ID_FILE, VERTEX_TABLE, EDGE_TABLE, EDGE_REVERSE_TABLE });
+    assertEquals(0, status);
+    printTable(VERTEX_TABLE);
+    printTable(EDGE_TABLE);
+
+    Graph graph = openGraph();
+    try {
+      assertNull(graph.getVertex("r1"));
+      assertNull(graph.getVertex("r2"));
+      assertFalse(graph.containsEdge("r1-->knows-->r2"));
+      assertFalse(graph.containsEdge("r3-->knows-->r1"));
+      assertFalse(graph.containsEdge("r4-->created-->r2"));
+      assertTrue(graph.containsEdge("r3-->knows-->r4"));
+      // read from the adjacency columns
+      assertEquals(1, size(graph.getVertex("r3").getEdges(Direction.OUT)));
+      assertEquals(0, size(graph.getVertex("r4").getEdges(Direction.OUT)));
+      assertEquals(1, size(graph.getVertex("r4").getEdges(Direction.IN)));
+    } finally {
+      graph.shutdown();
+    }
+  }
+
+  private static int size(Iterable<?> it) {
+    int count = 0;
+    for (@SuppressWarnings("unused") Object o : it) {
+      count++;
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trend.hgraph.mapreduce.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.util.Tool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trend.hgraph.AbstractHBaseGraphTest;
+import org.trend.hgraph.HBaseGraphConstants;
+import org.trend.hgraph.IdLookup;
+import org.trend.hgraph.LabelDictionary;
+import org.trend.hgraph.RowKeyCodec;
+
+public class ConvertToRowKeyV2Test extends AbstractHBaseGraphTest {
+
+  private static final String VERTEX_TABLE = "test.vertex.v2";
+  private static final String EDGE_TABLE = "test.edge.v2";
+  private static final String REVERSE_EDGE_TABLE = "test.edge.reverse.v2";
+  private static final String ID_TABLE = "test.id";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    AbstractHBaseGraphTest.setUpBeforeClass();
+    Configuration conf = TEST_UTIL.getConfiguration();
+    byte[][] families =
+        new byte[][] { Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME) };
+    createTable(conf, Bytes.toBytes(VERTEX_TABLE), families);
+    createTable(conf, Bytes.toBytes(EDGE_TABLE), families);
+    createTable(conf, Bytes.toBytes(REVERSE_EDGE_TABLE), families);
+    createTable(conf, Bytes.toBytes(ID_TABLE),
+      new byte[][] { Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ID_NAME) });
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    AbstractHBaseGraphTest.tearDownAfterClass();
+  }
+
+  private static int run(String labels) throws Exception {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY, labels);
+    Tool tool = new ConvertToRowKeyV2(conf);
+    return tool.run(new String[] { "test.vertex", "test.edge", VERTEX_TABLE, EDGE_TABLE,
+        ID_TABLE, REVERSE_EDGE_TABLE });
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    assertEquals(0, run("created,knows"));
+    assertEquals(6, printTable(VERTEX_TABLE));
+    assertEquals(6, printTable(EDGE_TABLE));
+    assertEquals(6, printTable(REVERSE_EDGE_TABLE));
+    assertEquals(6, printTable(ID_TABLE));
+
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_ROWKEY_V2_LABELS_KEY, "created,knows");
+    LabelDictionary labels = LabelDictionary.create(conf);
+    byte[] edgeKey = RowKeyCodec.toEdgeKey("40012", labels.getCode("knows"), "40024");
+    HTable table = new HTable(conf, EDGE_TABLE);
+    try {
+      Result r = table.get(new Get(edgeKey));
+      assertEquals("1.0", Bytes.toString(r.getValue(
+        Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME),
+        Bytes.toBytes("weight@String"))));
+    } finally {
+      table.close();
+    }
+    table = new HTable(conf, REVERSE_EDGE_TABLE);
+    try {
+      Result r = table.get(new Get(RowKeyCodec.reverse(edgeKey)));
+      assertEquals("1.0", Bytes.toString(r.getValue(
+        Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME),
+        Bytes.toBytes("weight@String"))));
+    } finally {
+      table.close();
+    }
+
+    conf.set(HBaseGraphConstants.HBASE_GRAPH_TABLE_ID_NAME_KEY, ID_TABLE);
+    IdLookup lookup = new IdLookup(conf);
+    try {
+      assertEquals("knows", labels.getLabel(RowKeyCodec.getLabelCode(edgeKey)));
+      assertEquals("40012", lookup.getId(RowKeyCodec.getSourceKey(edgeKey)));
+      List<String> ids = lookup.getIds(Arrays.asList(RowKeyCodec.getTargetKey(edgeKey),
+        RowKeyCodec.toVertexKey("99999")));
+      assertEquals("40024", ids.get(0));
+      assertNull(ids.get(1));
+    } finally {
+      lookup.close();
+    }
+  }
+
+  @Test
+  public void testCopy_skipsV1Families() {
+    byte[] row = Bytes.toBytes("40012");
+    byte[] property = Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_PROPERTY_NAME);
+    byte[] adjacency = Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_ADJACENCY_NAME);
+    byte[] count = Bytes.toBytes(HBaseGraphConstants.HBASE_GRAPH_TABLE_COLFAM_COUNT_NAME);
+    byte[] rowkey = RowKeyCodec.toVertexKey("40012");
+    Result r = new Result(new KeyValue[] {
+        new KeyValue(row, adjacency, Bytes.toBytes("knows-->40024"), new byte[0]),
+        new KeyValue(row, count, Bytes.toBytes("edgeCount"), Bytes.toBytes(1L)),
+        new KeyValue(row, property, Bytes.toBytes("name@String"), Bytes.toBytes("malware")) });
+    Put put = ConvertToRowKeyV2.copy(rowkey, r);
+    assertNotNull(put);
+    assertEquals(1, put.size());
+    assertTrue(put.has(property, Bytes.toBytes("name@String")));
+
+    r = new Result(new KeyValue[] {
+        new KeyValue(row, count, Bytes.toBytes("edgeCount"), Bytes.toBytes(1L)) });
+    assertNull(ConvertToRowKeyV2.copy(rowkey, r));
+  }
+
+  @Test
+  public void testRun_unknownLabels() throws Exception {
+    assertEquals(-1, run("created"));
+    assertTrue(printTable(EDGE_TABLE) >= 3);
+  }
+
+}